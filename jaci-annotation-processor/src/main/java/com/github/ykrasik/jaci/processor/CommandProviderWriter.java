@@ -0,0 +1,731 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.processor;
+
+import com.github.ykrasik.jaci.api.BoolParam;
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.CommandPath;
+import com.github.ykrasik.jaci.api.DoubleParam;
+import com.github.ykrasik.jaci.api.EnumParam;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.api.StringParam;
+import com.github.ykrasik.jaci.api.ToggleCommand;
+import com.github.ykrasik.jaci.api.ToggleCommandStateAccessor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the {@link com.github.ykrasik.jaci.hierarchy.CommandDefProvider} source of a single processed class.<br>
+ * Mirrors the rules of {@link com.github.ykrasik.jaci.reflection.ReflectionClassProcessor}: public methods (including
+ * inherited ones) annotated with {@link Command} or {@link ToggleCommand} become commands, the first declared
+ * {@link CommandOutput} field is injected, and inner (non-static) classes with a no-args constructor are processed
+ * under the path of their outer class.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CommandProviderWriter {
+    /** Appended to the (flattened) class name to create the name of the generated provider. */
+    public static final String SUFFIX = "_JaciCommands";
+
+    private final ProcessingEnvironment env;
+    private final Elements elements;
+    private final Types types;
+
+    public CommandProviderWriter(ProcessingEnvironment env) {
+        this.env = Objects.requireNonNull(env, "env");
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+    }
+
+    /**
+     * Generate the provider for the given class.
+     *
+     * @param clazz Class to generate a provider for.
+     * @throws ProcessingException If the class can't be processed.
+     * @throws IOException If the generated source couldn't be written.
+     */
+    public void write(TypeElement clazz) throws ProcessingException, IOException {
+        final String packageName = elements.getPackageOf(clazz).getQualifiedName().toString();
+        final String providerName = getProviderName(clazz);
+        final String source = new Generator(clazz, packageName, providerName).generate();
+
+        final String qualifiedName = packageName.isEmpty() ? providerName : packageName + '.' + providerName;
+        final JavaFileObject file = env.getFiler().createSourceFile(qualifiedName, clazz);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    /**
+     * @param clazz Processed class.
+     * @return The simple name of the provider generated for the class.
+     */
+    public static String getProviderName(TypeElement clazz) {
+        String name = clazz.getSimpleName().toString();
+        Element enclosing = clazz.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name = enclosing.getSimpleName() + "_" + name;
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name + SUFFIX;
+    }
+
+    /**
+     * Generates the source of a single provider.
+     */
+    private class Generator {
+        private final TypeElement clazz;
+        private final String packageName;
+        private final String providerName;
+
+        /** Each processed class gets its own 'process' method. */
+        private final List<SourceBuilder> processMethods = new ArrayList<>();
+
+        private Generator(TypeElement clazz, String packageName, String providerName) {
+            this.clazz = clazz;
+            this.packageName = packageName;
+            this.providerName = providerName;
+        }
+
+        public String generate() throws ProcessingException {
+            assertAccessible(clazz, clazz);
+            processClass(clazz);
+
+            final String className = getTypeName(clazz.asType());
+            final SourceBuilder sb = new SourceBuilder();
+            if (!packageName.isEmpty()) {
+                sb.line("package " + packageName + ';').line();
+            }
+            sb.line("import com.github.ykrasik.jaci.api.CommandOutput;");
+            sb.line("import com.github.ykrasik.jaci.command.CommandArgs;");
+            sb.line("import com.github.ykrasik.jaci.command.CommandDef;");
+            sb.line("import com.github.ykrasik.jaci.command.CommandExecutor;");
+            sb.line("import com.github.ykrasik.jaci.command.CommandOutputPromise;");
+            sb.line("import com.github.ykrasik.jaci.command.IncrementalTasks;");
+            sb.line("import com.github.ykrasik.jaci.command.toggle.ToggleCommandDefBuilder;");
+            sb.line("import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;");
+            sb.line("import com.github.ykrasik.jaci.param.BooleanParamDef;");
+            sb.line("import com.github.ykrasik.jaci.param.DoubleParamDef;");
+            sb.line("import com.github.ykrasik.jaci.param.EnumParamDef;");
+            sb.line("import com.github.ykrasik.jaci.param.IntParamDef;");
+            sb.line("import com.github.ykrasik.jaci.param.StringParamDef;");
+            sb.line("import com.github.ykrasik.jaci.path.ParsedPath;");
+            sb.line("import com.github.ykrasik.jaci.util.function.Spplr;");
+            sb.line();
+            sb.line("import java.util.ArrayList;");
+            sb.line("import java.util.Arrays;");
+            sb.line("import java.util.HashMap;");
+            sb.line("import java.util.List;");
+            sb.line("import java.util.Map;");
+            sb.line("import java.util.Objects;");
+            sb.line();
+            sb.line("/**");
+            sb.line(" * Creates the commands declared by {@link " + className + "} without reflection.");
+            sb.line(" * Generated by the Jaci annotation processor, do not edit.");
+            sb.line(" */");
+            sb.open("public final class " + providerName + " implements CommandDefProvider {");
+            sb.line("private final " + className + " instance;");
+            sb.line();
+            if (hasAccessibleNoArgsConstructor(clazz)) {
+                sb.open("public " + providerName + "() {");
+                sb.line("this(new " + className + "());");
+                sb.close("}");
+                sb.line();
+            }
+            sb.open("public " + providerName + '(' + className + " instance) {");
+            sb.line("this.instance = Objects.requireNonNull(instance, \"instance\");");
+            sb.close("}");
+            sb.line();
+            sb.line("@Override");
+            sb.open("public Map<ParsedPath, List<CommandDef>> getCommandDefs() {");
+            sb.line("// Will be injected into all processed instances, and set before any of their commands are executed.");
+            sb.line("final CommandOutputPromise outputPromise = new CommandOutputPromise();");
+            sb.line("final Map<ParsedPath, List<CommandDef>> commandDefs = new HashMap<>();");
+            sb.line("process0(instance, ParsedPath.root().append(" + getPath(clazz) + "), outputPromise, commandDefs);");
+            sb.line("return commandDefs;");
+            sb.close("}");
+            for (SourceBuilder processMethod : processMethods) {
+                sb.line();
+                sb.append(processMethod);
+            }
+            sb.line();
+            sb.open("private static void add(Map<ParsedPath, List<CommandDef>> commandDefs, ParsedPath path, CommandDef commandDef) {");
+            sb.line("List<CommandDef> commands = commandDefs.get(path);");
+            sb.open("if (commands == null) {");
+            sb.line("commands = new ArrayList<>();");
+            sb.line("commandDefs.put(path, commands);");
+            sb.close("}");
+            sb.line("commands.add(commandDef);");
+            sb.close("}");
+            sb.close("}");
+            return sb.toString();
+        }
+
+        /**
+         * Generate the 'process' method of the given class.
+         *
+         * @return Index of the generated method.
+         */
+        private int processClass(TypeElement type) throws ProcessingException {
+            final int index = processMethods.size();
+            final SourceBuilder sb = new SourceBuilder(1);
+            processMethods.add(sb);
+
+            final String typeName = getTypeName(type.asType());
+            sb.open("private static void process" + index + "(final " + typeName + " instance, final ParsedPath path, " +
+                    "final CommandOutputPromise outputPromise, final Map<ParsedPath, List<CommandDef>> commandDefs) {");
+
+            injectOutputPromise(sb, type);
+
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+                final Command command = method.getAnnotation(Command.class);
+                final ToggleCommand toggleCommand = method.getAnnotation(ToggleCommand.class);
+                if (command == null && toggleCommand == null) {
+                    continue;
+                }
+                if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+                    // Not processed through reflection either.
+                    env.getMessager().printMessage(Kind.WARNING, "Non-public command method is ignored.", method);
+                    continue;
+                }
+
+                sb.open("{");
+                if (command != null) {
+                    writeCommand(sb, type, method, command);
+                } else {
+                    writeToggleCommand(sb, type, method, toggleCommand);
+                }
+                sb.line("add(commandDefs, path.append(" + getPath(method) + "), builder.build());");
+                sb.close("}");
+            }
+
+            for (TypeElement innerClass : ElementFilter.typesIn(type.getEnclosedElements())) {
+                if (!isProcessedInnerClass(innerClass) || !hasCommands(innerClass)) {
+                    continue;
+                }
+                assertAccessible(innerClass, innerClass);
+                final int innerIndex = processClass(innerClass);
+                sb.line("process" + innerIndex + "(instance.new " + innerClass.getSimpleName() + "(), " +
+                        "path.append(" + getPath(innerClass) + "), outputPromise, commandDefs);");
+            }
+
+            sb.close("}");
+            return index;
+        }
+
+        private void injectOutputPromise(SourceBuilder sb, TypeElement type) throws ProcessingException {
+            final TypeMirror outputType = elements.getTypeElement(CommandOutput.class.getCanonicalName()).asType();
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!types.isSameType(field.asType(), outputType)) {
+                    continue;
+                }
+                if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)) {
+                    throw new ProcessingException("CommandOutput field must be non-private and non-final to be injected by generated code.", field);
+                }
+                sb.line(getReceiver(field) + '.' + field.getSimpleName() + " = outputPromise;");
+
+                // Only inject the first CommandOutput - class shouldn't have more then 1 anyway.
+                return;
+            }
+        }
+
+        private void writeCommand(SourceBuilder sb, TypeElement type, ExecutableElement method, Command annotation) throws ProcessingException {
+            final List<? extends VariableElement> params = method.getParameters();
+            final List<String> paramDefs = new ArrayList<>(params.size());
+            for (int i = 0; i < params.size(); i++) {
+                paramDefs.add(createParamDef(type, params.get(i), i));
+            }
+
+            final String name = getNonEmptyString(annotation.value(), method.getSimpleName().toString());
+            sb.open("final CommandDef.Builder builder = new CommandDef.Builder(" + literal(name) + ", new CommandExecutor() {");
+            sb.line("@Override");
+            sb.open("public void execute(CommandOutput output, CommandArgs args) throws Exception {");
+            // Commands may return an IncrementalTask, which is run once the method returns.
+            final boolean returnsTask = types.isAssignable(method.getReturnType(), toTypeMirror(IncrementalTask.class));
+            final String assignResult = returnsTask ? "result = " : "";
+            sb.line("final CommandOutput previous = outputPromise.bind(output);");
+            if (returnsTask) {
+                sb.line("final Object result;");
+            }
+            sb.open("try {");
+            if (params.isEmpty()) {
+                sb.line(assignResult + getReceiver(method) + '.' + method.getSimpleName() + "();");
+            } else {
+                sb.line("final List<Object> values = args.getArgs();");
+                final StringBuilder call = new StringBuilder(assignResult);
+                call.append(getReceiver(method)).append('.').append(method.getSimpleName()).append('(');
+                for (int i = 0; i < params.size(); i++) {
+                    if (i > 0) {
+                        call.append(", ");
+                    }
+                    call.append('(').append(getBoxedTypeName(params.get(i).asType())).append(") values.get(").append(i).append(')');
+                }
+                call.append(");");
+                sb.line(call.toString());
+            }
+            sb.reopen("} finally {");
+            sb.line("outputPromise.restore(previous);");
+            sb.close("}");
+            if (returnsTask) {
+                sb.line("IncrementalTasks.runIfTask(result, outputPromise, output);");
+            }
+            sb.close("}");
+            sb.close("});");
+
+            final String description = annotation.description().trim();
+            if (!description.isEmpty()) {
+                sb.line("builder.setDescription(" + literal(description) + ");");
+            }
+            if (annotation.timeout() != 0) {
+                sb.line("builder.setTimeout(" + annotation.timeout() + "L);");
+            }
+            for (String paramDef : paramDefs) {
+                sb.line("builder.addParam(" + paramDef + ");");
+            }
+        }
+
+        private void writeToggleCommand(SourceBuilder sb, TypeElement type, ExecutableElement method, ToggleCommand annotation) throws ProcessingException {
+            final TypeMirror accessorType = elements.getTypeElement(ToggleCommandStateAccessor.class.getCanonicalName()).asType();
+            if (!types.isSameType(method.getReturnType(), accessorType)) {
+                throw new ProcessingException("Toggle command method must return a value of type '" + accessorType + "'!", method);
+            }
+            if (!method.getParameters().isEmpty()) {
+                throw new ProcessingException("Toggle command method must take no parameters!", method);
+            }
+
+            final String name = getNonEmptyString(annotation.value(), method.getSimpleName().toString());
+            sb.line("final ToggleCommandDefBuilder builder = new ToggleCommandDefBuilder(" + literal(name) + ", " +
+                    getReceiver(method) + '.' + method.getSimpleName() + "());");
+
+            final String description = annotation.description().trim();
+            if (!description.isEmpty()) {
+                sb.line("builder.setDescription(" + literal(description) + ");");
+            }
+            final String paramName = annotation.paramName().trim();
+            if (!paramName.isEmpty()) {
+                sb.line("builder.setParamName(" + literal(paramName) + ");");
+            }
+            final String paramDescription = annotation.paramDescription().trim();
+            if (!paramDescription.isEmpty()) {
+                sb.line("builder.setParamDescription(" + literal(paramDescription) + ");");
+            }
+        }
+
+        private String createParamDef(TypeElement type, VariableElement param, int index) throws ProcessingException {
+            final TypeMirror paramType = param.asType();
+            final String defaultName = getSimpleTypeName(paramType) + index;
+            final boolean primitive = paramType.getKind().isPrimitive();
+
+            if (isType(paramType, String.class)) {
+                final StringParam annotation = param.getAnnotation(StringParam.class);
+                if (annotation == null) {
+                    return "new StringParamDef.Builder(" + literal(defaultName) + ").build()";
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("new StringParamDef.Builder(").append(literal(getNonEmptyString(annotation.value(), defaultName))).append(')');
+                appendDescription(sb, annotation.description());
+                if (annotation.optional()) {
+                    final String defaultValue = annotation.defaultValueSupplier().trim().isEmpty()
+                        ? literal(annotation.defaultValue())
+                        : createSupplier(type, param, annotation.defaultValueSupplier().trim(), "String", false, String.class);
+                    sb.append(".setOptional(").append(defaultValue).append(')');
+                }
+                sb.append(".setNullable(").append(annotation.nullable()).append(')');
+                if (annotation.acceptsSupplier().trim().isEmpty()) {
+                    sb.append(".setStaticValues(new String[] {");
+                    for (int i = 0; i < annotation.accepts().length; i++) {
+                        sb.append(i > 0 ? ", " : "").append(literal(annotation.accepts()[i]));
+                    }
+                    sb.append("})");
+                } else {
+                    sb.append(".setDynamicValues(").append(createSupplier(type, param, annotation.acceptsSupplier().trim(), "List<String>", true, String[].class)).append(')');
+                }
+                return sb.append(".build()").toString();
+            }
+
+            if (isType(paramType, Boolean.class) || paramType.getKind() == TypeKind.BOOLEAN) {
+                final BoolParam annotation = param.getAnnotation(BoolParam.class);
+                if (annotation == null) {
+                    return "new BooleanParamDef.Builder(" + literal(defaultName) + ").build()";
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("new BooleanParamDef.Builder(").append(literal(getNonEmptyString(annotation.value(), defaultName))).append(')');
+                appendDescription(sb, annotation.description());
+                if (annotation.optional()) {
+                    final String defaultValue = annotation.defaultValueSupplier().trim().isEmpty()
+                        ? String.valueOf(annotation.defaultValue())
+                        : createSupplier(type, param, annotation.defaultValueSupplier().trim(), "Boolean", false, boolean.class, Boolean.class);
+                    sb.append(".setOptional(").append(defaultValue).append(')');
+                }
+                // Ignore for primitives.
+                sb.append(".setNullable(").append(annotation.nullable() && !primitive).append(')');
+                return sb.append(".build()").toString();
+            }
+
+            if (isType(paramType, Integer.class) || paramType.getKind() == TypeKind.INT) {
+                final IntParam annotation = param.getAnnotation(IntParam.class);
+                if (annotation == null) {
+                    return "new IntParamDef.Builder(" + literal(defaultName) + ").build()";
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("new IntParamDef.Builder(").append(literal(getNonEmptyString(annotation.value(), defaultName))).append(')');
+                appendDescription(sb, annotation.description());
+                if (annotation.optional()) {
+                    final String defaultValue = annotation.defaultValueSupplier().trim().isEmpty()
+                        ? String.valueOf(annotation.defaultValue())
+                        : createSupplier(type, param, annotation.defaultValueSupplier().trim(), "Integer", false, int.class, Integer.class);
+                    sb.append(".setOptional(").append(defaultValue).append(')');
+                }
+                // Ignore for primitives.
+                sb.append(".setNullable(").append(annotation.nullable() && !primitive).append(')');
+                return sb.append(".build()").toString();
+            }
+
+            if (isType(paramType, Double.class) || paramType.getKind() == TypeKind.DOUBLE) {
+                final DoubleParam annotation = param.getAnnotation(DoubleParam.class);
+                if (annotation == null) {
+                    return "new DoubleParamDef.Builder(" + literal(defaultName) + ").build()";
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("new DoubleParamDef.Builder(").append(literal(getNonEmptyString(annotation.value(), defaultName))).append(')');
+                appendDescription(sb, annotation.description());
+                if (annotation.optional()) {
+                    final String defaultValue = annotation.defaultValueSupplier().trim().isEmpty()
+                        ? literal(annotation.defaultValue())
+                        : createSupplier(type, param, annotation.defaultValueSupplier().trim(), "Double", false, double.class, Double.class);
+                    sb.append(".setOptional(").append(defaultValue).append(')');
+                }
+                // Ignore for primitives.
+                sb.append(".setNullable(").append(annotation.nullable() && !primitive).append(')');
+                return sb.append(".build()").toString();
+            }
+
+            final Element paramElement = types.asElement(paramType);
+            if (paramElement != null && paramElement.getKind() == ElementKind.ENUM) {
+                final String enumName = getTypeName(paramType);
+                final EnumParam annotation = param.getAnnotation(EnumParam.class);
+                if (annotation == null) {
+                    return "new EnumParamDef.Builder<>(" + enumName + ".class, " + literal(defaultName) + ").build()";
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("new EnumParamDef.Builder<>(").append(enumName).append(".class, ")
+                  .append(literal(getNonEmptyString(annotation.value(), defaultName))).append(')');
+                appendDescription(sb, annotation.description());
+                if (annotation.optional()) {
+                    final String defaultValue;
+                    if (annotation.defaultValueSupplier().trim().isEmpty()) {
+                        assertEnumConstant(paramElement, annotation.defaultValue(), param);
+                        defaultValue = enumName + '.' + annotation.defaultValue();
+                    } else {
+                        defaultValue = createSupplier(type, param, annotation.defaultValueSupplier().trim(), enumName, false, paramType);
+                    }
+                    sb.append(".setOptional(").append(defaultValue).append(')');
+                }
+                sb.append(".setNullable(").append(annotation.nullable()).append(')');
+                return sb.append(".build()").toString();
+            }
+
+            throw new ProcessingException("Unsupported parameter type: " + paramType + ". " +
+                                          "Supported types are String, boolean, int, double (and their boxed versions) and enums.", param);
+        }
+
+        private void appendDescription(StringBuilder sb, String description) {
+            final String trimmed = description.trim();
+            if (!trimmed.isEmpty()) {
+                sb.append(".setDescription(").append(literal(trimmed)).append(')');
+            }
+        }
+
+        private void assertEnumConstant(Element enumElement, String name, Element param) throws ProcessingException {
+            for (Element element : enumElement.getEnclosedElements()) {
+                if (element.getKind() == ElementKind.ENUM_CONSTANT && element.getSimpleName().contentEquals(name)) {
+                    return;
+                }
+            }
+            throw new ProcessingException("Invalid default value '" + name + "' for enum: " + enumElement, param);
+        }
+
+        /**
+         * Create the source of a {@code Spplr} that calls a no-args method declared by the given type.
+         * Like {@link com.github.ykrasik.jaci.reflection.ReflectionSuppliers}, only methods declared directly by the
+         * type are considered.
+         */
+        private String createSupplier(TypeElement type,
+                                      Element param,
+                                      String methodName,
+                                      String suppliedType,
+                                      boolean list,
+                                      Object... acceptedReturnTypes) throws ProcessingException {
+            final ExecutableElement method = getNoArgsMethod(type, methodName, param);
+            if (!returnsAny(method, acceptedReturnTypes)) {
+                throw new ProcessingException("Supplier method '" + methodName + "' must return a value of type " + suppliedType + '!', param);
+            }
+            final String call = getReceiver(method) + '.' + methodName + "()";
+            return "new Spplr<" + suppliedType + ">() { @Override public " + suppliedType + " get() { return " +
+                   (list ? "Arrays.asList(" + call + ')' : call) + "; } }";
+        }
+
+        private ExecutableElement getNoArgsMethod(TypeElement type, String methodName, Element param) throws ProcessingException {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(methodName) && method.getParameters().isEmpty()) {
+                    if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                        throw new ProcessingException("Supplier method '" + methodName + "' must not be private to be called by generated code.", param);
+                    }
+                    return method;
+                }
+            }
+            throw new ProcessingException("No-args supplier method '" + methodName + "' is not declared by: " + type, param);
+        }
+
+        private boolean returnsAny(ExecutableElement method, Object... acceptedReturnTypes) {
+            final TypeMirror returnType = method.getReturnType();
+            for (Object accepted : acceptedReturnTypes) {
+                final TypeMirror acceptedType = accepted instanceof TypeMirror ? (TypeMirror) accepted : toTypeMirror((Class<?>) accepted);
+                if (types.isSameType(returnType, acceptedType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private TypeMirror toTypeMirror(Class<?> clazz) {
+            if (clazz.isArray()) {
+                return types.getArrayType(toTypeMirror(clazz.getComponentType()));
+            }
+            if (clazz.isPrimitive()) {
+                return types.getPrimitiveType(TypeKind.valueOf(clazz.getName().toUpperCase()));
+            }
+            return elements.getTypeElement(clazz.getCanonicalName()).asType();
+        }
+
+        private boolean hasCommands(TypeElement type) {
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+                if (method.getAnnotation(Command.class) != null || method.getAnnotation(ToggleCommand.class) != null) {
+                    return true;
+                }
+            }
+            for (TypeElement innerClass : ElementFilter.typesIn(type.getEnclosedElements())) {
+                if (isProcessedInnerClass(innerClass) && hasCommands(innerClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isProcessedInnerClass(TypeElement type) {
+            return type.getKind() == ElementKind.CLASS &&
+                !type.getModifiers().contains(Modifier.STATIC) &&
+                !type.getModifiers().contains(Modifier.ABSTRACT) &&
+                hasNoArgsConstructor(type);
+        }
+
+        private boolean hasNoArgsConstructor(TypeElement type) {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasAccessibleNoArgsConstructor(TypeElement type) {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void assertAccessible(TypeElement type, Element reported) throws ProcessingException {
+            Element current = type;
+            while (current instanceof TypeElement) {
+                if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                    throw new ProcessingException("Class must not be private to be processed by generated code: " + current, reported);
+                }
+                current = current.getEnclosingElement();
+            }
+            if (type != clazz) {
+                for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                    if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                        throw new ProcessingException("Inner class no-args constructor must not be private to be called by generated code.", reported);
+                    }
+                }
+            }
+        }
+
+        private String getPath(Element element) {
+            final CommandPath annotation = element.getAnnotation(CommandPath.class);
+            if (annotation == null) {
+                // Composing any path with 'root' has no effect.
+                return "ParsedPath.root()";
+            }
+            return "ParsedPath.toDirectory(" + literal(annotation.value()) + ')';
+        }
+
+        private String getReceiver(Element member) {
+            return member.getModifiers().contains(Modifier.STATIC) ? getTypeName(types.erasure(member.getEnclosingElement().asType())) : "instance";
+        }
+
+        private boolean isType(TypeMirror type, Class<?> clazz) {
+            return type.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(type), toTypeMirror(clazz));
+        }
+
+        private String getTypeName(TypeMirror type) {
+            return types.erasure(type).toString();
+        }
+
+        private String getBoxedTypeName(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            }
+            return getTypeName(type);
+        }
+
+        /**
+         * Same as {@code parameterType.getSimpleName()}, which is what reflection uses for default parameter names.
+         */
+        private String getSimpleTypeName(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return type.toString();
+            }
+            return types.asElement(type).getSimpleName().toString();
+        }
+    }
+
+    private static String getNonEmptyString(String str, String defaultValue) {
+        final String trimmed = str.trim();
+        return trimmed.isEmpty() ? defaultValue : trimmed;
+    }
+
+    /**
+     * @return A Java source literal of the given value.
+     */
+    private static String literal(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * @return A Java source literal of the given string.
+     */
+    private static String literal(String str) {
+        final StringBuilder sb = new StringBuilder(str.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            final char c = str.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Builds indented source code.
+     */
+    private static class SourceBuilder {
+        private static final String INDENT = "    ";
+
+        private final StringBuilder sb = new StringBuilder();
+        private int indent;
+
+        private SourceBuilder() {
+            this(0);
+        }
+
+        private SourceBuilder(int indent) {
+            this.indent = indent;
+        }
+
+        public SourceBuilder line() {
+            sb.append('\n');
+            return this;
+        }
+
+        public SourceBuilder line(String line) {
+            for (int i = 0; i < indent; i++) {
+                sb.append(INDENT);
+            }
+            sb.append(line).append('\n');
+            return this;
+        }
+
+        public SourceBuilder open(String line) {
+            line(line);
+            indent++;
+            return this;
+        }
+
+        public SourceBuilder close(String line) {
+            indent--;
+            return line(line);
+        }
+
+        public SourceBuilder reopen(String line) {
+            indent--;
+            return open(line);
+        }
+
+        public SourceBuilder append(SourceBuilder other) {
+            sb.append(other.sb);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.processor;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.ToggleCommand;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An annotation processor that generates a {@link com.github.ykrasik.jaci.hierarchy.CommandDefProvider}
+ * for every class that declares methods annotated with {@link Command} or {@link ToggleCommand}.<br>
+ * The generated provider is called {@code <ClassName>_JaciCommands}, lives in the same package as the class, and creates
+ * the same commands that {@link com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef.Builder#processClasses(Class[])}
+ * would, but through direct calls instead of reflection:
+ * <pre>
+ * new CommandHierarchyDef.Builder().addProviders(new MyCommands_JaciCommands());
+ * </pre>
+ * Since the generated code is plain Java, everything it touches must be accessible from the class's package -
+ * the {@link com.github.ykrasik.jaci.api.CommandOutput} field, value suppliers and inner classes must not be private.
+ * Violations are reported as compilation errors.
+ *
+ * @author Yevgeny Krasik
+ */
+public class JaciAnnotationProcessor extends AbstractProcessor {
+    /** Providers that were already generated in previous rounds. */
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        final Set<String> types = new HashSet<>();
+        types.add(Command.class.getCanonicalName());
+        types.add(ToggleCommand.class.getCanonicalName());
+        return Collections.unmodifiableSet(types);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // Commands declared by inner classes are generated as part of the class they're nested in.
+        final Set<TypeElement> classes = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                final TypeElement clazz = getProcessedClass(element.getEnclosingElement());
+                if (clazz != null) {
+                    classes.add(clazz);
+                }
+            }
+        }
+
+        final CommandProviderWriter writer = new CommandProviderWriter(processingEnv);
+        for (TypeElement clazz : classes) {
+            if (!generated.add(clazz.getQualifiedName().toString())) {
+                continue;
+            }
+            try {
+                writer.write(clazz);
+            } catch (ProcessingException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, e.getMessage(), e.getElement());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Error writing generated commands: " + e, clazz);
+            }
+        }
+
+        // Don't claim the annotations, other processors may be interested in them.
+        return false;
+    }
+
+    private TypeElement getProcessedClass(Element element) {
+        Element current = element;
+        while (isInnerClass(current)) {
+            current = current.getEnclosingElement();
+        }
+
+        // Interfaces, enums, abstract & local classes can't be instantiated by the generated code.
+        if (current.getKind() != ElementKind.CLASS ||
+            current.getModifiers().contains(Modifier.ABSTRACT) ||
+            ((TypeElement) current).getNestingKind().isNested() && ((TypeElement) current).getNestingKind() != NestingKind.MEMBER) {
+            return null;
+        }
+        return (TypeElement) current;
+    }
+
+    private boolean isInnerClass(Element element) {
+        return element.getKind() == ElementKind.CLASS &&
+            ((TypeElement) element).getNestingKind() == NestingKind.MEMBER &&
+            !element.getModifiers().contains(Modifier.STATIC);
+    }
+}
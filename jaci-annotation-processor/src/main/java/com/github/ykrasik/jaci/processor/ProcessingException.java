@@ -0,0 +1,50 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.processor;
+
+import javax.lang.model.element.Element;
+import java.util.Objects;
+
+/**
+ * Signals that an annotated element can't be turned into generated code.
+ * Reported by the {@link JaciAnnotationProcessor} as a compilation error on the offending element.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ProcessingException extends Exception {
+    private static final long serialVersionUID = 0;
+
+    /** Elements only exist within a single compilation, there's nothing meaningful to serialize. */
+    private final transient Element element;
+
+    /**
+     * @param message Error message.
+     * @param element Element that caused the error.
+     */
+    public ProcessingException(String message, Element element) {
+        super(message);
+        this.element = Objects.requireNonNull(element, "element");
+    }
+
+    /**
+     * @return Element that caused the error.
+     */
+    public Element getElement() {
+        return element;
+    }
+}
@@ -0,0 +1,260 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.processor;
+
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.command.CommandArgsImpl;
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.directory.CommandDirectoryDef;
+import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.param.ParamDef;
+import com.github.ykrasik.jaci.param.StringParamDef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class JaciAnnotationProcessorTest {
+    private static final String SAMPLE =
+        "package sample;\n" +
+        "import com.github.ykrasik.jaci.api.*;\n" +
+        "@CommandPath(\"sample\")\n" +
+        "public class Sample {\n" +
+        "    CommandOutput output;\n" +
+        "    boolean state;\n" +
+        "    @Command(description = \"Adds \\\"numbers\\\"\")\n" +
+        "    public void add(@IntParam(\"a\") int a, @IntParam(value = \"b\", optional = true, defaultValueSupplier = \"defaultB\") int b) {\n" +
+        "        output.message(String.valueOf(a + b));\n" +
+        "    }\n" +
+        "    int defaultB() { return 2; }\n" +
+        "    @Command\n" +
+        "    public void choose(@StringParam(value = \"str\", acceptsSupplier = \"values\") String str,\n" +
+        "                       @EnumParam(value = \"letter\", optional = true, defaultValue = \"B\") Letter letter,\n" +
+        "                       Double d) {\n" +
+        "        output.message(str + letter + d);\n" +
+        "    }\n" +
+        "    String[] values() { return new String[] { \"x\", \"y\" }; }\n" +
+        "    @ToggleCommand\n" +
+        "    public ToggleCommandStateAccessor toggle() {\n" +
+        "        return new ToggleCommandStateAccessor() {\n" +
+        "            public void set(boolean value) { state = value; }\n" +
+        "            public boolean get() { return state; }\n" +
+        "        };\n" +
+        "    }\n" +
+        "    @CommandPath(\"inner\")\n" +
+        "    public class Inner {\n" +
+        "        @Command public void test() { output.message(\"inner\"); }\n" +
+        "    }\n" +
+        "    public enum Letter { A, B }\n" +
+        "}\n";
+
+    private Path dir;
+    private List<String> messages;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jaci-processor");
+        messages = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void generatesCommands() throws Exception {
+        final List<String> errors = compile("sample/Sample.java", SAMPLE);
+        assertEquals(Collections.<String>emptyList(), errors);
+
+        final CommandDirectoryDef root = new CommandHierarchyDef.Builder().addProviders(loadProvider("sample.Sample_JaciCommands")).build().getRoot();
+        final CommandDirectoryDef sample = getDirectory(root, "sample");
+        assertEquals(3, sample.getCommandDefs().size());
+
+        final CommandDef add = getCommand(sample, "add");
+        assertEquals("Adds \"numbers\"", add.getIdentifier().getDescription());
+        assertEquals(2, add.getParamDefs().get(1).getDefaultValueSupplier().get().get());
+        add.getExecutor().execute(new Output(), new CommandArgsImpl(Arrays.<Object>asList(1, 2)));
+        assertEquals(Arrays.asList("3"), messages);
+
+        final CommandDef choose = getCommand(sample, "choose");
+        final List<ParamDef<?>> params = choose.getParamDefs();
+        assertEquals(Arrays.asList("x", "y"), ((StringParamDef) params.get(0)).getValuesSupplier().get());
+        assertEquals("letter", params.get(1).getIdentifier().getName());
+        assertEquals("Double2", params.get(2).getIdentifier().getName());
+        final Object defaultLetter = params.get(1).getDefaultValueSupplier().get().get();
+        choose.getExecutor().execute(new Output(), new CommandArgsImpl(Arrays.asList("x", defaultLetter, 1.5)));
+        assertEquals(Arrays.asList("3", "xB1.5"), messages);
+
+        getCommand(sample, "toggle").getExecutor().execute(new Output(), new CommandArgsImpl(Arrays.<Object>asList(true)));
+
+        final CommandDirectoryDef inner = getDirectory(sample, "inner");
+        getCommand(inner, "test").getExecutor().execute(new Output(), new CommandArgsImpl(Collections.emptyList()));
+        assertEquals("inner", messages.get(messages.size() - 1));
+    }
+
+    @Test
+    public void runsReturnedIncrementalTask() throws Exception {
+        final String source =
+            "package sample;\n" +
+            "import com.github.ykrasik.jaci.api.*;\n" +
+            "public class Counter {\n" +
+            "    CommandOutput output;\n" +
+            "    @Command\n" +
+            "    public IncrementalTask count(@IntParam(\"n\") final int n) {\n" +
+            "        return new IncrementalTask() {\n" +
+            "            int i;\n" +
+            "            public boolean step(CommandOutput stepOutput) { output.message(String.valueOf(i)); return ++i < n; }\n" +
+            "            public double getProgress() { return (double) i / n; }\n" +
+            "        };\n" +
+            "    }\n" +
+            "}\n";
+        final List<String> errors = compile("sample/Counter.java", source);
+        assertEquals(Collections.<String>emptyList(), errors);
+
+        final CommandDirectoryDef root = new CommandHierarchyDef.Builder().addProviders(loadProvider("sample.Counter_JaciCommands")).build().getRoot();
+        getCommand(root, "count").getExecutor().execute(new Output(), new CommandArgsImpl(Arrays.<Object>asList(3)));
+        assertEquals(Arrays.asList("0", "1", "2"), messages);
+    }
+
+    @Test
+    public void privateOutputField() throws Exception {
+        final String source = SAMPLE.replace("    CommandOutput output;", "    private CommandOutput output;");
+        final List<String> errors = compile("sample/Sample.java", source);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("non-private"));
+    }
+
+    @Test
+    public void unsupportedParam() throws Exception {
+        final String source = SAMPLE.replace("Double d)", "Object d)");
+        final List<String> errors = compile("sample/Sample.java", source);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("Unsupported parameter type"));
+    }
+
+    private List<String> compile(String fileName, String source) throws IOException {
+        final Path file = dir.resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final List<String> options = Arrays.asList(
+                "-d", dir.toString(),
+                "-s", dir.toString(),
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", JaciAnnotationProcessor.class.getName()
+            );
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(file.toFile());
+            compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        }
+
+        final List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        return errors;
+    }
+
+    private CommandDefProvider loadProvider(String className) throws Exception {
+        final ClassLoader classLoader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, getClass().getClassLoader());
+        return (CommandDefProvider) classLoader.loadClass(className).newInstance();
+    }
+
+    private CommandDirectoryDef getDirectory(CommandDirectoryDef parent, String name) {
+        for (CommandDirectoryDef directoryDef : parent.getDirectoryDefs()) {
+            if (directoryDef.getIdentifier().getName().equals(name)) {
+                return directoryDef;
+            }
+        }
+        throw new AssertionError("Directory not found: " + name);
+    }
+
+    private CommandDef getCommand(CommandDirectoryDef parent, String name) {
+        for (CommandDef commandDef : parent.getCommandDefs()) {
+            if (commandDef.getIdentifier().getName().equals(name)) {
+                return commandDef;
+            }
+        }
+        throw new AssertionError("Command not found: " + name);
+    }
+
+    private class Output implements CommandOutput {
+        @Override
+        public void message(String text) {
+            messages.add(text);
+        }
+
+        @Override
+        public void error(String text) {
+            messages.add("error: " + text);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public CommandInput getInput() {
+            return CommandInput.EMPTY;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.github.ykrasik.jaci.cli;
 
 import com.github.ykrasik.jaci.cli.commandline.CommandLineManager;
 import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.Pager;
 import com.github.ykrasik.jaci.util.opt.Opt;
 
 import java.util.Objects;
@@ -86,6 +87,17 @@ public class Cli {
         return shell.execute(commandLine);
     }
 
+    /**
+     * Execute the command line, returning a handle through which the execution can be tracked and cancelled.
+     *
+     * @return A handle to the execution of the command line.
+     */
+    public CommandJob executeAsync() {
+        final String commandLine = commandLineManager.getCommandLine();
+        clearCommandLine();
+        return shell.executeAsync(commandLine);
+    }
+
     /**
      * Clear the command line.
      */
@@ -112,6 +124,26 @@ public class Cli {
         return setCommandLineIfPresent(shell.getNextCommandLineFromHistory());
     }
 
+    /**
+     * Show the next page of paged output, if the shell has a {@link Pager}.
+     *
+     * @return {@code true} if there was a next page.
+     */
+    public boolean pageNext() {
+        final Opt<Pager> pager = shell.getPager();
+        return pager.isPresent() && pager.get().next();
+    }
+
+    /**
+     * Show the previous page of paged output, if the shell has a {@link Pager}.
+     *
+     * @return {@code true} if there was a previous page.
+     */
+    public boolean pagePrev() {
+        final Opt<Pager> pager = shell.getPager();
+        return pager.isPresent() && pager.get().prev();
+    }
+
     private boolean setCommandLineIfPresent(Opt<String> commandLine) {
         if (commandLine.isPresent()) {
             commandLineManager.setCommandLine(commandLine.get());
@@ -16,24 +16,51 @@
 
 package com.github.ykrasik.jaci.cli;
 
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
 import com.github.ykrasik.jaci.cli.assist.AutoComplete;
 import com.github.ykrasik.jaci.cli.assist.CommandInfo;
 import com.github.ykrasik.jaci.cli.assist.ParamAssistInfo;
 import com.github.ykrasik.jaci.cli.assist.Suggestions;
 import com.github.ykrasik.jaci.cli.command.CliCommand;
 import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.command.PreparedCommand;
+import com.github.ykrasik.jaci.cli.command.PreparedStatement;
 import com.github.ykrasik.jaci.cli.commandline.CommandLine;
 import com.github.ykrasik.jaci.cli.commandline.CommandLineHistory;
+import com.github.ykrasik.jaci.cli.commandline.Redirection;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.exception.ParseError;
 import com.github.ykrasik.jaci.cli.exception.ParseException;
+import com.github.ykrasik.jaci.cli.execution.CommandPermit;
+import com.github.ykrasik.jaci.cli.execution.DirectExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.ExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.RejectableTask;
+import com.github.ykrasik.jaci.cli.execution.SessionExecutor;
 import com.github.ykrasik.jaci.cli.gui.CliGui;
 import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchy;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.ShellPhase;
+import com.github.ykrasik.jaci.cli.job.BackgroundJob;
+import com.github.ykrasik.jaci.cli.job.JobTable;
 import com.github.ykrasik.jaci.cli.output.CliOutput;
 import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.DeferredClose;
+import com.github.ykrasik.jaci.cli.output.ChunkedLineStore;
+import com.github.ykrasik.jaci.cli.output.LineStore;
+import com.github.ykrasik.jaci.cli.output.OutputRedirector;
+import com.github.ykrasik.jaci.cli.output.Pager;
+import com.github.ykrasik.jaci.cli.output.RedirectedOutput;
+import com.github.ykrasik.jaci.cli.pipe.CommandPipe;
 import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
 import com.github.ykrasik.jaci.util.opt.Opt;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * A shell usually refers to the program logic running within a CLI.
@@ -49,17 +76,43 @@ import java.util.Objects;
  *
  * The shell's API methods that print values ({@link #assist(String)}, {@link #execute(String)}) do so
  * as a side effect, by calling the {@link CliPrinter}s the shell was built with.
+ * {@link #executeAsync(String)} also returns a {@link CommandJob} through which the execution can be tracked and cancelled.
+ * A command line may contain multiple statements separated by ';', which are executed in order.
+ * A statement may be a pipeline of commands separated by '|', in which case the output of each command
+ * is read as the input of the next one. The output of a statement may be redirected ('cmd &gt; target' to replace
+ * the target's content, 'cmd &gt;&gt; target' to append to it) if the shell was built with an {@link OutputRedirector}.
+ * A command line that ends with '&amp;' is executed as a background job - independently of other command lines,
+ * with it's output buffered until it is attached to. Background jobs are managed through system commands.
+ *
+ * Command lines are executed through the shell's {@link SessionExecutor}, received from an {@link ExecutionModel}.
+ * By default, they are executed on the calling thread. Other execution models may execute them on other threads,
+ * in which case they are still executed one at a time, in the order they were received.
+ *
+ * A shell may be built with a {@link Pager}, in which case output of foreground command lines beyond a threshold
+ * is paged instead of printed.
+ *
+ * Every phase of assisting with and executing command lines is reported to the shell's {@link ShellInstrumentation},
+ * which doesn't record anything by default.
  *
  * Built through the {@link CliShell.Builder} builder.
  *
  * @author Yevgeny Krasik
  */
 public class CliShell {
+    private static final String BACKGROUND_SUFFIX = "&";
+
     private final CliCommandHierarchy hierarchy;
     private final CliGui gui;
     private final CliPrinter out;
     private final CliPrinter err;
     private final CommandLineHistory history;
+    private final SessionExecutor executor;
+    private final JobTable jobs;
+    private final Opt<OutputRedirector> outputRedirector;
+    private final ShellInstrumentation instrumentation;
+    private final IncrementalTaskRunner incrementalTaskRunner;
+    private final Opt<Pager> pager;
+    private final CliPrinter foregroundOut;
 
     /**
      * Package-protected for testing.
@@ -68,12 +121,25 @@ public class CliShell {
              CliGui gui,
              CliPrinter out,
              CliPrinter err,
-             CommandLineHistory history) {
+             CommandLineHistory history,
+             SessionExecutor executor,
+             JobTable jobs,
+             Opt<OutputRedirector> outputRedirector,
+             ShellInstrumentation instrumentation,
+             IncrementalTaskRunner incrementalTaskRunner,
+             Opt<Pager> pager) {
         this.hierarchy = hierarchy;
         this.gui = gui;
         this.out = out;
         this.err = err;
         this.history = history;
+        this.executor = executor;
+        this.jobs = jobs;
+        this.outputRedirector = outputRedirector;
+        this.instrumentation = instrumentation;
+        this.incrementalTaskRunner = incrementalTaskRunner;
+        this.pager = pager;
+        this.foregroundOut = pager.isPresent() ? out.withOutput(pager.get().getOutput()) : out;
 
         // Set initial working directory.
         gui.setWorkingDirectory(hierarchy.getWorkingDirectory());
@@ -97,6 +163,41 @@ public class CliShell {
         return err;
     }
 
+    /**
+     * @return This shell's background jobs.
+     */
+    public JobTable getJobs() {
+        return jobs;
+    }
+
+    /**
+     * @return The instrumentation this shell reports to.
+     */
+    public ShellInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * @return The runner of the {@link IncrementalTask}s returned by commands executed by this shell.
+     */
+    public IncrementalTaskRunner getIncrementalTaskRunner() {
+        return incrementalTaskRunner;
+    }
+
+    /**
+     * @return The pager that pages the output of foreground command lines, if this shell has one.
+     */
+    public Opt<Pager> getPager() {
+        return pager;
+    }
+
+    /**
+     * @return The current working directory.
+     */
+    public CliDirectory getWorkingDirectory() {
+        return hierarchy.getWorkingDirectory();
+    }
+
     /**
      * @return Previous command line from history.
      */
@@ -142,7 +243,20 @@ public class CliShell {
         // 1. Display command info, if there is any.
         // 2. Determine the suggestions for auto complete.
         // 3. Set the new command line accordingly.
-        final CommandLine commandLine = CommandLine.forAssist(rawCommandLine);
+        // Only the command being typed at the end of the command line is assisted - the last command of the pipeline
+        // of the last statement.
+        long begin = instrumentation.begin(ShellPhase.TOKENIZE);
+        final CommandLine commandLine;
+        try {
+            final String rawCommand = CommandLine.getLastCommand(rawCommandLine);
+            if (CommandLine.indexOfUnquoted(rawCommand, CommandLine.REDIRECTION) != -1) {
+                // The target of an output redirection is opened by the shell's OutputRedirector, which can't be assisted.
+                return Opt.absent();
+            }
+            commandLine = CommandLine.forAssist(rawCommand);
+        } finally {
+            instrumentation.end(ShellPhase.TOKENIZE, begin);
+        }
         final String pathToCommand = commandLine.getPathToCommand();
 
         final AutoComplete autoComplete;
@@ -150,23 +264,45 @@ public class CliShell {
         if (commandLine.hasCommandArgs()) {
             // The first arg is not the only arg on the commandLine, it is expected to be a valid path to a command,
             // and we are auto-completing the command's parameters.
-            final CliCommand command = hierarchy.parsePathToCommand(pathToCommand);
+            final CliCommand command = resolvePathToCommand(pathToCommand);
 
             // Print param assistance info.
             final List<String> args = commandLine.getCommandArgs();
-            final ParamAssistInfo assistInfo = command.assist(args);
+            final ParamAssistInfo assistInfo;
+            begin = instrumentation.begin(ShellPhase.PARSE_PARAMS);
+            try {
+                assistInfo = command.assist(args);
+            } finally {
+                instrumentation.end(ShellPhase.PARSE_PARAMS, begin);
+            }
+
             final CommandInfo commandInfo = new CommandInfo(command, assistInfo.getBoundParams());
-            out.printCommandInfo(commandInfo);
+            begin = instrumentation.begin(ShellPhase.PRINT);
+            try {
+                out.printCommandInfo(commandInfo);
+            } finally {
+                instrumentation.end(ShellPhase.PRINT, begin);
+            }
 
             autoComplete = assistInfo.getAutoComplete();
         } else {
             // The first arg is the only arg on the commandLine, auto-complete path.
-            autoComplete = hierarchy.autoCompletePath(pathToCommand);
+            begin = instrumentation.begin(ShellPhase.RESOLVE_PATH);
+            try {
+                autoComplete = hierarchy.autoCompletePath(pathToCommand);
+            } finally {
+                instrumentation.end(ShellPhase.RESOLVE_PATH, begin);
+            }
         }
 
         final Opt<Suggestions> suggestions = autoComplete.getSuggestions();
         if (suggestions.isPresent()) {
-            out.printSuggestions(suggestions.get());
+            begin = instrumentation.begin(ShellPhase.PRINT);
+            try {
+                out.printSuggestions(suggestions.get());
+            } finally {
+                instrumentation.end(ShellPhase.PRINT, begin);
+            }
         }
 
         // TODO: Print an error if no suggestions are available?
@@ -179,51 +315,477 @@ public class CliShell {
      * Any output is printed as a side effect to the {@link CliOutput} this shell was constructed with.
      * If any error occurs while parsing the command line or executing the parsed command line, it will also be printed
      * to the {@link CliOutput} this shell was constructed with.
+     * The command line is executed through this shell's {@link SessionExecutor}, and may not have finished executing
+     * when this call returns.
      *
      * @param commandLine Command line to execute.
-     * @return {@code true} if the command line was executed successfully.
+     * @return {@code true} if the command line was executed successfully, or is still executing.
      */
     public boolean execute(String commandLine) {
+        final CommandJob job = executeAsync(commandLine);
+        return !job.isDone() || job.getState() == CommandJob.State.SUCCEEDED;
+    }
+
+    /**
+     * Submit the command line for execution, same as {@link #execute(String)},
+     * and return a handle through which the execution can be tracked and cancelled.
+     * Output is printed as it is produced by the command.
+     *
+     * @param commandLine Command line to execute.
+     * @return A handle to the execution of the command line.
+     */
+    public CommandJob executeAsync(String commandLine) {
+        final String trimmedCommandLine = commandLine.trim();
+        if (trimmedCommandLine.endsWith(BACKGROUND_SUFFIX)) {
+            final String backgroundCommandLine = trimmedCommandLine.substring(0, trimmedCommandLine.length() - BACKGROUND_SUFFIX.length()).trim();
+            if (!backgroundCommandLine.isEmpty()) {
+                return executeInBackground(commandLine, backgroundCommandLine);
+            }
+        }
+
+        final CommandJob job = new CommandJob(commandLine);
         try {
-            doExecute(commandLine);
-            return true;
-        } catch (ParseException e) {
-            handleParseException(e);
+            executor.submit(new ExecuteTask(job, foregroundOut, err, true));
         } catch (Exception e) {
             err.printThrowable(e);
+            job.complete(CommandJob.State.FAILED);
         }
-        return false;
+        return job;
     }
 
-    private void doExecute(String rawCommandLine) throws Exception {
+    private CommandJob executeInBackground(String rawCommandLine, String commandLine) {
+        // Background jobs are echoed & saved in history when they are submitted, not when they are executed.
         out.printCommandLine(hierarchy.getWorkingDirectory(), rawCommandLine);
+        history.pushCommandLine(rawCommandLine);
+
+        final CommandJob job = new CommandJob(commandLine);
+        final BackgroundJob backgroundJob = jobs.add(job, out, err);
+        final String description = backgroundJob.toString();
+        out.println(description);
+        job.addListener(new CommandJobListener() {
+            @Override
+            public void onDone(CommandJob job) {
+                out.println(description + ": " + job.getState());
+            }
+        });
 
-        final CommandLine commandLine = CommandLine.forExecute(rawCommandLine);
-        if (commandLine.isEmpty()) {
-            return;
+        final CliPrinter jobOut = out.withOutput(backgroundJob.getOutput().getOut());
+        final CliPrinter jobErr = err.withOutput(backgroundJob.getOutput().getErr());
+        try {
+            executor.submitBackground(new ExecuteTask(job, jobOut, jobErr, false));
+        } catch (Exception e) {
+            err.printThrowable(e);
+            job.complete(CommandJob.State.FAILED);
         }
+        return job;
+    }
 
-        // Save command in history.
-        history.pushCommandLine(rawCommandLine);
+    /**
+     * Shut down this shell's {@link SessionExecutor}.
+     * Command lines that were already submitted may still be executed, new ones will be rejected.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        if (pager.isPresent()) {
+            pager.get().close();
+        }
+    }
+
+    /**
+     * Prepare a single statement for execution: Tokenize it, resolve the paths to it's commands relative to the
+     * current working directory and parse the commands' args.
+     * The result can be executed any number of times through {@link #executePrepared} without being parsed again.
+     * Should be called from a command that is being executed by this shell, so that the working directory is
+     * consistent with the commands that were executed before it.
+     *
+     * @param statement Statement to prepare. Must contain either a single command or a pipeline of commands,
+     *                  optionally followed by an output redirection.
+     * @return The prepared statement.
+     * @throws ParseException If the statement could not be parsed.
+     * @throws IllegalArgumentException If the statement is empty.
+     */
+    public PreparedStatement prepare(String statement) throws ParseException {
+        final Opt<Redirection> redirection;
+        final List<String> pipeline;
+        final long begin = instrumentation.begin(ShellPhase.TOKENIZE);
+        try {
+            // Split off the output redirection, if there is one.
+            final int redirectionIndex = CommandLine.indexOfUnquoted(statement, CommandLine.REDIRECTION);
+            final String rawPipeline = redirectionIndex != -1 ? statement.substring(0, redirectionIndex) : statement;
+            redirection = redirectionIndex != -1 ?
+                Opt.of(Redirection.parse(statement.substring(redirectionIndex))) :
+                Opt.<Redirection>absent();
+
+            pipeline = CommandLine.splitPipeline(rawPipeline);
+        } finally {
+            instrumentation.end(ShellPhase.TOKENIZE, begin);
+        }
+        if (pipeline.size() == 1 && pipeline.get(0).isEmpty()) {
+            if (redirection.isPresent()) {
+                throw new ParseException(ParseError.INVALID_COMMAND, "Nothing to redirect: '"+statement+'\'');
+            }
+            throw new IllegalArgumentException("Empty statement!");
+        }
+
+        final CliDirectory workingDirectory = hierarchy.getWorkingDirectory();
+        final List<PreparedCommand> commands = new ArrayList<>(pipeline.size());
+        for (String rawCommand : pipeline) {
+            if (rawCommand.isEmpty()) {
+                throw new ParseException(ParseError.INVALID_COMMAND, "Pipeline contains an empty command: '"+statement+'\'');
+            }
+            commands.add(prepareCommand(rawCommand, workingDirectory));
+        }
+        return new PreparedStatement(statement, workingDirectory, commands, redirection);
+    }
+
+    private PreparedCommand prepareCommand(String rawCommand, CliDirectory workingDirectory) throws ParseException {
+        long begin = instrumentation.begin(ShellPhase.TOKENIZE);
+        final CommandLine commandLine;
+        try {
+            commandLine = CommandLine.forExecute(rawCommand);
+        } finally {
+            instrumentation.end(ShellPhase.TOKENIZE, begin);
+        }
 
         // Parse command.
         final String pathToCommand = commandLine.getPathToCommand();
-        final CliCommand command = hierarchy.parsePathToCommand(pathToCommand);
+        final CliCommand command;
+        final String commandPath;
+        begin = instrumentation.begin(ShellPhase.RESOLVE_PATH);
+        try {
+            command = hierarchy.parsePathToCommand(pathToCommand);
+            commandPath = resolveCommandPath(pathToCommand, command, workingDirectory);
+        } finally {
+            instrumentation.end(ShellPhase.RESOLVE_PATH, begin);
+        }
 
         // Parse command args.
         final List<String> rawArgs = commandLine.getCommandArgs();
-        final CommandArgs args = command.parse(rawArgs);
+        final CommandArgs args;
+        begin = instrumentation.begin(ShellPhase.PARSE_PARAMS);
+        try {
+            args = command.parse(rawArgs);
+        } finally {
+            instrumentation.end(ShellPhase.PARSE_PARAMS, begin);
+        }
+        return new PreparedCommand(rawCommand, workingDirectory, command, commandPath, args.getArgs());
+    }
+
+    private String resolveCommandPath(String pathToCommand, CliCommand command, CliDirectory workingDirectory) throws ParseException {
+        final int delimiter = pathToCommand.lastIndexOf('/');
+        if (delimiter >= 0) {
+            return hierarchy.parsePathToDirectory(pathToCommand.substring(0, delimiter + 1)).toPath() + command.getName();
+        }
+
+        // System commands take precedence over commands under the working directory, and don't belong to any directory.
+        final Opt<CliCommand> workingDirectoryCommand = workingDirectory.getCommand(pathToCommand);
+        if (workingDirectoryCommand.isPresent() && workingDirectoryCommand.get() == command) {
+            return workingDirectory.toPath() + command.getName();
+        }
+        return command.getName();
+    }
+
+    private CliCommand resolvePathToCommand(String pathToCommand) throws ParseException {
+        final long begin = instrumentation.begin(ShellPhase.RESOLVE_PATH);
+        try {
+            return hierarchy.parsePathToCommand(pathToCommand);
+        } finally {
+            instrumentation.end(ShellPhase.RESOLVE_PATH, begin);
+        }
+    }
+
+    /**
+     * Execute a prepared statement on the calling thread, as part of a command that is being executed by this shell
+     * (for example, a command that executes a script).
+     * The prepared statement prints to the same output as the executing command, and is cancelled along with it.
+     * Any errors are printed and not thrown.
+     *
+     * @param statement Prepared statement to execute.
+     * @param output Output of the executing command.
+     * @return The state the prepared statement finished in.
+     */
+    public CommandJob.State executePrepared(PreparedStatement statement, CliCommandOutput output) {
+        return executeStatement(statement, output.getJob(), output.getOut(), output.getErr(), false, output.getOutputClose());
+    }
+
+    private CommandJob.State doExecuteSafe(CommandJob job, CliPrinter out, CliPrinter err, boolean foreground) {
+        try {
+            return doExecute(job, out, err, foreground);
+        } catch (Exception e) {
+            err.printThrowable(e);
+        }
+        return CommandJob.State.FAILED;
+    }
+
+    private CommandJob.State doExecute(CommandJob job, CliPrinter out, CliPrinter err, boolean foreground) throws Exception {
+        final String rawCommandLine = job.getCommandLine();
+        if (foreground) {
+            final long begin = instrumentation.begin(ShellPhase.PRINT);
+            try {
+                out.printCommandLine(hierarchy.getWorkingDirectory(), rawCommandLine);
+            } finally {
+                instrumentation.end(ShellPhase.PRINT, begin);
+            }
+        }
+
+        if (!job.start()) {
+            err.println("Command line was cancelled before it was executed.");
+            return CommandJob.State.CANCELLED;
+        }
+
+        if (!foreground || !pager.isPresent()) {
+            return executeCommandLine(job, out, err, foreground);
+        }
+        pager.get().begin();
+        try {
+            return executeCommandLine(job, out, err, foreground);
+        } finally {
+            pager.get().end();
+        }
+    }
+
+    private CommandJob.State executeCommandLine(CommandJob job, CliPrinter out, CliPrinter err, boolean foreground) throws Exception {
+        final String rawCommandLine = job.getCommandLine();
+
+        final List<String> statements;
+        final long begin = instrumentation.begin(ShellPhase.TOKENIZE);
+        try {
+            statements = CommandLine.splitStatements(rawCommandLine);
+        } finally {
+            instrumentation.end(ShellPhase.TOKENIZE, begin);
+        }
+        if (statements.isEmpty()) {
+            return CommandJob.State.SUCCEEDED;
+        }
+
+        // Save command line in history.
+        if (foreground) {
+            history.pushCommandLine(rawCommandLine);
+        }
+
+        // Statements are executed in order. A failed statement doesn't stop the following statements, cancellation does.
+        CommandJob.State state = CommandJob.State.SUCCEEDED;
+        for (String statement : statements) {
+            final CommandJob.State statementState = executeStatement(statement, job, out, err);
+            if (statementState == CommandJob.State.CANCELLED) {
+                return statementState;
+            }
+            if (statementState == CommandJob.State.FAILED) {
+                state = statementState;
+            }
+        }
+        return state;
+    }
+
+    private CommandJob.State executeStatement(String rawStatement, CommandJob job, CliPrinter out, CliPrinter err) {
+        final PreparedStatement statement;
+        try {
+            statement = prepare(rawStatement);
+        } catch (ParseException e) {
+            handleParseException(e, out, err);
+            return CommandJob.State.FAILED;
+        }
+        return executeStatement(statement, job, out, err, true, Opt.<DeferredClose>absent());
+    }
+
+    private CommandJob.State executeStatement(PreparedStatement statement,
+                                              CommandJob job,
+                                              CliPrinter out,
+                                              CliPrinter err,
+                                              boolean topLevel,
+                                              Opt<DeferredClose> parentClose) {
+        // Only top level statements have their own timeout, nested statements are bound by the timeout of the top level statement.
+        if (topLevel) {
+            job.startTimeout(statement.getTimeout());
+        }
+
+        final Opt<Redirection> redirection = statement.getRedirection();
+        if (!redirection.isPresent()) {
+            return executeCommands(statement.getCommands(), job, out, err, true, parentClose);
+        }
+        if (!outputRedirector.isPresent()) {
+            err.println("Output redirection is not supported.");
+            return CommandJob.State.FAILED;
+        }
+
+        final Redirection target = redirection.get();
+        final RedirectedOutput redirectedOutput;
+        try {
+            redirectedOutput = outputRedirector.get().open(target.getTarget(), target.isAppend());
+        } catch (Exception e) {
+            err.println("Failed to redirect output to '"+target.getTarget()+"': " + e);
+            return CommandJob.State.FAILED;
+        }
+
+        // Output that is redirected is not a place for the default message.
+        // The redirected output is closed once the statement is done, unless something still prints to it.
+        final CloseRedirection closeRedirection = new CloseRedirection(redirectedOutput, target, err);
+        final DeferredClose redirectionClose = new DeferredClose(closeRedirection, parentClose);
+        CommandJob.State state = CommandJob.State.FAILED;
+        try {
+            state = executeCommands(statement.getCommands(), job, out.withOutput(redirectedOutput), err, false, Opt.of(redirectionClose));
+        } finally {
+            if (redirectionClose.release() && closeRedirection.failed) {
+                state = CommandJob.State.FAILED;
+            }
+        }
+        return state;
+    }
 
-        // Execute the command.
-        final CliCommandOutput commandOutput = new CliCommandOutput(gui, out, err);
-        command.execute(commandOutput, args);
+    private CommandJob.State executeCommands(List<PreparedCommand> commands,
+                                             CommandJob job,
+                                             CliPrinter out,
+                                             CliPrinter err,
+                                             boolean printDefaultMessage,
+                                             Opt<DeferredClose> outputClose) {
+        if (commands.size() == 1) {
+            return executeCommand(commands.get(0), job, out, err, CommandInput.EMPTY, Opt.<CommandPipe>absent(), printDefaultMessage, outputClose, Opt.<CommandPermit>absent());
+        }
+        return executePipeline(commands, job, out, err, printDefaultMessage, outputClose);
+    }
+
+    private CommandJob.State executePipeline(List<PreparedCommand> commands,
+                                             CommandJob job,
+                                             CliPrinter out,
+                                             CliPrinter err,
+                                             boolean printDefaultMessage,
+                                             Opt<DeferredClose> outputClose) {
+        // A pipeline counts as a single execution of each command in it, so permits are acquired once per command path
+        // for the whole pipeline - a stage waiting for a permit held by another stage of the same pipeline ('cmd | cmd')
+        // would wait forever. Paths are acquired in order, so pipelines that share limited commands can't deadlock each other.
+        final Map<String, PreparedCommand> commandsByPath = new TreeMap<>();
+        for (PreparedCommand command : commands) {
+            if (!commandsByPath.containsKey(command.getCommandPath())) {
+                commandsByPath.put(command.getCommandPath(), command);
+            }
+        }
+        final CliCommandOutput permitOutput = new CliCommandOutput(gui, out, err, job, this);
+        final List<CommandPermit> permits = new ArrayList<>(commandsByPath.size());
+        try {
+            for (PreparedCommand command : commandsByPath.values()) {
+                final Opt<CommandPermit> permit = acquirePermit(command, job, err, permitOutput);
+                if (!permit.isPresent()) {
+                    return CommandJob.State.CANCELLED;
+                }
+                permits.add(permit.get());
+            }
+            return executeStages(commands, job, out, err, printDefaultMessage, outputClose);
+        } finally {
+            for (CommandPermit permit : permits) {
+                permit.release();
+            }
+        }
+    }
+
+    private CommandJob.State executeStages(List<PreparedCommand> commands,
+                                           CommandJob job,
+                                           CliPrinter out,
+                                           CliPrinter err,
+                                           boolean printDefaultMessage,
+                                           Opt<DeferredClose> outputClose) {
+        // Each command prints to a pipe that is read by the next command, except for the last one which prints to stdOut.
+        // All commands print errors directly to stdErr.
+        final int size = commands.size();
+        final CommandJob.State[] states = new CommandJob.State[size];
+        final List<Runnable> stages = new ArrayList<>(size);
+        CommandInput input = CommandInput.EMPTY;
+        for (int i = 0; i < size; i++) {
+            final Opt<CommandPipe> pipe = i < size - 1 ? Opt.of(executor.newPipe()) : Opt.<CommandPipe>absent();
+            final CliPrinter stageOut = pipe.isPresent() ? out.withOutput(pipe.get()) : out;
+            final DeferredClose stageClose = new DeferredClose(new CloseStage(input, pipe), outputClose);
+            stages.add(new PipelineStage(i, commands.get(i), job, stageOut, err, input, pipe, stageClose, printDefaultMessage, states));
+            if (pipe.isPresent()) {
+                input = pipe.get();
+            }
+        }
+        executor.executePipeline(stages);
 
-        if (commandOutput.isPrintDefaultExecutionMessage()) {
-            out.println("Command '"+command.getName()+"' executed successfully.");
+        CommandJob.State state = CommandJob.State.SUCCEEDED;
+        for (CommandJob.State stageState : states) {
+            if (stageState == CommandJob.State.CANCELLED) {
+                return stageState;
+            }
+            if (stageState != CommandJob.State.SUCCEEDED) {
+                state = CommandJob.State.FAILED;
+            }
         }
+        return state;
+    }
+
+    private CommandJob.State executeCommand(PreparedCommand preparedCommand,
+                                            CommandJob job,
+                                            CliPrinter out,
+                                            CliPrinter err,
+                                            CommandInput input,
+                                            Opt<CommandPipe> outputPipe,
+                                            boolean printDefaultMessage,
+                                            Opt<DeferredClose> outputClose,
+                                            Opt<CommandPermit> heldPermit) {
+        final CliCommand command = preparedCommand.getCommand();
+        if (job.isCancelled()) {
+            err.println("Command '"+command.getName()+"' was cancelled before it was executed.");
+            return CommandJob.State.CANCELLED;
+        }
+
+        // Execute the command, once the execution model allows it.
+        final CliCommandOutput commandOutput = new CliCommandOutput(gui, out, err, job, this, input, outputPipe, outputClose);
+        final Opt<CommandPermit> acquired = heldPermit.isPresent() ? heldPermit : acquirePermit(preparedCommand, job, err, commandOutput);
+        if (!acquired.isPresent()) {
+            return CommandJob.State.CANCELLED;
+        }
+        final CommandPermit permit = acquired.get();
+        CommandJob.State state = CommandJob.State.FAILED;
+        final long begin = instrumentation.beginCommand(command, preparedCommand.getCommandPath());
+        try {
+            command.execute(commandOutput, preparedCommand.newArgs());
+            state = job.isCancelled() ? CommandJob.State.CANCELLED : CommandJob.State.SUCCEEDED;
+        } catch (Exception e) {
+            err.printThrowable(e);
+            return CommandJob.State.FAILED;
+        } finally {
+            instrumentation.endCommand(command, preparedCommand.getCommandPath(), begin, state);
+            permit.release();
+        }
+
+        if (job.isTimedOut()) {
+            err.println("Command '"+command.getName()+"' timed out after "+job.getTimeout()+"ms.");
+            return CommandJob.State.CANCELLED;
+        }
+        if (job.isCancelled()) {
+            err.println("Command '"+command.getName()+"' was cancelled.");
+            return CommandJob.State.CANCELLED;
+        }
+
+        // Output that is piped to another command is not a place for the default message.
+        if (commandOutput.isPrintDefaultExecutionMessage() && printDefaultMessage && !outputPipe.isPresent()) {
+            final long printBegin = instrumentation.begin(ShellPhase.PRINT);
+            try {
+                out.println("Command '"+command.getName()+"' executed successfully.");
+            } finally {
+                instrumentation.end(ShellPhase.PRINT, printBegin);
+            }
+        }
+        return CommandJob.State.SUCCEEDED;
+    }
+
+    private Opt<CommandPermit> acquirePermit(PreparedCommand preparedCommand, CommandJob job, CliPrinter err, CliCommandOutput output) {
+        final Opt<CommandPermit> permit = executor.acquirePermit(preparedCommand.getCommandPath(), output);
+        if (!permit.isPresent()) {
+            final String name = preparedCommand.getCommand().getName();
+            if (job.isTimedOut()) {
+                err.println("Command '"+name+"' timed out after "+job.getTimeout()+"ms.");
+            } else {
+                err.println("Command '"+name+"' was cancelled before it was executed.");
+            }
+        }
+        return permit;
     }
 
     private void handleParseException(ParseException e) {
+        handleParseException(e, out, err);
+    }
+
+    private void handleParseException(ParseException e, CliPrinter out, CliPrinter err) {
         final Opt<CommandInfo> commandInfo = e.getCommandInfo();
         if (commandInfo.isPresent()) {
             out.printCommandInfo(commandInfo.get());
@@ -232,6 +794,135 @@ public class CliShell {
         err.println("Parse Error: " + e.getMessage());
     }
 
+    /**
+     * Closes the target of a redirection, writing any buffered output to it.
+     */
+    private static class CloseRedirection implements Runnable {
+        private final RedirectedOutput redirectedOutput;
+        private final Redirection target;
+        private final CliPrinter err;
+
+        private boolean failed;
+
+        private CloseRedirection(RedirectedOutput redirectedOutput, Redirection target, CliPrinter err) {
+            this.redirectedOutput = redirectedOutput;
+            this.target = target;
+            this.err = err;
+        }
+
+        @Override
+        public void run() {
+            try {
+                redirectedOutput.close();
+            } catch (Exception e) {
+                err.println("Failed to write output to '"+target.getTarget()+"': " + e);
+                failed = true;
+            }
+        }
+    }
+
+    /**
+     * Closes the input of a command in a pipeline to stop the previous command, and it's output pipe to signal
+     * the end of input to the next command.
+     */
+    private static class CloseStage implements Runnable {
+        private final CommandInput input;
+        private final Opt<CommandPipe> outputPipe;
+
+        private CloseStage(CommandInput input, Opt<CommandPipe> outputPipe) {
+            this.input = input;
+            this.outputPipe = outputPipe;
+        }
+
+        @Override
+        public void run() {
+            try {
+                input.close();
+            } finally {
+                if (outputPipe.isPresent()) {
+                    outputPipe.get().closeWriter();
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a single command of a pipeline. Once the command is done, it's input and output pipe are closed,
+     * unless something still prints to them.
+     */
+    private class PipelineStage implements Runnable {
+        private final int index;
+        private final PreparedCommand command;
+        private final CommandJob job;
+        private final CliPrinter out;
+        private final CliPrinter err;
+        private final CommandInput input;
+        private final Opt<CommandPipe> outputPipe;
+        private final DeferredClose close;
+        private final boolean printDefaultMessage;
+        private final CommandJob.State[] states;
+
+        private PipelineStage(int index,
+                              PreparedCommand command,
+                              CommandJob job,
+                              CliPrinter out,
+                              CliPrinter err,
+                              CommandInput input,
+                              Opt<CommandPipe> outputPipe,
+                              DeferredClose close,
+                              boolean printDefaultMessage,
+                              CommandJob.State[] states) {
+            this.index = index;
+            this.command = command;
+            this.job = job;
+            this.out = out;
+            this.err = err;
+            this.input = input;
+            this.outputPipe = outputPipe;
+            this.close = close;
+            this.printDefaultMessage = printDefaultMessage;
+            this.states = states;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // The pipeline already holds the permit to execute the command.
+                states[index] = executeCommand(command, job, out, err, input, outputPipe, printDefaultMessage, Opt.of(close), Opt.of(CommandPermit.UNLIMITED));
+            } finally {
+                close.release();
+            }
+        }
+    }
+
+    /**
+     * Executes a single {@link CommandJob} through the {@link SessionExecutor}.
+     */
+    private class ExecuteTask implements RejectableTask {
+        private final CommandJob job;
+        private final CliPrinter out;
+        private final CliPrinter err;
+        private final boolean foreground;
+
+        private ExecuteTask(CommandJob job, CliPrinter out, CliPrinter err, boolean foreground) {
+            this.job = job;
+            this.out = out;
+            this.err = err;
+            this.foreground = foreground;
+        }
+
+        @Override
+        public void run() {
+            job.complete(doExecuteSafe(job, out, err, foreground));
+        }
+
+        @Override
+        public void reject(Exception cause) {
+            err.printThrowable(cause);
+            job.complete(CommandJob.State.FAILED);
+        }
+    }
+
     /**
      * A builder for a {@link CliShell}.
      */
@@ -242,6 +933,14 @@ public class CliShell {
         private final CliPrinter out;
         private final CliPrinter err;
         private int maxCommandHistory = 30;
+        private ExecutionModel executionModel = new DirectExecutionModel();
+        private int maxBackgroundJobOutput = 1000;
+        private Opt<OutputRedirector> outputRedirector = Opt.absent();
+        private ShellInstrumentation instrumentation = ShellInstrumentation.NONE;
+        private IncrementalTaskRunner incrementalTaskRunner = IncrementalTaskRunner.DIRECT;
+        private int pagerThreshold;
+        private int pagerPageSize = 50;
+        private Opt<LineStore> pagerLineStore = Opt.absent();
 
         public Builder(CliCommandHierarchy hierarchy, CliGui gui, CliPrinter out, CliPrinter err) {
             this.hierarchy = Objects.requireNonNull(hierarchy, "hierarchy");
@@ -261,12 +960,111 @@ public class CliShell {
             return this;
         }
 
+        /**
+         * Set the execution model that decides on which threads command lines are executed.
+         * Defaults to a {@link DirectExecutionModel}, which executes command lines on the calling thread.
+         *
+         * @param executionModel Execution model to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setExecutionModel(ExecutionModel executionModel) {
+            this.executionModel = Objects.requireNonNull(executionModel, "executionModel");
+            return this;
+        }
+
+        /**
+         * Set the maximum amount of output lines to buffer for each background job while it is detached.
+         * Once exceeded, the oldest lines are dropped.
+         *
+         * @param maxBackgroundJobOutput Max amount of output lines to buffer per background job.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setMaxBackgroundJobOutput(int maxBackgroundJobOutput) {
+            this.maxBackgroundJobOutput = maxBackgroundJobOutput;
+            return this;
+        }
+
+        /**
+         * Set the redirector that opens the targets of output redirections ('cmd &gt; target').
+         * Without one, output redirection is not supported.
+         *
+         * @param outputRedirector Redirector to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setOutputRedirector(OutputRedirector outputRedirector) {
+            this.outputRedirector = Opt.of(outputRedirector);
+            return this;
+        }
+
+        /**
+         * Set the instrumentation that every phase of assisting with and executing command lines is reported to.
+         * Defaults to {@link ShellInstrumentation#NONE}, which doesn't record anything.
+         *
+         * @param instrumentation Instrumentation to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setInstrumentation(ShellInstrumentation instrumentation) {
+            this.instrumentation = Objects.requireNonNull(instrumentation, "instrumentation");
+            return this;
+        }
+
+        /**
+         * Set the runner of the {@link IncrementalTask}s returned by commands.
+         * Defaults to {@link IncrementalTaskRunner#DIRECT}, which runs all of a task's steps right after the command returns.
+         *
+         * @param incrementalTaskRunner Runner to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setIncrementalTaskRunner(IncrementalTaskRunner incrementalTaskRunner) {
+            this.incrementalTaskRunner = Objects.requireNonNull(incrementalTaskRunner, "incrementalTaskRunner");
+            return this;
+        }
+
+        /**
+         * Set the amount of lines a foreground command line may print before the rest of it's output is paged
+         * (see {@link Pager}). Defaults to 0, which means output is never paged.
+         *
+         * @param pagerThreshold Amount of lines to print before paging, or 0 to never page.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerThreshold(int pagerThreshold) {
+            this.pagerThreshold = pagerThreshold;
+            return this;
+        }
+
+        /**
+         * Set the amount of lines in each page of paged output. Defaults to 50.
+         *
+         * @param pagerPageSize Amount of lines in a page.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerPageSize(int pagerPageSize) {
+            this.pagerPageSize = pagerPageSize;
+            return this;
+        }
+
+        /**
+         * Set the store that paged output is kept in. Defaults to a {@link ChunkedLineStore} that keeps all lines in memory.
+         * Only used if a pager threshold is set.
+         *
+         * @param pagerLineStore Store to keep paged output in.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerLineStore(LineStore pagerLineStore) {
+            this.pagerLineStore = Opt.of(pagerLineStore);
+            return this;
+        }
+
         /**
          * @return A {@link CliShell} built out of this builder's parameters.
          */
         public CliShell build() {
             final CommandLineHistory history = new CommandLineHistory(maxCommandHistory);
-            return new CliShell(hierarchy, gui, out, err, history);
+            final JobTable jobs = new JobTable(maxBackgroundJobOutput);
+            final Opt<Pager> pager = pagerThreshold > 0 ?
+                Opt.of(new Pager(out, pagerLineStore.isPresent() ? pagerLineStore.get() : new ChunkedLineStore(), pagerThreshold, pagerPageSize)) :
+                Opt.<Pager>absent();
+            return new CliShell(hierarchy, gui, out, err, history, executionModel.newSessionExecutor(), jobs, outputRedirector, instrumentation, incrementalTaskRunner, pager);
         }
     }
 }
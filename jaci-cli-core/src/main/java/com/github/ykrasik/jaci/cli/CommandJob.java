@@ -0,0 +1,227 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A handle to a command line that was submitted for execution through {@link CliShell#executeAsync(String)}.<br>
+ * <br>
+ * A job may be cancelled at any time before it is done. A job that was cancelled before it started executing will
+ * not be executed at all. Cancelling a job that is already executing is cooperative - the executing command
+ * will see {@link CommandOutput#isCancelled()} return {@code true} and is expected to return.
+ * The same happens once the command's timeout (if it has one) elapses.<br>
+ * <br>
+ * Jobs can be cancelled and queried from any thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CommandJob {
+    /**
+     * The state of a {@link CommandJob}.
+     */
+    public enum State {
+        /** Waiting to be executed. */
+        PENDING,
+
+        /** Executing. */
+        RUNNING,
+
+        /** Executed successfully. */
+        SUCCEEDED,
+
+        /** The command line could not be parsed, or the command threw an exception. */
+        FAILED,
+
+        /** Cancelled, either explicitly or because it's timeout elapsed. */
+        CANCELLED
+    }
+
+    private final String commandLine;
+    private final List<CommandJobListener> listeners = new ArrayList<>(2);
+
+    private volatile State state = State.PENDING;
+    private volatile boolean cancelRequested;
+
+    /** The timeout of the currently executing statement in milliseconds, or 0 if it has no timeout. */
+    private volatile long timeout;
+
+    /** The time at which this job times out, or 0 if it has no timeout. */
+    private volatile long deadline;
+
+    /** The time at which this job started executing, or 0 if it hasn't started yet. */
+    private volatile long startTime;
+
+    /** The time at which this job was done, or 0 if it isn't done yet. */
+    private volatile long endTime;
+
+    /**
+     * Package-protected - jobs are only created by the {@link CliShell}.
+     *
+     * @param commandLine Command line executed by this job.
+     */
+    CommandJob(String commandLine) {
+        this.commandLine = Objects.requireNonNull(commandLine, "commandLine");
+    }
+
+    /**
+     * @return The command line executed by this job.
+     */
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    /**
+     * @return The state of this job.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return Whether this job is done, whether successfully or not.
+     */
+    public boolean isDone() {
+        final State state = this.state;
+        return state != State.PENDING && state != State.RUNNING;
+    }
+
+    /**
+     * @return The amount of milliseconds this job has been executing for, or executed for if it is done.
+     *         0 if it hasn't started executing.
+     */
+    public long getElapsedMillis() {
+        final long startTime = this.startTime;
+        if (startTime == 0) {
+            return 0;
+        }
+        final long endTime = this.endTime;
+        return (endTime != 0 ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    /**
+     * Request this job to be cancelled. Has no effect if the job is already done.
+     *
+     * @return {@code true} if cancellation was requested, {@code false} if the job was already done.
+     */
+    public synchronized boolean cancel() {
+        if (isDone()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * @return Whether this job was cancelled or it's timeout elapsed. Polled by commands through {@link CommandOutput#isCancelled()}.
+     */
+    public boolean isCancelled() {
+        return cancelRequested || isTimedOut();
+    }
+
+    /**
+     * @return Whether this job's timeout has elapsed.
+     */
+    public boolean isTimedOut() {
+        final long deadline = this.deadline;
+        return deadline != 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * @return The timeout of the currently executing statement in milliseconds, or 0 if it has no timeout.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Register a listener to be notified once this job is done.
+     * If the job is already done, the listener is notified immediately, on the calling thread.
+     * Otherwise, it will be notified on the thread that executed the job.
+     *
+     * @param listener Listener to notify once this job is done.
+     */
+    public void addListener(CommandJobListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        synchronized (this) {
+            if (!isDone()) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.onDone(this);
+    }
+
+    /**
+     * Mark this job as running. Package-protected - only called by the {@link CliShell}.
+     *
+     * @return {@code false} if the job was cancelled before it started, in which case it should not be executed.
+     */
+    synchronized boolean start() {
+        if (cancelRequested) {
+            return false;
+        }
+        state = State.RUNNING;
+        startTime = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Start this job's timeout. Package-protected - only called by the {@link CliShell},
+     * right before a statement is executed.
+     *
+     * @param timeout Timeout in milliseconds, or 0 for no timeout.
+     */
+    void startTimeout(long timeout) {
+        this.timeout = timeout;
+        deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+    }
+
+    /**
+     * Mark this job as done and notify any listeners. Package-protected - only called by the {@link CliShell}.
+     *
+     * @param state Final state of the job.
+     */
+    void complete(State state) {
+        final List<CommandJobListener> listeners;
+        synchronized (this) {
+            if (startTime != 0) {
+                endTime = System.currentTimeMillis();
+            }
+            this.state = state;
+            listeners = new ArrayList<>(this.listeners);
+            this.listeners.clear();
+        }
+        for (CommandJobListener listener : listeners) {
+            listener.onDone(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CommandJob{");
+        sb.append("commandLine='").append(commandLine).append('\'');
+        sb.append(", state=").append(state);
+        sb.append(", cancelRequested=").append(cancelRequested);
+        sb.append('}');
+        return sb.toString();
+    }
+}
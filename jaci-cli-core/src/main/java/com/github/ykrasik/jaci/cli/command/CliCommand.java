@@ -43,11 +43,13 @@ public class CliCommand implements Identifiable, CliParamManager, CommandExecuto
     private final Identifier identifier;
     private final CliParamManager paramManager;
     private final CommandExecutor executor;
+    private final long timeout;
 
-    private CliCommand(Identifier identifier, CliParamManager paramManager, CommandExecutor executor) {
+    private CliCommand(Identifier identifier, CliParamManager paramManager, CommandExecutor executor, long timeout) {
         this.identifier = Objects.requireNonNull(identifier, "identifier");
         this.paramManager = Objects.requireNonNull(paramManager, "paramManager");
         this.executor = Objects.requireNonNull(executor, "executor");
+        this.timeout = timeout;
     }
 
     @Override
@@ -69,6 +71,13 @@ public class CliCommand implements Identifiable, CliParamManager, CommandExecuto
         return identifier.getDescription();
     }
 
+    /**
+     * @return Command timeout in milliseconds, or 0 if the command has no timeout.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
     @Override
     public List<CliParam> getParams() {
         return paramManager.getParams();
@@ -104,7 +113,7 @@ public class CliCommand implements Identifiable, CliParamManager, CommandExecuto
         final Identifier identifier = def.getIdentifier();
         final List<CliParam> params = createParams(def.getParamDefs());
         final CommandExecutor executor = def.getExecutor();
-        return from(identifier, params, executor);
+        return from(identifier, params, executor, def.getTimeout());
     }
 
     /**
@@ -116,8 +125,21 @@ public class CliCommand implements Identifiable, CliParamManager, CommandExecuto
      * @return A CLI command constructed from the given parameters.
      */
     public static CliCommand from(Identifier identifier, List<CliParam> params, CommandExecutor executor) {
+        return from(identifier, params, executor, 0);
+    }
+
+    /**
+     * Construct a CLI command from the given parameters.
+     *
+     * @param identifier Command identifier.
+     * @param params CLI parameters to use.
+     * @param executor Command executor.
+     * @param timeout Command timeout in milliseconds, or 0 if the command has no timeout.
+     * @return A CLI command constructed from the given parameters.
+     */
+    public static CliCommand from(Identifier identifier, List<CliParam> params, CommandExecutor executor, long timeout) {
         final CliParamManager paramManager = new CliParamManagerImpl(params);
-        return new CliCommand(identifier, paramManager, executor);
+        return new CliCommand(identifier, paramManager, executor, timeout);
     }
 
     private static final CliParamResolver RESOLVER = new CliParamResolver();
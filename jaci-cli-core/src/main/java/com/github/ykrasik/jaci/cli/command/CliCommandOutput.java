@@ -16,23 +16,40 @@
 
 package com.github.ykrasik.jaci.cli.command;
 
+import com.github.ykrasik.jaci.api.CommandInput;
 import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
 import com.github.ykrasik.jaci.cli.directory.CliDirectory;
 import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.job.JobTable;
 import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.DeferredClose;
+import com.github.ykrasik.jaci.cli.pipe.CommandPipe;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
+import com.github.ykrasik.jaci.util.opt.Opt;
 
 import java.util.Objects;
 
 /**
  * A CLI implementation of a {@link CommandOutput}.
  * Extends the API with some CLI-specific calls.
+ * {@link IncrementalTask}s returned by commands are run by the shell's {@link CliShell#getIncrementalTaskRunner() runner}.
+ * A runner that performs a task's steps after the command returned should {@link #holdOutput() hold} the output
+ * until the task is done, so that any redirection or pipe the command prints to stays open.
  *
  * @author Yevgeny Krasik
  */
-public class CliCommandOutput implements CommandOutput {
+public class CliCommandOutput implements CommandOutput, IncrementalTaskRunner {
     private final CliGui gui;
     private final CliPrinter out;
     private final CliPrinter err;
+    private final CommandJob job;
+    private final CliShell shell;
+    private final CommandInput input;
+    private final Opt<CommandPipe> outputPipe;
+    private final Opt<DeferredClose> outputClose;
 
     private boolean printDefaultExecutionMessage = true;
 
@@ -40,11 +57,39 @@ public class CliCommandOutput implements CommandOutput {
      * @param gui GUI controller.
      * @param out stdOut.
      * @param err stdErr.
+     * @param job The job the command is executed as. Used for cancellation.
+     * @param shell The shell executing the command.
      */
-    public CliCommandOutput(CliGui gui, CliPrinter out, CliPrinter err) {
+    public CliCommandOutput(CliGui gui, CliPrinter out, CliPrinter err, CommandJob job, CliShell shell) {
+        this(gui, out, err, job, shell, CommandInput.EMPTY, Opt.<CommandPipe>absent(), Opt.<DeferredClose>absent());
+    }
+
+    /**
+     * @param gui GUI controller.
+     * @param out stdOut. If the command's output is piped, prints to the pipe.
+     * @param err stdErr.
+     * @param job The job the command is executed as. Used for cancellation.
+     * @param shell The shell executing the command.
+     * @param input The command's input, piped from the previous command in a pipeline.
+     * @param outputPipe The pipe the command's output is printed to, if it is piped to the next command in a pipeline.
+     * @param outputClose Closes the command's input and output once the command is done, if they need closing.
+     */
+    public CliCommandOutput(CliGui gui,
+                            CliPrinter out,
+                            CliPrinter err,
+                            CommandJob job,
+                            CliShell shell,
+                            CommandInput input,
+                            Opt<CommandPipe> outputPipe,
+                            Opt<DeferredClose> outputClose) {
         this.gui = Objects.requireNonNull(gui, "gui");
         this.out = Objects.requireNonNull(out, "out");
         this.err = Objects.requireNonNull(err, "err");
+        this.job = Objects.requireNonNull(job, "job");
+        this.shell = Objects.requireNonNull(shell, "shell");
+        this.input = Objects.requireNonNull(input, "input");
+        this.outputPipe = Objects.requireNonNull(outputPipe, "outputPipe");
+        this.outputClose = Objects.requireNonNull(outputClose, "outputClose");
     }
 
     @Override
@@ -59,6 +104,58 @@ public class CliCommandOutput implements CommandOutput {
         suppressDefaultExecutionMessage();
     }
 
+    /**
+     * A command whose output is piped is also considered cancelled once the next command in the pipeline stopped
+     * reading it's output.
+     */
+    @Override
+    public boolean isCancelled() {
+        return job.isCancelled() || (outputPipe.isPresent() && outputPipe.get().isReaderClosed());
+    }
+
+    @Override
+    public void run(IncrementalTask task, CommandOutput output) throws Exception {
+        shell.getIncrementalTaskRunner().run(task, output);
+    }
+
+    @Override
+    public CommandInput getInput() {
+        return input;
+    }
+
+    /**
+     * Keep the command's input and output open after the command returns, until a matching call to {@link #releaseOutput()}.
+     */
+    public void holdOutput() {
+        if (outputClose.isPresent()) {
+            outputClose.get().hold();
+        }
+    }
+
+    /**
+     * Release a hold taken through {@link #holdOutput()}. The command's input and output are closed once the command
+     * is done and all holds are released.
+     */
+    public void releaseOutput() {
+        if (outputClose.isPresent()) {
+            outputClose.get().release();
+        }
+    }
+
+    /**
+     * @return {@code true} if the command's output is piped to the next command in a pipeline.
+     */
+    public boolean isOutputPiped() {
+        return outputPipe.isPresent();
+    }
+
+    /**
+     * @return The deferred close of the command's input and output, if they need closing.
+     */
+    public Opt<DeferredClose> getOutputClose() {
+        return outputClose;
+    }
+
     /**
      * If {@code true}, a default 'command executed successfully' message will be printed after the command is executed.
      *
@@ -99,6 +196,52 @@ public class CliCommandOutput implements CommandOutput {
         suppressDefaultExecutionMessage();
     }
 
+    /**
+     * @return GUI controller.
+     */
+    public CliGui getGui() {
+        return gui;
+    }
+
+    /**
+     * @return The shell executing the command.
+     */
+    public CliShell getShell() {
+        return shell;
+    }
+
+    /**
+     * @return The shell's background jobs.
+     */
+    public JobTable getJobs() {
+        return shell.getJobs();
+    }
+
+    /**
+     * @return The job the command is executed as.
+     */
+    public CommandJob getJob() {
+        return job;
+    }
+
+    /**
+     * Printing directly to stdOut bypasses the suppression of the default 'command executed successfully' message.
+     *
+     * @return stdOut.
+     */
+    public CliPrinter getOut() {
+        return out;
+    }
+
+    /**
+     * Printing directly to stdErr bypasses the suppression of the default 'command executed successfully' message.
+     *
+     * @return stdErr.
+     */
+    public CliPrinter getErr() {
+        return err;
+    }
+
     private void suppressDefaultExecutionMessage() {
         // Called any time there is any interaction with this output.
         // The default message should only be printed if the command didn't print anything by itself.
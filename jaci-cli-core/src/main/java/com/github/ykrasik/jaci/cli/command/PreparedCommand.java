@@ -0,0 +1,92 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.command;
+
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandArgsImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A single command that was tokenized, resolved to a {@link CliCommand} and had it's args parsed, so it can be executed
+ * any number of times without being parsed again. Part of a {@link PreparedStatement}.<br>
+ * Paths are resolved relative to the working directory at the time the command was prepared,
+ * which is kept alongside the prepared command.
+ *
+ * @author Yevgeny Krasik
+ */
+public class PreparedCommand {
+    private final String statement;
+    private final CliDirectory workingDirectory;
+    private final CliCommand command;
+    private final String commandPath;
+    private final List<Object> args;
+
+    public PreparedCommand(String statement, CliDirectory workingDirectory, CliCommand command, String commandPath, List<Object> args) {
+        this.statement = Objects.requireNonNull(statement, "statement");
+        this.workingDirectory = Objects.requireNonNull(workingDirectory, "workingDirectory");
+        this.command = Objects.requireNonNull(command, "command");
+        this.commandPath = Objects.requireNonNull(commandPath, "commandPath");
+        this.args = Collections.unmodifiableList(new ArrayList<>(args));
+    }
+
+    /**
+     * @return The raw command that was prepared.
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return The working directory the statement was prepared in.
+     */
+    public CliDirectory getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * @return The command to execute.
+     */
+    public CliCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * @return Full path of the command to execute ('/path/to/command'), or just it's name for a system command.
+     */
+    public String getCommandPath() {
+        return commandPath;
+    }
+
+    /**
+     * {@link CommandArgs} are consumed as they are read, so every execution requires a fresh instance.
+     *
+     * @return Fresh args to execute the command with.
+     */
+    public CommandArgs newArgs() {
+        return new CommandArgsImpl(args);
+    }
+
+    @Override
+    public String toString() {
+        return statement;
+    }
+}
@@ -0,0 +1,110 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.command;
+
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.commandline.Redirection;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A statement that was split into it's commands, each of them a {@link PreparedCommand}, so it can be executed
+ * any number of times without being parsed again. Created by {@link CliShell#prepare(String)}.<br>
+ * A statement has a single command, unless it is a pipeline ('cmdA | cmdB'), in which case it has a command for each
+ * stage of the pipeline. The output of the statement's last command may be redirected ('cmd &gt; file').
+ *
+ * @author Yevgeny Krasik
+ */
+public class PreparedStatement {
+    private final String statement;
+    private final CliDirectory workingDirectory;
+    private final List<PreparedCommand> commands;
+    private final Opt<Redirection> redirection;
+    private final long timeout;
+
+    public PreparedStatement(String statement,
+                             CliDirectory workingDirectory,
+                             List<PreparedCommand> commands,
+                             Opt<Redirection> redirection) {
+        this.statement = Objects.requireNonNull(statement, "statement");
+        this.workingDirectory = Objects.requireNonNull(workingDirectory, "workingDirectory");
+        this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+        this.redirection = Objects.requireNonNull(redirection, "redirection");
+        if (this.commands.isEmpty()) {
+            throw new IllegalArgumentException("Statement has no commands: " + statement);
+        }
+        this.timeout = calcTimeout(this.commands);
+    }
+
+    private static long calcTimeout(List<PreparedCommand> commands) {
+        long timeout = 0;
+        for (PreparedCommand command : commands) {
+            final long commandTimeout = command.getCommand().getTimeout();
+            if (commandTimeout > 0 && (timeout == 0 || commandTimeout < timeout)) {
+                timeout = commandTimeout;
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * @return The statement that was prepared.
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return The working directory the statement was prepared in.
+     */
+    public CliDirectory getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * @return The commands of the statement, in pipeline order.
+     */
+    public List<PreparedCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return Where to redirect the output of the statement's last command, if anywhere.
+     */
+    public Opt<Redirection> getRedirection() {
+        return redirection;
+    }
+
+    /**
+     * A pipeline is bound by the shortest timeout of it's commands.
+     *
+     * @return The statement's timeout in milliseconds, or 0 if it has no timeout.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return statement;
+    }
+}
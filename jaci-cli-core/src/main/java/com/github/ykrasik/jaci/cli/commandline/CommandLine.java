@@ -19,6 +19,7 @@ package com.github.ykrasik.jaci.cli.commandline;
 import com.github.ykrasik.jaci.util.string.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -29,6 +30,21 @@ import java.util.Objects;
  * @author Yevgeny Krasik
  */
 public class CommandLine {
+    /**
+     * Separates statements in a single command line.
+     */
+    public static final char STATEMENT_SEPARATOR = ';';
+
+    /**
+     * Separates the commands of a pipeline in a single statement.
+     */
+    public static final char PIPE_SEPARATOR = '|';
+
+    /**
+     * Starts an output redirection at the end of a statement.
+     */
+    public static final char REDIRECTION = '>';
+
     /**
      * Elements present in the command line. Each one was typically separated by a whitespace.
      */
@@ -110,6 +126,102 @@ public class CommandLine {
         return new CommandLine(elements);
     }
 
+    /**
+     * Split a raw command line into the statements it contains. Statements are separated by ';'.
+     * Separators inside quoted text are not considered separators. Empty statements are dropped.
+     *
+     * @param rawCommandLine Command line to split.
+     * @return The statements in the command line, trimmed, in the order they appeared.
+     */
+    public static List<String> splitStatements(String rawCommandLine) {
+        final List<String> statements = split(Objects.requireNonNull(rawCommandLine, "rawCommandLine"), STATEMENT_SEPARATOR);
+        final Iterator<String> iterator = statements.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isEmpty()) {
+                iterator.remove();
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Split a single statement into the commands of the pipeline it describes. Commands are separated by '|'.
+     * Separators inside quoted text are not considered separators. Empty commands are kept, so that they can be reported.
+     *
+     * @param statement Statement to split.
+     * @return The commands in the pipeline, trimmed, in pipeline order. A statement without a pipe is a single command.
+     */
+    public static List<String> splitPipeline(String statement) {
+        return split(Objects.requireNonNull(statement, "statement"), PIPE_SEPARATOR);
+    }
+
+    /**
+     * Extract the command that is being typed at the end of a raw command line - the last command of the pipeline
+     * of the last statement. Assist operations only apply to this command.
+     * Unlike {@link #splitStatements(String)} and {@link #splitPipeline(String)}, the command isn't trimmed,
+     * because trailing whitespace is meaningful for {@link #forAssist(String)}.
+     *
+     * @param rawCommandLine Command line to extract the last command from.
+     * @return The last command in the command line, which may contain an output redirection.
+     */
+    public static String getLastCommand(String rawCommandLine) {
+        final String statement = rawCommandLine.substring(lastIndexOfUnquoted(Objects.requireNonNull(rawCommandLine, "rawCommandLine"), STATEMENT_SEPARATOR) + 1);
+        return statement.substring(lastIndexOfUnquoted(statement, PIPE_SEPARATOR) + 1);
+    }
+
+    /**
+     * Find the first occurrence of a character that isn't inside quoted text.
+     *
+     * @param raw Text to search.
+     * @param c Character to look for.
+     * @return The index of the first unquoted occurrence of the character, or -1 if there is none.
+     */
+    public static int indexOfUnquoted(String raw, char c) {
+        return indexOfUnquoted(raw, c, 0);
+    }
+
+    private static int indexOfUnquoted(String raw, char target, int fromIndex) {
+        char quote = 0;
+        boolean wordStart = true;
+        for (int i = fromIndex; i < raw.length(); i++) {
+            final char c = raw.charAt(i);
+            if (quote != 0) {
+                // A quote can only be closed by the same quote that opened it.
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == target) {
+                return i;
+            } else if (isQuote(c) && wordStart) {
+                // Same as when splitting a command line, quotes only open quoted text at the start of a word.
+                quote = c;
+            }
+            wordStart = isWhitespace(c);
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfUnquoted(String raw, char target) {
+        int lastIndex = -1;
+        int index;
+        while ((index = indexOfUnquoted(raw, target, lastIndex + 1)) != -1) {
+            lastIndex = index;
+        }
+        return lastIndex;
+    }
+
+    private static List<String> split(String raw, char separator) {
+        final List<String> parts = new ArrayList<>();
+        int partStart = 0;
+        int separatorIndex;
+        while ((separatorIndex = indexOfUnquoted(raw, separator, partStart)) != -1) {
+            parts.add(raw.substring(partStart, separatorIndex).trim());
+            partStart = separatorIndex + 1;
+        }
+        parts.add(raw.substring(partStart).trim());
+        return parts;
+    }
+
     // FIXME: This pattern doesn't support named parameter calling with strings with whitespace (param="long string")
     // FIXME: Maybe the fix should not be in the pattern. Either way, calling long strings by name doesn't work.
 
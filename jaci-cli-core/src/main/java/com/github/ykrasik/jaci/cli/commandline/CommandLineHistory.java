@@ -25,7 +25,8 @@ import java.util.List;
  * Manages a history of command lines.<br>
  * Maintains state, so 2 consecutive calls to {@link #getPrevCommandLine()} will return different results
  * from the history buffer.<br>
- * The history buffer is limited and the oldest entries will be discarded when the buffer is full.
+ * The history buffer is limited and the oldest entries will be discarded when the buffer is full.<br>
+ * Thread safe - command lines may be pushed by the thread executing them while the UI thread navigates the history.
  *
  * @author Yevgeny Krasik
  */
@@ -54,7 +55,7 @@ public class CommandLineHistory {
     /**
      * @return Previous command line from history.
      */
-    public Opt<String> getPrevCommandLine() {
+    public synchronized Opt<String> getPrevCommandLine() {
         if (history.isEmpty()) {
             return Opt.absent();
         }
@@ -70,7 +71,7 @@ public class CommandLineHistory {
     /**
      * @return Next command line in history.
      */
-    public Opt<String> getNextCommandLine() {
+    public synchronized Opt<String> getNextCommandLine() {
         if (history.isEmpty()) {
             return Opt.absent();
         }
@@ -91,7 +92,7 @@ public class CommandLineHistory {
      *
      * @param commandLine Command line to add to history.
      */
-    public void pushCommandLine(String commandLine) {
+    public synchronized void pushCommandLine(String commandLine) {
         // Add new history entry to the end.
         history.add(commandLine);
 
@@ -0,0 +1,74 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.commandline;
+
+import com.github.ykrasik.jaci.cli.exception.ParseError;
+import com.github.ykrasik.jaci.cli.exception.ParseException;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An output redirection at the end of a statement ('cmd &gt; target' or 'cmd &gt;&gt; target').
+ *
+ * @author Yevgeny Krasik
+ */
+public class Redirection {
+    private final String target;
+    private final boolean append;
+
+    public Redirection(String target, boolean append) {
+        this.target = Objects.requireNonNull(target, "target");
+        this.append = append;
+    }
+
+    /**
+     * @return The target to redirect the output to.
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * @return Whether to append to the target's existing content ('&gt;&gt;'), instead of replacing it ('&gt;').
+     */
+    public boolean isAppend() {
+        return append;
+    }
+
+    @Override
+    public String toString() {
+        return (append ? ">> " : "> ") + target;
+    }
+
+    /**
+     * Parse a redirection.
+     *
+     * @param rawRedirection Raw redirection, starting from the redirection operator.
+     * @return The parsed redirection.
+     * @throws ParseException If the redirection isn't followed by exactly 1 target.
+     */
+    public static Redirection parse(String rawRedirection) throws ParseException {
+        final boolean append = rawRedirection.startsWith(">>");
+        final String rawTarget = rawRedirection.substring(append ? 2 : 1);
+        final List<String> elements = CommandLine.splitCommandLine(rawTarget);
+        if (elements.size() != 1 || elements.get(0).isEmpty()) {
+            throw new ParseException(ParseError.INVALID_PARAM_VALUE, "Output redirection must have exactly 1 target: '"+rawRedirection.trim()+'\'');
+        }
+        return new Redirection(elements.get(0), append);
+    }
+}
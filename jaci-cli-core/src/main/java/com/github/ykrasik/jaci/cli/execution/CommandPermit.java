@@ -0,0 +1,39 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+/**
+ * A permit to execute a command, acquired through {@link SessionExecutor#acquirePermit}.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface CommandPermit {
+    /**
+     * A permit that isn't limited by anything.
+     */
+    CommandPermit UNLIMITED = new CommandPermit() {
+        @Override
+        public void release() {
+            // Nothing to release.
+        }
+    };
+
+    /**
+     * Release this permit.
+     */
+    void release();
+}
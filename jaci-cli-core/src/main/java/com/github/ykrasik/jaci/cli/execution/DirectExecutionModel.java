@@ -0,0 +1,86 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.pipe.CommandPipe;
+import com.github.ykrasik.jaci.cli.pipe.UnboundedCommandPipe;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.List;
+
+/**
+ * An {@link ExecutionModel} that runs every command line on the calling thread, before {@link SessionExecutor#submit}
+ * returns. Commands are not limited in any way - on a single thread there is nothing to limit.
+ * Background tasks are also run on the calling thread, so background jobs run to completion before the shell returns.
+ * The stages of a pipeline are run one after the other, connected by unbounded pipes, so an upstream command
+ * can't be stopped early by it's downstream command.<br>
+ * This is the default model, and the only one available under GWT. It suits a CLI that is driven from a
+ * single UI thread or game loop.
+ *
+ * @author Yevgeny Krasik
+ */
+public class DirectExecutionModel implements ExecutionModel {
+    @Override
+    public SessionExecutor newSessionExecutor() {
+        return new DirectSessionExecutor();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectExecutionModel";
+    }
+
+    private static class DirectSessionExecutor implements SessionExecutor {
+        private boolean shutdown;
+
+        @Override
+        public void submit(Runnable task) {
+            if (shutdown) {
+                throw new IllegalStateException("Executor was shut down!");
+            }
+            task.run();
+        }
+
+        @Override
+        public void submitBackground(Runnable task) {
+            submit(task);
+        }
+
+        @Override
+        public void executePipeline(List<Runnable> stages) {
+            for (Runnable stage : stages) {
+                stage.run();
+            }
+        }
+
+        @Override
+        public CommandPipe newPipe() {
+            return new UnboundedCommandPipe();
+        }
+
+        @Override
+        public Opt<CommandPermit> acquirePermit(String commandPath, CommandOutput output) {
+            return Opt.of(CommandPermit.UNLIMITED);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.cli.CliShell;
+
+/**
+ * Decides on which threads a {@link CliShell} executes it's command lines.<br>
+ * Each shell is considered a single session and receives it's own {@link SessionExecutor} from the model,
+ * while any limits on command concurrency are shared between all sessions created by the same model.<br>
+ * <br>
+ * The default model is {@link DirectExecutionModel}, which executes everything on the calling thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface ExecutionModel {
+    /**
+     * @return A new executor for a single session.
+     */
+    SessionExecutor newSessionExecutor();
+}
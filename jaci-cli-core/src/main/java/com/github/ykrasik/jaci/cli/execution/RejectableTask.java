@@ -0,0 +1,32 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+/**
+ * A task submitted to a {@link SessionExecutor} that wants to know when it will never be run - for example,
+ * because it was queued behind other tasks of it's session when the underlying executor stopped accepting work.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface RejectableTask extends Runnable {
+    /**
+     * Called instead of {@link #run()} when this task was accepted but will never be run.
+     *
+     * @param cause Reason this task was rejected.
+     */
+    void reject(Exception cause);
+}
@@ -0,0 +1,87 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.pipe.CommandPipe;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.List;
+
+/**
+ * Executes the command lines of a single session.<br>
+ * Tasks submitted to a session executor must be run one at a time, in the order they were submitted,
+ * but may be run on any thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface SessionExecutor {
+    /**
+     * Submit a task for execution. The task may be run before this call returns.
+     * A {@link RejectableTask} that was accepted but can't be run anymore is {@link RejectableTask#reject rejected}.
+     *
+     * @param task Task to run.
+     * @throws IllegalStateException If this executor was shut down.
+     */
+    void submit(Runnable task);
+
+    /**
+     * Submit a task for execution independently of this session's other tasks - it does not need to wait for
+     * previously submitted tasks, and tasks submitted later don't need to wait for it.
+     * Used for background jobs. The task may be run before this call returns.
+     *
+     * @param task Task to run.
+     * @throws IllegalStateException If this executor was shut down.
+     */
+    void submitBackground(Runnable task);
+
+    /**
+     * Execute the stages of a pipeline ('cmdA | cmdB'), returning once all of them are done.
+     * Called from within a submitted task. Stages are given in pipeline order and should run concurrently,
+     * so that each stage consumes the output of the previous stage as it is produced. An executor that can't run
+     * stages concurrently must run them one after the other in the given order, and create unbounded pipes.
+     *
+     * @param stages Stages of the pipeline, in order.
+     */
+    void executePipeline(List<Runnable> stages);
+
+    /**
+     * Create a pipe to connect 2 consecutive stages of a pipeline.
+     *
+     * @return A new pipe.
+     */
+    CommandPipe newPipe();
+
+    /**
+     * Acquire a permit to execute the given command, possibly waiting until one is available.
+     * Called from within a submitted task before executing a command. The permit must be released once
+     * the command is done. A pipeline acquires a single permit for each distinct command in it, before any of
+     * it's stages are executed. Waiting stops once the command is cancelled or times out.
+     *
+     * @param commandPath Full path of the command that is about to be executed ('/path/to/command'),
+     *                    or just it's name for a system command.
+     * @param output Output of the command that is about to be executed, polled for cancellation while waiting.
+     * @return A permit that must be released once the command is done,
+     *         or {@code absent} if the command was cancelled while waiting for one.
+     */
+    Opt<CommandPermit> acquirePermit(String commandPath, CommandOutput output);
+
+    /**
+     * Shut down this executor. Tasks that were already submitted may still run, new tasks will be rejected.
+     */
+    void shutdown();
+}
@@ -53,7 +53,7 @@ public class CliCommandHierarchyImpl implements CliCommandHierarchy {
     /**
      * Current working directory.
      */
-    private CliDirectory workingDirectory;
+    private volatile CliDirectory workingDirectory;
 
     private CliCommandHierarchyImpl(CliDirectory root, CliDirectory systemCommands) {
         this.root = Objects.requireNonNull(root, "root");
@@ -205,9 +205,10 @@ public class CliCommandHierarchyImpl implements CliCommandHierarchy {
      * Construct a CLI hierarchy from a {@link CommandHierarchyDef}.
      *
      * @param def CommandHierarchyDef to construct a CLI hierarchy from.
+     * @param extraSystemCommands Additional commands to add to the system commands.
      * @return A CLI hierarchy constructed from the CommandHierarchyDef.
      */
-    public static CliCommandHierarchyImpl from(CommandHierarchyDef def) {
+    public static CliCommandHierarchyImpl from(CommandHierarchyDef def, CliCommand... extraSystemCommands) {
         // Create hierarchy with the parameter as the root.
         final CommandDirectoryDef rootDef = def.getRoot();
         final CliDirectory root = CliDirectory.fromDef(rootDef);
@@ -218,7 +219,7 @@ public class CliCommandHierarchyImpl implements CliCommandHierarchy {
         // This is a cyclic dependency - resolved through the use of a 'promise' object, which will delegate all calls to the
         // concrete hierarchy, once it's built.
         final CliCommandHierarchyPromise hierarchyPromise = new CliCommandHierarchyPromise();
-        final CliDirectory systemCommands = CliSystemCommandFactory.from(hierarchyPromise);
+        final CliDirectory systemCommands = CliSystemCommandFactory.from(hierarchyPromise, extraSystemCommands);
 
         // Update the 'promise' hierarchy with the concrete implementation.
         final CliCommandHierarchyImpl cliHierarchy = new CliCommandHierarchyImpl(root, systemCommands);
@@ -17,20 +17,44 @@
 package com.github.ykrasik.jaci.cli.hierarchy;
 
 import com.github.ykrasik.jaci.Identifier;
+import com.github.ykrasik.jaci.api.CommandInput;
 import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
 import com.github.ykrasik.jaci.cli.command.CliCommand;
 import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.command.PreparedCommand;
+import com.github.ykrasik.jaci.cli.command.PreparedStatement;
 import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.instrument.CommandStats;
+import com.github.ykrasik.jaci.cli.instrument.InstrumentationSnapshot;
+import com.github.ykrasik.jaci.cli.instrument.LatencySnapshot;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.ShellPhase;
+import com.github.ykrasik.jaci.cli.job.BackgroundJob;
+import com.github.ykrasik.jaci.cli.job.JobOutputBuffer;
+import com.github.ykrasik.jaci.cli.job.JobTable;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.Pager;
 import com.github.ykrasik.jaci.cli.param.BooleanCliParam;
 import com.github.ykrasik.jaci.cli.param.CliParam;
 import com.github.ykrasik.jaci.cli.param.CommandCliParam;
 import com.github.ykrasik.jaci.cli.param.DirectoryCliParam;
+import com.github.ykrasik.jaci.cli.param.IntCliParam;
+import com.github.ykrasik.jaci.cli.param.StringCliParam;
 import com.github.ykrasik.jaci.command.CommandArgs;
 import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
+import com.github.ykrasik.jaci.util.function.MoreSuppliers;
 import com.github.ykrasik.jaci.util.function.Spplr;
+import com.github.ykrasik.jaci.util.opt.Opt;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
@@ -43,6 +67,9 @@ import java.util.Objects;
  * @author Yevgeny Krasik
  */
 public class CliSystemCommandFactory {
+    /** Width of each numeric column printed by the 'top' command. */
+    private static final int TOP_COLUMN_WIDTH = 11;
+
     private final CliCommandHierarchy hierarchy;
 
     private CliSystemCommandFactory(CliCommandHierarchy hierarchy) {
@@ -113,6 +140,479 @@ public class CliSystemCommandFactory {
         });
     }
 
+    /**
+     * @return Create the list background jobs command.
+     */
+    CliCommand createListJobsCommand() {
+        final Identifier identifier = new Identifier("jobs", "List background jobs");
+        return CliCommand.from(identifier, Collections.<CliParam>emptyList(), new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final JobTable jobs = ((CliCommandOutput) output).getJobs();
+                final List<BackgroundJob> backgroundJobs = jobs.getJobs();
+                if (backgroundJobs.isEmpty()) {
+                    output.message("No background jobs.");
+                    return;
+                }
+
+                for (BackgroundJob backgroundJob : backgroundJobs) {
+                    final CommandJob job = backgroundJob.getJob();
+                    final JobOutputBuffer jobOutput = backgroundJob.getOutput();
+                    final StringBuilder sb = new StringBuilder();
+                    sb.append(backgroundJob).append(": ").append(job.getState());
+                    sb.append(", ").append(job.getElapsedMillis()).append("ms");
+                    if (jobOutput.isAttached()) {
+                        sb.append(", attached");
+                    } else {
+                        sb.append(", ").append(jobOutput.getBufferedLines()).append(" lines buffered");
+                        if (jobOutput.getDroppedLines() > 0) {
+                            sb.append(" (").append(jobOutput.getDroppedLines()).append(" dropped)");
+                        }
+                    }
+                    output.message(sb.toString());
+
+                    // Done jobs are forgotten once they have been listed, unless they have output that wasn't seen yet.
+                    if (job.isDone() && jobOutput.getBufferedLines() == 0) {
+                        jobs.remove(backgroundJob);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the attach to a background job's output command.
+     */
+    CliCommand createForegroundJobCommand() {
+        final Identifier identifier = new Identifier("fg", "Attach to a background job's output, printing any buffered output");
+        return CliCommand.from(identifier, createJobIdParams(), new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int id = args.popArg();
+                final JobTable jobs = ((CliCommandOutput) output).getJobs();
+                final BackgroundJob backgroundJob = getJob(jobs, id);
+                backgroundJob.getOutput().attach();
+                if (backgroundJob.getJob().isDone()) {
+                    jobs.remove(backgroundJob);
+                    output.message(backgroundJob + ": " + backgroundJob.getJob().getState());
+                } else {
+                    output.message(backgroundJob + ": Attached.");
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the detach from a background job's output command.
+     */
+    CliCommand createBackgroundJobCommand() {
+        final Identifier identifier = new Identifier("bg", "Detach from a background job's output, buffering it");
+        return CliCommand.from(identifier, createJobIdParams(), new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int id = args.popArg();
+                final BackgroundJob backgroundJob = getJob(((CliCommandOutput) output).getJobs(), id);
+                backgroundJob.getOutput().detach();
+                output.message(backgroundJob + ": Detached.");
+            }
+        });
+    }
+
+    /**
+     * @return Create the cancel a background job command.
+     */
+    CliCommand createKillJobCommand() {
+        final Identifier identifier = new Identifier("kill", "Cancel a background job");
+        return CliCommand.from(identifier, createJobIdParams(), new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int id = args.popArg();
+                final BackgroundJob backgroundJob = getJob(((CliCommandOutput) output).getJobs(), id);
+                if (backgroundJob.getJob().cancel()) {
+                    output.message(backgroundJob + ": Cancellation requested.");
+                } else {
+                    output.error(backgroundJob + ": Already done.");
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that filters it's input by a pattern.
+     */
+    CliCommand createGrepCommand() {
+        final Identifier identifier = new Identifier("grep", "Print the input lines that contain a pattern");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new StringCliParam(
+                new Identifier("pattern", "Text to look for"),
+                Opt.<Spplr<String>>absent(),
+                false,
+                MoreSuppliers.of(Collections.<String>emptyList())
+            ),
+            BooleanCliParam.optional(new Identifier("v", "Whether to print the lines that don't contain the pattern instead"), false, false),
+            new IntCliParam(new Identifier("max", "Max amount of lines to print, 0 for no limit"), Opt.of(MoreSuppliers.of(0)), false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final String pattern = args.popArg();
+                final boolean invert = args.popArg();
+                final int max = args.popArg();
+                final CommandInput input = output.getInput();
+
+                int matches = 0;
+                Opt<String> line;
+                while (!output.isCancelled() && (line = input.readLine()).isPresent()) {
+                    if (line.get().contains(pattern) != invert) {
+                        output.message(line.get());
+                        matches++;
+                        if (matches == max) {
+                            // Stop the previous command, the rest of it's output isn't needed.
+                            input.close();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that prints the first lines of it's input.
+     */
+    CliCommand createHeadCommand() {
+        final Identifier identifier = new Identifier("head", "Print the first lines of the input");
+        final List<CliParam> params = Collections.<CliParam>singletonList(
+            new IntCliParam(new Identifier("n", "Amount of lines to print"), Opt.of(MoreSuppliers.of(10)), false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int n = args.popArg();
+                final CommandInput input = output.getInput();
+
+                int printed = 0;
+                Opt<String> line;
+                while (printed < n && !output.isCancelled() && (line = input.readLine()).isPresent()) {
+                    output.message(line.get());
+                    printed++;
+                }
+
+                // Stop the previous command, the rest of it's output isn't needed.
+                input.close();
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that counts the lines of it's input.
+     */
+    CliCommand createCountCommand() {
+        final Identifier identifier = new Identifier("count", "Print the amount of input lines");
+        return CliCommand.from(identifier, Collections.<CliParam>emptyList(), new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final CommandInput input = output.getInput();
+
+                int count = 0;
+                while (!output.isCancelled() && input.readLine().isPresent()) {
+                    count++;
+                }
+                output.message(String.valueOf(count));
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that prints the statistics recorded by the shell's instrumentation.
+     */
+    CliCommand createStatsCommand() {
+        final Identifier identifier = new Identifier("stats", "Print the latency of each phase and command executed by the shell");
+        final List<CliParam> params = Collections.<CliParam>singletonList(
+            BooleanCliParam.optional(new Identifier("reset", "Whether to discard the statistics after printing them"), false, false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final boolean reset = args.popArg();
+                final ShellInstrumentation instrumentation = ((CliCommandOutput) output).getShell().getInstrumentation();
+                final InstrumentationSnapshot snapshot = instrumentation.snapshot();
+                if (reset) {
+                    instrumentation.reset();
+                }
+                if (snapshot.getCommands().isEmpty()) {
+                    output.message("No statistics recorded.");
+                    return;
+                }
+
+                output.message("Phases:");
+                for (ShellPhase phase : ShellPhase.values()) {
+                    final LatencySnapshot latency = snapshot.getPhase(phase);
+                    if (latency.getCount() > 0) {
+                        output.message("  " + phase.getDisplayName() + ": " + latency);
+                    }
+                }
+
+                // Heaviest commands first.
+                final List<CommandStats> commands = new ArrayList<>(snapshot.getCommands());
+                Collections.sort(commands, new Comparator<CommandStats>() {
+                    @Override
+                    public int compare(CommandStats o1, CommandStats o2) {
+                        return Long.compare(o2.getLatency().getSum(), o1.getLatency().getSum());
+                    }
+                });
+                output.message("Commands:");
+                for (CommandStats stats : commands) {
+                    output.message("  " + stats);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that prints the executed commands, heaviest first.
+     */
+    CliCommand createTopCommand() {
+        final Identifier identifier = new Identifier("top", "Print the executed commands that used the most CPU time, allocations or time");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new StringCliParam(
+                new Identifier("sort", "What to sort by: cpu, alloc, time or count"),
+                Opt.of(MoreSuppliers.of("cpu")),
+                false,
+                MoreSuppliers.of(Arrays.asList("cpu", "alloc", "time", "count"))
+            ),
+            new IntCliParam(new Identifier("n", "Max amount of commands to print, 0 for no limit"), Opt.of(MoreSuppliers.of(10)), false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                String sort = args.popArg();
+                final int max = args.popArg();
+                final InstrumentationSnapshot snapshot = ((CliCommandOutput) output).getShell().getInstrumentation().snapshot();
+                if (snapshot.getCommands().isEmpty()) {
+                    output.message("No statistics recorded.");
+                    return;
+                }
+                if ("cpu".equals(sort) && !snapshot.isCpuTimeMeasured() || "alloc".equals(sort) && !snapshot.isAllocationMeasured()) {
+                    output.message("'" + sort + "' is not measured on this platform, sorting by time.");
+                    sort = "time";
+                }
+
+                final List<CommandStats> commands = new ArrayList<>(snapshot.getCommands());
+                Collections.sort(commands, createTopComparator(sort));
+                final int count = max > 0 ? Math.min(max, commands.size()) : commands.size();
+
+                int nameWidth = "COMMAND".length();
+                for (int i = 0; i < count; i++) {
+                    nameWidth = Math.max(nameWidth, commands.get(i).getCommandPath().length());
+                }
+                final boolean cpu = snapshot.isCpuTimeMeasured();
+                final boolean alloc = snapshot.isAllocationMeasured();
+                final StringBuilder sb = new StringBuilder();
+                appendTopRow(sb, nameWidth, "COMMAND", "COUNT", "TIME", "CPU", "CPU/RUN", "ALLOC", "ALLOC/RUN", "MAX ALLOC");
+                output.message(sb.toString());
+                for (int i = 0; i < count; i++) {
+                    final CommandStats stats = commands.get(i);
+                    sb.setLength(0);
+                    appendTopRow(
+                        sb, nameWidth,
+                        stats.getCommandPath(),
+                        String.valueOf(stats.getCount()),
+                        LatencySnapshot.formatNanos(stats.getLatency().getSum()),
+                        cpu ? LatencySnapshot.formatNanos(stats.getCpuTime()) : "n/a",
+                        cpu ? LatencySnapshot.formatNanos(stats.getMeanCpuTime()) : "n/a",
+                        alloc ? CommandStats.formatBytes(stats.getAllocatedBytes()) : "n/a",
+                        alloc ? CommandStats.formatBytes(stats.getMeanAllocatedBytes()) : "n/a",
+                        alloc ? CommandStats.formatBytes(stats.getMaxAllocatedBytes()) : "n/a"
+                    );
+                    output.message(sb.toString());
+                }
+            }
+        });
+    }
+
+    private Comparator<CommandStats> createTopComparator(final String sort) {
+        return new Comparator<CommandStats>() {
+            @Override
+            public int compare(CommandStats o1, CommandStats o2) {
+                // Descending.
+                return Long.compare(getValue(o2), getValue(o1));
+            }
+
+            private long getValue(CommandStats stats) {
+                switch (sort) {
+                    case "cpu": return stats.getCpuTime();
+                    case "alloc": return stats.getAllocatedBytes();
+                    case "count": return stats.getCount();
+                    default: return stats.getLatency().getSum();
+                }
+            }
+        };
+    }
+
+    private void appendTopRow(StringBuilder sb, int nameWidth, String name, String... columns) {
+        sb.append(name);
+        for (int i = name.length(); i < nameWidth; i++) {
+            sb.append(' ');
+        }
+        for (String column : columns) {
+            // Right-aligned.
+            for (int i = column.length(); i < TOP_COLUMN_WIDTH; i++) {
+                sb.append(' ');
+            }
+            sb.append(column);
+        }
+    }
+
+    /**
+     * @return Create the command that benchmarks another command.
+     */
+    CliCommand createBenchCommand() {
+        final Identifier identifier = new Identifier("bench", "Execute a command repeatedly and print how long it took");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new StringCliParam(
+                new Identifier("command", "Command line to benchmark, quoted"),
+                Opt.<Spplr<String>>absent(),
+                false,
+                MoreSuppliers.of(Collections.<String>emptyList())
+            ),
+            new IntCliParam(new Identifier("n", "Amount of measured iterations"), Opt.of(MoreSuppliers.of(1000)), false),
+            new IntCliParam(new Identifier("warmup", "Amount of iterations to execute before measuring"), Opt.of(MoreSuppliers.of(100)), false),
+            BooleanCliParam.optional(new Identifier("alloc", "Whether to measure allocations, if the platform supports it"), false, false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final String commandLine = args.popArg();
+                final int iterations = args.popArg();
+                final int warmup = args.popArg();
+                final boolean alloc = args.popArg();
+                if (iterations <= 0 || warmup < 0) {
+                    throw new IllegalArgumentException("Invalid iterations: n=" + iterations + ", warmup=" + warmup);
+                }
+
+                final CliCommandOutput cliOutput = (CliCommandOutput) output;
+                final CliShell shell = cliOutput.getShell();
+                final PreparedStatement statement = shell.prepare(commandLine);
+                if (statement.getCommands().size() != 1 || statement.getRedirection().isPresent()) {
+                    throw new IllegalArgumentException("Only a single command can be benchmarked: '" + commandLine + '\'');
+                }
+                final PreparedCommand preparedCommand = statement.getCommands().get(0);
+                final CliCommand command = preparedCommand.getCommand();
+
+                // The benchmarked command's output is discarded, so printing doesn't skew the results.
+                // Tasks returned by the benchmarked command are run to completion within the iteration that returned them,
+                // instead of by the shell's runner which may spread them over time.
+                final CliPrinter discard = new CliPrinter(CliOutput.NONE);
+                final CliCommandOutput benchOutput = new CliCommandOutput(cliOutput.getGui(), discard, discard, cliOutput.getJob(), shell) {
+                    @Override
+                    public void run(IncrementalTask task, CommandOutput output) throws Exception {
+                        IncrementalTaskRunner.DIRECT.run(task, output);
+                    }
+                };
+
+                for (int i = 0; i < warmup && !output.isCancelled(); i++) {
+                    command.execute(benchOutput, preparedCommand.newArgs());
+                }
+
+                // Allocations are measured locally around the loop, so the shell's statistics aren't affected
+                // and executions by other threads aren't counted.
+                final ShellInstrumentation instrumentation = shell.getInstrumentation();
+                final long allocatedBefore = alloc ? instrumentation.getCurrentThreadAllocatedBytes() : -1;
+
+                final long[] buckets = new long[LatencySnapshot.BUCKET_COUNT];
+                long sum = 0;
+                long min = Long.MAX_VALUE;
+                long max = 0;
+                int executed = 0;
+                final long start = System.nanoTime();
+                for (; executed < iterations && !output.isCancelled(); executed++) {
+                    final long iterationStart = System.nanoTime();
+                    command.execute(benchOutput, preparedCommand.newArgs());
+                    final long nanos = System.nanoTime() - iterationStart;
+
+                    buckets[LatencySnapshot.bucketIndex(nanos)]++;
+                    sum += nanos;
+                    min = Math.min(min, nanos);
+                    max = Math.max(max, nanos);
+                }
+                final long elapsed = System.nanoTime() - start;
+                final long allocatedAfter = alloc ? instrumentation.getCurrentThreadAllocatedBytes() : -1;
+                if (executed == 0) {
+                    return;
+                }
+
+                final LatencySnapshot latency = new LatencySnapshot(buckets, executed, sum, min, max);
+                output.message("Executed '" + commandLine + "' " + executed + " times after " + warmup + " warmup iterations:");
+                output.message("  min=" + LatencySnapshot.formatNanos(latency.getMin()) +
+                               ", mean=" + LatencySnapshot.formatNanos(latency.getMean()) +
+                               ", p50=" + LatencySnapshot.formatNanos(latency.getPercentile(50)) +
+                               ", p99=" + LatencySnapshot.formatNanos(latency.getPercentile(99)) +
+                               ", max=" + LatencySnapshot.formatNanos(latency.getMax()));
+                output.message("  throughput=" + Math.round(executed * 1e9 / Math.max(elapsed, 1)) + " ops/s");
+                if (alloc) {
+                    if (allocatedBefore < 0 || allocatedAfter < 0) {
+                        output.message("  Allocations are not measured on this platform.");
+                    } else {
+                        output.message("  allocated=" + CommandStats.formatBytes((allocatedAfter - allocatedBefore) / executed) + "/op");
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Create the command that pages through the output of the last command line that exceeded the pager's threshold.
+     */
+    CliCommand createPageCommand() {
+        final Identifier identifier = new Identifier("page", "Show the next page of paged output");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            BooleanCliParam.optional(new Identifier("prev", "Whether to show the previous page instead"), false, false),
+            new StringCliParam(
+                new Identifier("search", "Show the page starting at the next line containing this text"),
+                Opt.of(MoreSuppliers.of("")),
+                false,
+                MoreSuppliers.of(Collections.<String>emptyList())
+            )
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final boolean prev = args.popArg();
+                final String search = args.popArg();
+
+                final Opt<Pager> pager = ((CliCommandOutput) output).getShell().getPager();
+                if (!pager.isPresent()) {
+                    throw new IllegalStateException("Output is not paged.");
+                }
+                if (!search.isEmpty()) {
+                    if (!pager.get().search(search)) {
+                        output.message("Not found: '" + search + '\'');
+                    }
+                } else if (prev) {
+                    if (!pager.get().prev()) {
+                        output.message("No previous page.");
+                    }
+                } else if (!pager.get().next()) {
+                    output.message("No next page.");
+                }
+            }
+        });
+    }
+
+    private List<CliParam> createJobIdParams() {
+        return Collections.<CliParam>singletonList(
+            new IntCliParam(new Identifier("id", "Job id"), Opt.<Spplr<Integer>>absent(), false)
+        );
+    }
+
+    private BackgroundJob getJob(JobTable jobs, int id) {
+        final Opt<BackgroundJob> job = jobs.get(id);
+        if (!job.isPresent()) {
+            throw new IllegalArgumentException("No such job: " + id);
+        }
+        return job.get();
+    }
+
     /**
      * Create a directory containing all system commands. It is convenient to store all system commands in a directory.
      * Most system commands require an already built {@link CliCommandHierarchy}, but system commands are also a part
@@ -120,16 +620,29 @@ public class CliSystemCommandFactory {
      * by offering a 'promise' object which will eventually delegate to the real implementation.
      *
      * @param hierarchy Hierarchy on which the system commands will operate.
+     * @param extraCommands Additional system commands, typically platform-specific ones which can't be created here.
      * @return A {@link CliDirectory} containing all system commands.
      */
-    public static CliDirectory from(CliCommandHierarchy hierarchy) {
+    public static CliDirectory from(CliCommandHierarchy hierarchy, CliCommand... extraCommands) {
         final Identifier identifier = new Identifier("system", "System commands");
         final CliSystemCommandFactory factory = new CliSystemCommandFactory(hierarchy);
-        return CliDirectory.from(
-            identifier,
+        final List<CliCommand> commands = new ArrayList<>(Arrays.asList(
             factory.createChangeDirectoryCommand(),
             factory.createListDirectoryCommand(),
-            factory.createDescribeCommandCommand()
-        );
+            factory.createDescribeCommandCommand(),
+            factory.createListJobsCommand(),
+            factory.createForegroundJobCommand(),
+            factory.createBackgroundJobCommand(),
+            factory.createKillJobCommand(),
+            factory.createGrepCommand(),
+            factory.createHeadCommand(),
+            factory.createCountCommand(),
+            factory.createStatsCommand(),
+            factory.createTopCommand(),
+            factory.createBenchCommand(),
+            factory.createPageCommand()
+        ));
+        commands.addAll(Arrays.asList(extraCommands));
+        return CliDirectory.from(identifier, commands.toArray(new CliCommand[commands.size()]));
     }
 }
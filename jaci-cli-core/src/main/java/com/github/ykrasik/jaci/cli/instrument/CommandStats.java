@@ -0,0 +1,174 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import java.util.Objects;
+
+/**
+ * Statistics about the executions of a single command, identified by it's path.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CommandStats {
+    private final String commandPath;
+    private final long failures;
+    private final long cancellations;
+    private final LatencySnapshot latency;
+    private final long cpuTime;
+    private final long allocatedBytes;
+    private final long maxAllocatedBytes;
+
+    /**
+     * @param commandPath Path of the executed command.
+     * @param failures Amount of executions that failed.
+     * @param cancellations Amount of executions that were cancelled or timed out.
+     * @param latency Latency of all executions.
+     */
+    public CommandStats(String commandPath, long failures, long cancellations, LatencySnapshot latency) {
+        this(commandPath, failures, cancellations, latency, 0, 0, 0);
+    }
+
+    /**
+     * @param commandPath Path of the executed command.
+     * @param failures Amount of executions that failed.
+     * @param cancellations Amount of executions that were cancelled or timed out.
+     * @param latency Latency of all executions.
+     * @param cpuTime CPU time used by all executions, in nanoseconds.
+     * @param allocatedBytes Bytes allocated by all executions.
+     * @param maxAllocatedBytes Most bytes allocated by a single execution.
+     */
+    public CommandStats(String commandPath,
+                        long failures,
+                        long cancellations,
+                        LatencySnapshot latency,
+                        long cpuTime,
+                        long allocatedBytes,
+                        long maxAllocatedBytes) {
+        this.commandPath = Objects.requireNonNull(commandPath, "commandPath");
+        this.failures = failures;
+        this.cancellations = cancellations;
+        this.latency = Objects.requireNonNull(latency, "latency");
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+
+    /**
+     * @return Path of the executed command. System commands have no directory, so their path is just their name.
+     */
+    public String getCommandPath() {
+        return commandPath;
+    }
+
+    /**
+     * @return Amount of executions.
+     */
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * @return Amount of executions that failed.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Amount of executions that were cancelled or timed out.
+     */
+    public long getCancellations() {
+        return cancellations;
+    }
+
+    /**
+     * @return Latency of all executions.
+     */
+    public LatencySnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return CPU time used by all executions, in nanoseconds.
+     *         Only measured if {@link InstrumentationSnapshot#isCpuTimeMeasured()}.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * @return Average CPU time used by a single execution, in nanoseconds.
+     */
+    public long getMeanCpuTime() {
+        return getCount() != 0 ? cpuTime / getCount() : 0;
+    }
+
+    /**
+     * @return Bytes allocated by all executions.
+     *         Only measured if {@link InstrumentationSnapshot#isAllocationMeasured()}.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return Average bytes allocated by a single execution.
+     */
+    public long getMeanAllocatedBytes() {
+        return getCount() != 0 ? allocatedBytes / getCount() : 0;
+    }
+
+    /**
+     * @return Most bytes allocated by a single execution.
+     */
+    public long getMaxAllocatedBytes() {
+        return maxAllocatedBytes;
+    }
+
+    /**
+     * @param bytes Amount of bytes to format.
+     * @return A human readable representation of the amount of bytes, for example "512B", "12.5KB", "3.0MB".
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        if (bytes < 1024 * 1024) {
+            return formatDecimal(bytes, 1024) + "KB";
+        }
+        if (bytes < 1024 * 1024 * 1024) {
+            return formatDecimal(bytes, 1024 * 1024) + "MB";
+        }
+        return formatDecimal(bytes, 1024 * 1024 * 1024) + "GB";
+    }
+
+    private static String formatDecimal(long value, long unit) {
+        // 1 decimal digit, rounded.
+        final long tenths = (value * 10 + unit / 2) / unit;
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(commandPath).append(": ").append(latency);
+        sb.append(", failed=").append(failures);
+        sb.append(", cancelled=").append(cancellations);
+        return sb.toString();
+    }
+}
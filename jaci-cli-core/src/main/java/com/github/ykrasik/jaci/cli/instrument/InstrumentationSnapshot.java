@@ -0,0 +1,117 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of everything recorded by a {@link ShellInstrumentation}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class InstrumentationSnapshot {
+    /** A snapshot in which nothing was recorded. */
+    public static final InstrumentationSnapshot EMPTY = new InstrumentationSnapshot(
+        Collections.<ShellPhase, LatencySnapshot>emptyMap(), Collections.<CommandStats>emptyList()
+    );
+
+    private final Map<ShellPhase, LatencySnapshot> phases;
+    private final List<CommandStats> commands;
+    private final boolean cpuTimeMeasured;
+    private final boolean allocationMeasured;
+
+    /**
+     * @param phases Latency of each phase, across all commands.
+     * @param commands Statistics of each command that was executed.
+     */
+    public InstrumentationSnapshot(Map<ShellPhase, LatencySnapshot> phases, List<CommandStats> commands) {
+        this(phases, commands, false, false);
+    }
+
+    /**
+     * @param phases Latency of each phase, across all commands.
+     * @param commands Statistics of each command that was executed.
+     * @param cpuTimeMeasured Whether the CPU time of command executions was measured.
+     * @param allocationMeasured Whether the allocations of command executions were measured.
+     */
+    public InstrumentationSnapshot(Map<ShellPhase, LatencySnapshot> phases,
+                                   List<CommandStats> commands,
+                                   boolean cpuTimeMeasured,
+                                   boolean allocationMeasured) {
+        this.phases = Collections.unmodifiableMap(new HashMap<>(phases));
+        this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+        this.cpuTimeMeasured = cpuTimeMeasured;
+        this.allocationMeasured = allocationMeasured;
+    }
+
+    /**
+     * @param phase Phase to get the latency of.
+     * @return Latency of the phase across all commands.
+     */
+    public LatencySnapshot getPhase(ShellPhase phase) {
+        final LatencySnapshot latency = phases.get(phase);
+        return latency != null ? latency : LatencySnapshot.EMPTY;
+    }
+
+    /**
+     * @return Statistics of each command that was executed, in no particular order.
+     */
+    public List<CommandStats> getCommands() {
+        return commands;
+    }
+
+    /**
+     * @param commandPath Path of the command to get statistics for.
+     * @return Statistics of the command, if it was executed.
+     */
+    public Opt<CommandStats> getCommand(String commandPath) {
+        for (CommandStats stats : commands) {
+            if (stats.getCommandPath().equals(commandPath)) {
+                return Opt.of(stats);
+            }
+        }
+        return Opt.absent();
+    }
+
+    /**
+     * @return Whether {@link CommandStats#getCpuTime()} was measured.
+     */
+    public boolean isCpuTimeMeasured() {
+        return cpuTimeMeasured;
+    }
+
+    /**
+     * @return Whether {@link CommandStats#getAllocatedBytes()} was measured.
+     */
+    public boolean isAllocationMeasured() {
+        return allocationMeasured;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InstrumentationSnapshot{");
+        sb.append("phases=").append(phases);
+        sb.append(", commands=").append(commands);
+        sb.append(", cpuTimeMeasured=").append(cpuTimeMeasured);
+        sb.append(", allocationMeasured=").append(allocationMeasured);
+        sb.append('}');
+        return sb.toString();
+    }
+}
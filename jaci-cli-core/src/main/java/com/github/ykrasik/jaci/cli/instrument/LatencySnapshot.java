@@ -0,0 +1,198 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of a latency histogram, with values in nanoseconds.<br>
+ * Values are counted in log-linear buckets (similar to an HdrHistogram): Every power of 2 is split into
+ * {@value #SUB_BUCKETS} equally sized buckets, so any recorded value is known within ~3%.
+ * Values below {@value #SUB_BUCKETS}ns are counted exactly, values above ~36 minutes are counted in the last bucket.<br>
+ * The bucketing scheme is exposed through {@link #bucketIndex(long)} so that recorders can count values into
+ * a {@code long[BUCKET_COUNT]} array and create snapshots from it.
+ *
+ * @author Yevgeny Krasik
+ */
+public class LatencySnapshot {
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Amount of buckets every power of 2 is split into. */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Values with a higher exponent are counted in the last bucket. */
+    private static final int MAX_EXPONENT = 40;
+
+    /** Amount of buckets in a histogram. */
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** A snapshot of a histogram in which nothing was recorded. */
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(new long[BUCKET_COUNT], 0, 0, 0, 0);
+
+    private final long[] buckets;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    /**
+     * @param buckets Counts per bucket, as indexed by {@link #bucketIndex(long)}. The array is not copied.
+     * @param count Total amount of recorded values.
+     * @param sum Sum of all recorded values.
+     * @param min Smallest recorded value, ignored if no values were recorded.
+     * @param max Largest recorded value, ignored if no values were recorded.
+     */
+    public LatencySnapshot(long[] buckets, long count, long sum, long min, long max) {
+        this.buckets = Objects.requireNonNull(buckets, "buckets");
+        if (buckets.length != BUCKET_COUNT) {
+            throw new IllegalArgumentException("Invalid amount of buckets: " + buckets.length);
+        }
+        this.count = count;
+        this.sum = sum;
+        this.min = count > 0 ? min : 0;
+        this.max = count > 0 ? max : 0;
+    }
+
+    /**
+     * @return Amount of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Sum of all recorded values.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return Smallest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return Largest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return Mean of all recorded values, or 0 if nothing was recorded.
+     */
+    public long getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * @param percentile Percentile to calculate, between 0 and 100.
+     * @return The value that the given percentage of recorded values are lower than or equal to (within the precision
+     *         of the histogram), or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        if (percentile == 0) {
+            return min;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, bucketUpperBound(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @param value Value to count.
+     * @return Index of the bucket that counts the given value.
+     */
+    public static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return The largest value counted by the bucket.
+     */
+    public static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Format a duration in a short human readable form, like '950ns', '12.5us', '3.0ms' or '1.2s'.
+     *
+     * @param nanos Duration in nanoseconds.
+     * @return The formatted duration.
+     */
+    public static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1000 * 1000) {
+            return formatDecimal(nanos, 1000) + "us";
+        }
+        if (nanos < 1000 * 1000 * 1000) {
+            return formatDecimal(nanos, 1000 * 1000) + "ms";
+        }
+        return formatDecimal(nanos, 1000 * 1000 * 1000) + 's';
+    }
+
+    private static String formatDecimal(long value, long unit) {
+        // 1 decimal digit, rounded.
+        final long tenths = (value * 10 + unit / 2) / unit;
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("count=").append(count);
+        sb.append(", mean=").append(formatNanos(getMean()));
+        sb.append(", p50=").append(formatNanos(getPercentile(50)));
+        sb.append(", p99=").append(formatNanos(getPercentile(99)));
+        sb.append(", max=").append(formatNanos(max));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,132 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+
+/**
+ * Receives callbacks from a {@link com.github.ykrasik.jaci.cli.CliShell} around each {@link ShellPhase} of assisting with
+ * and executing command lines.<br>
+ * Every {@code begin} call is followed by a matching {@code end} call on the same thread, even if the phase failed.
+ * The value returned from {@code begin} is passed back to the matching {@code end} call - usually a timestamp, which
+ * lets implementations measure phases without allocating.<br>
+ * A shell may be called from multiple threads at once (background jobs, pipelines, multiple sessions sharing an instrumentation),
+ * so implementations must be thread-safe. They should also be cheap, as they are called on the shell's hot path.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface ShellInstrumentation {
+    /**
+     * Called when a phase that isn't the execution of a command begins.
+     *
+     * @param phase Phase that begins.
+     * @return A value that will be passed to {@link #end(ShellPhase, long)}.
+     */
+    long begin(ShellPhase phase);
+
+    /**
+     * Called when a phase that isn't the execution of a command ends.
+     *
+     * @param phase Phase that ended.
+     * @param begin The value returned by the matching {@link #begin(ShellPhase)}.
+     */
+    void end(ShellPhase phase, long begin);
+
+    /**
+     * Called on the executing thread right before a command is executed.<br>
+     * Shells that are built from the same hierarchy definition (like the sessions of a server) have their own
+     * {@link CliCommand} instances, but the same command paths - the path is what identifies a command across shells.
+     *
+     * @param command Command about to be executed.
+     * @param commandPath Absolute path of the command, or just it's name for system commands.
+     * @return A value that will be passed to {@link #endCommand(CliCommand, String, long, CommandJob.State)}.
+     */
+    long beginCommand(CliCommand command, String commandPath);
+
+    /**
+     * Called on the executing thread right after a command was executed.
+     *
+     * @param command Command that was executed.
+     * @param commandPath Absolute path of the command, or just it's name for system commands.
+     * @param begin The value returned by the matching {@link #beginCommand(CliCommand, String)}.
+     * @param state The state the command finished in.
+     */
+    void endCommand(CliCommand command, String commandPath, long begin, CommandJob.State state);
+
+    /**
+     * Read the amount of bytes allocated by the calling thread so far, without recording anything.
+     * Lets commands measure allocations locally, for example around a benchmark loop.
+     * Only the difference between 2 readings on the same thread is meaningful.
+     *
+     * @return Bytes allocated by the calling thread so far, or -1 if allocations aren't measured.
+     */
+    long getCurrentThreadAllocatedBytes();
+
+    /**
+     * @return A snapshot of everything recorded so far.
+     */
+    InstrumentationSnapshot snapshot();
+
+    /**
+     * Discard everything recorded so far.
+     */
+    void reset();
+
+    /**
+     * An instrumentation that doesn't record anything.
+     */
+    ShellInstrumentation NONE = new ShellInstrumentation() {
+        @Override
+        public long begin(ShellPhase phase) {
+            return 0;
+        }
+
+        @Override
+        public void end(ShellPhase phase, long begin) {
+        }
+
+        @Override
+        public long beginCommand(CliCommand command, String commandPath) {
+            return 0;
+        }
+
+        @Override
+        public void endCommand(CliCommand command, String commandPath, long begin, CommandJob.State state) {
+        }
+
+        @Override
+        public long getCurrentThreadAllocatedBytes() {
+            return -1;
+        }
+
+        @Override
+        public InstrumentationSnapshot snapshot() {
+            return InstrumentationSnapshot.EMPTY;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public String toString() {
+            return "NONE";
+        }
+    };
+}
@@ -0,0 +1,53 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+/**
+ * The phases a {@link com.github.ykrasik.jaci.cli.CliShell} goes through when assisting with or executing a command line.
+ *
+ * @author Yevgeny Krasik
+ */
+public enum ShellPhase {
+    /** Splitting the command line into statements, pipelines, commands and args. */
+    TOKENIZE("tokenize"),
+
+    /** Resolving the path to a command (or auto completing it). */
+    RESOLVE_PATH("resolve"),
+
+    /** Parsing the args of a command (or assisting with them). */
+    PARSE_PARAMS("parse"),
+
+    /** Executing a command. */
+    EXECUTE("execute"),
+
+    /** Printing anything that isn't a command's own output. */
+    PRINT("print");
+
+    private final String displayName;
+
+    ShellPhase(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return A short name for display purposes.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
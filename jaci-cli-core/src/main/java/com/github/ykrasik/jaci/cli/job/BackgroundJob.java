@@ -0,0 +1,64 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.job;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+
+import java.util.Objects;
+
+/**
+ * A {@link CommandJob} that is executed in the background, with it's output buffered while detached.
+ *
+ * @author Yevgeny Krasik
+ */
+public class BackgroundJob {
+    private final int id;
+    private final CommandJob job;
+    private final JobOutputBuffer output;
+
+    public BackgroundJob(int id, CommandJob job, JobOutputBuffer output) {
+        this.id = id;
+        this.job = Objects.requireNonNull(job, "job");
+        this.output = Objects.requireNonNull(output, "output");
+    }
+
+    /**
+     * @return Job id, unique within a shell.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The executing job.
+     */
+    public CommandJob getJob() {
+        return job;
+    }
+
+    /**
+     * @return The job's output.
+     */
+    public JobOutputBuffer getOutput() {
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + id + "] " + job.getCommandLine();
+    }
+}
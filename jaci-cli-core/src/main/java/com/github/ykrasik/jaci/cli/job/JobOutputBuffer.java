@@ -0,0 +1,174 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.job;
+
+import com.github.ykrasik.jaci.cli.output.BatchCliOutput;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The output of a background job.<br>
+ * While attached, output is passed straight through to the shell's printers.
+ * While detached, output is kept in a bounded ring buffer of lines - once the buffer is full, the oldest lines
+ * are dropped, so a chatty job can't grow memory without limit. Attaching prints any buffered lines first.<br>
+ * <br>
+ * Output may be printed from the job's thread while the job is attached or detached from another thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class JobOutputBuffer {
+    private final CliPrinter out;
+    private final CliPrinter err;
+
+    private final String[] lines;
+    private final boolean[] errors;
+    private int head;
+    private int size;
+    private long dropped;
+
+    private boolean attached;
+
+    private final CliOutput outView = new BatchCliOutput() {
+        @Override
+        public void println(String text) {
+            JobOutputBuffer.this.println(text, false);
+        }
+
+        @Override
+        public void printlnAll(List<String> lines) {
+            JobOutputBuffer.this.printlnAll(lines, false);
+        }
+    };
+
+    private final CliOutput errView = new BatchCliOutput() {
+        @Override
+        public void println(String text) {
+            JobOutputBuffer.this.println(text, true);
+        }
+
+        @Override
+        public void printlnAll(List<String> lines) {
+            JobOutputBuffer.this.printlnAll(lines, true);
+        }
+    };
+
+    /**
+     * @param out Printer to pass stdOut through to while attached.
+     * @param err Printer to pass stdErr through to while attached.
+     * @param maxLines Max amount of lines to buffer while detached.
+     */
+    public JobOutputBuffer(CliPrinter out, CliPrinter err, int maxLines) {
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("Invalid maxLines: " + maxLines);
+        }
+        this.out = Objects.requireNonNull(out, "out");
+        this.err = Objects.requireNonNull(err, "err");
+        this.lines = new String[maxLines];
+        this.errors = new boolean[maxLines];
+    }
+
+    /**
+     * @return An output that writes to this buffer as stdOut.
+     */
+    public CliOutput getOut() {
+        return outView;
+    }
+
+    /**
+     * @return An output that writes to this buffer as stdErr.
+     */
+    public CliOutput getErr() {
+        return errView;
+    }
+
+    private synchronized void printlnAll(List<String> lines, boolean error) {
+        if (attached) {
+            (error ? err : out).printlnAll(lines);
+            return;
+        }
+        for (String line : lines) {
+            println(line, error);
+        }
+    }
+
+    private synchronized void println(String text, boolean error) {
+        if (attached) {
+            (error ? err : out).println(text);
+            return;
+        }
+
+        final int index = (head + size) % lines.length;
+        lines[index] = text;
+        errors[index] = error;
+        if (size < lines.length) {
+            size++;
+        } else {
+            // Buffer is full, the oldest line was just overwritten.
+            head = (head + 1) % lines.length;
+            dropped++;
+        }
+    }
+
+    /**
+     * Print any buffered lines and pass all further output straight through.
+     */
+    public synchronized void attach() {
+        if (dropped > 0) {
+            err.println("... " + dropped + " lines dropped ...");
+        }
+        for (int i = 0; i < size; i++) {
+            final int index = (head + i) % lines.length;
+            (errors[index] ? err : out).println(lines[index]);
+            lines[index] = null;
+        }
+        head = 0;
+        size = 0;
+        dropped = 0;
+        attached = true;
+    }
+
+    /**
+     * Buffer all further output.
+     */
+    public synchronized void detach() {
+        attached = false;
+    }
+
+    /**
+     * @return Whether output is passed straight through.
+     */
+    public synchronized boolean isAttached() {
+        return attached;
+    }
+
+    /**
+     * @return Amount of buffered lines.
+     */
+    public synchronized int getBufferedLines() {
+        return size;
+    }
+
+    /**
+     * @return Amount of lines that were dropped because the buffer was full.
+     */
+    public synchronized long getDroppedLines() {
+        return dropped;
+    }
+}
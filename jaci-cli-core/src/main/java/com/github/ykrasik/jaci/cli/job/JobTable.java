@@ -0,0 +1,91 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.job;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The background jobs of a single shell, by id.<br>
+ * A job stays in the table after it is done, until it is {@link #remove removed} - so it's buffered output
+ * is not lost before it is seen.
+ *
+ * @author Yevgeny Krasik
+ */
+public class JobTable {
+    private final Map<Integer, BackgroundJob> jobs = new LinkedHashMap<>();
+    private final int maxBufferedLines;
+
+    private int nextId = 1;
+
+    /**
+     * @param maxBufferedLines Max amount of output lines to buffer per detached job.
+     */
+    public JobTable(int maxBufferedLines) {
+        if (maxBufferedLines <= 0) {
+            throw new IllegalArgumentException("Invalid maxBufferedLines: " + maxBufferedLines);
+        }
+        this.maxBufferedLines = maxBufferedLines;
+    }
+
+    /**
+     * Add a job to this table. The job starts out detached.
+     *
+     * @param job Job to add.
+     * @param out Printer to pass the job's stdOut through to while attached.
+     * @param err Printer to pass the job's stdErr through to while attached.
+     * @return The added background job.
+     */
+    public synchronized BackgroundJob add(CommandJob job, CliPrinter out, CliPrinter err) {
+        final BackgroundJob backgroundJob = new BackgroundJob(nextId++, job, new JobOutputBuffer(out, err, maxBufferedLines));
+        jobs.put(backgroundJob.getId(), backgroundJob);
+        return backgroundJob;
+    }
+
+    /**
+     * @param id Job id.
+     * @return The job with the given id, if there is one.
+     */
+    public synchronized Opt<BackgroundJob> get(int id) {
+        return Opt.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * @return All jobs, in the order they were added.
+     */
+    public synchronized List<BackgroundJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * @param job Job to remove.
+     */
+    public synchronized void remove(BackgroundJob job) {
+        jobs.remove(job.getId());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "JobTable" + jobs.values();
+    }
+}
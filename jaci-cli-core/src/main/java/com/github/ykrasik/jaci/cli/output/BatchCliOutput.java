@@ -0,0 +1,39 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import java.util.List;
+
+/**
+ * A {@link CliOutput} that can print a block of lines at once.<br>
+ * A {@link CliPrinter} prints every multi-line entity (a directory, a throwable, suggestions...) as a single block,
+ * so outputs whose every update is expensive (for example, one that re-lays-out a GUI per update)
+ * can apply the whole block in a single update. Outputs that don't implement this receive one
+ * {@link #println(String)} per line.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface BatchCliOutput extends CliOutput {
+    /**
+     * Print a block of lines to the output, in order.
+     * A new line is expected to be added after each line by the output implementation.
+     *
+     * @param lines Lines to print. Must not be retained by the output after this call returns.
+     */
+    void printlnAll(List<String> lines);
+}
@@ -0,0 +1,47 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+/**
+ * Secondary storage for the chunks of a {@link ChunkedLineStore} that no longer fit in memory - typically a file.<br>
+ * All chunks written to and read from a spill are of the same size.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface ChunkSpill {
+    /**
+     * Write a chunk. A chunk that was already written under the same index is overwritten.
+     *
+     * @param index Index of the chunk.
+     * @param chunk Chunk to write. Must not be retained after this call returns.
+     */
+    void write(int index, char[] chunk);
+
+    /**
+     * Read a chunk that was previously written.
+     *
+     * @param index Index of the chunk.
+     * @param chunk Array to read the chunk into.
+     */
+    void read(int index, char[] chunk);
+
+    /**
+     * Release any resources held by this spill. Written chunks are discarded.
+     */
+    void close();
+}
@@ -0,0 +1,219 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link LineStore} that packs the characters of all lines back to back into fixed-size {@code char[]} chunks,
+ * so storing a line costs it's characters and the offset at which it ends, instead of a {@link String} object.<br>
+ * Optionally, once more than {@code maxResidentChunks} chunks are in use, the oldest full chunks are written to a
+ * {@link ChunkSpill} and their memory is reused, so memory usage is bounded no matter how many lines are stored.
+ * Spilled chunks are read back on demand, one chunk at a time.<br>
+ * <br>
+ * Not thread-safe.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ChunkedLineStore implements LineStore {
+    /** Default amount of characters in a chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    /** Max amount of chunk arrays to keep around for reuse after the store is cleared. */
+    private static final int MAX_FREE_CHUNKS = 4;
+
+    private final int chunkSize;
+    private final int maxResidentChunks;
+    private final Opt<ChunkSpill> spill;
+    private final List<char[]> freeChunks = new ArrayList<>();
+
+    private char[][] chunks = new char[8][];
+    private int chunkCount;
+    private int firstResidentChunk;
+
+    private long[] lineEnds = new long[256];
+    private int size;
+    private long length;
+
+    private char[] spilledChunk;
+    private int spilledChunkIndex = -1;
+
+    /**
+     * Create a store that keeps all lines in memory, in chunks of {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    public ChunkedLineStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a store that keeps all lines in memory.
+     *
+     * @param chunkSize Amount of characters in a chunk.
+     */
+    public ChunkedLineStore(int chunkSize) {
+        this(chunkSize, Integer.MAX_VALUE, Opt.<ChunkSpill>absent());
+    }
+
+    /**
+     * Create a store that writes it's oldest chunks to the given spill once too many chunks are in use.
+     *
+     * @param chunkSize Amount of characters in a chunk.
+     * @param maxResidentChunks Max amount of chunks to keep in memory.
+     * @param spill Spill to write chunks that don't fit in memory to.
+     */
+    public ChunkedLineStore(int chunkSize, int maxResidentChunks, ChunkSpill spill) {
+        this(chunkSize, maxResidentChunks, Opt.of(Objects.requireNonNull(spill, "spill")));
+    }
+
+    private ChunkedLineStore(int chunkSize, int maxResidentChunks, Opt<ChunkSpill> spill) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunkSize: " + chunkSize);
+        }
+        if (maxResidentChunks <= 0) {
+            throw new IllegalArgumentException("Invalid maxResidentChunks: " + maxResidentChunks);
+        }
+        this.chunkSize = chunkSize;
+        this.maxResidentChunks = maxResidentChunks;
+        this.spill = spill;
+    }
+
+    @Override
+    public void add(String line) {
+        final int lineLength = line.length();
+        int copied = 0;
+        while (copied < lineLength) {
+            final int chunkIndex = (int) (length / chunkSize);
+            final int offset = (int) (length % chunkSize);
+            final char[] chunk = chunkIndex < chunkCount ? chunks[chunkIndex] : newChunk();
+            final int count = Math.min(lineLength - copied, chunkSize - offset);
+            line.getChars(copied, copied + count, chunk, offset);
+            copied += count;
+            length += count;
+        }
+
+        if (size == lineEnds.length) {
+            lineEnds = Arrays.copyOf(lineEnds, size * 2);
+        }
+        lineEnds[size++] = length;
+    }
+
+    private char[] newChunk() {
+        if (spill.isPresent() && chunkCount - firstResidentChunk >= maxResidentChunks) {
+            // All chunks before the last one are full, spill the oldest one and reuse it's memory.
+            final char[] oldest = chunks[firstResidentChunk];
+            spill.get().write(firstResidentChunk, oldest);
+            chunks[firstResidentChunk] = null;
+            firstResidentChunk++;
+            freeChunks.add(oldest);
+        }
+
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        final char[] chunk = freeChunks.isEmpty() ? new char[chunkSize] : freeChunks.remove(freeChunks.size() - 1);
+        chunks[chunkCount++] = chunk;
+        return chunk;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        long start = index == 0 ? 0 : lineEnds[index - 1];
+        final long end = lineEnds[index];
+        final char[] chars = new char[(int) (end - start)];
+        int copied = 0;
+        while (start < end) {
+            final int chunkIndex = (int) (start / chunkSize);
+            final int offset = (int) (start % chunkSize);
+            final int count = (int) Math.min(end - start, chunkSize - offset);
+            System.arraycopy(getChunk(chunkIndex), offset, chars, copied, count);
+            copied += count;
+            start += count;
+        }
+        return new String(chars);
+    }
+
+    private char[] getChunk(int chunkIndex) {
+        if (chunkIndex >= firstResidentChunk) {
+            return chunks[chunkIndex];
+        }
+        if (spilledChunkIndex != chunkIndex) {
+            if (spilledChunk == null) {
+                spilledChunk = new char[chunkSize];
+            }
+            spill.get().read(chunkIndex, spilledChunk);
+            spilledChunkIndex = chunkIndex;
+        }
+        return spilledChunk;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = firstResidentChunk; i < chunkCount; i++) {
+            if (freeChunks.size() < MAX_FREE_CHUNKS) {
+                freeChunks.add(chunks[i]);
+            }
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+        firstResidentChunk = 0;
+        spilledChunkIndex = -1;
+        size = 0;
+        length = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        freeChunks.clear();
+        spilledChunk = null;
+        if (spill.isPresent()) {
+            spill.get().close();
+        }
+    }
+
+    /**
+     * @return Amount of chunks that are currently held in memory.
+     */
+    public int getResidentChunks() {
+        return chunkCount - firstResidentChunk;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ChunkedLineStore{");
+        sb.append("size=").append(size);
+        sb.append(", length=").append(length);
+        sb.append(", chunks=").append(chunkCount);
+        sb.append(", residentChunks=").append(getResidentChunks());
+        sb.append('}');
+        return sb.toString();
+    }
+}
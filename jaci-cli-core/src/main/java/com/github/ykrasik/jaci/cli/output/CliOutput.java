@@ -31,4 +31,18 @@ public interface CliOutput {
      * @param text Text to print.
      */
     void println(String text);
+
+    /**
+     * An output that discards everything printed to it.
+     */
+    CliOutput NONE = new CliOutput() {
+        @Override
+        public void println(String text) {
+        }
+
+        @Override
+        public String toString() {
+            return "NONE";
+        }
+    };
 }
@@ -35,7 +35,10 @@ import java.util.Objects;
 
 /**
  * A component that prints CLI entities to a {@link CliOutput}.
- * Can be overridden to customize the serialization.
+ * Can be overridden to customize the serialization.<br>
+ * Entities that span multiple lines are printed as a single block through {@link #printlnAll(List)}.
+ * Every printed line passes through {@link #formatLine(String)}, which is kept when printing to a different output
+ * through {@link #withOutput(CliOutput)} - this is needed for pipes, redirection, background jobs and paging.
  *
  * @author Yevgeny Krasik
  */
@@ -67,13 +70,65 @@ public class CliPrinter {
         this.tab = Objects.requireNonNull(tab, "tab");
     }
 
+    /**
+     * Create a printer that prints to a different output.<br>
+     * The default implementation returns a printer that keeps this printer's tab string and {@link #formatLine(String)}.
+     * Subclasses that customize more than that (for example, by overriding how entities are printed)
+     * should override this to return an instance of themselves.
+     *
+     * @param output Output to print to.
+     * @return A printer that prints to the given output.
+     */
+    public CliPrinter withOutput(CliOutput output) {
+        if (getClass() == CliPrinter.class) {
+            return new CliPrinter(output, tab);
+        }
+        return new RedirectedCliPrinter(this, output);
+    }
+
+    /**
+     * Format a line before it is printed. Called for every printed line.
+     *
+     * @param line Line to format.
+     * @return The formatted line. The default implementation returns the line as is.
+     */
+    protected String formatLine(String line) {
+        return line;
+    }
+
     /**
      * Print a single line.
      *
      * @param text Text to print.
      */
     public void println(String text) {
-        output.println(text);
+        output.println(formatLine(text));
+    }
+
+    /**
+     * Print a block of lines. All multi-line entities are printed through this.<br>
+     * Subclasses print each line through {@link #println(String)}, so customizing it is enough to customize all output.
+     * A plain {@link CliPrinter} prints the block with a single call if the output is a {@link BatchCliOutput},
+     * subclasses that want the same should override this.
+     *
+     * @param lines Lines to print.
+     */
+    public void printlnAll(List<String> lines) {
+        if (getClass() == CliPrinter.class && output instanceof BatchCliOutput) {
+            printBlock(lines);
+            return;
+        }
+        for (String line : lines) {
+            println(line);
+        }
+    }
+
+    private void printBlock(List<String> lines) {
+        final List<String> formatted = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            formatted.add(formatLine(line));
+        }
+        ((BatchCliOutput) output).printlnAll(formatted);
     }
 
     /**
@@ -95,7 +150,9 @@ public class CliPrinter {
      * @param recursive Whether to recurse into sub-directories.
      */
     public void printDirectory(CliDirectory directory, boolean recursive) {
-        printDirectory0(new PrintContext(), directory, recursive);
+        final PrintContext context = new PrintContext();
+        printDirectory0(context, directory, recursive);
+        context.flush();
     }
 
     private void printDirectory0(PrintContext context, CliDirectory directory, boolean recursive) {
@@ -137,6 +194,7 @@ public class CliPrinter {
 
         // Print each param name : description
         printIdentifiables(context, command.getParams());
+        context.flush();
     }
 
     /**
@@ -160,6 +218,7 @@ public class CliPrinter {
                 break;
             }
         }
+        context.flush();
     }
 
     private void printThrowable0(PrintContext context, Throwable currentThrowable, Throwable prevThrowable) {
@@ -211,6 +270,7 @@ public class CliPrinter {
         // Print bound params.
         final BoundParams boundParams = info.getBoundParams();
         printBoundParams(context, command, boundParams);
+        context.flush();
     }
 
     private void printBoundParams(PrintContext context, CliCommand command, BoundParams boundParams) {
@@ -255,6 +315,7 @@ public class CliPrinter {
         printSuggestions0(context, suggestions.getParamNameSuggestions(), "Parameter names");
         printSuggestions0(context, suggestions.getParamValueSuggestions(), "Parameter values");
         context.decIndent();
+        context.flush();
     }
 
     private void printSuggestions0(PrintContext context, List<String> suggestions, String suggestionsTitle) {
@@ -292,12 +353,48 @@ public class CliPrinter {
         context.println();
     }
 
+    /**
+     * A printer that prints to a different output than the printer it was created from,
+     * formatting lines the same way.
+     */
+    private static class RedirectedCliPrinter extends CliPrinter {
+        private final CliPrinter printer;
+
+        private RedirectedCliPrinter(CliPrinter printer, CliOutput output) {
+            super(output, printer.tab);
+            this.printer = printer;
+        }
+
+        @Override
+        public CliPrinter withOutput(CliOutput output) {
+            return new RedirectedCliPrinter(printer, output);
+        }
+
+        @Override
+        protected String formatLine(String line) {
+            return printer.formatLine(line);
+        }
+
+        @Override
+        public void printlnAll(List<String> lines) {
+            if (output instanceof BatchCliOutput) {
+                super.printBlock(lines);
+                return;
+            }
+            super.printlnAll(lines);
+        }
+    }
+
     /**
      * Assists in printing. Keeps the current indentation level.
+     * Collects the printed lines into a block, which is only printed once {@link #flush()} is called.
      */
     protected class PrintContext {
-        /** Current line. */
-        private StringBuilder sb = new StringBuilder();
+        /** Current line. Reused for every line. */
+        private final StringBuilder sb = new StringBuilder();
+
+        /** Lines printed since the last flush. */
+        private final List<String> lines = new ArrayList<>();
 
         /** Indent level. */
         private int indent;
@@ -347,17 +444,27 @@ public class CliPrinter {
         }
 
         /**
-         * Print the current line to the output.
+         * Add the current line to the block of lines that will be printed on the next {@link #flush()}.
          *
          * @return {@code this}, for chaining.
          */
         public PrintContext println() {
-            CliPrinter.this.println(sb.toString());
-            sb = new StringBuilder();
+            lines.add(sb.toString());
+            sb.setLength(0);
             needIndent = true;
             return this;
         }
 
+        /**
+         * Print all lines added since the last flush to the output, as a single block.
+         */
+        public void flush() {
+            if (!lines.isEmpty()) {
+                printlnAll(lines);
+                lines.clear();
+            }
+        }
+
         private void indentIfNecessary() {
             if (needIndent) {
                 appendIndent();
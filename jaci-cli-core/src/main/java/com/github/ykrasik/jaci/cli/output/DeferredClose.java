@@ -0,0 +1,105 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.Objects;
+
+/**
+ * Closes the output of a statement (the target it is redirected to, or the pipes between the commands of a pipeline)
+ * once nothing prints to it anymore.<br>
+ * Starts out held by whoever created it, which releases it once the statement is done. Work that prints to the output
+ * after that - for example, an {@link com.github.ykrasik.jaci.api.IncrementalTask} whose steps are spread over time -
+ * {@link #hold() holds} it as well, and releases it once done. The close action runs once the last holder released it.<br>
+ * A deferred close may have a parent, which is held until this deferred close runs it's close action.
+ *
+ * @author Yevgeny Krasik
+ */
+public class DeferredClose {
+    private final Runnable closeAction;
+    private final Opt<DeferredClose> parent;
+
+    private int holds = 1;
+
+    /**
+     * @param closeAction Action to run once the last holder released this.
+     */
+    public DeferredClose(Runnable closeAction) {
+        this(closeAction, Opt.<DeferredClose>absent());
+    }
+
+    /**
+     * @param closeAction Action to run once the last holder released this.
+     * @param parent Deferred close to hold until the close action ran, if any.
+     */
+    public DeferredClose(Runnable closeAction, Opt<DeferredClose> parent) {
+        this.closeAction = Objects.requireNonNull(closeAction, "closeAction");
+        this.parent = Objects.requireNonNull(parent, "parent");
+        if (parent.isPresent()) {
+            parent.get().hold();
+        }
+    }
+
+    /**
+     * Keep the output open until a matching call to {@link #release()}.
+     *
+     * @throws IllegalStateException If the output was already closed.
+     */
+    public synchronized void hold() {
+        if (holds == 0) {
+            throw new IllegalStateException("Output already closed!");
+        }
+        holds++;
+    }
+
+    /**
+     * Release a hold on the output. Closes the output if this was the last hold.
+     *
+     * @return {@code true} if the output was closed by this call.
+     * @throws IllegalStateException If the output was already closed.
+     */
+    public boolean release() {
+        synchronized (this) {
+            if (holds == 0) {
+                throw new IllegalStateException("Output already closed!");
+            }
+            holds--;
+            if (holds > 0) {
+                return false;
+            }
+        }
+
+        try {
+            closeAction.run();
+        } finally {
+            if (parent.isPresent()) {
+                parent.get().release();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("DeferredClose{");
+        sb.append("holds=").append(holds);
+        sb.append(", parent=").append(parent);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,56 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+/**
+ * An append-only store of output lines, which can be read back by index.
+ * Used by a {@link Pager} to hold output that is too large to print at once.<br>
+ * Implementations are not expected to be thread-safe.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface LineStore {
+    /**
+     * Append a line to this store.
+     *
+     * @param line Line to append.
+     */
+    void add(String line);
+
+    /**
+     * @return Amount of lines in this store.
+     */
+    int size();
+
+    /**
+     * @param index Index of the line to return.
+     * @return The line at the given index.
+     * @throws IndexOutOfBoundsException If there is no line at the given index.
+     */
+    String get(int index);
+
+    /**
+     * Discard all lines in this store. The store may still be used afterwards.
+     */
+    void clear();
+
+    /**
+     * Discard all lines in this store and release any resources held by it.
+     */
+    void close();
+}
@@ -0,0 +1,36 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+/**
+ * Opens the targets of output redirections ('cmd &gt; target', 'cmd &gt;&gt; target').
+ * What a target is, is up to the implementation - typically a file.
+ * A shell that has no redirector doesn't support output redirection.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface OutputRedirector {
+    /**
+     * Open a target for output redirection.
+     *
+     * @param target Target to open, as it appeared in the command line.
+     * @param append Whether to append to the target's existing content ('&gt;&gt;') or replace it ('&gt;').
+     * @return An output that writes to the target.
+     * @throws Exception If the target could not be opened.
+     */
+    RedirectedOutput open(String target, boolean append) throws Exception;
+}
@@ -0,0 +1,256 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the output of large command lines out of the CLI's output.<br>
+ * The first {@code threshold} lines printed by a command line are passed straight through. Any further lines
+ * are kept in a {@link LineStore} instead, and are only printed a page at a time when requested
+ * through {@link #next()}, {@link #prev()} and {@link #search(String)} - typically bound to keys and a system command.
+ * Each command line that exceeds the threshold replaces the paged lines of the previous one.
+ * Only the lines of requested pages are ever printed, so a command line that prints a huge amount of lines
+ * costs the CLI's output no more than {@code threshold} lines.<br>
+ * <br>
+ * Output may be printed from the thread executing the command line while pages are requested from another thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class Pager {
+    private final CliPrinter out;
+    private final LineStore store;
+    private final int threshold;
+    private final int pageSize;
+
+    private boolean closed;
+    private boolean capturing;
+    private int passedLines;
+    private boolean overflowed;
+
+    /** Index of the first line of the last shown page, -1 if no page was shown yet. */
+    private int top = -1;
+
+    private final CliOutput output = new BatchCliOutput() {
+        @Override
+        public void println(String text) {
+            Pager.this.println(text);
+        }
+
+        @Override
+        public void printlnAll(List<String> lines) {
+            Pager.this.printlnAll(lines);
+        }
+    };
+
+    /**
+     * @param out Printer to pass output and print pages through to.
+     * @param store Store to keep paged lines in.
+     * @param threshold Amount of lines a command line may print before the rest of it's output is paged.
+     * @param pageSize Amount of lines in a page.
+     */
+    public Pager(CliPrinter out, LineStore store, int threshold, int pageSize) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid pageSize: " + pageSize);
+        }
+        this.out = Objects.requireNonNull(out, "out");
+        this.store = Objects.requireNonNull(store, "store");
+        this.threshold = threshold;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return An output that passes lines through to this pager's printer, or pages them while a command line
+     *         that exceeded the threshold is being executed.
+     */
+    public CliOutput getOutput() {
+        return output;
+    }
+
+    /**
+     * Start counting the lines printed by a command line.
+     */
+    public synchronized void begin() {
+        capturing = true;
+        passedLines = 0;
+        overflowed = false;
+    }
+
+    /**
+     * Stop counting the lines printed by the command line. If it exceeded the threshold, says how to page through the rest.
+     */
+    public void end() {
+        final int pagedLines;
+        synchronized (this) {
+            capturing = false;
+            if (!overflowed) {
+                return;
+            }
+            pagedLines = store.size();
+        }
+        out.println("-- " + pagedLines + " more lines. Use PageDown/PageUp or 'page [-prev] [-search text]' to show them. --");
+    }
+
+    private void println(String text) {
+        synchronized (this) {
+            if (capturing && passedLines >= threshold) {
+                store(text);
+                return;
+            }
+            if (capturing) {
+                passedLines++;
+            }
+        }
+        // Printing may block until the output drains, so it is never done while holding the lock.
+        out.println(text);
+    }
+
+    private void printlnAll(List<String> lines) {
+        final int passed;
+        synchronized (this) {
+            if (!capturing) {
+                passed = lines.size();
+            } else {
+                passed = Math.min(lines.size(), Math.max(threshold - passedLines, 0));
+                passedLines += passed;
+                for (int i = passed; i < lines.size(); i++) {
+                    store(lines.get(i));
+                }
+            }
+        }
+        if (passed > 0) {
+            out.printlnAll(passed == lines.size() ? lines : lines.subList(0, passed));
+        }
+    }
+
+    private void store(String line) {
+        if (closed) {
+            return;
+        }
+        if (!overflowed) {
+            // The previous command line's paged lines are replaced.
+            overflowed = true;
+            store.clear();
+            top = -1;
+        }
+        store.add(line);
+    }
+
+    /**
+     * Show the next page of paged lines.
+     *
+     * @return {@code true} if there was a next page.
+     */
+    public boolean next() {
+        final List<String> page;
+        synchronized (this) {
+            final int nextTop = top < 0 ? 0 : top + pageSize;
+            if (nextTop >= store.size()) {
+                return false;
+            }
+            page = createPage(nextTop);
+        }
+        out.printlnAll(page);
+        return true;
+    }
+
+    /**
+     * Show the previous page of paged lines.
+     *
+     * @return {@code true} if there was a previous page.
+     */
+    public boolean prev() {
+        final List<String> page;
+        synchronized (this) {
+            if (top <= 0) {
+                return false;
+            }
+            page = createPage(Math.max(top - pageSize, 0));
+        }
+        out.printlnAll(page);
+        return true;
+    }
+
+    /**
+     * Show the page that starts with the next paged line that contains the given text.
+     * The search starts after the first line of the last shown page, so repeating a search shows the next match.
+     *
+     * @param text Text to search for.
+     * @return {@code true} if a line containing the text was found.
+     */
+    public boolean search(String text) {
+        List<String> page = null;
+        synchronized (this) {
+            final int size = store.size();
+            for (int i = top + 1; i < size && page == null; i++) {
+                if (store.get(i).contains(text)) {
+                    page = createPage(i);
+                }
+            }
+        }
+        if (page == null) {
+            return false;
+        }
+        out.printlnAll(page);
+        return true;
+    }
+
+    private List<String> createPage(int top) {
+        this.top = top;
+        final int size = store.size();
+        final int bottom = Math.min(top + pageSize, size);
+        final List<String> page = new ArrayList<>(bottom - top + 1);
+        for (int i = top; i < bottom; i++) {
+            page.add(store.get(i));
+        }
+        page.add("-- Lines " + (top + 1) + '-' + bottom + " of " + size + " --");
+        return page;
+    }
+
+    /**
+     * @return Amount of paged lines.
+     */
+    public synchronized int getPagedLines() {
+        return store.size();
+    }
+
+    /**
+     * Discard all paged lines and release any resources held by the {@link LineStore}.
+     */
+    public synchronized void close() {
+        closed = true;
+        store.close();
+        top = -1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("Pager{");
+        sb.append("threshold=").append(threshold);
+        sb.append(", pageSize=").append(pageSize);
+        sb.append(", pagedLines=").append(store.size());
+        sb.append(", top=").append(top);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,32 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+/**
+ * A {@link CliOutput} that a statement's output is redirected to ('cmd &gt; file').
+ * Opened by an {@link OutputRedirector} right before the statement is executed, and closed once it is done.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface RedirectedOutput extends CliOutput {
+    /**
+     * Close this output, writing any buffered output to it's target.
+     *
+     * @throws Exception If an error occurs.
+     */
+    void close() throws Exception;
+}
@@ -0,0 +1,43 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.pipe;
+
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+
+/**
+ * Connects the output of one command to the input of the next in a pipeline ('cmdA | cmdB').
+ * The upstream command prints lines to the pipe as a {@link CliOutput}, the downstream command reads them
+ * as a {@link CommandInput}. Created by a {@link com.github.ykrasik.jaci.cli.execution.SessionExecutor}, which decides
+ * whether the pipe is bounded - a bounded pipe blocks the upstream command until the downstream command catches up.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface CommandPipe extends CliOutput, CommandInput {
+    /**
+     * Signal that no more lines will be printed to this pipe. Once all printed lines are read,
+     * {@link #readLine()} will signal the end of input.
+     */
+    void closeWriter();
+
+    /**
+     * Once the reader closed the pipe, any lines printed to it are discarded.
+     *
+     * @return Whether the reader closed this pipe.
+     */
+    boolean isReaderClosed();
+}
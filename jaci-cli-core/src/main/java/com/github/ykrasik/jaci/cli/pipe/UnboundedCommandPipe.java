@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.pipe;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.LinkedList;
+
+/**
+ * A {@link CommandPipe} that never blocks - it buffers any amount of lines.
+ * Suits execution models that run the commands of a pipeline one after the other, in which case the
+ * upstream command is done before the downstream command starts reading.<br>
+ * Not thread-safe.
+ *
+ * @author Yevgeny Krasik
+ */
+public class UnboundedCommandPipe implements CommandPipe {
+    private final LinkedList<String> lines = new LinkedList<>();
+    private boolean writerClosed;
+    private boolean readerClosed;
+
+    @Override
+    public void println(String text) {
+        if (!writerClosed && !readerClosed) {
+            lines.addLast(text);
+        }
+    }
+
+    @Override
+    public Opt<String> readLine() {
+        if (readerClosed || lines.isEmpty()) {
+            return Opt.absent();
+        }
+        return Opt.of(lines.removeFirst());
+    }
+
+    @Override
+    public void close() {
+        readerClosed = true;
+        lines.clear();
+    }
+
+    @Override
+    public void closeWriter() {
+        writerClosed = true;
+    }
+
+    @Override
+    public boolean isReaderClosed() {
+        return readerClosed;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("UnboundedCommandPipe{");
+        sb.append("lines=").append(lines.size());
+        sb.append(", writerClosed=").append(writerClosed);
+        sb.append(", readerClosed=").append(readerClosed);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -184,6 +184,32 @@ public class CommandLineTest {
         assertExpected("  unquoted  \"quoted  'nested  quote'  outer  quote\"  unquoted  ");
     }
 
+    @Test
+    public void statements() {
+        assertEquals(Arrays.asList("cd a", "ls"), CommandLine.splitStatements("cd a; ls"));
+        assertEquals(Arrays.asList("cd a", "ls"), CommandLine.splitStatements(" ; cd a ;; ls ; "));
+        assertEquals(Arrays.asList("echo 'a; b'", "echo \"c;'d\""), CommandLine.splitStatements("echo 'a; b'; echo \"c;'d\""));
+        assertEquals(Arrays.asList("echo a'b", "c'"), CommandLine.splitStatements("echo a'b; c'"));
+        assertEquals(Arrays.<String>asList(), CommandLine.splitStatements(" ; "));
+    }
+
+    @Test
+    public void lastCommand() {
+        assertEquals("ls ", CommandLine.getLastCommand("ls "));
+        assertEquals(" wor", CommandLine.getLastCommand("hello; wor"));
+        assertEquals(" gr", CommandLine.getLastCommand("cd a; hello | gr"));
+        assertEquals(" grep 'a|b; c", CommandLine.getLastCommand("hello | grep 'a|b; c"));
+        assertEquals(" count > out", CommandLine.getLastCommand("hello | count > out"));
+        assertEquals("", CommandLine.getLastCommand("hello;"));
+    }
+
+    @Test
+    public void pipeline() {
+        assertEquals(Arrays.asList("ls"), CommandLine.splitPipeline(" ls "));
+        assertEquals(Arrays.asList("ls", "grep 'a|b'", "count"), CommandLine.splitPipeline("ls | grep 'a|b' |count"));
+        assertEquals(Arrays.asList("ls", "", "count"), CommandLine.splitPipeline("ls || count"));
+    }
+
     private void setExpected(String... expected) {
         this.expected = Arrays.asList(expected);
     }
@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class LatencySnapshotTest {
+    @Test
+    public void bucketsContainTheirValues() {
+        int prevIndex = 0;
+        for (long value = 0; value < 1L << 42; value = value * 9 / 8 + 1) {
+            final int index = LatencySnapshot.bucketIndex(value);
+            assertTrue("Buckets must be ordered: " + value, index >= prevIndex);
+            if (index < LatencySnapshot.BUCKET_COUNT - 1) {
+                assertTrue("Value above bucket: " + value, value <= LatencySnapshot.bucketUpperBound(index));
+                assertTrue("Value below bucket: " + value, index == 0 || value > LatencySnapshot.bucketUpperBound(index - 1));
+
+                // Precision is within 1/SUB_BUCKETS of the value.
+                assertTrue("Imprecise bucket: " + value, LatencySnapshot.bucketUpperBound(index) - value <= value / LatencySnapshot.SUB_BUCKETS);
+            }
+            prevIndex = index;
+        }
+        assertEquals(LatencySnapshot.BUCKET_COUNT - 1, LatencySnapshot.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        final long[] buckets = new long[LatencySnapshot.BUCKET_COUNT];
+        long sum = 0;
+        for (long value = 1; value <= 1000; value++) {
+            buckets[LatencySnapshot.bucketIndex(value * 1000)]++;
+            sum += value * 1000;
+        }
+        final LatencySnapshot snapshot = new LatencySnapshot(buckets, 1000, sum, 1000, 1000 * 1000);
+
+        assertEquals(500500, snapshot.getMean());
+        assertEquals(1000, snapshot.getPercentile(0));
+        assertWithin(500 * 1000, snapshot.getPercentile(50));
+        assertWithin(990 * 1000, snapshot.getPercentile(99));
+        assertEquals(1000 * 1000, snapshot.getPercentile(100));
+        assertEquals(0, LatencySnapshot.EMPTY.getPercentile(99));
+    }
+
+    @Test
+    public void formatNanos() {
+        assertEquals("950ns", LatencySnapshot.formatNanos(950));
+        assertEquals("12.5us", LatencySnapshot.formatNanos(12450));
+        assertEquals("3.0ms", LatencySnapshot.formatNanos(2999999));
+        assertEquals("1.2s", LatencySnapshot.formatNanos(1200000000));
+    }
+
+    private void assertWithin(long expected, long actual) {
+        assertTrue("Expected " + expected + ", got " + actual, Math.abs(expected - actual) <= expected / LatencySnapshot.SUB_BUCKETS);
+    }
+}
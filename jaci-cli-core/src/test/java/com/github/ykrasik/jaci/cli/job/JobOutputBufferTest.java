@@ -0,0 +1,96 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.job;
+
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class JobOutputBufferTest {
+    private final List<String> out = new ArrayList<>();
+    private final List<String> err = new ArrayList<>();
+
+    private JobOutputBuffer buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new JobOutputBuffer(new CliPrinter(new ListOutput(out)), new CliPrinter(new ListOutput(err)), 3);
+    }
+
+    @Test
+    public void testBufferedWhileDetached() {
+        buffer.getOut().println("a");
+        buffer.getErr().println("b");
+        assertTrue(out.isEmpty());
+        assertTrue(err.isEmpty());
+        assertEquals(2, buffer.getBufferedLines());
+
+        buffer.attach();
+        assertEquals(Arrays.asList("a"), out);
+        assertEquals(Arrays.asList("b"), err);
+        assertEquals(0, buffer.getBufferedLines());
+    }
+
+    @Test
+    public void testOldestLinesDropped() {
+        for (int i = 0; i < 5; i++) {
+            buffer.getOut().println(String.valueOf(i));
+        }
+        assertEquals(3, buffer.getBufferedLines());
+        assertEquals(2, buffer.getDroppedLines());
+
+        buffer.attach();
+        assertEquals(Arrays.asList("2", "3", "4"), out);
+        assertEquals(Arrays.asList("... 2 lines dropped ..."), err);
+    }
+
+    @Test
+    public void testPassThroughWhileAttached() {
+        buffer.attach();
+        buffer.getOut().println("a");
+        assertEquals(Arrays.asList("a"), out);
+
+        buffer.detach();
+        buffer.getOut().println("b");
+        assertEquals(Arrays.asList("a"), out);
+        assertEquals(1, buffer.getBufferedLines());
+    }
+
+    private static class ListOutput implements CliOutput {
+        private final List<String> lines;
+
+        private ListOutput(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void println(String text) {
+            lines.add(text);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.diagnostics;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.instrument.CommandStats;
+import com.github.ykrasik.jaci.cli.instrument.LatencySnapshot;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;
+import com.github.ykrasik.jaci.param.BooleanParamDef;
+import com.github.ykrasik.jaci.param.IntParamDef;
+import com.github.ykrasik.jaci.path.ParsedPath;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a directory of commands that print diagnostics of the host JVM, read from the platform MXBeans:
+ * <ul>
+ *     <li>'memory' - Heap, non-heap and memory pool usage.</li>
+ *     <li>'gc' - Collection counts and times of each garbage collector, along with what changed since the last call.</li>
+ *     <li>'threads' - All threads ordered by CPU time, optionally with their stacks.</li>
+ *     <li>'classes' - Class loading and JIT compilation statistics.</li>
+ *     <li>'alloc' - Allocation rate of all threads over a window of time.</li>
+ * </ul>
+ * Reading the MXBeans is cheap - nothing is sampled in the background. Only 'alloc' waits, for the duration of it's window.<br>
+ * If thread allocation measurement is disabled, 'alloc' enables it only for the duration of it's window.<br>
+ * The directory is optional, add it to a hierarchy through
+ * {@link com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef.Builder#addProviders(CommandDefProvider...)}.
+ * Requires {@code java.lang.management}, so it isn't supported on Android.
+ *
+ * @author Yevgeny Krasik
+ */
+public class JvmDiagnosticsCommands implements CommandDefProvider {
+    /** The default path of the directory. */
+    public static final String DEFAULT_PATH = "jvm";
+
+    // Guards the JVM-wide thread allocation measurement setting while 'alloc' windows are open.
+    private static final Object ALLOCATION_LOCK = new Object();
+    private static int openAllocationWindows;
+    private static boolean allocationEnabledByWindows;
+
+    private final ParsedPath path;
+
+    // Collection counts & times of each collector, as of the last 'gc' call.
+    private final Map<String, long[]> lastGcSample = new HashMap<>();
+
+    /**
+     * Provide the commands under {@link #DEFAULT_PATH}.
+     */
+    public JvmDiagnosticsCommands() {
+        this(DEFAULT_PATH);
+    }
+
+    /**
+     * @param path Path of the directory to provide the commands under.
+     */
+    public JvmDiagnosticsCommands(String path) {
+        this.path = ParsedPath.toDirectory(path);
+    }
+
+    @Override
+    public Map<ParsedPath, List<CommandDef>> getCommandDefs() {
+        final List<CommandDef> commands = Arrays.asList(
+            createMemoryCommand(),
+            createGcCommand(),
+            createThreadsCommand(),
+            createClassesCommand(),
+            createAllocCommand()
+        );
+        return Collections.singletonMap(path, commands);
+    }
+
+    private CommandDef createMemoryCommand() {
+        return new CommandDef.Builder("memory", new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+                output.message("Heap: " + formatUsage(memoryBean.getHeapMemoryUsage()));
+                output.message("Non-heap: " + formatUsage(memoryBean.getNonHeapMemoryUsage()));
+                output.message("Pending finalization: " + memoryBean.getObjectPendingFinalizationCount());
+                output.message("Pools:");
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (!pool.isValid()) {
+                        continue;
+                    }
+                    final StringBuilder sb = new StringBuilder("  ");
+                    sb.append(pool.getName()).append(" (").append(pool.getType().toString().toLowerCase()).append("): ");
+                    sb.append(formatUsage(pool.getUsage()));
+                    final MemoryUsage afterGc = pool.getCollectionUsage();
+                    if (afterGc != null) {
+                        sb.append(", after GC=").append(CommandStats.formatBytes(afterGc.getUsed()));
+                    }
+                    output.message(sb.toString());
+                }
+            }
+        }).setDescription("Print heap, non-heap and memory pool usage").build();
+    }
+
+    private CommandDef createGcCommand() {
+        return new CommandDef.Builder("gc", new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                long totalCount = 0;
+                long totalTime = 0;
+                synchronized (lastGcSample) {
+                    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                        final long count = Math.max(collector.getCollectionCount(), 0);
+                        final long time = Math.max(collector.getCollectionTime(), 0);
+                        totalCount += count;
+                        totalTime += time;
+
+                        final StringBuilder sb = new StringBuilder();
+                        sb.append(collector.getName()).append(": count=").append(count);
+                        final long[] last = lastGcSample.get(collector.getName());
+                        if (last != null) {
+                            sb.append(" (+").append(count - last[0]).append(')');
+                        }
+                        sb.append(", time=").append(time).append("ms");
+                        if (last != null) {
+                            sb.append(" (+").append(time - last[1]).append("ms)");
+                        }
+                        if (count > 0) {
+                            sb.append(", mean=").append(LatencySnapshot.formatNanos(time * 1000 * 1000 / count));
+                        }
+                        output.message(sb.toString());
+                        lastGcSample.put(collector.getName(), new long[]{ count, time });
+                    }
+                }
+
+                final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+                output.message(String.format(
+                    "Total: count=%d, time=%dms, %.2f%% of uptime (%s)",
+                    totalCount, totalTime, uptime > 0 ? totalTime * 100.0 / uptime : 0.0, LatencySnapshot.formatNanos(uptime * 1000 * 1000)
+                ));
+            }
+        }).setDescription("Print the collection counts and times of each garbage collector, and what changed since the last call").build();
+    }
+
+    private CommandDef createThreadsCommand() {
+        return new CommandDef.Builder("threads", new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final boolean stacks = args.popArg();
+                final int depth = args.popArg();
+                final int top = args.popArg();
+
+                final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+                output.message(
+                    "Threads: live=" + threadBean.getThreadCount() +
+                    ", daemon=" + threadBean.getDaemonThreadCount() +
+                    ", peak=" + threadBean.getPeakThreadCount() +
+                    ", started=" + threadBean.getTotalStartedThreadCount()
+                );
+                printDeadlocks(threadBean, output);
+
+                final boolean cpuTimeSupported = threadBean.isThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+                final List<ThreadSample> samples = new ArrayList<>();
+                for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds(), stacks ? depth : 0)) {
+                    if (info != null) {
+                        final long cpuTime = cpuTimeSupported ? threadBean.getThreadCpuTime(info.getThreadId()) : -1;
+                        samples.add(new ThreadSample(info, cpuTime));
+                    }
+                }
+                Collections.sort(samples, new Comparator<ThreadSample>() {
+                    @Override
+                    public int compare(ThreadSample o1, ThreadSample o2) {
+                        return Long.compare(o2.cpuTime, o1.cpuTime);
+                    }
+                });
+
+                final int count = top > 0 ? Math.min(top, samples.size()) : samples.size();
+                for (int i = 0; i < count && !output.isCancelled(); i++) {
+                    final ThreadSample sample = samples.get(i);
+                    final ThreadInfo info = sample.info;
+                    output.message(
+                        '"' + info.getThreadName() + "\" #" + info.getThreadId() + ' ' + info.getThreadState() +
+                        ", cpu=" + (sample.cpuTime >= 0 ? LatencySnapshot.formatNanos(sample.cpuTime) : "n/a") +
+                        (info.getLockName() != null ? ", waiting on " + info.getLockName() : "")
+                    );
+                    if (stacks) {
+                        final StackTraceElement[] stackTrace = info.getStackTrace();
+                        for (StackTraceElement frame : stackTrace) {
+                            output.message("    at " + frame);
+                        }
+                        if (stackTrace.length == depth) {
+                            output.message("    ...");
+                        }
+                    }
+                }
+            }
+        })
+            .setDescription("Print all threads ordered by CPU time, optionally with their stacks")
+            .addParam(new BooleanParamDef.Builder("stacks").setDescription("Whether to print the stack of each thread").setOptional(false).build())
+            .addParam(new IntParamDef.Builder("depth").setDescription("Max amount of stack frames to print per thread").setOptional(10).build())
+            .addParam(new IntParamDef.Builder("top").setDescription("Max amount of threads to print, 0 for no limit").setOptional(0).build())
+            .build();
+    }
+
+    private void printDeadlocks(ThreadMXBean threadBean, CommandOutput output) {
+        final long[] deadlocked;
+        try {
+            deadlocked = threadBean.isSynchronizerUsageSupported() ?
+                threadBean.findDeadlockedThreads() :
+                threadBean.findMonitorDeadlockedThreads();
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return;
+        }
+        if (deadlocked != null && deadlocked.length > 0) {
+            output.error("Deadlocked threads: " + Arrays.toString(deadlocked));
+        }
+    }
+
+    private CommandDef createClassesCommand() {
+        return new CommandDef.Builder("classes", new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final ClassLoadingMXBean classLoadingBean = ManagementFactory.getClassLoadingMXBean();
+                output.message(
+                    "Classes: loaded=" + classLoadingBean.getLoadedClassCount() +
+                    ", total loaded=" + classLoadingBean.getTotalLoadedClassCount() +
+                    ", unloaded=" + classLoadingBean.getUnloadedClassCount()
+                );
+
+                final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+                if (compilationBean != null) {
+                    final String time = compilationBean.isCompilationTimeMonitoringSupported() ?
+                        compilationBean.getTotalCompilationTime() + "ms" :
+                        "n/a";
+                    output.message("JIT: " + compilationBean.getName() + ", total compilation time=" + time);
+                }
+            }
+        }).setDescription("Print class loading and JIT compilation statistics").build();
+    }
+
+    private CommandDef createAllocCommand() {
+        return new CommandDef.Builder("alloc", new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int window = args.popArg();
+                final int top = args.popArg();
+                if (window <= 0) {
+                    throw new IllegalArgumentException("Invalid window: " + window);
+                }
+                final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+                if (!(threadBean instanceof com.sun.management.ThreadMXBean) ||
+                    !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+                    output.error("Allocations are not measured by this JVM.");
+                    return;
+                }
+                final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+                final long[] ids;
+                final long[] before;
+                final long[] after;
+                final long start;
+                final long elapsed;
+                openAllocationWindow(allocationBean);
+                try {
+                    ids = allocationBean.getAllThreadIds();
+                    before = allocationBean.getThreadAllocatedBytes(ids);
+                    start = System.nanoTime();
+                    if (!sleep(window, output)) {
+                        return;
+                    }
+                    after = allocationBean.getThreadAllocatedBytes(ids);
+                    elapsed = System.nanoTime() - start;
+                } finally {
+                    closeAllocationWindow(allocationBean);
+                }
+
+                // Only threads that were alive throughout the window are measured.
+                final List<ThreadAllocation> allocations = new ArrayList<>(ids.length);
+                long total = 0;
+                for (int i = 0; i < ids.length; i++) {
+                    if (before[i] >= 0 && after[i] >= before[i]) {
+                        final long allocated = after[i] - before[i];
+                        total += allocated;
+                        allocations.add(new ThreadAllocation(ids[i], allocated));
+                    }
+                }
+                output.message(
+                    "Allocated " + CommandStats.formatBytes(total) + " in " + LatencySnapshot.formatNanos(elapsed) +
+                    ": " + formatRate(total, elapsed) + " across " + allocations.size() + " threads"
+                );
+
+                Collections.sort(allocations, new Comparator<ThreadAllocation>() {
+                    @Override
+                    public int compare(ThreadAllocation o1, ThreadAllocation o2) {
+                        return Long.compare(o2.allocated, o1.allocated);
+                    }
+                });
+                for (int i = 0; i < Math.min(top, allocations.size()); i++) {
+                    final ThreadAllocation allocation = allocations.get(i);
+                    if (allocation.allocated == 0) {
+                        break;
+                    }
+                    final ThreadInfo info = allocationBean.getThreadInfo(allocation.id);
+                    final String name = info != null ? info.getThreadName() : "#" + allocation.id;
+                    output.message("  \"" + name + "\": " + formatRate(allocation.allocated, elapsed));
+                }
+            }
+        })
+            .setDescription("Print the allocation rate of all threads over a window of time")
+            .addParam(new IntParamDef.Builder("window").setDescription("Window to measure, in milliseconds").setOptional(1000).build())
+            .addParam(new IntParamDef.Builder("top").setDescription("Amount of top allocating threads to print").setOptional(5).build())
+            .build();
+    }
+
+    /**
+     * Enable thread allocation measurement for the duration of an 'alloc' window, if it isn't already enabled.
+     * Must be followed by {@link #closeAllocationWindow(com.sun.management.ThreadMXBean)}.
+     */
+    private static void openAllocationWindow(com.sun.management.ThreadMXBean allocationBean) {
+        synchronized (ALLOCATION_LOCK) {
+            if (openAllocationWindows == 0 && !allocationBean.isThreadAllocatedMemoryEnabled()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+                allocationEnabledByWindows = true;
+            }
+            openAllocationWindows++;
+        }
+    }
+
+    /**
+     * Once the last open 'alloc' window closes, disable thread allocation measurement again if it was enabled
+     * by {@link #openAllocationWindow(com.sun.management.ThreadMXBean)}.
+     */
+    private static void closeAllocationWindow(com.sun.management.ThreadMXBean allocationBean) {
+        synchronized (ALLOCATION_LOCK) {
+            openAllocationWindows--;
+            if (openAllocationWindows == 0 && allocationEnabledByWindows) {
+                allocationBean.setThreadAllocatedMemoryEnabled(false);
+                allocationEnabledByWindows = false;
+            }
+        }
+    }
+
+    /**
+     * Sleep in short intervals, so the command can be cancelled.
+     *
+     * @return {@code false} if the command was cancelled or interrupted while sleeping.
+     */
+    private static boolean sleep(long millis, CommandOutput output) {
+        final long deadline = System.currentTimeMillis() + millis;
+        long remaining;
+        try {
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                if (output.isCancelled()) {
+                    return false;
+                }
+                Thread.sleep(Math.min(remaining, 50));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    private static String formatUsage(MemoryUsage usage) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("used=").append(CommandStats.formatBytes(usage.getUsed()));
+        sb.append(", committed=").append(CommandStats.formatBytes(usage.getCommitted()));
+        sb.append(", max=").append(usage.getMax() >= 0 ? CommandStats.formatBytes(usage.getMax()) : "n/a");
+        return sb.toString();
+    }
+
+    private static String formatRate(long bytes, long nanos) {
+        return CommandStats.formatBytes((long) (bytes * 1e9 / Math.max(nanos, 1))) + "/s";
+    }
+
+    @Override
+    public String toString() {
+        return "JvmDiagnosticsCommands{path=" + path + '}';
+    }
+
+    /**
+     * A thread along with it's CPU time.
+     */
+    private static class ThreadSample {
+        private final ThreadInfo info;
+        private final long cpuTime;
+
+        private ThreadSample(ThreadInfo info, long cpuTime) {
+            this.info = info;
+            this.cpuTime = cpuTime;
+        }
+    }
+
+    /**
+     * The bytes allocated by a thread over a window.
+     */
+    private static class ThreadAllocation {
+        private final long id;
+        private final long allocated;
+
+        private ThreadAllocation(long id, long allocated) {
+            this.id = id;
+            this.allocated = allocated;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.CommandJobListener;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Adapts a {@link CommandJob} to a {@link Future}, so it can be waited on.<br>
+ * The future's value is the final {@link CommandJob.State state} of the job.
+ * Cancelling the future cancels the job, which is cooperative - a running command will only stop once it polls
+ * for cancellation, so {@link #get()} may still block after the future was cancelled.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CommandJobFuture implements Future<CommandJob.State> {
+    private final CommandJob job;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * @param job Job to adapt.
+     */
+    public CommandJobFuture(CommandJob job) {
+        this.job = Objects.requireNonNull(job, "job");
+        job.addListener(new CommandJobListener() {
+            @Override
+            public void onDone(CommandJob job) {
+                done.countDown();
+            }
+        });
+    }
+
+    /**
+     * @return The adapted job.
+     */
+    public CommandJob getJob() {
+        return job;
+    }
+
+    /**
+     * Request the job to be cancelled. Running commands can't be interrupted, so {@code mayInterruptIfRunning} is ignored.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return job.cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return job.getState() == CommandJob.State.CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return job.isDone();
+    }
+
+    @Override
+    public CommandJob.State get() throws InterruptedException {
+        done.await();
+        return job.getState();
+    }
+
+    @Override
+    public CommandJob.State get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException("Timed out waiting for: " + job.getCommandLine());
+        }
+        return job.getState();
+    }
+
+    @Override
+    public String toString() {
+        return "CommandJobFuture{job=" + job + '}';
+    }
+}
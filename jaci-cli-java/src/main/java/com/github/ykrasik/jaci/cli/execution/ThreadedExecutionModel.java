@@ -0,0 +1,468 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.pipe.BlockingCommandPipe;
+import com.github.ykrasik.jaci.cli.pipe.CommandPipe;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link ExecutionModel} that executes command lines on threads other than the caller's, so a slow command
+ * in one session does not stall other sessions or the thread that submitted it.<br>
+ * <br>
+ * When the runtime supports virtual threads (Java 21+), each session runs it's command lines on a virtual thread.
+ * Otherwise, all sessions share a bounded pool of platform threads.<br>
+ * Either way, the command lines of a single session are executed one at a time, in the order they were submitted.
+ * Background tasks are executed independently of the session's other tasks, each on a thread of it's own (never a pool
+ * thread), so long running background jobs can't starve other sessions.
+ * The stages of a pipeline are executed concurrently, connected by bounded pipes. Each stage other than the last runs
+ * on a thread of it's own (never a pool thread), so a pipeline can't starve waiting for the pool.<br>
+ * <br>
+ * The amount of concurrent executions of a command can be limited, across all sessions created by this model.
+ * Limits are keyed by the full path of the command ('/path/to/command'), or by name for system commands.
+ * A command that is waiting for a permit stops waiting once it is cancelled or times out.<br>
+ * <br>
+ * Created through a {@link Builder}. Should be {@link #close() closed} when no longer needed.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ThreadedExecutionModel implements ExecutionModel, Closeable {
+    private static final String THREAD_NAME_PREFIX = "jaci-cli-";
+    private static final long PERMIT_POLL_MILLIS = 50;
+
+    private final Executor executor;
+    private final Executor pipelineExecutor;
+    private final Executor backgroundExecutor;
+    private final ExecutorService platformPool;
+    private final boolean virtual;
+    private final int pipeCapacity;
+
+    private final int defaultCommandConcurrency;
+    private final Map<String, Integer> commandConcurrency;
+    private final ConcurrentMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    private ThreadedExecutionModel(boolean preferVirtualThreads,
+                                   int maxPlatformThreads,
+                                   int pipeCapacity,
+                                   int defaultCommandConcurrency,
+                                   Map<String, Integer> commandConcurrency) {
+        this.pipeCapacity = pipeCapacity;
+        this.defaultCommandConcurrency = defaultCommandConcurrency;
+        this.commandConcurrency = new HashMap<>(commandConcurrency);
+
+        final ThreadFactory virtualThreadFactory = preferVirtualThreads ? createVirtualThreadFactory() : null;
+        if (virtualThreadFactory != null) {
+            this.executor = new ThreadPerTaskExecutor(virtualThreadFactory);
+            this.pipelineExecutor = executor;
+            this.backgroundExecutor = executor;
+            this.platformPool = null;
+            this.virtual = true;
+        } else {
+            this.platformPool = new ThreadPoolExecutor(
+                maxPlatformThreads, maxPlatformThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new PlatformThreadFactory(THREAD_NAME_PREFIX)
+            );
+            ((ThreadPoolExecutor) platformPool).allowCoreThreadTimeOut(true);
+            this.executor = platformPool;
+            this.pipelineExecutor = new ThreadPerTaskExecutor(new PlatformThreadFactory(THREAD_NAME_PREFIX + "pipe-"));
+            this.backgroundExecutor = new ThreadPerTaskExecutor(new PlatformThreadFactory(THREAD_NAME_PREFIX + "background-"));
+            this.virtual = false;
+        }
+    }
+
+    /**
+     * @return Whether this model runs command lines on virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public SessionExecutor newSessionExecutor() {
+        if (closed) {
+            throw new IllegalStateException("Execution model is closed!");
+        }
+        return new SerialSessionExecutor();
+    }
+
+    /**
+     * Stop accepting new command lines. Command lines that are already executing are left to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (platformPool != null) {
+            platformPool.shutdown();
+        }
+    }
+
+    private Opt<CommandPermit> acquirePermit(String commandPath, CommandOutput output) {
+        final Integer limit = commandConcurrency.containsKey(commandPath) ? commandConcurrency.get(commandPath) : defaultCommandConcurrency;
+        if (limit == Integer.MAX_VALUE) {
+            return Opt.of(CommandPermit.UNLIMITED);
+        }
+
+        Semaphore semaphore = semaphores.get(commandPath);
+        if (semaphore == null) {
+            final Semaphore newSemaphore = new Semaphore(limit, true);
+            semaphore = semaphores.putIfAbsent(commandPath, newSemaphore);
+            if (semaphore == null) {
+                semaphore = newSemaphore;
+            }
+        }
+
+        // Poll, so that a command that is cancelled or times out while waiting stops waiting.
+        try {
+            while (!semaphore.tryAcquire(PERMIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (output.isCancelled()) {
+                    return Opt.absent();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to execute command: " + commandPath);
+        }
+
+        final Semaphore acquired = semaphore;
+        return Opt.<CommandPermit>of(new CommandPermit() {
+            private boolean released;
+
+            @Override
+            public void release() {
+                if (!released) {
+                    released = true;
+                    acquired.release();
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ThreadedExecutionModel{");
+        sb.append("virtual=").append(virtual);
+        sb.append(", pipeCapacity=").append(pipeCapacity);
+        sb.append(", defaultCommandConcurrency=").append(defaultCommandConcurrency);
+        sb.append(", commandConcurrency=").append(commandConcurrency);
+        sb.append(", closed=").append(closed);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Looks up the virtual thread API reflectively, as it only exists on Java 21+.
+     *
+     * @return A factory of virtual threads, or {@code null} if the runtime doesn't support them.
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Object builder = ofVirtual.invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX + "virtual-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the tasks of a single session one at a time, in submission order.
+     * Only one task is handed to the underlying executor at a time, and each task is handed over separately,
+     * so a busy session doesn't hog a pool thread while other sessions are waiting.
+     */
+    private class SerialSessionExecutor implements SessionExecutor, Runnable {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean shutdown;
+
+        @Override
+        public void submit(Runnable task) {
+            Objects.requireNonNull(task, "task");
+            synchronized (this) {
+                if (shutdown || closed) {
+                    throw new IllegalStateException("Executor was shut down!");
+                }
+                tasks.add(task);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                // The submitted task is failed through the exception, other tasks submitted meanwhile are rejected.
+                final List<Runnable> dropped = drain();
+                dropped.remove(task);
+                reject(dropped, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public void submitBackground(Runnable task) {
+            Objects.requireNonNull(task, "task");
+            synchronized (this) {
+                if (shutdown || closed) {
+                    throw new IllegalStateException("Executor was shut down!");
+                }
+            }
+            backgroundExecutor.execute(task);
+        }
+
+        @Override
+        public void run() {
+            final Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+            }
+            try {
+                if (task != null) {
+                    task.run();
+                }
+            } finally {
+                final boolean hasMoreTasks;
+                synchronized (this) {
+                    hasMoreTasks = !tasks.isEmpty();
+                    scheduled = hasMoreTasks;
+                }
+                if (hasMoreTasks) {
+                    try {
+                        executor.execute(this);
+                    } catch (RuntimeException e) {
+                        reject(drain(), e);
+                    }
+                }
+            }
+        }
+
+        private synchronized List<Runnable> drain() {
+            final List<Runnable> dropped = new ArrayList<>(tasks);
+            tasks.clear();
+            scheduled = false;
+            return dropped;
+        }
+
+        private void reject(List<Runnable> dropped, Exception cause) {
+            for (Runnable task : dropped) {
+                if (task instanceof RejectableTask) {
+                    ((RejectableTask) task).reject(cause);
+                }
+            }
+        }
+
+        @Override
+        public void executePipeline(List<Runnable> stages) {
+            if (stages.isEmpty()) {
+                return;
+            }
+
+            // The last stage runs on the calling thread, the others each get a thread of their own.
+            final int last = stages.size() - 1;
+            final CountDownLatch done = new CountDownLatch(last);
+            for (int i = 0; i < last; i++) {
+                final Runnable stage = stages.get(i);
+                pipelineExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            stage.run();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+            stages.get(last).run();
+
+            // The pipeline is only done once all it's stages are done. Stages stop once their output is no longer read,
+            // but it's up to them to notice.
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public CommandPipe newPipe() {
+            return new BlockingCommandPipe(pipeCapacity);
+        }
+
+        @Override
+        public Opt<CommandPermit> acquirePermit(String commandPath, CommandOutput output) {
+            return ThreadedExecutionModel.this.acquirePermit(commandPath, output);
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            shutdown = true;
+        }
+    }
+
+    private static class ThreadPerTaskExecutor implements Executor {
+        private final ThreadFactory threadFactory;
+
+        private ThreadPerTaskExecutor(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            threadFactory.newThread(command).start();
+        }
+    }
+
+    private static class PlatformThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String namePrefix;
+
+        private PlatformThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * A builder for a {@link ThreadedExecutionModel}.
+     */
+    public static class Builder {
+        private final Map<String, Integer> commandConcurrency = new HashMap<>();
+
+        private boolean preferVirtualThreads = true;
+        private int maxPlatformThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private int pipeCapacity = 1024;
+        private int defaultCommandConcurrency = Integer.MAX_VALUE;
+
+        /**
+         * Set whether to use virtual threads when the runtime supports them. Defaults to {@code true}.
+         *
+         * @param preferVirtualThreads Whether to use virtual threads when the runtime supports them.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPreferVirtualThreads(boolean preferVirtualThreads) {
+            this.preferVirtualThreads = preferVirtualThreads;
+            return this;
+        }
+
+        /**
+         * Set the size of the platform thread pool, used when virtual threads are unavailable.
+         * Defaults to the amount of available processors, but no less than 2.
+         *
+         * @param maxPlatformThreads Max amount of platform threads.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setMaxPlatformThreads(int maxPlatformThreads) {
+            if (maxPlatformThreads <= 0) {
+                throw new IllegalArgumentException("Invalid maxPlatformThreads: " + maxPlatformThreads);
+            }
+            this.maxPlatformThreads = maxPlatformThreads;
+            return this;
+        }
+
+        /**
+         * Set the amount of lines a pipe between 2 commands holds before the upstream command is blocked
+         * until the downstream command catches up. Defaults to 1024.
+         *
+         * @param pipeCapacity Max amount of lines a pipe holds.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPipeCapacity(int pipeCapacity) {
+            if (pipeCapacity <= 0) {
+                throw new IllegalArgumentException("Invalid pipeCapacity: " + pipeCapacity);
+            }
+            this.pipeCapacity = pipeCapacity;
+            return this;
+        }
+
+        /**
+         * Set the max amount of concurrent executions of each command that doesn't have a limit of it's own.
+         * Defaults to unlimited.
+         *
+         * @param defaultCommandConcurrency Max amount of concurrent executions of a command.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setDefaultCommandConcurrency(int defaultCommandConcurrency) {
+            this.defaultCommandConcurrency = checkConcurrency(defaultCommandConcurrency);
+            return this;
+        }
+
+        /**
+         * Set the max amount of concurrent executions of the command with the given path, across all sessions.
+         *
+         * @param commandPath Full path of the command to limit ('/path/to/command'), or the name of a system command.
+         * @param concurrency Max amount of concurrent executions of the command.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setCommandConcurrency(String commandPath, int concurrency) {
+            commandConcurrency.put(Objects.requireNonNull(commandPath, "commandPath"), checkConcurrency(concurrency));
+            return this;
+        }
+
+        private int checkConcurrency(int concurrency) {
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+            }
+            return concurrency;
+        }
+
+        /**
+         * @return A {@link ThreadedExecutionModel} built out of this builder's parameters.
+         */
+        public ThreadedExecutionModel build() {
+            return new ThreadedExecutionModel(preferVirtualThreads, maxPlatformThreads, pipeCapacity, defaultCommandConcurrency, commandConcurrency);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.file;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Resolves paths that were received from a CLI's users against a directory they are confined to,
+ * for commands that read or write files on behalf of remote users.
+ *
+ * @author Yevgeny Krasik
+ */
+public final class ConfinedPaths {
+    private ConfinedPaths() { }
+
+    /**
+     * Resolve a path against a directory, rejecting any path that could escape it.
+     *
+     * @param directory Directory the path is confined to.
+     * @param path Path to resolve. Must be relative and must not contain '..'.
+     * @return The resolved, absolute path.
+     * @throws IllegalArgumentException If the path is absolute or could escape the directory.
+     */
+    public static Path resolve(Path directory, String path) {
+        final Path relative = Paths.get(path);
+        if (relative.isAbsolute() || relative.getRoot() != null) {
+            throw new IllegalArgumentException("Only paths relative to the configured directory are allowed: '" + path + '\'');
+        }
+        for (Path part : relative) {
+            if ("..".equals(part.toString())) {
+                throw new IllegalArgumentException("Paths may not contain '..': '" + path + '\'');
+            }
+        }
+
+        final Path base = directory.toAbsolutePath().normalize();
+        final Path resolved = base.resolve(relative).normalize();
+        if (!resolved.startsWith(base) || resolved.equals(base)) {
+            throw new IllegalArgumentException("Invalid path: '" + path + '\'');
+        }
+        return resolved;
+    }
+}
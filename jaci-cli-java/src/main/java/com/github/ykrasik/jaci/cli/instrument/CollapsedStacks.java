@@ -0,0 +1,85 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates sampled stack traces into collapsed stacks - the frames of each stack are listed from the thread's root
+ * to the sampled frame, separated by ';', along with the amount of times the stack was sampled.
+ * This is the input format of most flame graph tools.<br>
+ * Not thread-safe.
+ *
+ * @author Yevgeny Krasik
+ */
+class CollapsedStacks {
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * @param stackTrace Stack trace to add, innermost frame first. Empty stack traces are ignored.
+     */
+    void add(StackTraceElement[] stackTrace) {
+        if (stackTrace.length == 0) {
+            return;
+        }
+        sb.setLength(0);
+        for (int i = stackTrace.length - 1; i >= 0; i--) {
+            final StackTraceElement frame = stackTrace[i];
+            sb.append(frame.getClassName()).append('.').append(frame.getMethodName());
+            if (i > 0) {
+                sb.append(';');
+            }
+        }
+        final String stack = sb.toString();
+        final Integer count = counts.get(stack);
+        counts.put(stack, count != null ? count + 1 : 1);
+    }
+
+    /**
+     * @return The amount of times each collapsed stack was sampled, most sampled first.
+     */
+    Map<String, Integer> getCounts() {
+        return sortByCount(counts);
+    }
+
+    /**
+     * @param counts Counts to sort.
+     * @return A copy of the counts, ordered from the highest count to the lowest.
+     */
+    static Map<String, Integer> sortByCount(Map<String, Integer> counts) {
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
+                return Integer.compare(o2.getValue(), o1.getValue());
+            }
+        });
+        final Map<String, Integer> sorted = new LinkedHashMap<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,240 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ShellInstrumentation} that records a latency histogram for each {@link ShellPhase},
+ * and a latency histogram along with failure & cancellation counts for each executed command.<br>
+ * The CPU time and allocations of each command execution are also recorded, as far as the {@link ThreadResourceMeter}
+ * supports them. These are inclusive - a command that executes other commands on the same thread (like a script)
+ * is also charged for them.<br>
+ * Commands are identified by their path, so shells that are built from the same hierarchy definition
+ * (like the sessions of a server) record the same command together.
+ * Recording is lock-free and only allocates the first time a command is executed (or the first time a thread
+ * executes a command), so a single instance can be shared by many shells.
+ *
+ * @author Yevgeny Krasik
+ */
+public class HistogramShellInstrumentation implements ShellInstrumentation {
+    private final ThreadResourceMeter meter;
+    private final boolean metered;
+    private final ThreadLocal<MeterStack> meterStacks = new ThreadLocal<MeterStack>() {
+        @Override
+        protected MeterStack initialValue() {
+            return new MeterStack();
+        }
+    };
+
+    private volatile Recorders recorders = new Recorders();
+
+    /**
+     * Create an instrumentation that measures command executions with the best {@link ThreadResourceMeter}
+     * the runtime supports, without enabling any measurements the runtime has disabled (see {@link ThreadResourceMeter#detect()}).
+     */
+    public HistogramShellInstrumentation() {
+        this(ThreadResourceMeter.detect());
+    }
+
+    /**
+     * @param meter Meter to measure the CPU time & allocations of command executions with.
+     */
+    public HistogramShellInstrumentation(ThreadResourceMeter meter) {
+        this.meter = Objects.requireNonNull(meter, "meter");
+        this.metered = meter.isCpuTimeSupported() || meter.isAllocationSupported();
+    }
+
+    /**
+     * @return Meter that measures the CPU time & allocations of command executions.
+     */
+    public ThreadResourceMeter getMeter() {
+        return meter;
+    }
+
+    @Override
+    public long begin(ShellPhase phase) {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void end(ShellPhase phase, long begin) {
+        recorders.phases.get(phase).record(System.nanoTime() - begin);
+    }
+
+    @Override
+    public long beginCommand(CliCommand command, String commandPath) {
+        if (metered) {
+            meterStacks.get().push(meter.getCurrentThreadCpuTime(), meter.getCurrentThreadAllocatedBytes());
+        }
+        return System.nanoTime();
+    }
+
+    @Override
+    public void endCommand(CliCommand command, String commandPath, long begin, CommandJob.State state) {
+        final long nanos = System.nanoTime() - begin;
+        long cpuTime = 0;
+        long allocatedBytes = 0;
+        if (metered) {
+            final MeterStack stack = meterStacks.get();
+            cpuTime = Math.max(meter.getCurrentThreadCpuTime() - stack.peekCpuTime(), 0);
+            allocatedBytes = Math.max(meter.getCurrentThreadAllocatedBytes() - stack.peekAllocatedBytes(), 0);
+            stack.pop();
+        }
+
+        final Recorders recorders = this.recorders;
+        recorders.phases.get(ShellPhase.EXECUTE).record(nanos);
+        recorders.getCommand(commandPath).record(nanos, state, cpuTime, allocatedBytes);
+    }
+
+    @Override
+    public long getCurrentThreadAllocatedBytes() {
+        return meter.isAllocationSupported() ? meter.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    @Override
+    public InstrumentationSnapshot snapshot() {
+        final Recorders recorders = this.recorders;
+        final Map<ShellPhase, LatencySnapshot> phases = new EnumMap<>(ShellPhase.class);
+        for (Map.Entry<ShellPhase, LatencyRecorder> entry : recorders.phases.entrySet()) {
+            phases.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        final List<CommandStats> commands = new ArrayList<>(recorders.commands.size());
+        for (Map.Entry<String, CommandRecorder> entry : recorders.commands.entrySet()) {
+            commands.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return new InstrumentationSnapshot(phases, commands, meter.isCpuTimeSupported(), meter.isAllocationSupported());
+    }
+
+    /**
+     * Discard everything recorded so far. Values that are being recorded concurrently may be lost.
+     */
+    @Override
+    public void reset() {
+        recorders = new Recorders();
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramShellInstrumentation{" + snapshot() + '}';
+    }
+
+    /**
+     * All recorders, replaced as a whole on reset.
+     */
+    private static class Recorders {
+        private final Map<ShellPhase, LatencyRecorder> phases = new EnumMap<>(ShellPhase.class);
+        private final ConcurrentMap<String, CommandRecorder> commands = new ConcurrentHashMap<>();
+
+        private Recorders() {
+            for (ShellPhase phase : ShellPhase.values()) {
+                phases.put(phase, new LatencyRecorder());
+            }
+        }
+
+        private CommandRecorder getCommand(String commandPath) {
+            final CommandRecorder recorder = commands.get(commandPath);
+            if (recorder != null) {
+                return recorder;
+            }
+            final CommandRecorder newRecorder = new CommandRecorder();
+            final CommandRecorder existingRecorder = commands.putIfAbsent(commandPath, newRecorder);
+            return existingRecorder != null ? existingRecorder : newRecorder;
+        }
+    }
+
+    /**
+     * Records the executions of a single command.
+     */
+    private static class CommandRecorder {
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong cancellations = new AtomicLong();
+        private final AtomicLong cpuTime = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+        private final AtomicLong maxAllocatedBytes = new AtomicLong();
+
+        private void record(long nanos, CommandJob.State state, long cpuTime, long allocatedBytes) {
+            latency.record(nanos);
+            if (state == CommandJob.State.FAILED) {
+                failures.incrementAndGet();
+            } else if (state == CommandJob.State.CANCELLED) {
+                cancellations.incrementAndGet();
+            }
+            if (cpuTime != 0) {
+                this.cpuTime.addAndGet(cpuTime);
+            }
+            if (allocatedBytes != 0) {
+                this.allocatedBytes.addAndGet(allocatedBytes);
+                long max;
+                while (allocatedBytes > (max = maxAllocatedBytes.get())) {
+                    if (maxAllocatedBytes.compareAndSet(max, allocatedBytes)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private CommandStats snapshot(String commandPath) {
+            return new CommandStats(
+                commandPath, failures.get(), cancellations.get(), latency.snapshot(),
+                cpuTime.get(), allocatedBytes.get(), maxAllocatedBytes.get()
+            );
+        }
+    }
+
+    /**
+     * The meter readings at the beginning of each command that is currently executing on a thread.
+     * Commands may execute other commands on the same thread, so this is a stack.
+     */
+    private static class MeterStack {
+        private long[] values = new long[8];
+        private int size;
+
+        private void push(long cpuTime, long allocatedBytes) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = cpuTime;
+            values[size++] = allocatedBytes;
+        }
+
+        private long peekCpuTime() {
+            return values[size - 2];
+        }
+
+        private long peekAllocatedBytes() {
+            return values[size - 1];
+        }
+
+        private void pop() {
+            size -= 2;
+        }
+    }
+}
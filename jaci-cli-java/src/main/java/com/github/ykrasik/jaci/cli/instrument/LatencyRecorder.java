@@ -0,0 +1,72 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies into a histogram with the bucketing scheme of {@link LatencySnapshot}.<br>
+ * Recording is lock-free and doesn't allocate, so it may be called concurrently from any thread.
+ * A {@link #snapshot()} taken while values are being recorded may be off by the values being recorded at the time.
+ *
+ * @author Yevgeny Krasik
+ */
+public class LatencyRecorder {
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencySnapshot.BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param nanos Latency to record, in nanoseconds.
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(LatencySnapshot.bucketIndex(nanos));
+        sum.addAndGet(nanos);
+        count.incrementAndGet();
+
+        long current;
+        while (nanos < (current = min.get()) && !min.compareAndSet(current, nanos)) {
+            // Retry.
+        }
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // Retry.
+        }
+    }
+
+    /**
+     * @return A snapshot of the latencies recorded so far.
+     */
+    public LatencySnapshot snapshot() {
+        final long[] counts = new long[LatencySnapshot.BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        // Use the total of the copied buckets, so that percentiles are consistent with the counts.
+        return new LatencySnapshot(counts, total, sum.get(), min.get(), max.get());
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyRecorder{" + snapshot() + '}';
+    }
+}
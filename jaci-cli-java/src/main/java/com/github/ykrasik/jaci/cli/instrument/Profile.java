@@ -0,0 +1,174 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The result of a {@link SamplingProfiler} run - the collapsed stacks of all threads that were sampled, along with
+ * the amount of times each was sampled.<br>
+ * Stacks are collapsed - frames are listed from the thread's root to the sampled frame, separated by ';'.
+ *
+ * @author Yevgeny Krasik
+ */
+public class Profile {
+    private final long startMillis;
+    private final long durationMillis;
+    private final long intervalMillis;
+    private final int samples;
+    private final int threadSamples;
+    private final Map<String, Integer> collapsedStacks;
+    private final Opt<Path> outputFile;
+    private final Opt<String> outputError;
+
+    /**
+     * @param startMillis When profiling started, in milliseconds since the epoch.
+     * @param durationMillis How long profiling actually took, in milliseconds.
+     * @param intervalMillis Interval between samples, in milliseconds.
+     * @param samples Amount of times all threads were sampled.
+     * @param threadSamples Amount of thread stacks that were sampled, across all samples.
+     * @param collapsedStacks Amount of times each collapsed stack was sampled.
+     * @param outputFile File the collapsed stacks were written to, if any.
+     * @param outputError Why the collapsed stacks could not be written to the output file, if they couldn't.
+     */
+    public Profile(long startMillis,
+                   long durationMillis,
+                   long intervalMillis,
+                   int samples,
+                   int threadSamples,
+                   Map<String, Integer> collapsedStacks,
+                   Opt<Path> outputFile,
+                   Opt<String> outputError) {
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.intervalMillis = intervalMillis;
+        this.samples = samples;
+        this.threadSamples = threadSamples;
+        this.collapsedStacks = Collections.unmodifiableMap(CollapsedStacks.sortByCount(collapsedStacks));
+        this.outputFile = Objects.requireNonNull(outputFile, "outputFile");
+        this.outputError = Objects.requireNonNull(outputError, "outputError");
+    }
+
+    /**
+     * @return When profiling started, in milliseconds since the epoch.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return How long profiling actually took, in milliseconds.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return Interval between samples, in milliseconds.
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @return Amount of times all threads were sampled.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return Amount of thread stacks that were sampled, across all samples.
+     */
+    public int getThreadSamples() {
+        return threadSamples;
+    }
+
+    /**
+     * @return Amount of times each collapsed stack was sampled, most sampled first.
+     */
+    public Map<String, Integer> getCollapsedStacks() {
+        return collapsedStacks;
+    }
+
+    /**
+     * @return File the collapsed stacks were written to, if any.
+     */
+    public Opt<Path> getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * @return Why the collapsed stacks could not be written to the output file, if they couldn't.
+     */
+    public Opt<String> getOutputError() {
+        return outputError;
+    }
+
+    /**
+     * @return The amount of samples in which each frame was the innermost frame, most sampled first.
+     */
+    public Map<String, Integer> getSelfCounts() {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : collapsedStacks.entrySet()) {
+            final String stack = entry.getKey();
+            add(counts, stack.substring(stack.lastIndexOf(';') + 1), entry.getValue());
+        }
+        return CollapsedStacks.sortByCount(counts);
+    }
+
+    /**
+     * @return The amount of samples in which each frame appeared anywhere in the stack, most sampled first.
+     *         Recursive frames are only counted once per stack.
+     */
+    public Map<String, Integer> getTotalCounts() {
+        final Map<String, Integer> counts = new HashMap<>();
+        final Set<String> frames = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : collapsedStacks.entrySet()) {
+            frames.clear();
+            Collections.addAll(frames, entry.getKey().split(";"));
+            for (String frame : frames) {
+                add(counts, frame, entry.getValue());
+            }
+        }
+        return CollapsedStacks.sortByCount(counts);
+    }
+
+    private static void add(Map<String, Integer> counts, String frame, int count) {
+        final Integer current = counts.get(frame);
+        counts.put(frame, current != null ? current + count : count);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Profiled for ").append(durationMillis).append("ms");
+        sb.append(", samples=").append(samples);
+        sb.append(", threadSamples=").append(threadSamples);
+        sb.append(", stacks=").append(collapsedStacks.size());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,167 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.Identifier;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.cli.file.ConfinedPaths;
+import com.github.ykrasik.jaci.cli.param.BooleanCliParam;
+import com.github.ykrasik.jaci.cli.param.CliParam;
+import com.github.ykrasik.jaci.cli.param.IntCliParam;
+import com.github.ykrasik.jaci.cli.param.StringCliParam;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.util.function.MoreSuppliers;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates the 'profile' command, which controls a {@link SamplingProfiler}:
+ * <ul>
+ *     <li>'profile &lt;seconds&gt;' starts profiling in the background and returns immediately.</li>
+ *     <li>'profile' prints the progress of the running profile, or the top frames of the last profile.</li>
+ *     <li>'profile -stop' stops the running profile early.</li>
+ * </ul>
+ * Profiles may be written to a file for flame graph tools. A CLI that is exposed to untrusted users should create the
+ * command through {@link #createConfined(SamplingProfiler, Opt)}, which only writes files under a configured directory.<br>
+ * Add the command to a CLI's system commands through
+ * {@link com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl#from(com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef, CliCommand...)}.
+ *
+ * @author Yevgeny Krasik
+ */
+public final class ProfileCommandFactory {
+    private ProfileCommandFactory() { }
+
+    /**
+     * Create the profile command, which may write profiles to any file the process can write.
+     *
+     * @param profiler Profiler to control.
+     * @return Create the profile command.
+     */
+    public static CliCommand create(SamplingProfiler profiler) {
+        return create(profiler, true, Opt.<Path>absent());
+    }
+
+    /**
+     * Create the profile command, which may only write profiles to files under the given directory.
+     * Absolute paths and paths containing '..' are rejected.
+     *
+     * @param profiler Profiler to control.
+     * @param outputDirectory Directory profiles may be written to. If absent, profiles can't be written to files.
+     * @return Create the profile command.
+     */
+    public static CliCommand createConfined(SamplingProfiler profiler, Opt<Path> outputDirectory) {
+        return create(profiler, outputDirectory.isPresent(), outputDirectory);
+    }
+
+    private static CliCommand create(final SamplingProfiler profiler, final boolean hasOutParam, final Opt<Path> outputDirectory) {
+        Objects.requireNonNull(profiler, "profiler");
+        final Identifier identifier = new Identifier("profile", "Sample the stacks of all threads in the background, or print the last profile");
+        final List<CliParam> params = new ArrayList<>(Arrays.<CliParam>asList(
+            new IntCliParam(new Identifier("seconds", "How long to profile for, 0 to print the last profile"), Opt.of(MoreSuppliers.of(0)), false),
+            new IntCliParam(new Identifier("interval", "Interval between samples, in milliseconds"), Opt.of(MoreSuppliers.of(10)), false)
+        ));
+        if (hasOutParam) {
+            params.add(new StringCliParam(
+                new Identifier("out", "File to write the collapsed stacks to once done, for flame graph tools"),
+                Opt.of(MoreSuppliers.of("")),
+                false,
+                MoreSuppliers.of(Collections.<String>emptyList())
+            ));
+        }
+        params.add(BooleanCliParam.optional(new Identifier("all", "Whether to also sample threads that are blocked or waiting"), false, false));
+        params.add(new IntCliParam(new Identifier("top", "Amount of top frames to print"), Opt.of(MoreSuppliers.of(20)), false));
+        params.add(BooleanCliParam.optional(new Identifier("stop", "Whether to stop the running profile"), false, false));
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int seconds = args.popArg();
+                final int interval = args.popArg();
+                final String out = hasOutParam ? args.<String>popArg() : "";
+                final boolean allThreads = args.popArg();
+                final int top = args.popArg();
+                final boolean stop = args.popArg();
+
+                if (stop) {
+                    profiler.stop();
+                    output.message("Profile stopped.");
+                } else if (seconds > 0) {
+                    final Opt<Path> outputFile;
+                    if (out.isEmpty()) {
+                        outputFile = Opt.absent();
+                    } else if (outputDirectory.isPresent()) {
+                        outputFile = Opt.of(ConfinedPaths.resolve(outputDirectory.get(), out));
+                    } else {
+                        outputFile = Opt.of(Paths.get(out).toAbsolutePath());
+                    }
+                    profiler.start(seconds * 1000L, interval, allThreads, outputFile);
+                    output.message("Profiling for " + seconds + "s, sampling every " + interval + "ms. Run 'profile' to see the results.");
+                } else if (profiler.isRunning()) {
+                    output.message("Profiling, " + profiler.getRemainingMillis() / 1000 + "s left, " + profiler.getSamples() + " samples so far.");
+                } else {
+                    final Opt<Profile> profile = profiler.getLastProfile();
+                    if (profile.isPresent()) {
+                        printProfile(profile.get(), top, output);
+                    } else {
+                        output.message("No profile recorded. Run 'profile <seconds>' to start one.");
+                    }
+                }
+            }
+        });
+    }
+
+    private static void printProfile(Profile profile, int top, CommandOutput output) {
+        output.message(profile.toString());
+        if (profile.getOutputFile().isPresent()) {
+            final Opt<String> error = profile.getOutputError();
+            output.message(error.isPresent() ?
+                "Failed to write collapsed stacks to '" + profile.getOutputFile().get() + "': " + error.get() :
+                "Collapsed stacks written to '" + profile.getOutputFile().get() + "'.");
+        }
+        if (profile.getThreadSamples() == 0) {
+            return;
+        }
+
+        final Map<String, Integer> totalCounts = profile.getTotalCounts();
+        output.message(String.format("%7s %7s  %s", "SELF", "TOTAL", "FRAME"));
+        int printed = 0;
+        for (Map.Entry<String, Integer> entry : profile.getSelfCounts().entrySet()) {
+            if (printed++ == top) {
+                break;
+            }
+            final String frame = entry.getKey();
+            output.message(String.format(
+                "%6.1f%% %6.1f%%  %s",
+                percent(entry.getValue(), profile), percent(totalCounts.get(frame), profile), frame
+            ));
+        }
+    }
+
+    private static double percent(int count, Profile profile) {
+        return count * 100.0 / profile.getThreadSamples();
+    }
+}
@@ -0,0 +1,254 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Profiles the host JVM by sampling the stacks of all threads at a fixed rate for a limited time.<br>
+ * Sampling happens on a background thread of it's own, so starting a profile returns immediately and never blocks
+ * the thread that started it (a shell, or a game's render thread). Once the profile is done, it's result is available
+ * through {@link #getLastProfile()}, and optionally written to a collapsed-stack file that flame graph tools can read.<br>
+ * <br>
+ * Stacks are sampled through {@link ThreadMXBean#dumpAllThreads(boolean, boolean)}. On runtimes without
+ * {@code java.lang.management} (Android), {@link Thread#getAllStackTraces()} is used instead.<br>
+ * By default only runnable threads are sampled, as threads that are blocked or waiting are usually idle.
+ * Only one profile may run at a time.
+ *
+ * @author Yevgeny Krasik
+ */
+public class SamplingProfiler {
+    private static final String THREAD_NAME = "jaci-cli-profiler";
+
+    private final Sampler sampler = createSampler();
+
+    private volatile Thread thread;
+    private volatile boolean stopRequested;
+    private volatile long deadlineMillis;
+    private volatile int samples;
+    private volatile Profile lastProfile;
+
+    /**
+     * Start profiling on a background thread.
+     *
+     * @param durationMillis How long to profile for, in milliseconds.
+     * @param intervalMillis Interval between samples, in milliseconds.
+     * @param allThreads Whether to also sample threads that are blocked or waiting.
+     * @param outputFile File to write the collapsed stacks to once profiling is done, if any.
+     * @throws IllegalStateException If a profile is already running.
+     * @throws IllegalArgumentException If the duration or interval are invalid.
+     */
+    public synchronized void start(final long durationMillis,
+                                   final long intervalMillis,
+                                   final boolean allThreads,
+                                   final Opt<Path> outputFile) {
+        if (durationMillis <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid profile: durationMillis=" + durationMillis + ", intervalMillis=" + intervalMillis);
+        }
+        Objects.requireNonNull(outputFile, "outputFile");
+        if (isRunning()) {
+            throw new IllegalStateException("A profile is already running!");
+        }
+
+        stopRequested = false;
+        samples = 0;
+        deadlineMillis = System.currentTimeMillis() + durationMillis;
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                profile(intervalMillis, allThreads, outputFile);
+            }
+        }, THREAD_NAME);
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the running profile before it's time is up. The samples taken so far are kept as the profile's result.
+     * Does nothing if no profile is running.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return Whether a profile is currently running.
+     */
+    public boolean isRunning() {
+        final Thread thread = this.thread;
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * @return How long the running profile has left, in milliseconds. 0 if no profile is running.
+     */
+    public long getRemainingMillis() {
+        return isRunning() ? Math.max(deadlineMillis - System.currentTimeMillis(), 0) : 0;
+    }
+
+    /**
+     * @return Amount of samples taken so far by the running profile, or by the last profile if none is running.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return The result of the last profile that finished, if any.
+     */
+    public Opt<Profile> getLastProfile() {
+        return Opt.ofNullable(lastProfile);
+    }
+
+    private void profile(long intervalMillis, boolean allThreads, Opt<Path> outputFile) {
+        final long startMillis = System.currentTimeMillis();
+        final long self = Thread.currentThread().getId();
+        final CollapsedStacks stacks = new CollapsedStacks();
+        int samples = 0;
+        int threadSamples = 0;
+        try {
+            while (!stopRequested && System.currentTimeMillis() < deadlineMillis) {
+                final long sampleStart = System.currentTimeMillis();
+                threadSamples += sampler.sample(stacks, self, allThreads);
+                this.samples = ++samples;
+
+                // Sample at a fixed rate, regardless of how long sampling took.
+                final long sleepMillis = intervalMillis - (System.currentTimeMillis() - sampleStart);
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop profiling, keep what was sampled so far.
+        }
+
+        final long durationMillis = System.currentTimeMillis() - startMillis;
+        final Map<String, Integer> counts = stacks.getCounts();
+        Opt<String> outputError = Opt.absent();
+        if (outputFile.isPresent()) {
+            try {
+                write(counts, outputFile.get());
+            } catch (IOException | RuntimeException e) {
+                outputError = Opt.of(e.toString());
+            }
+        }
+        lastProfile = new Profile(startMillis, durationMillis, intervalMillis, samples, threadSamples, counts, outputFile, outputError);
+    }
+
+    private static void write(Map<String, Integer> collapsedStacks, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Integer> entry : collapsedStacks.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(String.valueOf(entry.getValue()));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SamplingProfiler{");
+        sb.append("running=").append(isRunning());
+        sb.append(", samples=").append(samples);
+        sb.append(", lastProfile=").append(lastProfile);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static Sampler createSampler() {
+        try {
+            return new MXBeanSampler(ManagementFactory.getThreadMXBean());
+        } catch (LinkageError | RuntimeException e) {
+            // No java.lang.management, probably Android.
+            return new ThreadSampler();
+        }
+    }
+
+    /**
+     * Samples the stacks of all threads.
+     */
+    private interface Sampler {
+        /**
+         * @param stacks Stacks to add the sampled stacks to.
+         * @param excludedThreadId Id of a thread not to sample.
+         * @param allThreads Whether to also sample threads that are blocked or waiting.
+         * @return Amount of sampled threads.
+         */
+        int sample(CollapsedStacks stacks, long excludedThreadId, boolean allThreads);
+    }
+
+    /**
+     * Samples through {@link ThreadMXBean#dumpAllThreads(boolean, boolean)}, which takes all stacks at a single safepoint.
+     */
+    private static class MXBeanSampler implements Sampler {
+        private final ThreadMXBean threadBean;
+
+        private MXBeanSampler(ThreadMXBean threadBean) {
+            this.threadBean = threadBean;
+        }
+
+        @Override
+        public int sample(CollapsedStacks stacks, long excludedThreadId, boolean allThreads) {
+            int sampled = 0;
+            for (ThreadInfo info : threadBean.dumpAllThreads(false, false)) {
+                if (info == null || info.getThreadId() == excludedThreadId) {
+                    continue;
+                }
+                if (allThreads || info.getThreadState() == Thread.State.RUNNABLE) {
+                    stacks.add(info.getStackTrace());
+                    sampled++;
+                }
+            }
+            return sampled;
+        }
+    }
+
+    /**
+     * Samples through {@link Thread#getAllStackTraces()}, for runtimes without {@code java.lang.management}.
+     */
+    private static class ThreadSampler implements Sampler {
+        @Override
+        public int sample(CollapsedStacks stacks, long excludedThreadId, boolean allThreads) {
+            int sampled = 0;
+            for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+                final Thread thread = entry.getKey();
+                if (thread.getId() == excludedThreadId) {
+                    continue;
+                }
+                if (allThreads || thread.getState() == Thread.State.RUNNABLE) {
+                    stacks.add(entry.getValue());
+                    sampled++;
+                }
+            }
+            return sampled;
+        }
+    }
+}
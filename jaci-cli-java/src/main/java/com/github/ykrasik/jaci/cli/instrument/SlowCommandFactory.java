@@ -0,0 +1,104 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.Identifier;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.cli.param.BooleanCliParam;
+import com.github.ykrasik.jaci.cli.param.CliParam;
+import com.github.ykrasik.jaci.cli.param.IntCliParam;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.util.function.MoreSuppliers;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates the 'slow' command, which prints the slow executions recorded by a {@link SlowCommandWatchdog}.
+ * Without an id, the command lists the recorded slow executions, most recent first.
+ * With an id, it prints the collapsed-stack profile of that execution, one '&lt;stack&gt; &lt;count&gt;' line per stack.<br>
+ * Add the command to a CLI's system commands through
+ * {@link com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl#from(com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef, CliCommand...)}.
+ *
+ * @author Yevgeny Krasik
+ */
+public final class SlowCommandFactory {
+    private SlowCommandFactory() { }
+
+    /**
+     * @param watchdog Watchdog to print the slow executions of.
+     * @return Create the slow command.
+     */
+    public static CliCommand create(final SlowCommandWatchdog watchdog) {
+        Objects.requireNonNull(watchdog, "watchdog");
+        final Identifier identifier = new Identifier("slow", "Print the commands that took longer than " + watchdog.getThresholdMillis() + "ms and where they spent their time");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new IntCliParam(new Identifier("id", "Id of the slow execution to print the profile of, 0 to list all slow executions"), Opt.of(MoreSuppliers.of(0)), false),
+            BooleanCliParam.optional(new Identifier("clear", "Whether to discard the slow executions after printing them"), false, false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int id = args.popArg();
+                final boolean clear = args.popArg();
+                if (id == 0) {
+                    printSlowExecutions(watchdog.getSlowExecutions(), output);
+                } else {
+                    printProfile(getSlowExecution(watchdog, id), output);
+                }
+                if (clear) {
+                    watchdog.clearSlowExecutions();
+                }
+            }
+        });
+    }
+
+    private static SlowExecution getSlowExecution(SlowCommandWatchdog watchdog, int id) {
+        final Opt<SlowExecution> execution = watchdog.getSlowExecution(id);
+        if (!execution.isPresent()) {
+            throw new IllegalArgumentException("No such slow execution: " + id);
+        }
+        return execution.get();
+    }
+
+    private static void printSlowExecutions(List<SlowExecution> executions, CommandOutput output) {
+        if (executions.isEmpty()) {
+            output.message("No slow commands recorded.");
+            return;
+        }
+        for (int i = executions.size() - 1; i >= 0; i--) {
+            output.message(executions.get(i).toString());
+        }
+    }
+
+    private static void printProfile(SlowExecution execution, CommandOutput output) {
+        output.message(execution.toString());
+        if (execution.getSamples() == 0) {
+            output.message("No stacks were sampled.");
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : execution.getCollapsedStacks().entrySet()) {
+            output.message(entry.getKey() + ' ' + entry.getValue());
+        }
+    }
+}
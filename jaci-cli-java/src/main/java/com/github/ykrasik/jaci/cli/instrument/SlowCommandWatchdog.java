@@ -0,0 +1,394 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ShellInstrumentation} that watches command executions for ones that take longer than a threshold.
+ * Once an execution exceeds the threshold, a watchdog thread samples the stack of the executing thread at intervals
+ * until the execution finishes. The samples are aggregated into a collapsed-stack profile, and kept as a
+ * {@link SlowExecution} that can be viewed with the command created by {@link SlowCommandFactory}.<br>
+ * Only the most recent slow executions are kept.<br>
+ * <br>
+ * Commands executed by another command on the same thread (like the lines of a script) are watched as part of the
+ * outer command.<br>
+ * All callbacks are also passed on to a delegate instrumentation, so the watchdog can be added on top of an existing one.<br>
+ * <br>
+ * Created through a {@link Builder}. Should be {@link #close() closed} when no longer needed.
+ *
+ * @author Yevgeny Krasik
+ */
+public class SlowCommandWatchdog implements ShellInstrumentation, Closeable {
+    private static final String THREAD_NAME = "jaci-cli-watchdog";
+
+    private final ShellInstrumentation delegate;
+    private final long thresholdMillis;
+    private final long sampleIntervalMillis;
+    private final int maxSamples;
+    private final int maxExecutions;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadLocal<WatchedExecution> current = new ThreadLocal<>();
+
+    private final Deque<SlowExecution> executions = new ArrayDeque<>();
+    private int nextId = 1;
+
+    private SlowCommandWatchdog(ShellInstrumentation delegate,
+                                long thresholdMillis,
+                                long sampleIntervalMillis,
+                                int maxSamples,
+                                int maxExecutions) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.thresholdMillis = thresholdMillis;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.maxSamples = maxSamples;
+        this.maxExecutions = maxExecutions;
+
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Most executions finish before the threshold, don't keep their cancelled checks around.
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return The instrumentation all callbacks are passed on to.
+     */
+    public ShellInstrumentation getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return Executions that take longer than this are sampled, in milliseconds.
+     */
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    @Override
+    public long begin(ShellPhase phase) {
+        return delegate.begin(phase);
+    }
+
+    @Override
+    public void end(ShellPhase phase, long begin) {
+        delegate.end(phase, begin);
+    }
+
+    @Override
+    public long beginCommand(CliCommand command, String commandPath) {
+        final WatchedExecution outer = current.get();
+        if (outer != null) {
+            outer.depth++;
+        } else {
+            final WatchedExecution execution = new WatchedExecution(command, Thread.currentThread());
+            current.set(execution);
+            try {
+                execution.setFuture(scheduler.scheduleAtFixedRate(execution, thresholdMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS));
+            } catch (RejectedExecutionException e) {
+                // Watchdog was closed, the execution is only timed.
+            }
+        }
+        return delegate.beginCommand(command, commandPath);
+    }
+
+    @Override
+    public void endCommand(CliCommand command, String commandPath, long begin, CommandJob.State state) {
+        delegate.endCommand(command, commandPath, begin, state);
+
+        final WatchedExecution execution = current.get();
+        if (execution == null) {
+            return;
+        }
+        if (execution.depth > 0) {
+            execution.depth--;
+            return;
+        }
+        current.remove();
+        execution.finish(state);
+    }
+
+    @Override
+    public long getCurrentThreadAllocatedBytes() {
+        return delegate.getCurrentThreadAllocatedBytes();
+    }
+
+    @Override
+    public InstrumentationSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    /**
+     * Discard everything recorded so far by the delegate. Slow executions are kept.
+     */
+    @Override
+    public void reset() {
+        delegate.reset();
+    }
+
+    /**
+     * @return The most recent slow executions, oldest first.
+     */
+    public synchronized List<SlowExecution> getSlowExecutions() {
+        return new ArrayList<>(executions);
+    }
+
+    /**
+     * @param id Id of the slow execution to get.
+     * @return The slow execution, if it is still kept.
+     */
+    public synchronized Opt<SlowExecution> getSlowExecution(int id) {
+        for (SlowExecution execution : executions) {
+            if (execution.getId() == id) {
+                return Opt.of(execution);
+            }
+        }
+        return Opt.absent();
+    }
+
+    /**
+     * Discard all slow executions.
+     */
+    public synchronized void clearSlowExecutions() {
+        executions.clear();
+    }
+
+    private synchronized void addSlowExecution(WatchedExecution execution,
+                                               long durationNanos,
+                                               CommandJob.State state) {
+        if (executions.size() == maxExecutions) {
+            executions.removeFirst();
+        }
+        executions.addLast(new SlowExecution(
+            nextId++, execution.command, execution.thread.getName(), execution.startMillis,
+            durationNanos, state, execution.samples, execution.collapsedStacks.getCounts()
+        ));
+    }
+
+    /**
+     * Package-protected for testing.
+     *
+     * @return Amount of executions that are still scheduled to be sampled.
+     */
+    int getScheduledExecutions() {
+        return scheduler.getQueue().size();
+    }
+
+    /**
+     * Stop the watchdog thread. Commands are no longer watched, but previous slow executions are kept.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SlowCommandWatchdog{");
+        sb.append("thresholdMillis=").append(thresholdMillis);
+        sb.append(", sampleIntervalMillis=").append(sampleIntervalMillis);
+        sb.append(", maxSamples=").append(maxSamples);
+        sb.append(", maxExecutions=").append(maxExecutions);
+        sb.append(", delegate=").append(delegate);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A command execution that is being watched. Runs on the watchdog thread once the threshold is exceeded,
+     * taking a stack sample every time it runs. Stops being scheduled once the execution finishes or the max amount
+     * of samples was taken.
+     */
+    private class WatchedExecution implements Runnable {
+        private final CliCommand command;
+        private final Thread thread;
+        private final long startNanos = System.nanoTime();
+        private final long startMillis = System.currentTimeMillis();
+
+        // Only accessed by the executing thread.
+        private int depth;
+
+        // Guarded by 'this'.
+        private final CollapsedStacks collapsedStacks = new CollapsedStacks();
+        private ScheduledFuture<?> future;
+        private int samples;
+        private boolean finished;
+
+        private WatchedExecution(CliCommand command, Thread thread) {
+            this.command = command;
+            this.thread = thread;
+        }
+
+        /**
+         * The first sample may be taken before the executing thread got to set the future, in which case
+         * the future is cancelled here if sampling is already done.
+         */
+        private synchronized void setFuture(ScheduledFuture<?> future) {
+            this.future = future;
+            if (isDone()) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    cancel();
+                    return;
+                }
+            }
+
+            // Sample outside of the lock, so the executing thread never waits for the stack walk.
+            final StackTraceElement[] stackTrace = thread.getStackTrace();
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                collapsedStacks.add(stackTrace);
+                samples++;
+                if (isDone()) {
+                    cancel();
+                }
+            }
+        }
+
+        private boolean isDone() {
+            return finished || samples >= maxSamples;
+        }
+
+        private void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private void finish(CommandJob.State state) {
+            final long durationNanos = System.nanoTime() - startNanos;
+            synchronized (this) {
+                finished = true;
+                cancel();
+                if (TimeUnit.NANOSECONDS.toMillis(durationNanos) >= thresholdMillis) {
+                    addSlowExecution(this, durationNanos, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * A builder for a {@link SlowCommandWatchdog}.
+     */
+    public static class Builder {
+        private final ShellInstrumentation delegate;
+
+        private long thresholdMillis = 1000;
+        private long sampleIntervalMillis = 20;
+        private int maxSamples = 1000;
+        private int maxExecutions = 16;
+
+        /**
+         * @param delegate Instrumentation to pass all callbacks on to, for example {@link ShellInstrumentation#NONE}.
+         */
+        public Builder(ShellInstrumentation delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /**
+         * Set how long an execution may take before it's stack starts being sampled. Defaults to 1 second.
+         *
+         * @param thresholdMillis Threshold in milliseconds.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setThresholdMillis(long thresholdMillis) {
+            if (thresholdMillis < 0) {
+                throw new IllegalArgumentException("Invalid thresholdMillis: " + thresholdMillis);
+            }
+            this.thresholdMillis = thresholdMillis;
+            return this;
+        }
+
+        /**
+         * Set the interval between stack samples of a slow execution. Defaults to 20 milliseconds.
+         *
+         * @param sampleIntervalMillis Interval in milliseconds.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setSampleIntervalMillis(long sampleIntervalMillis) {
+            if (sampleIntervalMillis <= 0) {
+                throw new IllegalArgumentException("Invalid sampleIntervalMillis: " + sampleIntervalMillis);
+            }
+            this.sampleIntervalMillis = sampleIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Set the max amount of stack samples taken of a single execution. Defaults to 1000.
+         *
+         * @param maxSamples Max amount of samples.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setMaxSamples(int maxSamples) {
+            if (maxSamples <= 0) {
+                throw new IllegalArgumentException("Invalid maxSamples: " + maxSamples);
+            }
+            this.maxSamples = maxSamples;
+            return this;
+        }
+
+        /**
+         * Set the amount of most recent slow executions to keep. Defaults to 16.
+         *
+         * @param maxExecutions Max amount of slow executions to keep.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setMaxExecutions(int maxExecutions) {
+            if (maxExecutions <= 0) {
+                throw new IllegalArgumentException("Invalid maxExecutions: " + maxExecutions);
+            }
+            this.maxExecutions = maxExecutions;
+            return this;
+        }
+
+        /**
+         * @return A {@link SlowCommandWatchdog} built out of this builder's parameters.
+         */
+        public SlowCommandWatchdog build() {
+            return new SlowCommandWatchdog(delegate, thresholdMillis, sampleIntervalMillis, maxSamples, maxExecutions);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A command execution that exceeded the {@link SlowCommandWatchdog}'s threshold, along with the stacks that were
+ * sampled from the executing thread while it was running.<br>
+ * Stacks are collapsed - frames are listed from the thread's root to the sampled frame, separated by ';'.
+ * This is the input format of most flame graph tools.
+ *
+ * @author Yevgeny Krasik
+ */
+public class SlowExecution {
+    private final int id;
+    private final CliCommand command;
+    private final String threadName;
+    private final long startMillis;
+    private final long durationNanos;
+    private final CommandJob.State state;
+    private final int samples;
+    private final Map<String, Integer> collapsedStacks;
+
+    /**
+     * @param id Id of the execution, unique per watchdog.
+     * @param command Command that was executed.
+     * @param threadName Name of the thread that executed the command.
+     * @param startMillis When the execution started, in milliseconds since the epoch.
+     * @param durationNanos How long the execution took.
+     * @param state The state the command finished in.
+     * @param samples Amount of stack samples taken.
+     * @param collapsedStacks Amount of times each collapsed stack was sampled.
+     */
+    public SlowExecution(int id,
+                         CliCommand command,
+                         String threadName,
+                         long startMillis,
+                         long durationNanos,
+                         CommandJob.State state,
+                         int samples,
+                         Map<String, Integer> collapsedStacks) {
+        this.id = id;
+        this.command = Objects.requireNonNull(command, "command");
+        this.threadName = Objects.requireNonNull(threadName, "threadName");
+        this.startMillis = startMillis;
+        this.durationNanos = durationNanos;
+        this.state = Objects.requireNonNull(state, "state");
+        this.samples = samples;
+        this.collapsedStacks = Collections.unmodifiableMap(CollapsedStacks.sortByCount(collapsedStacks));
+    }
+
+    /**
+     * @return Id of the execution, unique per watchdog.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Command that was executed.
+     */
+    public CliCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * @return Name of the thread that executed the command.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return When the execution started, in milliseconds since the epoch.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return How long the execution took, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The state the command finished in.
+     */
+    public CommandJob.State getState() {
+        return state;
+    }
+
+    /**
+     * @return Amount of stack samples taken.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return Amount of times each collapsed stack was sampled, most sampled first.
+     */
+    public Map<String, Integer> getCollapsedStacks() {
+        return collapsedStacks;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('#').append(id).append(' ').append(command.getName());
+        sb.append(": ").append(LatencySnapshot.formatNanos(durationNanos));
+        sb.append(", ").append(state);
+        sb.append(", samples=").append(samples);
+        sb.append(", thread=").append(threadName);
+        return sb.toString();
+    }
+}
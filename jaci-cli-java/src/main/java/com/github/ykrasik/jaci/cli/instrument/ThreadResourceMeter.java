@@ -0,0 +1,257 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the CPU time and allocations of the current thread, as far as the runtime supports it:
+ * <ul>
+ *     <li>On the JVM, through the platform {@link ThreadMXBean}. Allocations are only measured on JVMs whose
+ *         ThreadMXBean is a {@code com.sun.management.ThreadMXBean} (HotSpot, OpenJ9).</li>
+ *     <li>On Android, through {@code android.os.Debug}. Allocations are only measured if allocation counting
+ *         is enabled (see {@link #detect(boolean)}).</li>
+ *     <li>Anywhere else, nothing is measured.</li>
+ * </ul>
+ * Measurements are monotonic counters - only the difference between 2 measurements on the same thread is meaningful.<br>
+ * <br>
+ * Measuring is switched on and off for the whole runtime, so by default a meter never switches anything on - it only
+ * measures what is already enabled (on HotSpot, both CPU time and allocations are enabled by default).
+ * Switching measuring on is opt-in, through {@link #detect(boolean)}.
+ *
+ * @author Yevgeny Krasik
+ */
+public abstract class ThreadResourceMeter {
+    /** A meter that doesn't measure anything. */
+    public static final ThreadResourceMeter NONE = new ThreadResourceMeter() {
+        @Override
+        public boolean isCpuTimeSupported() {
+            return false;
+        }
+
+        @Override
+        public boolean isAllocationSupported() {
+            return false;
+        }
+
+        @Override
+        public long getCurrentThreadCpuTime() {
+            return 0;
+        }
+
+        @Override
+        public long getCurrentThreadAllocatedBytes() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "NONE";
+        }
+    };
+
+    /**
+     * @return Whether {@link #getCurrentThreadCpuTime()} is measured.
+     */
+    public abstract boolean isCpuTimeSupported();
+
+    /**
+     * @return Whether {@link #getCurrentThreadAllocatedBytes()} is measured.
+     */
+    public abstract boolean isAllocationSupported();
+
+    /**
+     * @return CPU time used by the current thread so far in nanoseconds, or 0 if not supported.
+     */
+    public abstract long getCurrentThreadCpuTime();
+
+    /**
+     * @return Bytes allocated by the current thread so far, or 0 if not supported.
+     */
+    public abstract long getCurrentThreadAllocatedBytes();
+
+    /**
+     * Only measures what the runtime already has enabled, without changing any of it's settings.
+     *
+     * @return The best meter the current runtime supports, or {@link #NONE} if it doesn't support any.
+     */
+    public static ThreadResourceMeter detect() {
+        return detect(false);
+    }
+
+    /**
+     * @param enableMeasuring Whether to enable measurements that the runtime supports but has disabled:
+     *                        {@link ThreadMXBean#setThreadCpuTimeEnabled(boolean) CPU time} and
+     *                        {@code com.sun.management.ThreadMXBean#setThreadAllocatedMemoryEnabled(boolean) allocations}
+     *                        on the JVM, {@code Debug.startAllocCounting()} on Android.
+     *                        These are runtime-wide settings that affect all other users of them, and are never switched off again.
+     * @return The best meter the current runtime supports, or {@link #NONE} if it doesn't support any.
+     */
+    public static ThreadResourceMeter detect(boolean enableMeasuring) {
+        try {
+            return new MXBeanMeter(ManagementFactory.getThreadMXBean(), enableMeasuring);
+        } catch (LinkageError | RuntimeException e) {
+            // No java.lang.management, probably Android.
+        }
+        try {
+            return new AndroidMeter(Class.forName("android.os.Debug"), enableMeasuring);
+        } catch (ClassNotFoundException | NoSuchMethodException | RuntimeException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Measures through the platform {@link ThreadMXBean}.
+     */
+    private static class MXBeanMeter extends ThreadResourceMeter {
+        private final ThreadMXBean threadBean;
+        private final boolean cpuTimeSupported;
+        private final com.sun.management.ThreadMXBean allocationBean;
+
+        private MXBeanMeter(ThreadMXBean threadBean, boolean enableMeasuring) {
+            this.threadBean = threadBean;
+            this.cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported() && isCpuTimeEnabled(threadBean, enableMeasuring);
+            this.allocationBean = getAllocationBean(threadBean, enableMeasuring);
+        }
+
+        private static boolean isCpuTimeEnabled(ThreadMXBean threadBean, boolean enableMeasuring) {
+            try {
+                if (threadBean.isThreadCpuTimeEnabled()) {
+                    return true;
+                }
+                if (!enableMeasuring) {
+                    return false;
+                }
+                threadBean.setThreadCpuTimeEnabled(true);
+                return true;
+            } catch (UnsupportedOperationException | SecurityException e) {
+                return false;
+            }
+        }
+
+        private static com.sun.management.ThreadMXBean getAllocationBean(ThreadMXBean threadBean, boolean enableMeasuring) {
+            try {
+                if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+                    return null;
+                }
+                final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+                if (!allocationBean.isThreadAllocatedMemorySupported()) {
+                    return null;
+                }
+                if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    if (!enableMeasuring) {
+                        return null;
+                    }
+                    allocationBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return allocationBean;
+            } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+                // Not a HotSpot-like JVM.
+                return null;
+            }
+        }
+
+        @Override
+        public boolean isCpuTimeSupported() {
+            return cpuTimeSupported;
+        }
+
+        @Override
+        public boolean isAllocationSupported() {
+            return allocationBean != null;
+        }
+
+        // Measurements are -1 once someone else disabled them.
+
+        @Override
+        public long getCurrentThreadCpuTime() {
+            return cpuTimeSupported ? Math.max(threadBean.getCurrentThreadCpuTime(), 0) : 0;
+        }
+
+        @Override
+        public long getCurrentThreadAllocatedBytes() {
+            return allocationBean != null ? Math.max(allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()), 0) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "MXBeanMeter{cpuTime=" + cpuTimeSupported + ", allocation=" + (allocationBean != null) + '}';
+        }
+    }
+
+    /**
+     * Measures through {@code android.os.Debug}, which is only available on Android.
+     * Android doesn't tell whether allocations are being counted, so they are only measured if this meter started counting them.
+     */
+    private static class AndroidMeter extends ThreadResourceMeter {
+        private final Method threadCpuTimeNanos;
+        private final Method getThreadAllocSize;
+        private final boolean allocationSupported;
+
+        private AndroidMeter(Class<?> debugClass, boolean enableMeasuring) throws NoSuchMethodException {
+            this.threadCpuTimeNanos = debugClass.getMethod("threadCpuTimeNanos");
+            this.getThreadAllocSize = debugClass.getMethod("getThreadAllocSize");
+            this.allocationSupported = enableMeasuring && startAllocCounting(debugClass);
+        }
+
+        private static boolean startAllocCounting(Class<?> debugClass) {
+            try {
+                debugClass.getMethod("startAllocCounting").invoke(null);
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isCpuTimeSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean isAllocationSupported() {
+            return allocationSupported;
+        }
+
+        @Override
+        public long getCurrentThreadCpuTime() {
+            return invoke(threadCpuTimeNanos);
+        }
+
+        @Override
+        public long getCurrentThreadAllocatedBytes() {
+            return allocationSupported ? invoke(getThreadAllocSize) : 0;
+        }
+
+        private long invoke(Method method) {
+            try {
+                final long value = ((Number) method.invoke(null)).longValue();
+                return Math.max(value, 0);
+            } catch (Exception e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "AndroidMeter{allocation=" + allocationSupported + '}';
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Objects;
+
+/**
+ * A {@link RedirectedOutput} that writes to a {@link FileChannel}.<br>
+ * Lines are encoded straight into a direct buffer, which is only written to the channel once it is full
+ * (and when the output is closed), so the file is written in large chunks no matter how many lines are printed.<br>
+ * Closing the output also closes the channel.
+ *
+ * @author Yevgeny Krasik
+ */
+public class FileChannelOutput implements RedirectedOutput {
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final String lineSeparator;
+
+    private boolean closed;
+
+    /**
+     * @param channel Channel to write to.
+     * @param encoder Encoder to encode lines with.
+     * @param bufferSize Size of the buffer, in bytes.
+     * @param lineSeparator Separator to write after each line.
+     */
+    public FileChannelOutput(FileChannel channel, CharsetEncoder encoder, int bufferSize, String lineSeparator) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid bufferSize: " + bufferSize);
+        }
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.encoder = Objects.requireNonNull(encoder, "encoder");
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.lineSeparator = Objects.requireNonNull(lineSeparator, "lineSeparator");
+    }
+
+    @Override
+    public synchronized void println(String text) {
+        if (closed) {
+            return;
+        }
+        try {
+            encode(text);
+            encode(lineSeparator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error writing to file!", e);
+        }
+    }
+
+    private void encode(String text) throws IOException {
+        final CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            final CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flushBuffer();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileChannelOutput{channel=" + channel + '}';
+    }
+}
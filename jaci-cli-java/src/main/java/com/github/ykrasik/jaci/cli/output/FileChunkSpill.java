@@ -0,0 +1,132 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A {@link ChunkSpill} that writes chunks to a temporary file, each chunk at a fixed offset according to it's index.<br>
+ * The file is only created once the first chunk is written, and is deleted when the spill is closed.
+ * Chunks written after the spill was closed are discarded.
+ *
+ * @author Yevgeny Krasik
+ */
+public class FileChunkSpill implements ChunkSpill {
+    private final Path directory;
+    private final int chunkSize;
+    private final ByteBuffer buffer;
+    private final CharBuffer chars;
+
+    private FileChannel channel;
+    private boolean closed;
+
+    /**
+     * @param directory Directory to create the temporary file in.
+     * @param chunkSize Amount of characters in a chunk.
+     */
+    public FileChunkSpill(Path directory, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunkSize: " + chunkSize);
+        }
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.chunkSize = chunkSize;
+        this.buffer = ByteBuffer.allocateDirect(chunkSize * 2);
+        this.chars = buffer.asCharBuffer();
+    }
+
+    @Override
+    public synchronized void write(int index, char[] chunk) {
+        if (closed) {
+            return;
+        }
+        chars.clear();
+        chars.put(chunk, 0, chunkSize);
+        buffer.clear();
+        try {
+            final FileChannel channel = getChannel();
+            long position = getPosition(index);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error writing to file!", e);
+        }
+    }
+
+    @Override
+    public synchronized void read(int index, char[] chunk) {
+        if (closed) {
+            throw new IllegalStateException("Spill is closed!");
+        }
+        buffer.clear();
+        try {
+            final FileChannel channel = getChannel();
+            long position = getPosition(index);
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IllegalStateException("Chunk was never written: " + index);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from file!", e);
+        }
+        chars.clear();
+        chars.get(chunk, 0, chunkSize);
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            final Path file = Files.createTempFile(directory, "jaci-pager", ".tmp");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        return channel;
+    }
+
+    private long getPosition(int index) {
+        return (long) index * chunkSize * 2;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error closing file!", e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileChunkSpill{directory=" + directory + ", chunkSize=" + chunkSize + '}';
+    }
+}
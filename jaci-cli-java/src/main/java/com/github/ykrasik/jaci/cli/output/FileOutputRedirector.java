@@ -0,0 +1,135 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * An {@link OutputRedirector} that redirects output to files, through a {@link FileChannelOutput}.
+ * Relative targets are resolved against a base directory.<br>
+ * Created through a {@link Builder}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class FileOutputRedirector implements OutputRedirector {
+    private final Path baseDirectory;
+    private final Charset charset;
+    private final int bufferSize;
+    private final String lineSeparator;
+
+    private FileOutputRedirector(Path baseDirectory, Charset charset, int bufferSize, String lineSeparator) {
+        this.baseDirectory = baseDirectory;
+        this.charset = charset;
+        this.bufferSize = bufferSize;
+        this.lineSeparator = lineSeparator;
+    }
+
+    @Override
+    public RedirectedOutput open(String target, boolean append) throws IOException {
+        final Path path = baseDirectory.resolve(target);
+        final FileChannel channel = append ?
+            FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND) :
+            FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        final CharsetEncoder encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return new FileChannelOutput(channel, encoder, bufferSize, lineSeparator);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("FileOutputRedirector{");
+        sb.append("baseDirectory=").append(baseDirectory);
+        sb.append(", charset=").append(charset);
+        sb.append(", bufferSize=").append(bufferSize);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A builder for a {@link FileOutputRedirector}.
+     */
+    public static class Builder {
+        private Path baseDirectory = Paths.get("");
+        private Charset charset = StandardCharsets.UTF_8;
+        private int bufferSize = 64 * 1024;
+        private String lineSeparator = System.lineSeparator();
+
+        /**
+         * Set the directory relative targets are resolved against. Defaults to the process's working directory.
+         *
+         * @param baseDirectory Directory to resolve relative targets against.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setBaseDirectory(Path baseDirectory) {
+            this.baseDirectory = Objects.requireNonNull(baseDirectory, "baseDirectory");
+            return this;
+        }
+
+        /**
+         * Set the charset to write files with. Defaults to UTF-8.
+         *
+         * @param charset Charset to write files with.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setCharset(Charset charset) {
+            this.charset = Objects.requireNonNull(charset, "charset");
+            return this;
+        }
+
+        /**
+         * Set the size of the buffer output is collected in before being written to the file. Defaults to 64KB.
+         *
+         * @param bufferSize Buffer size, in bytes.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setBufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("Invalid bufferSize: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Set the separator to write after each line. Defaults to the system's line separator.
+         *
+         * @param lineSeparator Line separator.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setLineSeparator(String lineSeparator) {
+            this.lineSeparator = Objects.requireNonNull(lineSeparator, "lineSeparator");
+            return this;
+        }
+
+        /**
+         * @return A {@link FileOutputRedirector} built out of this builder's parameters.
+         */
+        public FileOutputRedirector build() {
+            return new FileOutputRedirector(baseDirectory, charset, bufferSize, lineSeparator);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.pipe;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A {@link CommandPipe} that holds a bounded amount of lines. Printing to a full pipe blocks until the reader
+ * catches up, which applies backpressure to the upstream command instead of buffering all of it's output.
+ * Reading from an empty pipe blocks until a line is printed or the writer closes the pipe.<br>
+ * Once the reader closes the pipe, blocked writers are released and any further lines are discarded.<br>
+ * Thread-safe, meant to be written by one thread and read by another.
+ *
+ * @author Yevgeny Krasik
+ */
+public class BlockingCommandPipe implements CommandPipe {
+    private final Queue<String> lines = new ArrayDeque<>();
+    private final int capacity;
+
+    private boolean writerClosed;
+    private boolean readerClosed;
+
+    /**
+     * @param capacity Max amount of lines the pipe holds before writers are blocked.
+     * @throws IllegalArgumentException If the capacity isn't positive.
+     */
+    public BlockingCommandPipe(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void println(String text) {
+        while (!readerClosed && lines.size() >= capacity) {
+            await();
+        }
+        if (readerClosed || writerClosed) {
+            return;
+        }
+        lines.add(text);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized Opt<String> readLine() {
+        while (!readerClosed && !writerClosed && lines.isEmpty()) {
+            await();
+        }
+        if (readerClosed || lines.isEmpty()) {
+            return Opt.absent();
+        }
+        final String line = lines.poll();
+        notifyAll();
+        return Opt.of(line);
+    }
+
+    @Override
+    public synchronized void close() {
+        readerClosed = true;
+        lines.clear();
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void closeWriter() {
+        writerClosed = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized boolean isReaderClosed() {
+        return readerClosed;
+    }
+
+    private void await() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting on pipe!");
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("BlockingCommandPipe{");
+        sb.append("lines=").append(lines.size());
+        sb.append(", capacity=").append(capacity);
+        sb.append(", writerClosed=").append(writerClosed);
+        sb.append(", readerClosed=").append(readerClosed);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,94 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.script;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A script file, split into lines of statements. Blank lines and lines starting with '#' are skipped.
+ * Obtained through a {@link ScriptCache}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class Script {
+    private static final String COMMENT_PREFIX = "#";
+
+    private final Path path;
+    private final long lastModified;
+    private final long size;
+    private final List<ScriptLine> lines;
+
+    private Script(Path path, long lastModified, long size, List<ScriptLine> lines) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.lastModified = lastModified;
+        this.size = size;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * @return Path of the script file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return The lines of the script that contain statements.
+     */
+    public List<ScriptLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    boolean isUpToDate(long lastModified, long size) {
+        return this.lastModified == lastModified && this.size == size;
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    static Script parse(Path path, long lastModified, long size, String content) {
+        final List<ScriptLine> lines = new ArrayList<>();
+        final String[] rawLines = content.split("\r?\n");
+        for (int i = 0; i < rawLines.length; i++) {
+            final String rawLine = rawLines[i].trim();
+            if (rawLine.isEmpty() || rawLine.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            final ScriptLine line = ScriptLine.parse(i + 1, rawLine);
+            if (!line.getStatements().isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return new Script(path, lastModified, size, lines);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Script{");
+        sb.append("path=").append(path);
+        sb.append(", lines=").append(lines.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.script;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches parsed {@link Script}s by their path. A cached script is re-read only once the file's modification time
+ * or size changes, so a script that is sourced repeatedly is read and split into statements only once, and the
+ * statements keep their prepared commands between runs.<br>
+ * At most {@code maxScripts} scripts are cached - once exceeded, the least recently loaded script is evicted.<br>
+ * Thread-safe. Statements of cached scripts keep the commands they were prepared into, which belong to the hierarchy
+ * of the shell that executed them - so shells that each have a hierarchy of their own should each have their own cache.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ScriptCache {
+    /** Default max amount of cached scripts. */
+    public static final int DEFAULT_MAX_SCRIPTS = 64;
+
+    private final Map<Path, Script> scripts;
+    private final Charset charset;
+
+    /**
+     * Create a cache that reads scripts as UTF-8 and caches up to {@link #DEFAULT_MAX_SCRIPTS} scripts.
+     */
+    public ScriptCache() {
+        this(StandardCharsets.UTF_8, DEFAULT_MAX_SCRIPTS);
+    }
+
+    /**
+     * @param charset Charset to read scripts with.
+     */
+    public ScriptCache(Charset charset) {
+        this(charset, DEFAULT_MAX_SCRIPTS);
+    }
+
+    /**
+     * @param charset Charset to read scripts with.
+     * @param maxScripts Max amount of scripts to cache.
+     */
+    public ScriptCache(Charset charset, int maxScripts) {
+        if (maxScripts <= 0) {
+            throw new IllegalArgumentException("Invalid maxScripts: " + maxScripts);
+        }
+        this.charset = Objects.requireNonNull(charset, "charset");
+        this.scripts = new LeastRecentlyUsedMap(maxScripts);
+    }
+
+    /**
+     * Load a script, reading it only if it isn't cached or the file changed since it was cached.
+     *
+     * @param path Path to the script.
+     * @return The script.
+     * @throws IOException If the script could not be read.
+     */
+    public Script load(Path path) throws IOException {
+        final Path key = path.toAbsolutePath().normalize();
+        final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        final long size = attributes.size();
+
+        final Script cached;
+        synchronized (scripts) {
+            cached = scripts.get(key);
+        }
+        if (cached != null && cached.isUpToDate(lastModified, size)) {
+            return cached;
+        }
+
+        final Script script = Script.parse(key, lastModified, size, read(key, size));
+        synchronized (scripts) {
+            scripts.put(key, script);
+        }
+        return script;
+    }
+
+    private String read(Path path, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Script is too large: " + path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+            buffer.flip();
+            return charset.decode(buffer).toString();
+        }
+    }
+
+    /**
+     * Remove a script from the cache.
+     *
+     * @param path Path to the script.
+     */
+    public void invalidate(Path path) {
+        synchronized (scripts) {
+            scripts.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * Remove all scripts from the cache.
+     */
+    public void clear() {
+        synchronized (scripts) {
+            scripts.clear();
+        }
+    }
+
+    /**
+     * @return Amount of cached scripts.
+     */
+    public int size() {
+        synchronized (scripts) {
+            return scripts.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (scripts) {
+            return "ScriptCache{scripts=" + scripts.keySet() + '}';
+        }
+    }
+
+    /**
+     * Evicts the least recently accessed script once there are more than {@code maxScripts}.
+     */
+    private static class LeastRecentlyUsedMap extends LinkedHashMap<Path, Script> {
+        private static final long serialVersionUID = 0;
+
+        private final int maxScripts;
+
+        private LeastRecentlyUsedMap(int maxScripts) {
+            super(16, 0.75f, true);
+            this.maxScripts = maxScripts;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Script> eldest) {
+            return size() > maxScripts;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.script;
+
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.command.PreparedStatement;
+import com.github.ykrasik.jaci.cli.commandline.CommandLine;
+import com.github.ykrasik.jaci.cli.exception.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A single line of a {@link Script}, which may contain multiple statements separated by ';'.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ScriptLine {
+    private final int lineNumber;
+    private final String text;
+    private final List<Statement> statements;
+
+    private ScriptLine(int lineNumber, String text, List<Statement> statements) {
+        this.lineNumber = lineNumber;
+        this.text = Objects.requireNonNull(text, "text");
+        this.statements = Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * @return Line number in the script, starting from 1.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return Text of the line.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    List<Statement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Execute the statements on this line in order, as part of an executing command.
+     * A failed statement doesn't stop the following statements, cancellation does.
+     *
+     * @param shell Shell to execute the statements in.
+     * @param output Output of the executing command.
+     * @return {@link CommandJob.State#SUCCEEDED} if all statements succeeded, {@link CommandJob.State#CANCELLED}
+     *         if the executing command was cancelled, and {@link CommandJob.State#FAILED} otherwise.
+     */
+    public CommandJob.State execute(CliShell shell, CliCommandOutput output) {
+        CommandJob.State state = CommandJob.State.SUCCEEDED;
+        for (Statement statement : statements) {
+            final CommandJob.State statementState = statement.execute(shell, output);
+            if (statementState == CommandJob.State.CANCELLED) {
+                return statementState;
+            }
+            if (statementState == CommandJob.State.FAILED) {
+                state = statementState;
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return lineNumber + ": " + text;
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    static ScriptLine parse(int lineNumber, String text) {
+        final List<Statement> statements = new ArrayList<>();
+        for (String statement : CommandLine.splitStatements(text)) {
+            statements.add(new Statement(statement));
+        }
+        return new ScriptLine(lineNumber, text, statements);
+    }
+
+    /**
+     * A single statement, which keeps what it was last prepared into.
+     * The prepared statement is only re-used if the working directory didn't change since it was prepared,
+     * because paths in the statement are resolved relative to the working directory.
+     */
+    static class Statement {
+        private final String text;
+        private volatile PreparedStatement prepared;
+
+        private Statement(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Package-protected for testing.
+         */
+        PreparedStatement prepare(CliShell shell) throws ParseException {
+            final PreparedStatement cached = prepared;
+            if (cached != null && cached.getWorkingDirectory() == shell.getWorkingDirectory()) {
+                return cached;
+            }
+            final PreparedStatement statement = shell.prepare(text);
+            prepared = statement;
+            return statement;
+        }
+
+        private CommandJob.State execute(CliShell shell, CliCommandOutput output) {
+            final PreparedStatement statement;
+            try {
+                statement = prepare(shell);
+            } catch (ParseException e) {
+                // Only the kind of error is reported - the parser's message quotes the statement's text,
+                // which shouldn't be echoed because the file may not be a script at all.
+                output.getErr().println("Parse Error: " + e.getError());
+                return CommandJob.State.FAILED;
+            }
+            return shell.executePrepared(statement, output);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
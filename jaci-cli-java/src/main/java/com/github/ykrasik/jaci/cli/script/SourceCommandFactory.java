@@ -0,0 +1,160 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.script;
+
+import com.github.ykrasik.jaci.Identifier;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.file.ConfinedPaths;
+import com.github.ykrasik.jaci.cli.param.BooleanCliParam;
+import com.github.ykrasik.jaci.cli.param.CliParam;
+import com.github.ykrasik.jaci.cli.param.StringCliParam;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.util.function.MoreSuppliers;
+import com.github.ykrasik.jaci.util.function.Spplr;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the 'source' command, which executes a script file line by line in the shell that executes it.
+ * Scripts are loaded through a {@link ScriptCache}, so a script that is sourced repeatedly is not parsed again.<br>
+ * By default, the script stops at the first line that fails. Once the script is done, a summary of how long
+ * each line took is printed. The text of lines that failed is not printed.<br>
+ * A CLI that is exposed to untrusted users should create the command through {@link #createConfined(ScriptCache, Path)},
+ * which only executes scripts under a configured directory.<br>
+ * Add the command to a CLI's system commands through
+ * {@link com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl#from(com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef, CliCommand...)}.
+ *
+ * @author Yevgeny Krasik
+ */
+public final class SourceCommandFactory {
+    private SourceCommandFactory() { }
+
+    /**
+     * Create the source command, which may execute any file the process can read.
+     *
+     * @param cache Cache to load scripts through.
+     * @return Create the source command.
+     */
+    public static CliCommand create(ScriptCache cache) {
+        return create(cache, Opt.<Path>absent());
+    }
+
+    /**
+     * Create the source command, which may only execute scripts under the given directory.
+     * Absolute paths and paths containing '..' are rejected.
+     *
+     * @param cache Cache to load scripts through.
+     * @param scriptDirectory Directory scripts may be executed from.
+     * @return Create the source command.
+     */
+    public static CliCommand createConfined(ScriptCache cache, Path scriptDirectory) {
+        return create(cache, Opt.of(Objects.requireNonNull(scriptDirectory, "scriptDirectory")));
+    }
+
+    private static CliCommand create(final ScriptCache cache, final Opt<Path> scriptDirectory) {
+        Objects.requireNonNull(cache, "cache");
+        final Identifier identifier = new Identifier("source", "Execute a script file");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new StringCliParam(
+                new Identifier("file", "Script file to execute"),
+                Opt.<Spplr<String>>absent(),
+                false,
+                MoreSuppliers.of(Collections.<String>emptyList())
+            ),
+            BooleanCliParam.optional(new Identifier("continue", "Whether to continue after a line fails"), false, false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final String file = args.popArg();
+                final boolean continueOnFailure = args.popArg();
+                final Path path = scriptDirectory.isPresent() ? ConfinedPaths.resolve(scriptDirectory.get(), file) : Paths.get(file);
+                final Script script = cache.load(path);
+                executeScript(script, (CliCommandOutput) output, continueOnFailure);
+            }
+        });
+    }
+
+    private static void executeScript(Script script, CliCommandOutput output, boolean continueOnFailure) {
+        final CliShell shell = output.getShell();
+        final List<ScriptLine> lines = script.getLines();
+        final long[] elapsedNanos = new long[lines.size()];
+        final CommandJob.State[] states = new CommandJob.State[lines.size()];
+
+        int executed = 0;
+        for (ScriptLine line : lines) {
+            if (output.isCancelled()) {
+                break;
+            }
+
+            final long start = System.nanoTime();
+            final CommandJob.State state = line.execute(shell, output);
+            elapsedNanos[executed] = System.nanoTime() - start;
+            states[executed] = state;
+            executed++;
+
+            if (state == CommandJob.State.CANCELLED || (state == CommandJob.State.FAILED && !continueOnFailure)) {
+                break;
+            }
+        }
+
+        printSummary(script, output, executed, elapsedNanos, states);
+    }
+
+    private static void printSummary(Script script,
+                                     CliCommandOutput output,
+                                     int executed,
+                                     long[] elapsedNanos,
+                                     CommandJob.State[] states) {
+        final List<ScriptLine> lines = script.getLines();
+        long totalNanos = 0;
+        int failed = 0;
+        for (int i = 0; i < executed; i++) {
+            final ScriptLine line = lines.get(i);
+            totalNanos += elapsedNanos[i];
+            if (states[i] != CommandJob.State.SUCCEEDED) {
+                failed++;
+            }
+            final String text = states[i] == CommandJob.State.SUCCEEDED ? " - " + line.getText() : "";
+            output.message("Line " + line.getLineNumber() + ": " + toMillis(elapsedNanos[i]) + "ms " + states[i] + text);
+        }
+
+        final String summary = "Script '" + script.getPath() + "': Executed " + executed + '/' + lines.size() +
+            " lines in " + toMillis(totalNanos) + "ms, " + failed + " failed.";
+        if (failed == 0 && executed == lines.size()) {
+            output.message(summary);
+        } else {
+            output.error(summary);
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,80 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+
+/**
+ * A {@link CommandOutputBinding} that binds outputs per thread, so the commands of a single object can safely
+ * be executed concurrently - each invocation only ever writes to the output it was executed with.<br>
+ * Binding doesn't allocate once a thread has bound an output for the first time.<br>
+ * <br>
+ * Threads that have no output bound (for example, threads started by a command) have no output - a command that
+ * wants to write from another thread must {@link CommandOutputPromise#capture() capture} its output first and
+ * hand that to the thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ThreadLocalCommandOutputBinding implements CommandOutputBinding {
+    /**
+     * A factory of {@link ThreadLocalCommandOutputBinding}s.
+     */
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public CommandOutputBinding create() {
+            return new ThreadLocalCommandOutputBinding();
+        }
+
+        @Override
+        public String toString() {
+            return "ThreadLocalCommandOutputBinding.FACTORY";
+        }
+    };
+
+    private final ThreadLocal<CommandOutput> output = new ThreadLocal<>();
+
+    /**
+     * Make all {@link CommandOutputPromise}s created from now on bind their outputs per thread.
+     */
+    public static void install() {
+        CommandOutputPromise.setBindingFactory(FACTORY);
+    }
+
+    @Override
+    public CommandOutput get() {
+        return output.get();
+    }
+
+    @Override
+    public CommandOutput bind(CommandOutput output) {
+        final CommandOutput previous = this.output.get();
+        this.output.set(output);
+        return previous;
+    }
+
+    @Override
+    public void restore(CommandOutput previous) {
+        // Setting null instead of removing keeps the thread's entry, so the next bind doesn't allocate.
+        output.set(previous);
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadLocalCommandOutputBinding{output=" + output.get() + '}';
+    }
+}
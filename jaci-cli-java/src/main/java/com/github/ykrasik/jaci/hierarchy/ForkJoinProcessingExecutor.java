@@ -0,0 +1,100 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.util.function.Spplr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@link ProcessingExecutor} that executes tasks in parallel on a {@link ForkJoinPool}.<br>
+ * The tasks are recursively split in halves, and the results of both halves are concatenated back in order.
+ * Not compatible with GWT.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ForkJoinProcessingExecutor implements ProcessingExecutor {
+    private final ForkJoinPool pool;
+
+    /**
+     * Execute tasks on a new {@link ForkJoinPool} with a parallelism equal to the number of available processors.
+     */
+    public ForkJoinProcessingExecutor() {
+        this(new ForkJoinPool());
+    }
+
+    /**
+     * @param pool Pool to execute tasks on.
+     */
+    public ForkJoinProcessingExecutor(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    @Override
+    public <T> List<T> executeAll(List<Spplr<T>> tasks) {
+        if (tasks.size() < 2) {
+            // Nothing to parallelize.
+            return SEQUENTIAL.executeAll(tasks);
+        }
+        return pool.invoke(new ProcessingTask<>(tasks, 0, tasks.size()));
+    }
+
+    @Override
+    public String toString() {
+        return "ForkJoinProcessingExecutor{pool=" + pool + '}';
+    }
+
+    /**
+     * Executes the tasks in the range [from, to), splitting it in halves until each range contains a single task.
+     */
+    private static class ProcessingTask<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 0;
+
+        private final List<Spplr<T>> tasks;
+        private final int from;
+        private final int to;
+
+        private ProcessingTask(List<Spplr<T>> tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from == 1) {
+                final List<T> result = new ArrayList<>(1);
+                result.add(tasks.get(from).get());
+                return result;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final ProcessingTask<T> left = new ProcessingTask<>(tasks, from, middle);
+            final ProcessingTask<T> right = new ProcessingTask<>(tasks, middle, to);
+            left.fork();
+            final List<T> rightResults = right.compute();
+            final List<T> results = left.join();
+            results.addAll(rightResults);
+            return results;
+        }
+    }
+}
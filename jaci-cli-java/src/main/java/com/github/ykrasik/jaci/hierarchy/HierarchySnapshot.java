@@ -0,0 +1,802 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.api.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * A serializable description of the commands declared by a list of classes - everything that is read from annotations
+ * when processing them: paths, identifiers, param definitions with their static values & defaults, and the signatures of
+ * the methods that should be bound to commands & suppliers.<br>
+ * Each class is stored with a fingerprint of its class file (and the class files of its super-classes),
+ * which can be used to validate that a stored snapshot still describes the loaded classes.<br>
+ * <br>
+ * Recording follows the same rules as {@link com.github.ykrasik.jaci.reflection.ReflectionClassProcessor}.
+ * Commands that can't be recorded are skipped and reported to {@code System.err}, just like when processing through reflection.
+ *
+ * @author Yevgeny Krasik
+ */
+public class HierarchySnapshot {
+    private static final int MAGIC = 0x4a414349;   // "JACI"
+
+    /** Must be incremented whenever the format or the recorded semantics change. */
+    private static final int VERSION = 1;
+
+    private final List<ClassEntry> classes;
+
+    private HierarchySnapshot(List<ClassEntry> classes) {
+        this.classes = Objects.requireNonNull(classes, "classes");
+    }
+
+    /**
+     * @return Recorded top-level classes, in the order they were recorded.
+     */
+    public List<ClassEntry> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @param classes Classes to check against.
+     * @return Whether this snapshot describes exactly the given classes, in the same order and with the same class files.
+     * @throws IOException If a class file couldn't be read.
+     */
+    public boolean isValidFor(Class<?>... classes) throws IOException {
+        if (this.classes.size() != classes.length) {
+            return false;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            if (!this.classes.get(i).isValidFor(classes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record the commands declared by the given classes through reflection.
+     *
+     * @param classes Classes to record.
+     * @return A snapshot of the given classes.
+     * @throws IOException If a class file couldn't be read for fingerprinting.
+     */
+    public static HierarchySnapshot record(Class<?>... classes) throws IOException {
+        final List<ClassEntry> entries = new ArrayList<>(classes.length);
+        for (Class<?> clazz : classes) {
+            entries.add(ClassEntry.record(clazz));
+        }
+        return new HierarchySnapshot(entries);
+    }
+
+    /**
+     * @param out Output to write this snapshot to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeList(out, classes);
+    }
+
+    /**
+     * @param in Input to read a snapshot from.
+     * @return The snapshot that was read.
+     * @throws IOException If an I/O error occurs, or the input isn't a snapshot of the current version.
+     */
+    public static HierarchySnapshot readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a hierarchy snapshot!");
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported hierarchy snapshot version: " + version);
+        }
+        return new HierarchySnapshot(readClasses(in));
+    }
+
+    private static List<ClassEntry> readClasses(DataInput in) throws IOException {
+        final int size = in.readInt();
+        final List<ClassEntry> classes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            classes.add(ClassEntry.readFrom(in));
+        }
+        return classes;
+    }
+
+    /**
+     * Compute a fingerprint of the class files of the given class and all its super-classes, excluding system classes.
+     *
+     * @param clazz Class to fingerprint.
+     * @return A fingerprint of the class.
+     * @throws IOException If a class file couldn't be read.
+     */
+    static long fingerprint(Class<?> clazz) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[8192];
+        for (Class<?> c = clazz; c != null && c.getClassLoader() != null; c = c.getSuperclass()) {
+            final String resource = c.getName().replace('.', '/') + ".class";
+            try (InputStream in = c.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("Class file not found: " + resource);
+                }
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * An entry that can be written to a {@link DataOutput}.
+     */
+    private interface Entry {
+        void writeTo(DataOutput out) throws IOException;
+    }
+
+    private static void writeList(DataOutput out, List<? extends Entry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            entry.writeTo(out);
+        }
+    }
+
+    private static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String str : strings) {
+            out.writeUTF(str);
+        }
+    }
+
+    private static List<String> readStrings(DataInput in) throws IOException {
+        final int size = in.readInt();
+        final List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    private static void writeNullable(DataOutput out, String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String nonEmptyOrNull(String str) {
+        final String trimmed = str.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * A recorded class, along with its inner classes.
+     */
+    public static class ClassEntry implements Entry {
+        private final String className;
+        private final long fingerprint;
+        private final String path;
+        private final boolean injectOutput;
+        private final List<CommandEntry> commands;
+        private final List<ClassEntry> innerClasses;
+
+        private ClassEntry(String className,
+                           long fingerprint,
+                           String path,
+                           boolean injectOutput,
+                           List<CommandEntry> commands,
+                           List<ClassEntry> innerClasses) {
+            this.className = Objects.requireNonNull(className, "className");
+            this.fingerprint = fingerprint;
+            this.path = path;
+            this.injectOutput = injectOutput;
+            this.commands = Objects.requireNonNull(commands, "commands");
+            this.innerClasses = Objects.requireNonNull(innerClasses, "innerClasses");
+        }
+
+        /**
+         * @return Fully qualified (binary) class name.
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return The value of the class's {@link CommandPath} annotation, or {@code null} if it isn't annotated.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return Whether the class declares a {@link CommandOutput} field that should be injected.
+         */
+        public boolean isInjectOutput() {
+            return injectOutput;
+        }
+
+        /**
+         * @return Commands declared by the class.
+         */
+        public List<CommandEntry> getCommands() {
+            return commands;
+        }
+
+        /**
+         * @return Inner classes that should be processed under this class.
+         */
+        public List<ClassEntry> getInnerClasses() {
+            return innerClasses;
+        }
+
+        private boolean isValidFor(Class<?> clazz) throws IOException {
+            if (!className.equals(clazz.getName()) || fingerprint != fingerprint(clazz)) {
+                return false;
+            }
+            for (ClassEntry innerClass : innerClasses) {
+                final Class<?> inner;
+                try {
+                    inner = Class.forName(innerClass.className, false, clazz.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    return false;
+                }
+                if (!innerClass.isValidFor(inner)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static ClassEntry record(Class<?> clazz) throws IOException {
+            final CommandPath pathAnnotation = clazz.getAnnotation(CommandPath.class);
+            final String path = pathAnnotation != null ? pathAnnotation.value() : null;
+
+            boolean injectOutput = false;
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getType() == CommandOutput.class) {
+                    injectOutput = true;
+                    break;
+                }
+            }
+
+            final List<CommandEntry> commands = new ArrayList<>();
+            for (Method method : clazz.getMethods()) {
+                try {
+                    final CommandEntry command = CommandEntry.record(method);
+                    if (command != null) {
+                        commands.add(command);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error creating command: class="+method.getDeclaringClass()+", method=" + method.getName());
+                    e.printStackTrace(System.err);
+                }
+            }
+
+            final List<ClassEntry> innerClasses = new ArrayList<>();
+            for (Class<?> innerClass : clazz.getDeclaredClasses()) {
+                // Only process inner classes that have a single arg ctor that takes the outer class as a param.
+                try {
+                    innerClass.getDeclaredConstructor(clazz);
+                } catch (NoSuchMethodException e) {
+                    continue;
+                }
+                innerClasses.add(record(innerClass));
+            }
+
+            return new ClassEntry(clazz.getName(), fingerprint(clazz), path, injectOutput,
+                                  Collections.unmodifiableList(commands), Collections.unmodifiableList(innerClasses));
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(className);
+            out.writeLong(fingerprint);
+            writeNullable(out, path);
+            out.writeBoolean(injectOutput);
+            writeList(out, commands);
+            writeList(out, innerClasses);
+        }
+
+        private static ClassEntry readFrom(DataInput in) throws IOException {
+            final String className = in.readUTF();
+            final long fingerprint = in.readLong();
+            final String path = readNullable(in);
+            final boolean injectOutput = in.readBoolean();
+
+            final int numCommands = in.readInt();
+            final List<CommandEntry> commands = new ArrayList<>(numCommands);
+            for (int i = 0; i < numCommands; i++) {
+                commands.add(CommandEntry.readFrom(in));
+            }
+
+            final List<ClassEntry> innerClasses = readClasses(in);
+            return new ClassEntry(className, fingerprint, path, injectOutput, commands, innerClasses);
+        }
+
+        @Override
+        public String toString() {
+            return "ClassEntry{className='" + className + "', fingerprint=" + fingerprint + '}';
+        }
+    }
+
+    /**
+     * A recorded command - either a {@link Command} or a {@link ToggleCommand}.
+     */
+    public static class CommandEntry implements Entry {
+        private final boolean toggle;
+        private final String methodName;
+        private final List<String> parameterTypes;
+        private final String path;
+        private final String name;
+        private final String description;
+        private final long timeout;
+        private final String toggleParamName;
+        private final String toggleParamDescription;
+        private final List<ParamEntry> params;
+
+        private CommandEntry(boolean toggle,
+                             String methodName,
+                             List<String> parameterTypes,
+                             String path,
+                             String name,
+                             String description,
+                             long timeout,
+                             String toggleParamName,
+                             String toggleParamDescription,
+                             List<ParamEntry> params) {
+            this.toggle = toggle;
+            this.methodName = Objects.requireNonNull(methodName, "methodName");
+            this.parameterTypes = Objects.requireNonNull(parameterTypes, "parameterTypes");
+            this.path = path;
+            this.name = Objects.requireNonNull(name, "name");
+            this.description = description;
+            this.timeout = timeout;
+            this.toggleParamName = toggleParamName;
+            this.toggleParamDescription = toggleParamDescription;
+            this.params = Objects.requireNonNull(params, "params");
+        }
+
+        /**
+         * @return Whether this is a {@link ToggleCommand}.
+         */
+        public boolean isToggle() {
+            return toggle;
+        }
+
+        /**
+         * @return Name of the method the command is bound to.
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * @return Binary names of the parameter types of the method the command is bound to.
+         */
+        public List<String> getParameterTypes() {
+            return parameterTypes;
+        }
+
+        /**
+         * @return The value of the method's {@link CommandPath} annotation, or {@code null} if it isn't annotated.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return Command name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Command description, or {@code null} for the default description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return Command timeout, 0 for no timeout.
+         */
+        public long getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * @return Toggle command param name, or {@code null} for the default.
+         */
+        public String getToggleParamName() {
+            return toggleParamName;
+        }
+
+        /**
+         * @return Toggle command param description, or {@code null} for the default.
+         */
+        public String getToggleParamDescription() {
+            return toggleParamDescription;
+        }
+
+        /**
+         * @return Command params, in declaration order.
+         */
+        public List<ParamEntry> getParams() {
+            return params;
+        }
+
+        private static CommandEntry record(Method method) {
+            final Command command = method.getAnnotation(Command.class);
+            if (command != null) {
+                final Class<?>[] types = method.getParameterTypes();
+                final Annotation[][] annotations = method.getParameterAnnotations();
+                final List<ParamEntry> params = new ArrayList<>(types.length);
+                for (int i = 0; i < types.length; i++) {
+                    params.add(ParamEntry.record(types[i], annotations[i], i));
+                }
+
+                return new CommandEntry(
+                    false, method.getName(), getTypeNames(types), getPath(method),
+                    getNonEmptyOrDefault(command.value(), method.getName()), nonEmptyOrNull(command.description()), command.timeout(),
+                    null, null, Collections.unmodifiableList(params)
+                );
+            }
+
+            final ToggleCommand toggleCommand = method.getAnnotation(ToggleCommand.class);
+            if (toggleCommand != null) {
+                if (method.getReturnType() != ToggleCommandStateAccessor.class) {
+                    throw new IllegalArgumentException("Class='"+method.getDeclaringClass()+"', method='"+method.getName()+"': Must return a value of type '"+ToggleCommandStateAccessor.class+"'!");
+                }
+                if (method.getParameterTypes().length != 0) {
+                    throw new IllegalArgumentException("Class='"+method.getDeclaringClass()+"', method='"+method.getName()+"': Must take no parameters!");
+                }
+
+                return new CommandEntry(
+                    true, method.getName(), Collections.<String>emptyList(), getPath(method),
+                    getNonEmptyOrDefault(toggleCommand.value(), method.getName()), nonEmptyOrNull(toggleCommand.description()), 0,
+                    nonEmptyOrNull(toggleCommand.paramName()), nonEmptyOrNull(toggleCommand.paramDescription()),
+                    Collections.<ParamEntry>emptyList()
+                );
+            }
+
+            // Not a command.
+            return null;
+        }
+
+        private static String getPath(Method method) {
+            final CommandPath annotation = method.getAnnotation(CommandPath.class);
+            return annotation != null ? annotation.value() : null;
+        }
+
+        private static List<String> getTypeNames(Class<?>[] types) {
+            final List<String> names = new ArrayList<>(types.length);
+            for (Class<?> type : types) {
+                names.add(type.getName());
+            }
+            return Collections.unmodifiableList(names);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeBoolean(toggle);
+            out.writeUTF(methodName);
+            writeStrings(out, parameterTypes);
+            writeNullable(out, path);
+            out.writeUTF(name);
+            writeNullable(out, description);
+            out.writeLong(timeout);
+            writeNullable(out, toggleParamName);
+            writeNullable(out, toggleParamDescription);
+            writeList(out, params);
+        }
+
+        private static CommandEntry readFrom(DataInput in) throws IOException {
+            final boolean toggle = in.readBoolean();
+            final String methodName = in.readUTF();
+            final List<String> parameterTypes = readStrings(in);
+            final String path = readNullable(in);
+            final String name = in.readUTF();
+            final String description = readNullable(in);
+            final long timeout = in.readLong();
+            final String toggleParamName = readNullable(in);
+            final String toggleParamDescription = readNullable(in);
+
+            final int numParams = in.readInt();
+            final List<ParamEntry> params = new ArrayList<>(numParams);
+            for (int i = 0; i < numParams; i++) {
+                params.add(ParamEntry.readFrom(in));
+            }
+            return new CommandEntry(toggle, methodName, parameterTypes, path, name, description, timeout,
+                                    toggleParamName, toggleParamDescription, params);
+        }
+
+        @Override
+        public String toString() {
+            return "CommandEntry{name='" + name + "', methodName='" + methodName + "', parameterTypes=" + parameterTypes + '}';
+        }
+    }
+
+    /**
+     * The supported types of params.
+     */
+    public enum ParamKind {
+        STRING, BOOLEAN, INT, DOUBLE, ENUM
+    }
+
+    /**
+     * A recorded command param.
+     */
+    public static class ParamEntry implements Entry {
+        private final ParamKind kind;
+        private final String type;
+        private final boolean annotated;
+        private final String name;
+        private final String description;
+        private final boolean nullable;
+        private final boolean optional;
+        private final String defaultValue;
+        private final String defaultValueSupplier;
+        private final List<String> staticValues;
+        private final String valuesSupplier;
+
+        private ParamEntry(ParamKind kind,
+                           String type,
+                           boolean annotated,
+                           String name,
+                           String description,
+                           boolean nullable,
+                           boolean optional,
+                           String defaultValue,
+                           String defaultValueSupplier,
+                           List<String> staticValues,
+                           String valuesSupplier) {
+            this.kind = Objects.requireNonNull(kind, "kind");
+            this.type = Objects.requireNonNull(type, "type");
+            this.annotated = annotated;
+            this.name = Objects.requireNonNull(name, "name");
+            this.description = description;
+            this.nullable = nullable;
+            this.optional = optional;
+            this.defaultValue = defaultValue;
+            this.defaultValueSupplier = defaultValueSupplier;
+            this.staticValues = Objects.requireNonNull(staticValues, "staticValues");
+            this.valuesSupplier = valuesSupplier;
+        }
+
+        /**
+         * @return Param kind.
+         */
+        public ParamKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return Binary name of the param type.
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return Whether the param was annotated. Non-annotated params only have a (generated) name.
+         */
+        public boolean isAnnotated() {
+            return annotated;
+        }
+
+        /**
+         * @return Param name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Param description, or {@code null} for the default description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return Whether the param is nullable.
+         */
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        /**
+         * @return Whether the param is optional.
+         */
+        public boolean isOptional() {
+            return optional;
+        }
+
+        /**
+         * @return The param's static default value as a string. Only relevant if the param is optional and has no
+         *         {@link #getDefaultValueSupplier() default value supplier}.
+         */
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        /**
+         * @return Name of the method that supplies the param's default value, or {@code null} if it has a static default value.
+         */
+        public String getDefaultValueSupplier() {
+            return defaultValueSupplier;
+        }
+
+        /**
+         * @return Static values accepted by a String param. Only relevant if it has no {@link #getValuesSupplier() values supplier}.
+         */
+        public List<String> getStaticValues() {
+            return staticValues;
+        }
+
+        /**
+         * @return Name of the method that supplies the values accepted by a String param, or {@code null} if it has static values.
+         */
+        public String getValuesSupplier() {
+            return valuesSupplier;
+        }
+
+        private static ParamEntry record(Class<?> type, Annotation[] annotations, int index) {
+            final String defaultName = type.getSimpleName() + index;
+            if (String.class.isAssignableFrom(type)) {
+                final StringParam annotation = findAnnotation(annotations, StringParam.class);
+                if (annotation == null) {
+                    return notAnnotated(ParamKind.STRING, type, defaultName);
+                }
+                return new ParamEntry(
+                    ParamKind.STRING, type.getName(), true, getNonEmptyOrDefault(annotation.value(), defaultName),
+                    nonEmptyOrNull(annotation.description()), annotation.nullable(), annotation.optional(),
+                    annotation.defaultValue(), nonEmptyOrNull(annotation.defaultValueSupplier()),
+                    Collections.unmodifiableList(Arrays.asList(annotation.accepts())), nonEmptyOrNull(annotation.acceptsSupplier())
+                );
+            }
+            if (Boolean.class.isAssignableFrom(type) || Boolean.TYPE.isAssignableFrom(type)) {
+                final BoolParam annotation = findAnnotation(annotations, BoolParam.class);
+                if (annotation == null) {
+                    return notAnnotated(ParamKind.BOOLEAN, type, defaultName);
+                }
+                return new ParamEntry(
+                    ParamKind.BOOLEAN, type.getName(), true, getNonEmptyOrDefault(annotation.value(), defaultName),
+                    nonEmptyOrNull(annotation.description()), annotation.nullable() && type == Boolean.class, annotation.optional(),
+                    String.valueOf(annotation.defaultValue()), nonEmptyOrNull(annotation.defaultValueSupplier()),
+                    Collections.<String>emptyList(), null
+                );
+            }
+            if (Integer.class.isAssignableFrom(type) || Integer.TYPE.isAssignableFrom(type)) {
+                final IntParam annotation = findAnnotation(annotations, IntParam.class);
+                if (annotation == null) {
+                    return notAnnotated(ParamKind.INT, type, defaultName);
+                }
+                return new ParamEntry(
+                    ParamKind.INT, type.getName(), true, getNonEmptyOrDefault(annotation.value(), defaultName),
+                    nonEmptyOrNull(annotation.description()), annotation.nullable() && type == Integer.class, annotation.optional(),
+                    String.valueOf(annotation.defaultValue()), nonEmptyOrNull(annotation.defaultValueSupplier()),
+                    Collections.<String>emptyList(), null
+                );
+            }
+            if (Double.class.isAssignableFrom(type) || Double.TYPE.isAssignableFrom(type)) {
+                final DoubleParam annotation = findAnnotation(annotations, DoubleParam.class);
+                if (annotation == null) {
+                    return notAnnotated(ParamKind.DOUBLE, type, defaultName);
+                }
+                return new ParamEntry(
+                    ParamKind.DOUBLE, type.getName(), true, getNonEmptyOrDefault(annotation.value(), defaultName),
+                    nonEmptyOrNull(annotation.description()), annotation.nullable() && type == Double.class, annotation.optional(),
+                    String.valueOf(annotation.defaultValue()), nonEmptyOrNull(annotation.defaultValueSupplier()),
+                    Collections.<String>emptyList(), null
+                );
+            }
+            if (Enum.class.isAssignableFrom(type)) {
+                final EnumParam annotation = findAnnotation(annotations, EnumParam.class);
+                if (annotation == null) {
+                    return notAnnotated(ParamKind.ENUM, type, defaultName);
+                }
+                final String defaultValueSupplier = nonEmptyOrNull(annotation.defaultValueSupplier());
+                if (annotation.optional() && defaultValueSupplier == null) {
+                    // Fail now rather than when binding, same as when processing through reflection.
+                    toEnum(type, annotation.defaultValue());
+                }
+                return new ParamEntry(
+                    ParamKind.ENUM, type.getName(), true, getNonEmptyOrDefault(annotation.value(), defaultName),
+                    nonEmptyOrNull(annotation.description()), annotation.nullable(), annotation.optional(),
+                    annotation.defaultValue(), defaultValueSupplier,
+                    Collections.<String>emptyList(), null
+                );
+            }
+            throw new IllegalArgumentException("Invalid param: type=" + type + ", index=" + index);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object toEnum(Class<?> type, String value) {
+            return Enum.valueOf((Class) type, value);
+        }
+
+        private static ParamEntry notAnnotated(ParamKind kind, Class<?> type, String name) {
+            return new ParamEntry(kind, type.getName(), false, name, null, false, false, null, null, Collections.<String>emptyList(), null);
+        }
+
+        private static <A extends Annotation> A findAnnotation(Annotation[] annotations, Class<A> annotationClass) {
+            for (Annotation annotation : annotations) {
+                if (annotationClass.isInstance(annotation)) {
+                    return annotationClass.cast(annotation);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(kind.ordinal());
+            out.writeUTF(type);
+            out.writeBoolean(annotated);
+            out.writeUTF(name);
+            writeNullable(out, description);
+            out.writeBoolean(nullable);
+            out.writeBoolean(optional);
+            writeNullable(out, defaultValue);
+            writeNullable(out, defaultValueSupplier);
+            writeStrings(out, staticValues);
+            writeNullable(out, valuesSupplier);
+        }
+
+        private static ParamEntry readFrom(DataInput in) throws IOException {
+            final int ordinal = in.readByte();
+            if (ordinal < 0 || ordinal >= ParamKind.values().length) {
+                throw new IOException("Invalid param kind: " + ordinal);
+            }
+            return new ParamEntry(
+                ParamKind.values()[ordinal], in.readUTF(), in.readBoolean(), in.readUTF(), readNullable(in),
+                in.readBoolean(), in.readBoolean(), readNullable(in), readNullable(in), readStrings(in), readNullable(in)
+            );
+        }
+
+        @Override
+        public String toString() {
+            return "ParamEntry{kind=" + kind + ", name='" + name + "'}";
+        }
+    }
+
+    private static String getNonEmptyOrDefault(String str, String defaultValue) {
+        final String nonEmpty = nonEmptyOrNull(str);
+        return nonEmpty != null ? nonEmpty : defaultValue;
+    }
+}
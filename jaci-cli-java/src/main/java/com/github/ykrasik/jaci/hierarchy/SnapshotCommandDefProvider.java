@@ -0,0 +1,398 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.ToggleCommandStateAccessor;
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.command.CommandOutputPromise;
+import com.github.ykrasik.jaci.command.toggle.ToggleCommandDefBuilder;
+import com.github.ykrasik.jaci.hierarchy.HierarchySnapshot.ClassEntry;
+import com.github.ykrasik.jaci.hierarchy.HierarchySnapshot.CommandEntry;
+import com.github.ykrasik.jaci.hierarchy.HierarchySnapshot.ParamEntry;
+import com.github.ykrasik.jaci.param.*;
+import com.github.ykrasik.jaci.path.ParsedPath;
+import com.github.ykrasik.jaci.reflection.*;
+import com.github.ykrasik.jaci.reflection.method.ReflectionCommandExecutor;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A {@link CommandDefProvider} that processes classes through a {@link HierarchySnapshot} stored in a file.<br>
+ * If the file contains a snapshot that is still valid for the given classes (their class files haven't changed since
+ * the snapshot was recorded), the commands are created straight from the snapshot, and reflection is only used to
+ * instantiate the classes and bind the snapshot's methods to commands & suppliers.
+ * Otherwise, a new snapshot is recorded and stored for the next time.<br>
+ * Should anything go wrong while using the snapshot, the classes are processed through reflection as usual,
+ * so a corrupt or stale snapshot can never change the resulting commands.<br>
+ * <br>
+ * A {@link ReflectionAccessor} must be installed before commands are provided.
+ *
+ * @author Yevgeny Krasik
+ */
+public class SnapshotCommandDefProvider implements CommandDefProvider {
+    private final Path snapshotFile;
+    private final Class<?>[] classes;
+
+    /** Package-protected for testing. */
+    boolean loadedFromSnapshot;
+
+    /**
+     * @param snapshotFile File to read the snapshot from, and to store a new snapshot in if it is missing or invalid.
+     * @param classes Classes to process.
+     */
+    public SnapshotCommandDefProvider(Path snapshotFile, Class<?>... classes) {
+        this.snapshotFile = Objects.requireNonNull(snapshotFile, "snapshotFile");
+        this.classes = Objects.requireNonNull(classes, "classes").clone();
+    }
+
+    @Override
+    public Map<ParsedPath, List<CommandDef>> getCommandDefs() {
+        loadedFromSnapshot = false;
+        HierarchySnapshot snapshot = load();
+        final boolean loaded = snapshot != null;
+        if (!loaded) {
+            try {
+                snapshot = HierarchySnapshot.record(classes);
+            } catch (IOException e) {
+                // Can't fingerprint the classes - they are probably not loaded from class files.
+                return processClasses();
+            }
+            store(snapshot);
+        }
+
+        try {
+            final Map<ParsedPath, List<CommandDef>> commandDefs = bind(snapshot);
+            loadedFromSnapshot = loaded;
+            return commandDefs;
+        } catch (Exception e) {
+            return processClasses();
+        }
+    }
+
+    private HierarchySnapshot load() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            final HierarchySnapshot snapshot = HierarchySnapshot.readFrom(in);
+            return snapshot.isValidFor(classes) ? snapshot : null;
+        } catch (IOException e) {
+            // Corrupt snapshot, will be overwritten.
+            return null;
+        }
+    }
+
+    private void store(HierarchySnapshot snapshot) {
+        try {
+            final Path dir = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+
+            // Write to a temp file first, so that a concurrent reader never sees a partially written snapshot.
+            final Path tempFile = Files.createTempFile(dir, snapshotFile.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    snapshot.writeTo(out);
+                }
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            // A snapshot that can't be stored only costs startup time on the next run.
+        }
+    }
+
+    private Map<ParsedPath, List<CommandDef>> processClasses() {
+        final ReflectionClassProcessor processor = new ReflectionClassProcessor();
+        final Map<ParsedPath, List<CommandDef>> commandDefs = new HashMap<>();
+        for (Class<?> clazz : classes) {
+            final Map<ParsedPath, List<CommandDef>> classCommandDefs = processor.processObject(ReflectionUtils.createInstanceNoArgs(clazz));
+            for (Map.Entry<ParsedPath, List<CommandDef>> entry : classCommandDefs.entrySet()) {
+                for (CommandDef commandDef : entry.getValue()) {
+                    add(commandDefs, entry.getKey(), commandDef);
+                }
+            }
+        }
+        return commandDefs;
+    }
+
+    private Map<ParsedPath, List<CommandDef>> bind(HierarchySnapshot snapshot) throws Exception {
+        // Will be injected into all processed instances, and set before any of their commands are executed.
+        final CommandOutputPromise outputPromise = new CommandOutputPromise();
+        final Map<ParsedPath, List<CommandDef>> commandDefs = new HashMap<>();
+        for (int i = 0; i < classes.length; i++) {
+            final Object instance = ReflectionUtils.createInstanceNoArgs(classes[i]);
+            bindClass(snapshot.getClasses().get(i), instance, ParsedPath.root(), outputPromise, commandDefs);
+        }
+        return commandDefs;
+    }
+
+    private void bindClass(ClassEntry entry,
+                           Object instance,
+                           ParsedPath parentPath,
+                           CommandOutputPromise outputPromise,
+                           Map<ParsedPath, List<CommandDef>> commandDefs) throws Exception {
+        final Class<?> clazz = instance.getClass();
+        if (!clazz.getName().equals(entry.getClassName())) {
+            throw new IllegalStateException("Snapshot doesn't match class: " + clazz);
+        }
+        final ParsedPath path = parentPath.append(toPath(entry.getPath()));
+
+        if (entry.isInjectOutput()) {
+            injectOutputPromise(instance, outputPromise);
+        }
+
+        for (CommandEntry command : entry.getCommands()) {
+            final ReflectionMethod method = getMethod(clazz, command);
+            final CommandDef commandDef = command.isToggle() ?
+                createToggleCommand(command, instance, method) :
+                createCommand(command, instance, method, outputPromise);
+            add(commandDefs, path.append(toPath(command.getPath())), commandDef);
+        }
+
+        for (ClassEntry innerEntry : entry.getInnerClasses()) {
+            final Class<?> innerClass = Class.forName(innerEntry.getClassName(), true, clazz.getClassLoader());
+            final Object innerInstance = ReflectionUtils.getDeclaredConstructor(innerClass, clazz).newInstance(instance);
+            bindClass(innerEntry, innerInstance, path, outputPromise, commandDefs);
+        }
+    }
+
+    private void injectOutputPromise(Object instance, CommandOutputPromise outputPromise) throws Exception {
+        for (ReflectionField field : ReflectionUtils.getDeclaredFields(instance.getClass())) {
+            if (field.getType() == CommandOutput.class) {
+                field.setAccessible(true);
+                field.set(instance, outputPromise);
+
+                // Only inject the first CommandOutput - class shouldn't have more then 1 anyway.
+                return;
+            }
+        }
+        throw new IllegalStateException("Snapshot CommandOutput field not found: " + instance.getClass());
+    }
+
+    private ReflectionMethod getMethod(Class<?> clazz, CommandEntry command) throws ClassNotFoundException {
+        final List<String> parameterTypeNames = command.getParameterTypes();
+        final Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = toClass(parameterTypeNames.get(i), clazz.getClassLoader());
+        }
+
+        // Look up only the recorded method - listing all of the class's methods and their parameters is what
+        // the snapshot is meant to avoid. Commands are public methods, which may be inherited.
+        final Class<?> declaringClass;
+        try {
+            declaringClass = clazz.getMethod(command.getMethodName(), parameterTypes).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Snapshot method not found: " + command);
+        }
+        return ReflectionUtils.getDeclaredMethod(declaringClass, command.getMethodName(), parameterTypes);
+    }
+
+    private Class<?> toClass(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        switch (name) {
+            case "boolean": return boolean.class;
+            case "byte": return byte.class;
+            case "char": return char.class;
+            case "short": return short.class;
+            case "int": return int.class;
+            case "long": return long.class;
+            case "float": return float.class;
+            case "double": return double.class;
+            default: return Class.forName(name, false, classLoader);
+        }
+    }
+
+    private CommandDef createCommand(CommandEntry command,
+                                     Object instance,
+                                     ReflectionMethod method,
+                                     CommandOutputPromise outputPromise) {
+        final CommandDef.Builder builder = new CommandDef.Builder(command.getName(), new ReflectionCommandExecutor(outputPromise, instance, method));
+        if (command.getDescription() != null) {
+            builder.setDescription(command.getDescription());
+        }
+        if (command.getTimeout() != 0) {
+            builder.setTimeout(command.getTimeout());
+        }
+
+        final List<ReflectionParameter> parameters = method.getParameters();
+        final List<ParamEntry> params = command.getParams();
+        for (int i = 0; i < params.size(); i++) {
+            builder.addParam(createParam(params.get(i), instance, parameters.get(i).getParameterType()));
+        }
+        return builder.build();
+    }
+
+    private CommandDef createToggleCommand(CommandEntry command, Object instance, ReflectionMethod method) {
+        final ToggleCommandStateAccessor accessor = ReflectionUtils.invokeNoArgs(instance, method);
+        final ToggleCommandDefBuilder builder = new ToggleCommandDefBuilder(command.getName(), accessor);
+        if (command.getDescription() != null) {
+            builder.setDescription(command.getDescription());
+        }
+        if (command.getToggleParamName() != null) {
+            builder.setParamName(command.getToggleParamName());
+        }
+        if (command.getToggleParamDescription() != null) {
+            builder.setParamDescription(command.getToggleParamDescription());
+        }
+        return builder.build();
+    }
+
+    private ParamDef<?> createParam(ParamEntry param, Object instance, Class<?> type) {
+        switch (param.getKind()) {
+            case STRING: return createStringParam(param, instance);
+            case BOOLEAN: return createBooleanParam(param, instance);
+            case INT: return createIntParam(param, instance);
+            case DOUBLE: return createDoubleParam(param, instance);
+            case ENUM: return createEnumParam(param, instance, type);
+            default: throw new IllegalArgumentException("Invalid param kind: " + param.getKind());
+        }
+    }
+
+    private ParamDef<?> createStringParam(ParamEntry param, Object instance) {
+        final StringParamDef.Builder builder = new StringParamDef.Builder(param.getName());
+        if (!param.isAnnotated()) {
+            return builder.build();
+        }
+        if (param.getDescription() != null) {
+            builder.setDescription(param.getDescription());
+        }
+        if (param.isOptional()) {
+            if (param.getDefaultValueSupplier() != null) {
+                builder.setOptional(ReflectionSuppliers.reflectionSupplier(instance, param.getDefaultValueSupplier(), String.class));
+            } else {
+                builder.setOptional(param.getDefaultValue());
+            }
+        }
+        builder.setNullable(param.isNullable());
+        if (param.getValuesSupplier() != null) {
+            builder.setDynamicValues(ReflectionSuppliers.reflectionListSupplier(instance, param.getValuesSupplier(), String[].class));
+        } else {
+            builder.setStaticValues(param.getStaticValues());
+        }
+        return builder.build();
+    }
+
+    private ParamDef<?> createBooleanParam(ParamEntry param, Object instance) {
+        final BooleanParamDef.Builder builder = new BooleanParamDef.Builder(param.getName());
+        if (!param.isAnnotated()) {
+            return builder.build();
+        }
+        if (param.getDescription() != null) {
+            builder.setDescription(param.getDescription());
+        }
+        if (param.isOptional()) {
+            if (param.getDefaultValueSupplier() != null) {
+                builder.setOptional(ReflectionSuppliers.reflectionSupplier(instance, param.getDefaultValueSupplier(), Boolean.TYPE, Boolean.class));
+            } else {
+                builder.setOptional(Boolean.parseBoolean(param.getDefaultValue()));
+            }
+        }
+        builder.setNullable(param.isNullable());
+        return builder.build();
+    }
+
+    private ParamDef<?> createIntParam(ParamEntry param, Object instance) {
+        final IntParamDef.Builder builder = new IntParamDef.Builder(param.getName());
+        if (!param.isAnnotated()) {
+            return builder.build();
+        }
+        if (param.getDescription() != null) {
+            builder.setDescription(param.getDescription());
+        }
+        if (param.isOptional()) {
+            if (param.getDefaultValueSupplier() != null) {
+                builder.setOptional(ReflectionSuppliers.reflectionSupplier(instance, param.getDefaultValueSupplier(), Integer.TYPE, Integer.class));
+            } else {
+                builder.setOptional(Integer.parseInt(param.getDefaultValue()));
+            }
+        }
+        builder.setNullable(param.isNullable());
+        return builder.build();
+    }
+
+    private ParamDef<?> createDoubleParam(ParamEntry param, Object instance) {
+        final DoubleParamDef.Builder builder = new DoubleParamDef.Builder(param.getName());
+        if (!param.isAnnotated()) {
+            return builder.build();
+        }
+        if (param.getDescription() != null) {
+            builder.setDescription(param.getDescription());
+        }
+        if (param.isOptional()) {
+            if (param.getDefaultValueSupplier() != null) {
+                builder.setOptional(ReflectionSuppliers.reflectionSupplier(instance, param.getDefaultValueSupplier(), Double.TYPE, Double.class));
+            } else {
+                builder.setOptional(Double.parseDouble(param.getDefaultValue()));
+            }
+        }
+        builder.setNullable(param.isNullable());
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ParamDef<?> createEnumParam(ParamEntry param, Object instance, Class<?> type) {
+        return doCreateEnumParam(param, instance, (Class<Enum>) type.asSubclass(Enum.class));
+    }
+
+    private <E extends Enum<E>> ParamDef<?> doCreateEnumParam(ParamEntry param, Object instance, Class<E> enumClass) {
+        final EnumParamDef.Builder<E> builder = new EnumParamDef.Builder<>(enumClass, param.getName());
+        if (!param.isAnnotated()) {
+            return builder.build();
+        }
+        if (param.getDescription() != null) {
+            builder.setDescription(param.getDescription());
+        }
+        if (param.isOptional()) {
+            if (param.getDefaultValueSupplier() != null) {
+                builder.setOptional(ReflectionSuppliers.reflectionSupplier(instance, param.getDefaultValueSupplier(), enumClass));
+            } else {
+                builder.setOptional(Enum.valueOf(enumClass, param.getDefaultValue()));
+            }
+        }
+        builder.setNullable(param.isNullable());
+        return builder.build();
+    }
+
+    private ParsedPath toPath(String path) {
+        // Composing any path with 'root' has no effect.
+        return path != null ? ParsedPath.toDirectory(path) : ParsedPath.root();
+    }
+
+    private static void add(Map<ParsedPath, List<CommandDef>> commandDefs, ParsedPath path, CommandDef commandDef) {
+        List<CommandDef> commands = commandDefs.get(path);
+        if (commands == null) {
+            commands = new ArrayList<>();
+            commandDefs.put(path, commands);
+        }
+        commands.add(commandDef);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SnapshotCommandDefProvider{");
+        sb.append("snapshotFile=").append(snapshotFile);
+        sb.append(", classes=").append(Arrays.toString(classes));
+        sb.append('}');
+        return sb.toString();
+    }
+}
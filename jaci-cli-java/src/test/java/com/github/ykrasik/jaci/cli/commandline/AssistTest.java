@@ -0,0 +1,120 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.commandline;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import com.github.ykrasik.jaci.util.opt.Opt;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class AssistTest {
+    private final List<String> output = new ArrayList<>();
+
+    private CliShell shell;
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        };
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(AssistCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput)).build();
+        output.clear();
+    }
+
+    @Test
+    public void testStatements() {
+        assertEquals(Opt.of("ld "), shell.assist("hello; wor"));
+        assertEquals(Opt.of("ount "), shell.assist("hello; world -am"));
+        assertEquals(Opt.of("ount "), shell.assist("hello;world -am"));
+        assertNoErrors();
+    }
+
+    @Test
+    public void testPipeline() {
+        assertEquals(Opt.of("ep "), shell.assist("hello | gr"));
+        assertEquals(Opt.of("ount "), shell.assist("hello; hello | world -am"));
+        assertNoErrors();
+    }
+
+    @Test
+    public void testRedirection() {
+        assertFalse(shell.assist("hello > wor").isPresent());
+        assertFalse(shell.assist("hello | world 3 >> ").isPresent());
+        assertNoErrors();
+
+        // A statement after a redirection is assisted.
+        assertEquals(Opt.of("ld "), shell.assist("hello > out; wor"));
+    }
+
+    @Test
+    public void testQuotedSeparators() {
+        // Separators in quoted text don't start a new command.
+        assertFalse(shell.assist("hello 'a; wor").isPresent());
+        assertTrue(output.toString(), output.get(output.size() - 1).startsWith("Parse Error: "));
+    }
+
+    private void assertNoErrors() {
+        for (String line : output) {
+            assertFalse(line, line.startsWith("Parse Error: "));
+        }
+    }
+
+    public static class AssistCommands {
+        private CommandOutput output;
+
+        @Command
+        public void hello() {
+            output.message("hello");
+        }
+
+        @Command
+        public void world(@IntParam("amount") int amount) {
+            output.message("world " + amount);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.diagnostics;
+
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class JvmDiagnosticsCommandsTest {
+    private final List<String> output = new ArrayList<>();
+
+    private CliShell shell;
+
+    @Before
+    public void setUp() {
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        };
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().addProviders(new JvmDiagnosticsCommands()).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput)).build();
+    }
+
+    @Test
+    public void memory() {
+        shell.execute("jvm/memory");
+        assertTrue(output.toString(), contains("Heap: used="));
+        assertTrue(output.toString(), contains("Pools:"));
+    }
+
+    @Test
+    public void gc() {
+        shell.execute("jvm/gc");
+        assertTrue(output.toString(), contains("Total: count="));
+        assertTrue(output.toString(), !contains("(+"));
+
+        // The second call prints what changed since the first.
+        output.clear();
+        shell.execute("jvm/gc");
+        assertTrue(output.toString(), contains("(+"));
+    }
+
+    @Test
+    public void threads() {
+        shell.execute("jvm/threads -stacks -top 100");
+        assertTrue(output.toString(), contains("Threads: live="));
+        assertTrue(output.toString(), contains("\"" + Thread.currentThread().getName() + "\" #"));
+        assertTrue(output.toString(), contains("    at "));
+    }
+
+    @Test
+    public void classesAndAlloc() {
+        shell.execute("jvm/classes");
+        assertTrue(output.toString(), contains("Classes: loaded="));
+
+        shell.execute("jvm/alloc -window 50");
+        assertTrue(output.toString(), contains("Allocated ") || contains("Allocations are not measured by this JVM."));
+    }
+
+    @Test
+    public void allocRestoresDisabledMeasurement() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) ||
+            !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        final boolean wasEnabled = allocationBean.isThreadAllocatedMemoryEnabled();
+        allocationBean.setThreadAllocatedMemoryEnabled(false);
+        try {
+            shell.execute("jvm/alloc -window 50");
+            assertTrue(output.toString(), contains("Allocated "));
+            assertFalse(allocationBean.isThreadAllocatedMemoryEnabled());
+        } finally {
+            allocationBean.setThreadAllocatedMemoryEnabled(wasEnabled);
+        }
+    }
+
+    private boolean contains(String text) {
+        for (String line : output) {
+            if (line.contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,194 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class CommandJobFutureTest {
+    private final List<String> output = new ArrayList<>();
+
+    private ThreadedExecutionModel model;
+    private CliShell shell;
+
+    @Before
+    public void setUp() throws Exception {
+        JavaReflectionAccessor.install();
+        model = new ThreadedExecutionModel.Builder().build();
+
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                synchronized (output) {
+                    output.add(text);
+                }
+            }
+        };
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(LongCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+            .setExecutionModel(model)
+            .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        model.close();
+    }
+
+    @Test
+    public void testSuccess() throws Exception {
+        final CommandJobFuture future = new CommandJobFuture(shell.executeAsync("fast"));
+        assertEquals(CommandJob.State.SUCCEEDED, future.get(5, TimeUnit.SECONDS));
+        assertOutputContains("fast");
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final CommandJobFuture future = new CommandJobFuture(shell.executeAsync("spinWithTimeout"));
+        assertEquals(CommandJob.State.CANCELLED, future.get(5, TimeUnit.SECONDS));
+        assertTrue(future.getJob().isTimedOut());
+        assertOutputContains("Command 'spinWithTimeout' timed out after 50ms.");
+    }
+
+    @Test
+    public void testCancelRunning() throws Exception {
+        // The job is running as soon as the command line starts, wait for the command itself to start.
+        LongCommands.started = new CountDownLatch(1);
+        final CommandJobFuture future = new CommandJobFuture(shell.executeAsync("spin"));
+        assertTrue(LongCommands.started.await(5, TimeUnit.SECONDS));
+        assertEquals(CommandJob.State.RUNNING, future.getJob().getState());
+
+        assertTrue(future.cancel(true));
+        assertEquals(CommandJob.State.CANCELLED, future.get(5, TimeUnit.SECONDS));
+        assertFalse(future.getJob().isTimedOut());
+        assertOutputContains("Command 'spin' was cancelled.");
+    }
+
+    @Test
+    public void testCancelPending() throws Exception {
+        final CommandJob running = shell.executeAsync("spin");
+        final CommandJob pending = shell.executeAsync("fast");
+        assertTrue(pending.cancel());
+        running.cancel();
+
+        assertEquals(CommandJob.State.CANCELLED, new CommandJobFuture(pending).get(5, TimeUnit.SECONDS));
+        synchronized (output) {
+            assertFalse(output.contains("fast"));
+        }
+    }
+
+    @Test
+    public void testCancelDone() throws Exception {
+        final CommandJobFuture future = new CommandJobFuture(shell.executeAsync("fast"));
+        future.get(5, TimeUnit.SECONDS);
+        assertFalse(future.cancel(true));
+        assertFalse(future.isCancelled());
+    }
+
+    @Test
+    public void testBackgroundJob() throws Exception {
+        final CommandJob background = shell.executeAsync("spin &");
+        awaitState(background, CommandJob.State.RUNNING);
+
+        // The session isn't blocked by the background job.
+        assertEquals(CommandJob.State.SUCCEEDED, new CommandJobFuture(shell.executeAsync("jobs")).get(5, TimeUnit.SECONDS));
+        assertOutputStartsWith("[1] spin: RUNNING");
+
+        assertEquals(CommandJob.State.SUCCEEDED, new CommandJobFuture(shell.executeAsync("kill 1")).get(5, TimeUnit.SECONDS));
+        assertEquals(CommandJob.State.CANCELLED, new CommandJobFuture(background).get(5, TimeUnit.SECONDS));
+        assertOutputContains("[1] spin: CANCELLED");
+    }
+
+    private void awaitState(CommandJob job, CommandJob.State state) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (job.getState() != state) {
+            assertTrue("Timed out waiting for state: " + state, System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private void assertOutputContains(String text) {
+        synchronized (output) {
+            assertTrue("Output doesn't contain '" + text + "': " + output, output.contains(text));
+        }
+    }
+
+    private void assertOutputStartsWith(String prefix) {
+        synchronized (output) {
+            for (String line : output) {
+                if (line.startsWith(prefix)) {
+                    return;
+                }
+            }
+            fail("Output doesn't contain a line starting with '" + prefix + "': " + output);
+        }
+    }
+
+    public static class LongCommands {
+        private static volatile CountDownLatch started = new CountDownLatch(1);
+
+        private CommandOutput output;
+
+        @Command
+        public void fast() {
+            output.message("fast");
+        }
+
+        @Command
+        public void spin() throws InterruptedException {
+            started.countDown();
+            while (!output.isCancelled()) {
+                Thread.sleep(1);
+            }
+        }
+
+        @Command(timeout = 50)
+        public void spinWithTimeout() throws InterruptedException {
+            spin();
+        }
+    }
+}
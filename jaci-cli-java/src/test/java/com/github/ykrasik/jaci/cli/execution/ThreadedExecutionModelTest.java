@@ -0,0 +1,368 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.execution;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.CommandPath;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.command.CommandOutputBinding;
+import com.github.ykrasik.jaci.command.CommandOutputPromise;
+import com.github.ykrasik.jaci.command.ThreadLocalCommandOutputBinding;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import com.github.ykrasik.jaci.util.opt.Opt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ThreadedExecutionModelTest {
+    private ThreadedExecutionModel model;
+
+    @Before
+    public void setUp() throws Exception {
+        model = new ThreadedExecutionModel.Builder()
+            .setMaxPlatformThreads(4)
+            .setCommandConcurrency("/limited", 1)
+            .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        model.close();
+    }
+
+    @Test
+    public void testSessionOrder() throws Exception {
+        final SessionExecutor session = model.newSessionExecutor();
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            session.submit(new Runnable() {
+                @Override
+                public void run() {
+                    executed.add(index);
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, executed.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testSlowSessionDoesNotStallOthers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        model.newSessionExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                await(release);
+            }
+        });
+        model.newSessionExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testCommandConcurrencyLimit() throws Exception {
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final int sessions = 4;
+        final CountDownLatch done = new CountDownLatch(sessions);
+        for (int i = 0; i < sessions; i++) {
+            final SessionExecutor session = model.newSessionExecutor();
+            session.submit(new Runnable() {
+                @Override
+                public void run() {
+                    final CommandPermit permit = session.acquirePermit("/limited", new TestOutput()).get();
+                    try {
+                        final int current = concurrent.incrementAndGet();
+                        if (current > maxConcurrent.get()) {
+                            maxConcurrent.set(current);
+                        }
+                        sleep(20);
+                        concurrent.decrementAndGet();
+                    } finally {
+                        permit.release();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxConcurrent.get());
+    }
+
+    @Test
+    public void testCommandConcurrencyIsKeyedByPath() throws Exception {
+        final SessionExecutor session = model.newSessionExecutor();
+        final CommandPermit permit = session.acquirePermit("/limited", new TestOutput()).get();
+        try {
+            final Opt<CommandPermit> other = session.acquirePermit("/other/limited", new TestOutput());
+            assertTrue(other.isPresent());
+            other.get().release();
+        } finally {
+            permit.release();
+        }
+    }
+
+    @Test
+    public void testCancelledWhileWaitingForPermit() throws Exception {
+        final SessionExecutor session = model.newSessionExecutor();
+        final CommandPermit permit = session.acquirePermit("/limited", new TestOutput()).get();
+        try {
+            final TestOutput output = new TestOutput();
+            final List<Opt<CommandPermit>> results = Collections.synchronizedList(new ArrayList<Opt<CommandPermit>>());
+            final Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(session.acquirePermit("/limited", output));
+                }
+            });
+            waiter.start();
+            sleep(20);
+            output.cancelled.set(true);
+            waiter.join(5000);
+
+            assertEquals(1, results.size());
+            assertFalse(results.get(0).isPresent());
+        } finally {
+            permit.release();
+        }
+    }
+
+    @Test
+    public void testShellLimitsCommandsByPath() throws Exception {
+        JavaReflectionAccessor.install();
+        // Commands are executed concurrently, each must only see it's own output.
+        ThreadLocalCommandOutputBinding.install();
+        final ThreadedExecutionModel pathModel = new ThreadedExecutionModel.Builder()
+            .setCommandConcurrency("/a/block", 1)
+            .build();
+        try {
+            final CliOutput cliOutput = new CliOutput() {
+                @Override
+                public void println(String text) {
+                }
+            };
+            final CliGui gui = new CliGui() {
+                @Override
+                public void setWorkingDirectory(CliDirectory workingDirectory) {
+                }
+            };
+            final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(CommandsA.class, CommandsB.class).build();
+            final CliShell shell1 = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+                .setExecutionModel(pathModel)
+                .build();
+            final CliShell shell2 = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+                .setExecutionModel(pathModel)
+                .build();
+
+            final CommandJob first = shell1.executeAsync("a/block");
+            awaitState(first, CommandJob.State.RUNNING);
+
+            // Same name under another directory isn't limited.
+            final CommandJob other = shell2.executeAsync("/b/block");
+            awaitState(other, CommandJob.State.RUNNING);
+            other.cancel();
+            awaitState(other, CommandJob.State.CANCELLED);
+
+            // Same command from another session waits for the permit, and stops waiting once cancelled.
+            shell2.execute("cd a");
+            final CommandJob waiting = shell2.executeAsync("block");
+            sleep(50);
+            waiting.cancel();
+            awaitState(waiting, CommandJob.State.CANCELLED);
+            assertEquals(CommandJob.State.RUNNING, first.getState());
+
+            first.cancel();
+            awaitState(first, CommandJob.State.CANCELLED);
+        } finally {
+            pathModel.close();
+            CommandOutputPromise.setBindingFactory(CommandOutputBinding.SHARED);
+        }
+    }
+
+    @Test
+    public void testQueuedCommandLinesFailOnceExecutorShutsDown() throws Exception {
+        JavaReflectionAccessor.install();
+        final ThreadedExecutionModel poolModel = new ThreadedExecutionModel.Builder()
+            .setPreferVirtualThreads(false)
+            .setMaxPlatformThreads(1)
+            .build();
+        try {
+            final CliOutput cliOutput = new CliOutput() {
+                @Override
+                public void println(String text) {
+                }
+            };
+            final CliGui gui = new CliGui() {
+                @Override
+                public void setWorkingDirectory(CliDirectory workingDirectory) {
+                }
+            };
+            final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(CommandsA.class).build();
+            final CliShell shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+                .setExecutionModel(poolModel)
+                .build();
+
+            final CommandJob running = shell.executeAsync("a/block");
+            awaitState(running, CommandJob.State.RUNNING);
+            final CommandJob queued1 = shell.executeAsync("a/block");
+            final CommandJob queued2 = shell.executeAsync("a/block");
+
+            // The pool stops accepting work while the session still has queued command lines.
+            poolModel.close();
+            running.cancel();
+            awaitState(running, CommandJob.State.CANCELLED);
+            awaitState(queued1, CommandJob.State.FAILED);
+            awaitState(queued2, CommandJob.State.FAILED);
+        } finally {
+            poolModel.close();
+        }
+    }
+
+    @Test
+    public void testBackgroundTasksDoNotStarveSessions() throws Exception {
+        final SessionExecutor background = model.newSessionExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 8; i++) {
+            background.submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    await(release);
+                }
+            });
+        }
+
+        final CountDownLatch done = new CountDownLatch(1);
+        model.newSessionExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    private void awaitState(CommandJob job, CommandJob.State state) {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (job.getState() != state) {
+            assertTrue("Timed out waiting for state: " + state + ", was: " + job.getState(), System.currentTimeMillis() < deadline);
+            sleep(1);
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestOutput implements CommandOutput {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void message(String text) {
+        }
+
+        @Override
+        public void error(String text) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        @Override
+        public CommandInput getInput() {
+            return CommandInput.EMPTY;
+        }
+    }
+
+    @CommandPath("a")
+    public static class CommandsA {
+        private CommandOutput output;
+
+        @Command
+        public void block() throws InterruptedException {
+            while (!output.isCancelled()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @CommandPath("b")
+    public static class CommandsB {
+        private CommandOutput output;
+
+        @Command
+        public void block() throws InterruptedException {
+            while (!output.isCancelled()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+}
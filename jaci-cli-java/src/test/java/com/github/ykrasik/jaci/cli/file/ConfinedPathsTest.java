@@ -0,0 +1,57 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.file;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ConfinedPathsTest {
+    private final Path directory = Paths.get("confined").toAbsolutePath();
+
+    @Test
+    public void resolvesRelativePaths() {
+        assertEquals(directory.resolve("a/b.txt"), ConfinedPaths.resolve(directory, "a/b.txt"));
+        assertEquals(directory.resolve("b.txt"), ConfinedPaths.resolve(directory, "./b.txt"));
+    }
+
+    @Test
+    public void rejectsPathsOutsideDirectory() {
+        assertRejected(directory.getRoot().resolve("etc/passwd").toString());
+        assertRejected("../escape.txt");
+        assertRejected("a/../../escape.txt");
+        assertRejected("a/..");
+        assertRejected("");
+    }
+
+    private void assertRejected(String path) {
+        try {
+            ConfinedPaths.resolve(directory, path);
+            fail("Path should have been rejected: " + path);
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+}
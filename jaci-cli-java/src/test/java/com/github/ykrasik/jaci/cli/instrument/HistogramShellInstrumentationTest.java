@@ -0,0 +1,245 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class HistogramShellInstrumentationTest {
+    private final List<String> output = new ArrayList<>();
+    private final HistogramShellInstrumentation instrumentation = new HistogramShellInstrumentation();
+
+    private final CliPrinter printer = new CliPrinter(new CliOutput() {
+        @Override
+        public void println(String text) {
+            output.add(text);
+        }
+    });
+    private final CliGui gui = new CliGui() {
+        @Override
+        public void setWorkingDirectory(CliDirectory workingDirectory) {
+        }
+    };
+
+    private CliShell shell;
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(InstrumentedCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+            .setInstrumentation(instrumentation)
+            .build();
+    }
+
+    @Test
+    public void recordsPhasesAndCommands() {
+        shell.execute("succeed");
+        shell.execute("succeed; fail");
+        shell.execute("nosuchcommand");
+        shell.assist("succ");
+
+        final InstrumentationSnapshot snapshot = instrumentation.snapshot();
+        final Map<String, CommandStats> commands = getCommands(snapshot);
+        assertEquals(2, commands.size());
+        assertEquals(2, commands.get("/succeed").getCount());
+        assertEquals(0, commands.get("/succeed").getFailures());
+        assertEquals(1, commands.get("/fail").getCount());
+        assertEquals(1, commands.get("/fail").getFailures());
+
+        assertEquals(3, snapshot.getPhase(ShellPhase.EXECUTE).getCount());
+        assertEquals(3, snapshot.getPhase(ShellPhase.PARSE_PARAMS).getCount());
+        // 3 successful resolves, 1 failed resolve & 1 auto complete.
+        assertEquals(5, snapshot.getPhase(ShellPhase.RESOLVE_PATH).getCount());
+        assertTrue(snapshot.getPhase(ShellPhase.TOKENIZE).getCount() > 0);
+        assertTrue(snapshot.getPhase(ShellPhase.PRINT).getCount() > 0);
+    }
+
+    @Test
+    public void statsCommand() {
+        shell.execute("succeed");
+        output.clear();
+
+        shell.execute("stats -reset");
+        assertTrue(output.toString(), contains("  /succeed: count=1"));
+        assertTrue(output.toString(), contains("  execute: count=1"));
+
+        // Only the stats command itself was recorded since the reset.
+        output.clear();
+        shell.execute("stats");
+        assertTrue(output.toString(), contains("  stats: count=1"));
+        assertTrue(output.toString(), !contains("  /succeed: "));
+    }
+
+    @Test
+    public void recordsAllocations() {
+        Assume.assumeTrue(instrumentation.getMeter().isAllocationSupported());
+
+        shell.execute("succeed; allocate");
+        final InstrumentationSnapshot snapshot = instrumentation.snapshot();
+        assertTrue(snapshot.isAllocationMeasured());
+        final CommandStats allocate = getCommands(snapshot).get("/allocate");
+        assertTrue(allocate.toString(), allocate.getAllocatedBytes() >= InstrumentedCommands.ALLOCATION);
+        assertEquals(allocate.getAllocatedBytes(), allocate.getMaxAllocatedBytes());
+
+        output.clear();
+        shell.execute("top -sort alloc");
+        // The first line is the echoed command line.
+        assertTrue(output.toString(), output.get(1).startsWith("COMMAND"));
+        assertTrue(output.toString(), output.get(2).startsWith("/allocate"));
+    }
+
+    @Test
+    public void benchCommand() {
+        Assume.assumeTrue(instrumentation.getMeter().isAllocationSupported());
+
+        shell.execute("bench \"allocate\" -n 10 -warmup 2 -alloc");
+        assertTrue(output.toString(), contains("Executed 'allocate' 10 times after 2 warmup iterations:"));
+        assertTrue(output.toString(), contains("  min="));
+        assertTrue(output.toString(), contains("  throughput="));
+        assertTrue(output.toString(), contains("  allocated=1.0MB/op"));
+        // Benchmarked iterations aren't recorded, only the bench command itself.
+        final Map<String, CommandStats> commands = getCommands(instrumentation.snapshot());
+        assertFalse(commands.toString(), commands.containsKey("/allocate"));
+        assertEquals(1, commands.get("bench").getCount());
+    }
+
+    @Test
+    public void benchRunsTasksToCompletion() {
+        // A runner that would only run tasks later, like one that spreads them over frames.
+        final List<IncrementalTask> deferred = new ArrayList<>();
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(InstrumentedCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+            .setInstrumentation(instrumentation)
+            .setIncrementalTaskRunner(new IncrementalTaskRunner() {
+                @Override
+                public void run(IncrementalTask task, CommandOutput output) {
+                    deferred.add(task);
+                }
+            })
+            .build();
+        InstrumentedCommands.steps = 0;
+
+        shell.execute("bench \"iterate\" -n 10 -warmup 2");
+        assertTrue(output.toString(), contains("Executed 'iterate' 10 times after 2 warmup iterations:"));
+        assertTrue(deferred.toString(), deferred.isEmpty());
+        assertEquals(12 * InstrumentedCommands.TASK_STEPS, InstrumentedCommands.steps);
+    }
+
+    @Test
+    public void sessionsShareCommandsByPath() {
+        // Each session of a server builds it's own hierarchy from the same definition.
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(InstrumentedCommands.class).build();
+        for (int i = 0; i < 2; i++) {
+            final CliShell session = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+                .setInstrumentation(instrumentation)
+                .build();
+            session.execute("succeed");
+            session.execute("ls");
+        }
+
+        final InstrumentationSnapshot snapshot = instrumentation.snapshot();
+        assertEquals(snapshot.toString(), 2, snapshot.getCommands().size());
+        assertEquals(2, snapshot.getCommand("/succeed").get().getCount());
+        assertEquals(2, snapshot.getCommand("ls").get().getCount());
+    }
+
+    private boolean contains(String prefix) {
+        for (String line : output) {
+            if (line.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, CommandStats> getCommands(InstrumentationSnapshot snapshot) {
+        final Map<String, CommandStats> commands = new HashMap<>();
+        for (CommandStats stats : snapshot.getCommands()) {
+            commands.put(stats.getCommandPath(), stats);
+        }
+        return commands;
+    }
+
+    public static class InstrumentedCommands {
+        private static final int ALLOCATION = 1024 * 1024;
+        private static final int TASK_STEPS = 3;
+
+        private static int steps;
+
+        private byte[] allocated;
+
+        @Command
+        public void allocate() {
+            allocated = new byte[ALLOCATION];
+        }
+
+        @Command
+        public void succeed() {
+        }
+
+        @Command
+        public IncrementalTask iterate() {
+            return new IncrementalTask() {
+                private int i;
+
+                @Override
+                public boolean step(CommandOutput output) {
+                    steps++;
+                    return ++i < TASK_STEPS;
+                }
+
+                @Override
+                public double getProgress() {
+                    return (double) i / TASK_STEPS;
+                }
+            };
+        }
+
+        @Command
+        public void fail() {
+            throw new IllegalStateException("Failed!");
+        }
+    }
+}
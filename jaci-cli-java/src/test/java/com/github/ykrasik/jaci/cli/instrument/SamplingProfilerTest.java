@@ -0,0 +1,114 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class SamplingProfilerTest {
+    private final SamplingProfiler profiler = new SamplingProfiler();
+
+    private Path file;
+    private Thread spinner;
+    private volatile boolean spinning = true;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("profile", ".collapsed");
+        spinner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                spin();
+            }
+        });
+        spinner.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        spinning = false;
+        spinner.join();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void profilesInBackground() throws Exception {
+        profiler.start(300, 5, false, Opt.of(file));
+        assertTrue(profiler.isRunning());
+        try {
+            profiler.start(300, 5, false, Opt.<Path>absent());
+            fail("Only one profile may run at a time!");
+        } catch (IllegalStateException ignored) {
+            // Expected.
+        }
+        awaitProfile();
+
+        final Profile profile = profiler.getLastProfile().get();
+        assertTrue(profile.toString(), profile.getSamples() > 0);
+        assertTrue(profile.getTotalCounts().toString(), profile.getTotalCounts().containsKey(spinFrame()));
+        assertFalse(profile.getOutputError().toString(), profile.getOutputError().isPresent());
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue(lines.toString(), !lines.isEmpty() && lines.get(0).matches(".+ \\d+"));
+    }
+
+    @Test
+    public void stop() throws Exception {
+        profiler.start(60 * 1000, 5, true, Opt.<Path>absent());
+        Thread.sleep(50);
+        profiler.stop();
+        awaitProfile();
+        assertTrue(profiler.getLastProfile().get().getDurationMillis() < 60 * 1000);
+    }
+
+    private void awaitProfile() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10 * 1000;
+        while (!profiler.getLastProfile().isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(profiler.getLastProfile().isPresent());
+    }
+
+    private String spinFrame() {
+        return SamplingProfilerTest.class.getName() + ".spin";
+    }
+
+    private void spin() {
+        long value = 0;
+        while (spinning) {
+            value += System.nanoTime() % 7;
+        }
+        if (value == 42) {
+            System.out.println(value);
+        }
+    }
+}
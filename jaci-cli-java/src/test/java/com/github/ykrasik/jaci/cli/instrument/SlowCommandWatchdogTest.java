@@ -0,0 +1,165 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class SlowCommandWatchdogTest {
+    private final List<String> output = new ArrayList<>();
+    private final HistogramShellInstrumentation histogram = new HistogramShellInstrumentation();
+    private final SlowCommandWatchdog watchdog = new SlowCommandWatchdog.Builder(histogram)
+        .setThresholdMillis(50)
+        .setSampleIntervalMillis(5)
+        .build();
+
+    private final CliPrinter printer = new CliPrinter(new CliOutput() {
+        @Override
+        public void println(String text) {
+            synchronized (output) {
+                output.add(text);
+            }
+        }
+    });
+    private final CliGui gui = new CliGui() {
+        @Override
+        public void setWorkingDirectory(CliDirectory workingDirectory) {
+        }
+    };
+
+    private CliShell shell;
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(SlowCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def, SlowCommandFactory.create(watchdog)), gui, printer, printer)
+            .setInstrumentation(watchdog)
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        watchdog.close();
+    }
+
+    @Test
+    public void samplesSlowCommands() {
+        shell.execute("fast; sleep");
+
+        final List<SlowExecution> executions = watchdog.getSlowExecutions();
+        assertEquals(1, executions.size());
+        final SlowExecution execution = executions.get(0);
+        assertEquals("sleep", execution.getCommand().getName());
+        assertTrue(execution.toString(), execution.getDurationNanos() >= 200 * 1000 * 1000L);
+        assertTrue(execution.toString(), execution.getSamples() > 0);
+        final String stack = execution.getCollapsedStacks().keySet().iterator().next();
+        assertTrue(stack, stack.contains(SlowCommands.class.getName() + ".sleep;"));
+
+        // Callbacks are still passed on to the delegate.
+        assertEquals(2, histogram.snapshot().getCommands().size());
+    }
+
+    @Test
+    public void stopsSamplingOnceMaxSamplesTaken() throws Exception {
+        final SlowCommandWatchdog cappedWatchdog = new SlowCommandWatchdog.Builder(histogram)
+            .setThresholdMillis(0)
+            .setSampleIntervalMillis(5)
+            .setMaxSamples(2)
+            .build();
+        try {
+            final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(SlowCommands.class).build();
+            final CliShell cappedShell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+                .setInstrumentation(cappedWatchdog)
+                .build();
+            final Thread executing = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    cappedShell.execute("sleep");
+                }
+            });
+            executing.start();
+
+            // Well into the command, all samples were taken and the execution is no longer scheduled.
+            Thread.sleep(100);
+            assertTrue(executing.isAlive());
+            assertEquals(0, cappedWatchdog.getScheduledExecutions());
+            executing.join();
+
+            final List<SlowExecution> executions = cappedWatchdog.getSlowExecutions();
+            assertEquals(1, executions.size());
+            assertEquals(2, executions.get(0).getSamples());
+        } finally {
+            cappedWatchdog.close();
+        }
+    }
+
+    @Test
+    public void finishedCommandIsNoLongerScheduled() {
+        shell.execute("fast");
+        assertEquals(0, watchdog.getScheduledExecutions());
+    }
+
+    @Test
+    public void slowCommand() {
+        shell.execute("slow");
+        assertTrue(output.toString(), output.contains("No slow commands recorded."));
+
+        shell.execute("sleep");
+        output.clear();
+        shell.execute("slow");
+        assertTrue(output.toString(), output.get(1).startsWith("#1 sleep: "));
+
+        output.clear();
+        shell.execute("slow -id 1 -clear");
+        assertTrue(output.toString(), output.get(1).startsWith("#1 sleep: "));
+        assertTrue(output.toString(), output.get(2).contains(".sleep;"));
+        assertTrue(watchdog.getSlowExecutions().isEmpty());
+    }
+
+    public static class SlowCommands {
+        @Command
+        public void fast() {
+        }
+
+        @Command
+        public void sleep() throws InterruptedException {
+            Thread.sleep(200);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.instrument;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ThreadResourceMeterTest {
+    @Test
+    public void detectDoesNotEnableMeasuring() {
+        final com.sun.management.ThreadMXBean threadBean = getAllocationBean();
+        final boolean wasEnabled = threadBean.isThreadAllocatedMemoryEnabled();
+        threadBean.setThreadAllocatedMemoryEnabled(false);
+        try {
+            final ThreadResourceMeter meter = ThreadResourceMeter.detect();
+            assertFalse(meter.isAllocationSupported());
+            assertEquals(0, meter.getCurrentThreadAllocatedBytes());
+            assertFalse(threadBean.isThreadAllocatedMemoryEnabled());
+        } finally {
+            threadBean.setThreadAllocatedMemoryEnabled(wasEnabled);
+        }
+    }
+
+    @Test
+    public void detectEnablesMeasuringOnlyWhenAsked() {
+        final com.sun.management.ThreadMXBean threadBean = getAllocationBean();
+        final boolean wasEnabled = threadBean.isThreadAllocatedMemoryEnabled();
+        threadBean.setThreadAllocatedMemoryEnabled(false);
+        try {
+            final ThreadResourceMeter meter = ThreadResourceMeter.detect(true);
+            assertTrue(meter.isAllocationSupported());
+            assertTrue(threadBean.isThreadAllocatedMemoryEnabled());
+            assertTrue(meter.getCurrentThreadAllocatedBytes() > 0);
+        } finally {
+            threadBean.setThreadAllocatedMemoryEnabled(wasEnabled);
+        }
+    }
+
+    private com.sun.management.ThreadMXBean getAllocationBean() {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        return allocationBean;
+    }
+}
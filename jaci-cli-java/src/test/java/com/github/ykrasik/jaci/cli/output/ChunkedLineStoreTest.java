@@ -0,0 +1,95 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ChunkedLineStoreTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("spill");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.delete(directory);
+    }
+
+    @Test
+    public void linesSpanChunks() {
+        final ChunkedLineStore store = new ChunkedLineStore(4);
+        store.add("ab");
+        store.add("");
+        store.add("cdefghij");
+        store.add("k");
+
+        assertEquals(4, store.size());
+        assertEquals("ab", store.get(0));
+        assertEquals("", store.get(1));
+        assertEquals("cdefghij", store.get(2));
+        assertEquals("k", store.get(3));
+
+        store.clear();
+        assertEquals(0, store.size());
+        store.add("lmn");
+        assertEquals("lmn", store.get(0));
+    }
+
+    @Test
+    public void spillsOldestChunks() throws Exception {
+        final ChunkedLineStore store = new ChunkedLineStore(8, 2, new FileChunkSpill(directory, 8));
+        for (int i = 0; i < 1000; i++) {
+            store.add("line " + i);
+        }
+
+        assertEquals(2, store.getResidentChunks());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("line " + i, store.get(i));
+        }
+
+        store.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            assertFalse("Spill file was not deleted", files.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void spillFileIsOnlyCreatedWhenNeeded() throws Exception {
+        final ChunkedLineStore store = new ChunkedLineStore(64, 2, new FileChunkSpill(directory, 64));
+        store.add("short");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            assertFalse(files.iterator().hasNext());
+        }
+        assertEquals("short", store.get(0));
+        store.close();
+    }
+}
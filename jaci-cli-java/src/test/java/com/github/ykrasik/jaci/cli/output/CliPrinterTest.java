@@ -0,0 +1,229 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class CliPrinterTest {
+    @Test
+    public void printsThrowableAsSingleBlock() {
+        final List<List<String>> blocks = new ArrayList<>();
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new CliPrinter(new BatchCliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+
+            @Override
+            public void printlnAll(List<String> block) {
+                blocks.add(new ArrayList<>(block));
+            }
+        });
+
+        printer.printThrowable(new IllegalStateException("failed"));
+
+        assertTrue(lines.isEmpty());
+        assertEquals(1, blocks.size());
+        assertTrue(blocks.get(0).size() > 1);
+        assertTrue(blocks.get(0).get(0).contains("failed"));
+    }
+
+    @Test
+    public void fallsBackToPrintlnWithoutBatchOutput() {
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new CliPrinter(new CliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+        });
+
+        printer.printThrowable(new IllegalStateException("failed"));
+
+        assertTrue(lines.size() > 1);
+        assertTrue(lines.get(0).contains("failed"));
+    }
+
+    @Test
+    public void subclassPrintlnIsUsedForBlocks() {
+        final List<List<String>> blocks = new ArrayList<>();
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new PrefixPrinter(new BatchCliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+
+            @Override
+            public void printlnAll(List<String> block) {
+                blocks.add(new ArrayList<>(block));
+            }
+        });
+
+        printer.printThrowable(new IllegalStateException("failed"));
+
+        assertTrue(blocks.isEmpty());
+        assertTrue(lines.size() > 1);
+        for (String line : lines) {
+            assertTrue(line, line.startsWith("> "));
+        }
+    }
+
+    @Test
+    public void subclassWithOutputKeepsCustomization() {
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new PrefixPrinter(CliOutput.NONE).withOutput(new CliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+        });
+
+        printer.println("text");
+
+        assertEquals("> text", lines.get(0));
+    }
+
+    @Test
+    public void subclassWithoutWithOutputKeepsFormatting() {
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new UpperCasePrinter(CliOutput.NONE).withOutput(new CliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+        });
+
+        printer.println("text");
+        printer.printThrowable(new IllegalStateException("failed"));
+
+        assertEquals("TEXT", lines.get(0));
+        assertTrue(lines.get(1), lines.get(1).contains("FAILED"));
+    }
+
+    @Test
+    public void subclassWithoutWithOutputIsUsableByShell() throws Exception {
+        JavaReflectionAccessor.install();
+        final Path directory = Files.createTempDirectory("printer");
+        final List<String> lines = new ArrayList<>();
+        final CliPrinter printer = new UpperCasePrinter(new CliOutput() {
+            @Override
+            public void println(String text) {
+                lines.add(text);
+            }
+        });
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(LineCommands.class).build();
+        final CliShell shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+            .setOutputRedirector(new FileOutputRedirector.Builder().setBaseDirectory(directory).setLineSeparator("\n").build())
+            .setPagerThreshold(3)
+            .setPagerPageSize(2)
+            .build();
+        final Path file = directory.resolve("out.txt");
+        try {
+            // Paged.
+            lines.clear();
+            assertTrue(shell.execute("lines 5"));
+            assertEquals(Arrays.asList("LINE 0", "LINE 1", "LINE 2"), lines.subList(1, 4));
+
+            // Background.
+            lines.clear();
+            assertTrue(shell.execute("lines 2 &"));
+            assertTrue(shell.execute("fg 1"));
+            assertTrue(lines.toString(), lines.containsAll(Arrays.asList("LINE 0", "LINE 1")));
+
+            // Redirected.
+            assertTrue(shell.execute("lines 2 > out.txt"));
+            assertEquals(Arrays.asList("LINE 0", "LINE 1"), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+            // Piped - the downstream command reads the formatted lines.
+            lines.clear();
+            assertTrue(shell.execute("lines 3 | grep LINE"));
+            assertEquals(Arrays.asList("LINE 0", "LINE 1", "LINE 2"), lines.subList(1, 4));
+        } finally {
+            shell.shutdown();
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    private static class UpperCasePrinter extends CliPrinter {
+        private UpperCasePrinter(CliOutput output) {
+            super(output);
+        }
+
+        @Override
+        protected String formatLine(String line) {
+            return line.toUpperCase();
+        }
+    }
+
+    public static class LineCommands {
+        private CommandOutput output;
+
+        @Command
+        public void lines(@IntParam("n") int n) {
+            for (int i = 0; i < n; i++) {
+                output.message("line " + i);
+            }
+        }
+    }
+
+    private static class PrefixPrinter extends CliPrinter {
+        private PrefixPrinter(CliOutput output) {
+            super(output);
+        }
+
+        @Override
+        public CliPrinter withOutput(CliOutput output) {
+            return new PrefixPrinter(output);
+        }
+
+        @Override
+        public void println(String text) {
+            super.println("> " + text);
+        }
+    }
+}
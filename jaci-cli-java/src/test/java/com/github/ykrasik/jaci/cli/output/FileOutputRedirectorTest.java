@@ -0,0 +1,182 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.output;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class FileOutputRedirectorTest {
+    private final List<String> output = new ArrayList<>();
+
+    private Path directory;
+    private CliShell shell;
+
+    @Before
+    public void setUp() throws Exception {
+        JavaReflectionAccessor.install();
+        directory = Files.createTempDirectory("redirect");
+        shell = createShell(IncrementalTaskRunner.DIRECT);
+        output.clear();
+    }
+
+    private CliShell createShell(IncrementalTaskRunner runner) {
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        };
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        // A tiny buffer, so that output is flushed while it is being printed.
+        final OutputRedirector redirector = new FileOutputRedirector.Builder()
+            .setBaseDirectory(directory)
+            .setBufferSize(8)
+            .setLineSeparator("\n")
+            .build();
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(RedirectCommands.class).build();
+        return new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+            .setOutputRedirector(redirector)
+            .setIncrementalTaskRunner(runner)
+            .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final Path file = directory.resolve("out.txt");
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testRedirect() throws Exception {
+        shell.execute("numbers 12 > out.txt");
+        shell.execute("numbers 2 | count >> 'out.txt'");
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "2"), read());
+
+        shell.execute("numbers 1 > out.txt");
+        assertEquals(Arrays.asList("0"), read());
+
+        // Only the command lines are printed, the output goes to the file.
+        for (String line : output) {
+            assertTrue(line, line.startsWith("["));
+        }
+    }
+
+    @Test
+    public void testInvalidRedirect() throws Exception {
+        shell.execute("numbers 1 > out.txt other.txt");
+        assertFalse(Files.exists(directory.resolve("out.txt")));
+        assertTrue(output.toString(), output.get(output.size() - 1).startsWith("Parse Error: "));
+    }
+
+    @Test
+    public void testRedirectionIsHeldOpenForTask() throws Exception {
+        final List<IncrementalTask> tasks = new ArrayList<>();
+        final List<CliCommandOutput> taskOutputs = new ArrayList<>();
+        shell = createShell(new IncrementalTaskRunner() {
+            @Override
+            public void run(IncrementalTask task, CommandOutput output) {
+                final CliCommandOutput cliOutput = (CliCommandOutput) output;
+                cliOutput.holdOutput();
+                tasks.add(task);
+                taskOutputs.add(cliOutput);
+            }
+        });
+        output.clear();
+
+        // The statement is done, but the redirection stays open for the task that is yet to run.
+        shell.execute("iterate 2 > out.txt");
+        assertEquals(1, tasks.size());
+        assertEquals(Collections.<String>emptyList(), read());
+
+        final IncrementalTask task = tasks.get(0);
+        final CliCommandOutput taskOutput = taskOutputs.get(0);
+        while (task.step(taskOutput)) {
+            // Keep stepping.
+        }
+        taskOutput.releaseOutput();
+        assertEquals(Arrays.asList("0", "1"), read());
+        for (String line : output) {
+            assertTrue(line, line.startsWith("["));
+        }
+    }
+
+    private List<String> read() throws Exception {
+        return Files.readAllLines(directory.resolve("out.txt"), StandardCharsets.UTF_8);
+    }
+
+    public static class RedirectCommands {
+        private CommandOutput output;
+
+        @Command
+        public void numbers(@IntParam("n") int n) {
+            for (int i = 0; i < n; i++) {
+                output.message(String.valueOf(i));
+            }
+        }
+
+        @Command
+        public IncrementalTask iterate(@IntParam("n") final int n) {
+            return new IncrementalTask() {
+                private int i;
+
+                @Override
+                public boolean step(CommandOutput stepOutput) {
+                    output.message(String.valueOf(i));
+                    return ++i < n;
+                }
+
+                @Override
+                public double getProgress() {
+                    return (double) i / n;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.output;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class PagerTest {
+    private final List<String> output = new ArrayList<>();
+
+    private CliShell shell;
+    private Pager pager;
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+
+        final CliPrinter printer = new CliPrinter(new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        });
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(LineCommands.class).build();
+        shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+            .setPagerThreshold(3)
+            .setPagerPageSize(2)
+            .build();
+        pager = shell.getPager().get();
+        output.clear();
+    }
+
+    @Test
+    public void pagesOutputBeyondThreshold() {
+        assertTrue(shell.execute("lines 8"));
+
+        // The echoed command line is followed by the lines up to the threshold and a hint about the paged lines.
+        assertEquals(5, output.size());
+        assertEquals(Arrays.asList("0", "1", "2"), output.subList(1, 4));
+        assertTrue(output.get(4).startsWith("-- 5 more lines."));
+        assertEquals(5, pager.getPagedLines());
+
+        output.clear();
+        assertTrue(pager.next());
+        assertEquals(Arrays.asList("3", "4", "-- Lines 1-2 of 5 --"), output);
+
+        output.clear();
+        assertTrue(pager.next());
+        assertTrue(pager.next());
+        assertFalse(pager.next());
+        assertEquals(Arrays.asList("5", "6", "-- Lines 3-4 of 5 --", "7", "-- Lines 5-5 of 5 --"), output);
+
+        output.clear();
+        assertTrue(pager.prev());
+        assertEquals(Arrays.asList("5", "6", "-- Lines 3-4 of 5 --"), output);
+    }
+
+    @Test
+    public void searchesPagedLines() {
+        assertTrue(shell.execute("lines 20"));
+
+        output.clear();
+        assertTrue(pager.search("1"));
+        assertEquals(Arrays.asList("10", "11", "-- Lines 8-9 of 17 --"), output);
+
+        // Repeating the search shows the next match.
+        output.clear();
+        assertTrue(pager.search("1"));
+        assertEquals("11", output.get(0));
+
+        output.clear();
+        assertFalse(pager.search("x"));
+        assertTrue(output.isEmpty());
+    }
+
+    @Test
+    public void pageCommandDoesNotReplacePagedLines() {
+        assertTrue(shell.execute("lines 8"));
+        assertTrue(shell.execute("page"));
+        assertTrue(shell.execute("page"));
+        assertTrue(output.contains("-- Lines 3-4 of 5 --"));
+        assertEquals(5, pager.getPagedLines());
+    }
+
+    @Test
+    public void smallOutputIsNotPaged() {
+        assertTrue(shell.execute("lines 2"));
+        assertEquals(Arrays.asList("0", "1"), output.subList(1, output.size()));
+        assertEquals(0, pager.getPagedLines());
+    }
+
+    public static class LineCommands {
+        private CommandOutput output;
+
+        @Command
+        public void lines(@IntParam("n") int n) {
+            for (int i = 0; i < n; i++) {
+                output.message(String.valueOf(i));
+            }
+        }
+    }
+}
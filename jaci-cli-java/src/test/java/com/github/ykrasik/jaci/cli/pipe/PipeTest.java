@@ -0,0 +1,184 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.pipe;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.CommandJob;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.execution.CommandJobFuture;
+import com.github.ykrasik.jaci.cli.execution.DirectExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.ExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.ThreadedExecutionModel;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.command.CommandOutputBinding;
+import com.github.ykrasik.jaci.command.CommandOutputPromise;
+import com.github.ykrasik.jaci.command.ThreadLocalCommandOutputBinding;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import com.github.ykrasik.jaci.util.opt.Opt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class PipeTest {
+    private final List<String> output = new ArrayList<>();
+
+    private ThreadedExecutionModel model;
+
+    @Before
+    public void setUp() throws Exception {
+        JavaReflectionAccessor.install();
+        model = new ThreadedExecutionModel.Builder().setPipeCapacity(4).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        model.close();
+    }
+
+    @Test
+    public void testFilters() throws Exception {
+        for (ExecutionModel executionModel : Arrays.asList(new DirectExecutionModel(), model)) {
+            final CliShell shell = createShell(executionModel);
+            execute(shell, "numbers 100 | grep 1 | count");
+            execute(shell, "numbers 100 | grep 1 -v | head 3");
+            execute(shell, "numbers 100 | grep 9 -max 2");
+            assertEquals(Arrays.asList("19", "0", "2", "3", "9", "19"), output);
+        }
+    }
+
+    @Test
+    public void testHeadStopsUpstream() throws Exception {
+        final CliShell shell = createShell(model);
+        assertEquals(CommandJob.State.SUCCEEDED, execute(shell, "forever | head 2"));
+        assertEquals(Arrays.asList("0", "1"), output);
+    }
+
+    @Test
+    public void testUserCommandReadsInput() throws Exception {
+        // The upstream & downstream commands belong to the same object, and may execute concurrently.
+        ThreadLocalCommandOutputBinding.install();
+        try {
+            for (ExecutionModel executionModel : Arrays.asList(new DirectExecutionModel(), model)) {
+                final CliShell shell = createShell(executionModel);
+                assertEquals(CommandJob.State.SUCCEEDED, execute(shell, "numbers 10 | sum"));
+                assertEquals(CommandJob.State.SUCCEEDED, execute(shell, "sum"));
+                assertEquals(CommandJob.State.SUCCEEDED, execute(shell, "numbers 10 | sum | grep 4"));
+                assertEquals(Arrays.asList("45", "0", "45"), output);
+            }
+        } finally {
+            CommandOutputPromise.setBindingFactory(CommandOutputBinding.SHARED);
+        }
+    }
+
+    @Test
+    public void testLimitedCommandTwiceInPipeline() throws Exception {
+        // Both stages execute the same command of the same object concurrently.
+        ThreadLocalCommandOutputBinding.install();
+        final ThreadedExecutionModel limitedModel = new ThreadedExecutionModel.Builder()
+            .setPipeCapacity(4)
+            .setCommandConcurrency("/sum", 1)
+            .build();
+        try {
+            final CliShell shell = createShell(limitedModel);
+            assertEquals(CommandJob.State.SUCCEEDED, execute(shell, "numbers 10 | sum | sum"));
+            assertEquals(Arrays.asList("45"), output);
+        } finally {
+            limitedModel.close();
+            CommandOutputPromise.setBindingFactory(CommandOutputBinding.SHARED);
+        }
+    }
+
+    private CommandJob.State execute(CliShell shell, String commandLine) throws Exception {
+        return new CommandJobFuture(shell.executeAsync(commandLine)).get(5, TimeUnit.SECONDS);
+    }
+
+    private CliShell createShell(ExecutionModel executionModel) {
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                // Only record the output of the commands.
+                if (!text.startsWith("[")) {
+                    synchronized (output) {
+                        output.add(text);
+                    }
+                }
+            }
+        };
+        final CliGui gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(PipeCommands.class).build();
+        final CliShell shell = new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput))
+            .setExecutionModel(executionModel)
+            .build();
+
+        // Discard the welcome message.
+        synchronized (output) {
+            output.clear();
+        }
+        return shell;
+    }
+
+    public static class PipeCommands {
+        private CommandOutput output;
+
+        @Command
+        public void numbers(@IntParam("n") int n) {
+            for (int i = 0; i < n; i++) {
+                output.message(String.valueOf(i));
+            }
+        }
+
+        @Command
+        public void sum() {
+            final CommandInput input = output.getInput();
+            int sum = 0;
+            Opt<String> line;
+            while ((line = input.readLine()).isPresent()) {
+                sum += Integer.parseInt(line.get());
+            }
+            output.message(String.valueOf(sum));
+        }
+
+        @Command
+        public void forever() {
+            for (int i = 0; !output.isCancelled(); i++) {
+                output.message(String.valueOf(i));
+            }
+        }
+    }
+}
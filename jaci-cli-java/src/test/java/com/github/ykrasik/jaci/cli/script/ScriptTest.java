@@ -0,0 +1,188 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.script;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ScriptTest {
+    private static int count;
+
+    private final List<String> output = new ArrayList<>();
+    private final ScriptCache cache = new ScriptCache();
+
+    private CliGui gui;
+    private CliShell shell;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        JavaReflectionAccessor.install();
+        count = 0;
+
+        final CliOutput cliOutput = new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        };
+        gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(ScriptCommands.class).build();
+        final CliCommandHierarchyImpl hierarchy = CliCommandHierarchyImpl.from(def, SourceCommandFactory.create(cache));
+        shell = new CliShell.Builder(hierarchy, gui, new CliPrinter(cliOutput), new CliPrinter(cliOutput)).build();
+
+        file = Files.createTempFile("script", ".jaci");
+        write("# Comment", "inc; inc", "", "fail", "inc");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        shell.execute("source '" + file + "'");
+        assertEquals(2, count);
+        assertOutputStartsWith("Script '" + file + "': Executed 2/3 lines in ");
+    }
+
+    @Test
+    public void testContinue() throws Exception {
+        shell.execute("source '" + file + "' -continue");
+        assertEquals(3, count);
+        assertOutputStartsWith("Line 5: ");
+    }
+
+    @Test
+    public void testMultipleStatements() throws Exception {
+        shell.execute("inc; inc ;inc");
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final Script script = cache.load(file);
+        assertSame(script, cache.load(file));
+
+        final ScriptLine.Statement statement = script.getLines().get(0).getStatements().get(0);
+        assertSame(statement.prepare(shell), statement.prepare(shell));
+
+        write("inc");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertNotSame(script, cache.load(file));
+    }
+
+    @Test
+    public void testFailedLinesAreNotEchoed() throws Exception {
+        write("root:x:0:0:secret");
+        shell.execute("source '" + file + "' -continue");
+        for (String line : output) {
+            assertFalse(line, line.contains("secret"));
+        }
+    }
+
+    @Test
+    public void testConfined() throws Exception {
+        final CliCommandHierarchyImpl hierarchy = CliCommandHierarchyImpl.from(
+            new CommandHierarchyDef.Builder().processClasses(ScriptCommands.class).build(),
+            SourceCommandFactory.createConfined(cache, file.getParent())
+        );
+        final CliPrinter printer = new CliPrinter(CliOutput.NONE);
+        final CliShell confinedShell = new CliShell.Builder(hierarchy, gui, printer, printer).build();
+
+        confinedShell.execute("source '" + file.getFileName() + "'");
+        assertEquals(2, count);
+
+        confinedShell.execute("source '" + file + "'");
+        confinedShell.execute("source '../" + file.getParent().getFileName() + '/' + file.getFileName() + "'");
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        final ScriptCache boundedCache = new ScriptCache(StandardCharsets.UTF_8, 1);
+        final Path other = Files.createTempFile("script", ".jaci");
+        try {
+            final Script script = boundedCache.load(file);
+            boundedCache.load(other);
+            assertEquals(1, boundedCache.size());
+            assertNotSame(script, boundedCache.load(file));
+        } finally {
+            Files.delete(other);
+        }
+    }
+
+    private void write(String... lines) throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void assertOutputStartsWith(String prefix) {
+        for (String line : output) {
+            if (line.startsWith(prefix)) {
+                return;
+            }
+        }
+        fail("Output doesn't contain a line starting with '" + prefix + "': " + output);
+    }
+
+    public static class ScriptCommands {
+        @Command
+        public void inc() {
+            count++;
+        }
+
+        @Command
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.Command;
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.api.IntParam;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class IncrementalTasksTest {
+    private final List<String> output = new ArrayList<>();
+
+    private CliPrinter printer;
+    private CliGui gui;
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+
+        printer = new CliPrinter(new CliOutput() {
+            @Override
+            public void println(String text) {
+                output.add(text);
+            }
+        });
+        gui = new CliGui() {
+            @Override
+            public void setWorkingDirectory(CliDirectory workingDirectory) {
+            }
+        };
+    }
+
+    @Test
+    public void directRunnerRunsAllSteps() {
+        final CliShell shell = createShell(IncrementalTaskRunner.DIRECT);
+        output.clear();
+        assertTrue(shell.execute("iterate 3"));
+
+        // First line is the echoed command line.
+        assertEquals(Arrays.asList("0", "1", "2"), output.subList(1, output.size()));
+    }
+
+    @Test
+    public void shellRunnerRunsStepsLater() throws Exception {
+        final List<IncrementalTask> tasks = new ArrayList<>();
+        final CliShell shell = createShell(new IncrementalTaskRunner() {
+            @Override
+            public void run(IncrementalTask task, CommandOutput output) {
+                tasks.add(task);
+            }
+        });
+        assertTrue(shell.execute("iterate 2"));
+        assertEquals(1, tasks.size());
+
+        // Steps performed after the command returned still write to the output they are given through the command's output field.
+        final RecordingOutput stepOutput = new RecordingOutput();
+        final IncrementalTask task = tasks.get(0);
+        assertEquals(0.0, task.getProgress(), 0);
+        assertTrue(task.step(stepOutput));
+        assertFalse(task.step(stepOutput));
+        assertEquals(1.0, task.getProgress(), 0);
+        assertEquals(Arrays.asList("0", "1"), stepOutput.messages);
+    }
+
+    private CliShell createShell(IncrementalTaskRunner runner) {
+        final CommandHierarchyDef def = new CommandHierarchyDef.Builder().processClasses(IncrementalCommands.class).build();
+        return new CliShell.Builder(CliCommandHierarchyImpl.from(def), gui, printer, printer)
+            .setIncrementalTaskRunner(runner)
+            .build();
+    }
+
+    public static class IncrementalCommands {
+        private CommandOutput output;
+
+        @Command
+        public IncrementalTask iterate(@IntParam("n") final int n) {
+            return new IncrementalTask() {
+                private int i;
+
+                @Override
+                public boolean step(CommandOutput stepOutput) {
+                    output.message(String.valueOf(i));
+                    return ++i < n;
+                }
+
+                @Override
+                public double getProgress() {
+                    return (double) i / n;
+                }
+            };
+        }
+    }
+
+    private static class RecordingOutput implements CommandOutput {
+        private final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void message(String text) {
+            messages.add(text);
+        }
+
+        @Override
+        public void error(String text) {
+            messages.add("error: " + text);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public CommandInput getInput() {
+            return CommandInput.EMPTY;
+        }
+    }
+}
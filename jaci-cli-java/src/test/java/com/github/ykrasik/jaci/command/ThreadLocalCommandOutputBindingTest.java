@@ -0,0 +1,172 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ThreadLocalCommandOutputBindingTest {
+    private final CommandOutputPromise promise = new CommandOutputPromise(new ThreadLocalCommandOutputBinding());
+
+    @Test
+    public void concurrentInvocationsWriteToTheirOwnOutput() throws Exception {
+        final RecordingOutput output1 = new RecordingOutput();
+        final RecordingOutput output2 = new RecordingOutput();
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        final Thread thread1 = new Thread(new Invocation(output1, "1", barrier));
+        final Thread thread2 = new Thread(new Invocation(output2, "2", barrier));
+        thread1.start();
+        thread2.start();
+        thread1.join();
+        thread2.join();
+
+        assertEquals(Arrays.asList("1", "1"), output1.messages);
+        assertEquals(Arrays.asList("2", "2"), output2.messages);
+    }
+
+    @Test
+    public void nestedInvocationRestoresOuterOutput() {
+        final RecordingOutput outer = new RecordingOutput();
+        final RecordingOutput inner = new RecordingOutput();
+
+        final CommandOutput previousOuter = promise.bind(outer);
+        promise.message("outer1");
+        final CommandOutput previousInner = promise.bind(inner);
+        promise.message("inner");
+        promise.restore(previousInner);
+        promise.message("outer2");
+        promise.restore(previousOuter);
+
+        assertEquals(Arrays.asList("outer1", "outer2"), outer.messages);
+        assertEquals(Collections.singletonList("inner"), inner.messages);
+    }
+
+    @Test
+    public void unboundThreadHasNoOutput() throws Exception {
+        final RecordingOutput output = new RecordingOutput();
+        final CommandOutput previous = promise.bind(output);
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        try {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        promise.message("background");
+                    } catch (IllegalStateException e) {
+                        errors.add(e);
+                    }
+                }
+            });
+            thread.start();
+            thread.join();
+        } finally {
+            promise.restore(previous);
+        }
+
+        assertEquals(1, errors.size());
+        assertEquals(Collections.<String>emptyList(), output.messages);
+    }
+
+    @Test
+    public void capturedOutputCanBeUsedFromAnotherThread() throws Exception {
+        final RecordingOutput output = new RecordingOutput();
+        final CommandOutput previous = promise.bind(output);
+        final CommandOutput captured;
+        try {
+            captured = promise.capture();
+        } finally {
+            promise.restore(previous);
+        }
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                captured.message("background");
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(Collections.singletonList("background"), output.messages);
+    }
+
+    private class Invocation implements Runnable {
+        private final CommandOutput output;
+        private final String message;
+        private final CyclicBarrier barrier;
+
+        private Invocation(CommandOutput output, String message, CyclicBarrier barrier) {
+            this.output = output;
+            this.message = message;
+            this.barrier = barrier;
+        }
+
+        @Override
+        public void run() {
+            final CommandOutput previous = promise.bind(output);
+            try {
+                // Make sure both invocations are bound before either of them writes.
+                barrier.await();
+                promise.message(message);
+                barrier.await();
+                promise.message(message);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                promise.restore(previous);
+            }
+        }
+    }
+
+    private static class RecordingOutput implements CommandOutput {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void message(String text) {
+            messages.add(text);
+        }
+
+        @Override
+        public void error(String text) {
+            messages.add(text);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public CommandInput getInput() {
+            return CommandInput.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.commands.*;
+import com.github.ykrasik.jaci.directory.CommandDirectoryDef;
+import com.github.ykrasik.jaci.param.ParamDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ForkJoinProcessingExecutorTest {
+    private static final Class<?>[] CLASSES = {
+        BasicCommands.class,
+        EnumCommands.class,
+        InnerClassCommands.class,
+        MandatoryParamsCommands.class,
+        NullableParamsCommands.class,
+        OptionalParamsCommands.class,
+        PathCommands1.class,
+        PathCommands2.class,
+        StringParamCommands.class
+    };
+
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+    }
+
+    @Test
+    public void sameHierarchyAsSequential() {
+        final CommandHierarchyDef sequential = new CommandHierarchyDef.Builder().processClasses(CLASSES).build();
+        final CommandHierarchyDef parallel = new CommandHierarchyDef.Builder()
+            .setProcessingExecutor(new ForkJoinProcessingExecutor())
+            .processClasses(CLASSES)
+            .build();
+
+        assertEquals(describe(sequential.getRoot()), describe(parallel.getRoot()));
+    }
+
+    @Test
+    public void sameConflictAsSequential() {
+        final String sequential = getConflict(ProcessingExecutor.SEQUENTIAL);
+        final String parallel = getConflict(new ForkJoinProcessingExecutor());
+        assertEquals(sequential, parallel);
+    }
+
+    private String getConflict(ProcessingExecutor executor) {
+        try {
+            new CommandHierarchyDef.Builder()
+                .setProcessingExecutor(executor)
+                .processClasses(PathCommands1.class, BasicCommands.class, PathCommands1.class, PathCommands2.class);
+            fail("Conflict wasn't reported!");
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String describe(CommandDirectoryDef directory) {
+        final List<String> children = new ArrayList<>();
+        for (CommandDirectoryDef child : directory.getDirectoryDefs()) {
+            children.add(describe(child));
+        }
+        for (CommandDef command : directory.getCommandDefs()) {
+            final StringBuilder sb = new StringBuilder(command.getIdentifier().toString()).append('(');
+            for (ParamDef<?> param : command.getParamDefs()) {
+                sb.append(param.getIdentifier()).append(',');
+            }
+            children.add(sb.append(')').toString());
+        }
+        Collections.sort(children);
+        return directory.getIdentifier() + children.toString();
+    }
+}
@@ -0,0 +1,139 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.commands.*;
+import com.github.ykrasik.jaci.directory.CommandDirectoryDef;
+import com.github.ykrasik.jaci.param.ParamDef;
+import com.github.ykrasik.jaci.param.StringParamDef;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class SnapshotCommandDefProviderTest {
+    private static final Class<?>[] CLASSES = {
+        BasicCommands.class,
+        EnumCommands.class,
+        InnerClassCommands.class,
+        MandatoryParamsCommands.class,
+        NullableParamsCommands.class,
+        OptionalParamsCommands.class,
+        PathCommands1.class,
+        PathCommands2.class,
+        StringParamCommands.class
+    };
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        JavaReflectionAccessor.install();
+        snapshotFile = temp.getRoot().toPath().resolve("hierarchy.snapshot");
+    }
+
+    @Test
+    public void sameHierarchyAsReflection() {
+        final String expected = describe(new CommandHierarchyDef.Builder().processClasses(CLASSES).build());
+
+        final SnapshotCommandDefProvider recording = new SnapshotCommandDefProvider(snapshotFile, CLASSES);
+        assertEquals(expected, describe(recording));
+        assertFalse(recording.loadedFromSnapshot);
+        assertTrue(Files.isRegularFile(snapshotFile));
+
+        final SnapshotCommandDefProvider loading = new SnapshotCommandDefProvider(snapshotFile, CLASSES);
+        assertEquals(expected, describe(loading));
+        assertTrue(loading.loadedFromSnapshot);
+    }
+
+    @Test
+    public void corruptSnapshotIsReplaced() throws Exception {
+        Files.write(snapshotFile, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+        final String expected = describe(new CommandHierarchyDef.Builder().processClasses(CLASSES).build());
+
+        final SnapshotCommandDefProvider corrupt = new SnapshotCommandDefProvider(snapshotFile, CLASSES);
+        assertEquals(expected, describe(corrupt));
+        assertFalse(corrupt.loadedFromSnapshot);
+
+        final SnapshotCommandDefProvider replaced = new SnapshotCommandDefProvider(snapshotFile, CLASSES);
+        assertEquals(expected, describe(replaced));
+        assertTrue(replaced.loadedFromSnapshot);
+    }
+
+    @Test
+    public void snapshotOfOtherClassesIsIgnored() {
+        describe(new SnapshotCommandDefProvider(snapshotFile, BasicCommands.class));
+
+        final SnapshotCommandDefProvider provider = new SnapshotCommandDefProvider(snapshotFile, EnumCommands.class);
+        assertEquals(describe(new CommandHierarchyDef.Builder().processClasses(EnumCommands.class).build()), describe(provider));
+        assertFalse(provider.loadedFromSnapshot);
+    }
+
+    private String describe(CommandDefProvider provider) {
+        return describe(new CommandHierarchyDef.Builder().addProviders(provider).build());
+    }
+
+    private String describe(CommandHierarchyDef hierarchy) {
+        return describe(hierarchy.getRoot());
+    }
+
+    private String describe(CommandDirectoryDef directory) {
+        final List<String> children = new ArrayList<>();
+        for (CommandDirectoryDef child : directory.getDirectoryDefs()) {
+            children.add(describe(child));
+        }
+        for (CommandDef command : directory.getCommandDefs()) {
+            final StringBuilder sb = new StringBuilder(command.getIdentifier().toString()).append('(');
+            for (ParamDef<?> param : command.getParamDefs()) {
+                sb.append(describe(param)).append(',');
+            }
+            children.add(sb.append(')').toString());
+        }
+        Collections.sort(children);
+        return directory.getIdentifier() + children.toString();
+    }
+
+    private String describe(ParamDef<?> param) {
+        final StringBuilder sb = new StringBuilder().append(param.getIdentifier());
+        sb.append("[nullable=").append(param.isNullable());
+        if (param.getDefaultValueSupplier().isPresent()) {
+            sb.append(", default=").append(param.getDefaultValueSupplier().get().get());
+        }
+        if (param instanceof StringParamDef) {
+            sb.append(", values=").append(((StringParamDef) param).getValuesSupplier().get());
+        }
+        return sb.append(']').toString();
+    }
+}
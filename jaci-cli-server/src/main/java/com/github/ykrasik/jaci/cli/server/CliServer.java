@@ -0,0 +1,676 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server;
+
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.cli.execution.ExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.ThreadedExecutionModel;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchy;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.instrument.HistogramShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.ProfileCommandFactory;
+import com.github.ykrasik.jaci.cli.instrument.SamplingProfiler;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.SlowCommandFactory;
+import com.github.ykrasik.jaci.cli.instrument.SlowCommandWatchdog;
+import com.github.ykrasik.jaci.cli.output.OutputRedirector;
+import com.github.ykrasik.jaci.cli.script.ScriptCache;
+import com.github.ykrasik.jaci.cli.script.SourceCommandFactory;
+import com.github.ykrasik.jaci.command.ThreadLocalCommandOutputBinding;
+import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;
+import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.hierarchy.ForkJoinProcessingExecutor;
+import com.github.ykrasik.jaci.hierarchy.ProcessingExecutor;
+import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A headless CLI server that hosts many concurrent CLI sessions over a telnet-style line protocol.<br>
+ * Any telnet client (or netcat) can connect to it.<br>
+ * <br>
+ * All connections are served by a single I/O thread multiplexing a non-blocking {@link Selector}.
+ * Each connection gets it's own {@link CliSession} with it's own working directory, command line and history,
+ * while the command definitions are shared between all sessions. This means that command classes are instantiated
+ * once per server and their instances must tolerate being called from different sessions.<br>
+ * <br>
+ * Commands are executed according to the server's {@link ExecutionModel} - by default, a {@link ThreadedExecutionModel}
+ * that executes each session's commands off the I/O thread, so a slow command in one session doesn't stall other sessions.
+ * Using an execution model that executes commands on the calling thread would execute them on the I/O thread.<br>
+ * Output is buffered per session and written with gathering writes. A session whose pending output exceeds the high
+ * watermark stops being read from until it drains to the low watermark, so a slow client cannot exhaust the server's memory.<br>
+ * Commands that take longer than a threshold are sampled by a {@link SlowCommandWatchdog}, and can be inspected with
+ * the 'slow' system command. If enabled, the whole JVM can be profiled with the 'profile' system command.<br>
+ * <br>
+ * Created through a {@link Builder}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CliServer implements Closeable {
+    private static final String THREAD_NAME = "jaci-cli-server";
+
+    private final CommandHierarchyDef hierarchyDef;
+    private final InetSocketAddress bindAddress;
+    private final CliServerConfig config;
+    private final Closeable ownedExecutionModel;
+    private final Opt<SlowCommandWatchdog> watchdog;
+    private final Opt<Path> scriptDirectory;
+    private final boolean profileCommand;
+    private final Opt<Path> profileOutputDirectory;
+
+    private final SamplingProfiler profiler = new SamplingProfiler();
+    private final Set<CliSession> sessions = Collections.newSetFromMap(new ConcurrentHashMap<CliSession, Boolean>());
+    private final Queue<CliSession> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread ioThread;
+    private volatile boolean running;
+
+    private CliServer(CommandHierarchyDef hierarchyDef,
+                      InetSocketAddress bindAddress,
+                      CliServerConfig config,
+                      Closeable ownedExecutionModel,
+                      Opt<SlowCommandWatchdog> watchdog,
+                      Opt<Path> scriptDirectory,
+                      boolean profileCommand,
+                      Opt<Path> profileOutputDirectory) {
+        this.hierarchyDef = Objects.requireNonNull(hierarchyDef, "hierarchyDef");
+        this.bindAddress = Objects.requireNonNull(bindAddress, "bindAddress");
+        this.config = Objects.requireNonNull(config, "config");
+        this.ownedExecutionModel = ownedExecutionModel;
+        this.watchdog = Objects.requireNonNull(watchdog, "watchdog");
+        this.scriptDirectory = Objects.requireNonNull(scriptDirectory, "scriptDirectory");
+        this.profileCommand = profileCommand;
+        this.profileOutputDirectory = Objects.requireNonNull(profileOutputDirectory, "profileOutputDirectory");
+    }
+
+    /**
+     * Bind the server's socket and start serving connections on a new thread.
+     *
+     * @return {@code this}, for chaining.
+     * @throws IOException If the server socket could not be bound.
+     * @throws IllegalStateException If the server was already started.
+     */
+    public synchronized CliServer start() throws IOException {
+        if (selector != null) {
+            throw new IllegalStateException("Server already started!");
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(bindAddress);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, THREAD_NAME);
+        ioThread.setDaemon(true);
+        ioThread.start();
+        return this;
+    }
+
+    /**
+     * @return The port the server is listening on. Useful when the server was bound to an ephemeral port (0).
+     * @throws IllegalStateException If the server wasn't started.
+     */
+    public int getPort() {
+        if (serverChannel == null) {
+            throw new IllegalStateException("Server not started!");
+        }
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return The amount of currently connected sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return The instrumentation all sessions report to, through which their statistics can be read.
+     */
+    public ShellInstrumentation getInstrumentation() {
+        return config.getInstrumentation();
+    }
+
+    /**
+     * @return The watchdog that samples slow commands of all sessions, if enabled.
+     */
+    public Opt<SlowCommandWatchdog> getSlowCommandWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * @return Whether the server is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop accepting connections, close all sessions and stop the I/O thread.
+     * If the server created it's own execution model, it is closed as well.
+     */
+    @Override
+    public void close() {
+        final Thread ioThread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            ioThread = this.ioThread;
+            selector.wakeup();
+        }
+        if (ioThread != null && Thread.currentThread() != ioThread) {
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return Whether the calling thread is the server's I/O thread.
+     */
+    boolean isIoThread() {
+        return Thread.currentThread() == ioThread;
+    }
+
+    /**
+     * Schedule a flush of the session's output on the I/O thread.
+     * Called by sessions when output is printed from a thread other than the I/O thread.
+     */
+    void requestFlush(CliSession session) {
+        pendingFlushes.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Called by a session once it's closed.
+     */
+    void onSessionClosed(CliSession session) {
+        sessions.remove(session);
+    }
+
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                processPendingFlushes();
+
+                final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    final SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        handle(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            running = false;
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            // Each session has it's own working directory, so it needs it's own hierarchy.
+            // The profiler is shared between all sessions. Scripts are cached per session, because their statements
+            // are prepared into the commands of the session's hierarchy.
+            final CliCommandHierarchy hierarchy = CliCommandHierarchyImpl.from(hierarchyDef, createExtraSystemCommands());
+            final CliSession session = new CliSession(this, channel, hierarchy, config);
+            final SelectionKey key = channel.register(selector, SelectionKey.OP_READ, session);
+            session.setKey(key);
+            sessions.add(session);
+            flush(session);
+        }
+    }
+
+    private CliCommand[] createExtraSystemCommands() {
+        final List<CliCommand> commands = new ArrayList<>(3);
+        if (scriptDirectory.isPresent()) {
+            commands.add(SourceCommandFactory.createConfined(new ScriptCache(), scriptDirectory.get()));
+        }
+        if (profileCommand) {
+            commands.add(ProfileCommandFactory.createConfined(profiler, profileOutputDirectory));
+        }
+        if (watchdog.isPresent()) {
+            commands.add(SlowCommandFactory.create(watchdog.get()));
+        }
+        return commands.toArray(new CliCommand[commands.size()]);
+    }
+
+    private void handle(SelectionKey key) {
+        final CliSession session = (CliSession) key.attachment();
+        try {
+            if (key.isReadable()) {
+                session.read();
+            } else if (key.isWritable()) {
+                session.flush();
+            }
+        } catch (IOException e) {
+            session.close();
+        }
+    }
+
+    private void processPendingFlushes() {
+        CliSession session;
+        while ((session = pendingFlushes.poll()) != null) {
+            flush(session);
+        }
+    }
+
+    private void flush(CliSession session) {
+        try {
+            session.flush();
+        } catch (IOException e) {
+            session.close();
+        }
+    }
+
+    private void shutdown() {
+        for (CliSession session : new ArrayList<>(sessions)) {
+            session.close();
+        }
+        pendingFlushes.clear();
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // Nothing to do.
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Nothing to do.
+        }
+        if (ownedExecutionModel != null) {
+            try {
+                ownedExecutionModel.close();
+            } catch (IOException ignored) {
+                // Nothing to do.
+            }
+        }
+        if (watchdog.isPresent()) {
+            watchdog.get().close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CliServer{");
+        sb.append("bindAddress=").append(bindAddress);
+        sb.append(", sessions=").append(sessions.size());
+        sb.append(", running=").append(running);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A builder for a {@link CliServer}.
+     */
+    public static class Builder {
+        static {
+            // Set reflection to the Java API.
+            JavaReflectionAccessor.install();
+        }
+
+        private final CommandHierarchyDef.Builder hierarchyBuilder = new CommandHierarchyDef.Builder();
+
+        private String bindAddress = "localhost";
+        private int port = 0;
+        private Charset charset = Charset.forName("UTF-8");
+        private int maxCommandHistory = 30;
+        private int pagerThreshold;
+        private int pagerPageSize = 50;
+        private Opt<Path> pagerSpillDirectory = Opt.absent();
+        private int lowWatermark = 64 * 1024;
+        private int highWatermark = 256 * 1024;
+        private boolean telnetNegotiation = true;
+        private ExecutionModel executionModel;
+        private Opt<OutputRedirector> outputRedirector = Opt.absent();
+        private ShellInstrumentation instrumentation = new HistogramShellInstrumentation();
+        private long slowCommandThresholdMillis = 1000;
+        private Opt<Path> scriptDirectory = Opt.absent();
+        private boolean profileCommand;
+        private Opt<Path> profileOutputDirectory = Opt.absent();
+
+        /**
+         * Set the {@link ProcessingExecutor} used by {@link #processClasses(Class[])} and {@link #process(Object...)}.
+         * Must be set before the classes are processed, for example to a {@link ForkJoinProcessingExecutor}
+         * to process many classes in parallel.
+         *
+         * @param processingExecutor Processing executor to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setProcessingExecutor(ProcessingExecutor processingExecutor) {
+            hierarchyBuilder.setProcessingExecutor(processingExecutor);
+            return this;
+        }
+
+        /**
+         * Process the classes and add any commands defined through annotations to this builder.
+         * Each class must have a no-args constructor.
+         *
+         * @param classes Classes to process.
+         * @return {@code this}, for chaining.
+         */
+        public Builder processClasses(Class<?>... classes) {
+            hierarchyBuilder.processClasses(classes);
+            return this;
+        }
+
+        /**
+         * Process the objects' classes and add any commands defined through annotations to this builder.
+         *
+         * @param instances Objects whose classes to process.
+         * @return {@code this}, for chaining.
+         */
+        public Builder process(Object... instances) {
+            hierarchyBuilder.process(instances);
+            return this;
+        }
+
+        /**
+         * Add the commands provided by the {@link CommandDefProvider}s to this builder, without reflection.
+         * Providers are usually generated at compile time by the Jaci annotation processor.
+         *
+         * @param providers Providers whose commands to add.
+         * @return {@code this}, for chaining.
+         */
+        public Builder addProviders(CommandDefProvider... providers) {
+            hierarchyBuilder.addProviders(providers);
+            return this;
+        }
+
+        /**
+         * Set the address to bind the server to. Defaults to 'localhost', which only accepts local connections.
+         *
+         * @param bindAddress Host name or IP address to bind to.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setBindAddress(String bindAddress) {
+            this.bindAddress = Objects.requireNonNull(bindAddress, "bindAddress");
+            return this;
+        }
+
+        /**
+         * Set the port to listen on. Defaults to 0, which binds to an ephemeral port - see {@link CliServer#getPort()}.
+         *
+         * @param port Port to listen on.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPort(int port) {
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Set the charset used to encode output and decode input. Defaults to UTF-8.
+         *
+         * @param charset Charset to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setCharset(Charset charset) {
+            this.charset = Objects.requireNonNull(charset, "charset");
+            return this;
+        }
+
+        /**
+         * Set the maximum amount of command history entries to keep per session.
+         *
+         * @param maxCommandHistory Max command history entries to keep.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setMaxCommandHistory(int maxCommandHistory) {
+            this.maxCommandHistory = maxCommandHistory;
+            return this;
+        }
+
+        /**
+         * Set the amount of lines a command line may print before the rest of it's output is paged.
+         * Paged output is shown a page at a time through PageDown/PageUp or the 'page' system command.
+         * Defaults to 0, which means output is never paged.
+         *
+         * @param pagerThreshold Amount of lines to print before paging, or 0 to never page.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerThreshold(int pagerThreshold) {
+            this.pagerThreshold = pagerThreshold;
+            return this;
+        }
+
+        /**
+         * Set the amount of lines in each page of paged output. Defaults to 50.
+         *
+         * @param pagerPageSize Amount of lines in a page.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerPageSize(int pagerPageSize) {
+            this.pagerPageSize = pagerPageSize;
+            return this;
+        }
+
+        /**
+         * Set a directory in which each session's paged output is spilled to a temporary file once it no longer
+         * fits in a few chunks of memory. By default, paged output is kept in memory.
+         *
+         * @param pagerSpillDirectory Directory to create the temporary files in.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setPagerSpillDirectory(Path pagerSpillDirectory) {
+            this.pagerSpillDirectory = Opt.of(pagerSpillDirectory);
+            return this;
+        }
+
+        /**
+         * Set the per-session output watermarks, in bytes.
+         * A session whose pending output exceeds the high watermark stops being read from (and threads printing to it block)
+         * until it drains to the low watermark.
+         *
+         * @param lowWatermark Low watermark, in bytes.
+         * @param highWatermark High watermark, in bytes.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setOutputWatermarks(int lowWatermark, int highWatermark) {
+            if (lowWatermark < 0 || highWatermark < lowWatermark) {
+                throw new IllegalArgumentException("Invalid watermarks: low=" + lowWatermark + ", high=" + highWatermark);
+            }
+            this.lowWatermark = lowWatermark;
+            this.highWatermark = highWatermark;
+            return this;
+        }
+
+        /**
+         * Set whether to negotiate 'character mode' with telnet clients when they connect.
+         * Without it, telnet clients send whole lines and echo input locally, which disables Tab &amp; the arrow keys.
+         * Should be disabled for clients that don't speak telnet. Defaults to {@code true}.
+         *
+         * @param telnetNegotiation Whether to negotiate 'character mode' with telnet clients.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setTelnetNegotiation(boolean telnetNegotiation) {
+            this.telnetNegotiation = telnetNegotiation;
+            return this;
+        }
+
+        /**
+         * Set the execution model that decides on which threads the sessions' commands are executed.
+         * The server does not take ownership of the given model - it is up to the caller to close it.
+         * Defaults to a {@link ThreadedExecutionModel} owned by the server.
+         *
+         * @param executionModel Execution model to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setExecutionModel(ExecutionModel executionModel) {
+            this.executionModel = Objects.requireNonNull(executionModel, "executionModel");
+            return this;
+        }
+
+        /**
+         * Set the redirector that opens the targets of output redirections ('cmd &gt; target').
+         * By default, the server doesn't support output redirection - a redirector that writes files
+         * lets any connected client write files on the server's machine.
+         *
+         * @param outputRedirector Redirector to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setOutputRedirector(OutputRedirector outputRedirector) {
+            this.outputRedirector = Opt.of(outputRedirector);
+            return this;
+        }
+
+        /**
+         * Set the instrumentation that all sessions report the phases of assisting with and executing command lines to.
+         * Defaults to a {@link HistogramShellInstrumentation}.
+         *
+         * @param instrumentation Instrumentation to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setInstrumentation(ShellInstrumentation instrumentation) {
+            this.instrumentation = Objects.requireNonNull(instrumentation, "instrumentation");
+            return this;
+        }
+
+        /**
+         * Set how long a command may execute before a watchdog starts sampling the executing thread's stack.
+         * The samples of the most recent slow commands can be viewed with the 'slow' system command.
+         * Defaults to 1 second, 0 disables the watchdog.
+         *
+         * @param slowCommandThresholdMillis Threshold in milliseconds, or 0 to disable.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setSlowCommandThresholdMillis(long slowCommandThresholdMillis) {
+            if (slowCommandThresholdMillis < 0) {
+                throw new IllegalArgumentException("Invalid slowCommandThresholdMillis: " + slowCommandThresholdMillis);
+            }
+            this.slowCommandThresholdMillis = slowCommandThresholdMillis;
+            return this;
+        }
+
+        /**
+         * Set the directory sessions may execute scripts from with the 'source' system command.
+         * Clients may only name scripts relative to this directory.
+         * By default, sessions don't have the 'source' command - it reads files on the server's machine.
+         *
+         * @param scriptDirectory Directory scripts may be executed from.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setScriptDirectory(Path scriptDirectory) {
+            this.scriptDirectory = Opt.of(scriptDirectory);
+            return this;
+        }
+
+        /**
+         * Set whether sessions have the 'profile' system command, which samples the stacks of all threads in the JVM.
+         * Disabled by default - profiles expose the server's internals to any connected client.
+         *
+         * @param profileCommand Whether to add the 'profile' command.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setProfileCommand(boolean profileCommand) {
+            this.profileCommand = profileCommand;
+            return this;
+        }
+
+        /**
+         * Set the directory the 'profile' command may write collapsed stacks to. Clients may only name files
+         * relative to this directory. By default, the 'profile' command can't write files.
+         * Only relevant if {@link #setProfileCommand(boolean)} is set.
+         *
+         * @param profileOutputDirectory Directory profiles may be written to.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setProfileOutputDirectory(Path profileOutputDirectory) {
+            this.profileOutputDirectory = Opt.of(profileOutputDirectory);
+            return this;
+        }
+
+        /**
+         * @return A {@link CliServer} built out of this builder's parameters. The server must still be {@link CliServer#start() started}.
+         */
+        public CliServer build() {
+            // All sessions share the same command objects and execute them on their own threads.
+            ThreadLocalCommandOutputBinding.install();
+
+            ExecutionModel executionModel = this.executionModel;
+            ThreadedExecutionModel ownedExecutionModel = null;
+            if (executionModel == null) {
+                ownedExecutionModel = new ThreadedExecutionModel.Builder().build();
+                executionModel = ownedExecutionModel;
+            }
+            ShellInstrumentation instrumentation = this.instrumentation;
+            Opt<SlowCommandWatchdog> watchdog = Opt.absent();
+            if (slowCommandThresholdMillis > 0) {
+                final SlowCommandWatchdog slowCommandWatchdog = new SlowCommandWatchdog.Builder(instrumentation)
+                    .setThresholdMillis(slowCommandThresholdMillis)
+                    .build();
+                instrumentation = slowCommandWatchdog;
+                watchdog = Opt.of(slowCommandWatchdog);
+            }
+            final CliServerConfig config = new CliServerConfig(
+                charset, maxCommandHistory, lowWatermark, highWatermark, telnetNegotiation, executionModel, outputRedirector, instrumentation,
+                pagerThreshold, pagerPageSize, pagerSpillDirectory
+            );
+            return new CliServer(hierarchyBuilder.build(), new InetSocketAddress(bindAddress, port), config, ownedExecutionModel, watchdog,
+                scriptDirectory, profileCommand, profileOutputDirectory);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server;
+
+import com.github.ykrasik.jaci.cli.execution.ExecutionModel;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
+import com.github.ykrasik.jaci.cli.output.OutputRedirector;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Per-session configuration of a {@link CliServer}.
+ *
+ * @author Yevgeny Krasik
+ */
+class CliServerConfig {
+    private final Charset charset;
+    private final int maxCommandHistory;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final boolean telnetNegotiation;
+    private final ExecutionModel executionModel;
+    private final Opt<OutputRedirector> outputRedirector;
+    private final ShellInstrumentation instrumentation;
+    private final int pagerThreshold;
+    private final int pagerPageSize;
+    private final Opt<Path> pagerSpillDirectory;
+
+    CliServerConfig(Charset charset,
+                    int maxCommandHistory,
+                    int lowWatermark,
+                    int highWatermark,
+                    boolean telnetNegotiation,
+                    ExecutionModel executionModel,
+                    Opt<OutputRedirector> outputRedirector,
+                    ShellInstrumentation instrumentation,
+                    int pagerThreshold,
+                    int pagerPageSize,
+                    Opt<Path> pagerSpillDirectory) {
+        this.charset = Objects.requireNonNull(charset, "charset");
+        this.maxCommandHistory = maxCommandHistory;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.telnetNegotiation = telnetNegotiation;
+        this.executionModel = Objects.requireNonNull(executionModel, "executionModel");
+        this.outputRedirector = Objects.requireNonNull(outputRedirector, "outputRedirector");
+        this.instrumentation = Objects.requireNonNull(instrumentation, "instrumentation");
+        this.pagerThreshold = pagerThreshold;
+        this.pagerPageSize = pagerPageSize;
+        this.pagerSpillDirectory = Objects.requireNonNull(pagerSpillDirectory, "pagerSpillDirectory");
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    int getMaxCommandHistory() {
+        return maxCommandHistory;
+    }
+
+    int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    int getHighWatermark() {
+        return highWatermark;
+    }
+
+    boolean isTelnetNegotiation() {
+        return telnetNegotiation;
+    }
+
+    ExecutionModel getExecutionModel() {
+        return executionModel;
+    }
+
+    Opt<OutputRedirector> getOutputRedirector() {
+        return outputRedirector;
+    }
+
+    ShellInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    int getPagerThreshold() {
+        return pagerThreshold;
+    }
+
+    int getPagerPageSize() {
+        return pagerPageSize;
+    }
+
+    Opt<Path> getPagerSpillDirectory() {
+        return pagerSpillDirectory;
+    }
+}
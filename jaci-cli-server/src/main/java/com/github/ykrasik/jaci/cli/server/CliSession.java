@@ -0,0 +1,375 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server;
+
+import com.github.ykrasik.jaci.cli.Cli;
+import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchy;
+import com.github.ykrasik.jaci.cli.output.ChunkedLineStore;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.FileChunkSpill;
+import com.github.ykrasik.jaci.cli.server.commandline.ServerCommandLineManager;
+import com.github.ykrasik.jaci.cli.server.gui.ServerCliGui;
+import com.github.ykrasik.jaci.cli.server.input.TelnetInputDecoder;
+import com.github.ykrasik.jaci.cli.server.input.TerminalInputListener;
+import com.github.ykrasik.jaci.cli.server.output.ServerCliOutput;
+import com.github.ykrasik.jaci.cli.server.output.SessionOutputBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A single connection to a {@link CliServer}.<br>
+ * Each session has it's own {@link CliShell} (and with it, it's own working directory and command history),
+ * command line and output buffer.<br>
+ * <br>
+ * Input is read and decoded by the server's I/O thread, which maps keys to {@link Cli} calls:
+ * Enter executes the command line, Tab assists, the up &amp; down arrows navigate the command history.
+ * Command lines are executed according to the server's execution model, possibly on other threads.<br>
+ * The prompt &amp; command line are always kept on the last line of the terminal - printed output is inserted above them.<br>
+ * Output may be printed from any thread - it is encoded into the session's {@link SessionOutputBuffer} and written
+ * to the connection by the I/O thread. Threads other than the I/O thread that print while the output buffer is above
+ * it's high watermark will block until the client catches up. The I/O thread never blocks - instead, it stops reading
+ * input from a session whose output buffer is above it's high watermark until it drains.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CliSession implements TerminalInputListener {
+    private static final String ERASE_LINE = "\r\u001B[K";
+    private static final String NEW_LINE = "\r\n";
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_RESIDENT_PAGER_CHUNKS = 16;
+
+    private final CliServer server;
+    private final SocketChannel channel;
+    private final Charset charset;
+    private final SessionOutputBuffer outputBuffer;
+    private final TelnetInputDecoder decoder;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private final ServerCommandLineManager commandLineManager = new ServerCommandLineManager();
+    private final ServerCliGui gui = new ServerCliGui(this);
+    private final CliShell shell;
+    private final Cli cli;
+
+    private SelectionKey key;
+
+    /** Whether the prompt & command line are currently displayed on the last line of the terminal. Guarded by 'this'. */
+    private boolean promptVisible;
+
+    private volatile boolean closed;
+
+    CliSession(CliServer server,
+               SocketChannel channel,
+               CliCommandHierarchy hierarchy,
+               CliServerConfig config) {
+        this.server = Objects.requireNonNull(server, "server");
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.charset = config.getCharset();
+        this.outputBuffer = new SessionOutputBuffer(config.getLowWatermark(), config.getHighWatermark());
+        this.decoder = new TelnetInputDecoder(this, charset);
+
+        if (config.isTelnetNegotiation()) {
+            // Ask telnet clients to let the server handle echo & send characters as they are typed, without waiting for a new line.
+            outputBuffer.append(ByteBuffer.wrap(TelnetNegotiation.CHARACTER_MODE.clone()));
+        }
+
+        final CliPrinter out = new CliPrinter(new ServerCliOutput(this));
+        final CliPrinter err = new CliPrinter(new ServerCliOutput(this));
+        final CliShell.Builder shellBuilder = new CliShell.Builder(hierarchy, gui, out, err)
+            .setMaxCommandHistory(config.getMaxCommandHistory())
+            .setExecutionModel(config.getExecutionModel())
+            .setInstrumentation(config.getInstrumentation())
+            .setPagerThreshold(config.getPagerThreshold())
+            .setPagerPageSize(config.getPagerPageSize());
+        if (config.getOutputRedirector().isPresent()) {
+            shellBuilder.setOutputRedirector(config.getOutputRedirector().get());
+        }
+        if (config.getPagerSpillDirectory().isPresent()) {
+            final int chunkSize = ChunkedLineStore.DEFAULT_CHUNK_SIZE;
+            final FileChunkSpill spill = new FileChunkSpill(config.getPagerSpillDirectory().get(), chunkSize);
+            shellBuilder.setPagerLineStore(new ChunkedLineStore(chunkSize, MAX_RESIDENT_PAGER_CHUNKS, spill));
+        }
+        this.shell = shellBuilder.build();
+        this.cli = new Cli(shell, commandLineManager);
+        showPrompt();
+    }
+
+    /**
+     * Called by the server once the session's channel is registered with the selector.
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * @return The remote address of this session's connection, or {@code null} if it is unavailable.
+     */
+    public String getRemoteAddress() {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Whether this session is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Print a single line to this session's terminal. May be called from any thread.
+     * If the prompt is currently displayed, the line is printed in it's place and the prompt is re-displayed below it.
+     *
+     * @param text Text to print.
+     */
+    public void println(String text) {
+        printlnAll(Collections.singletonList(text));
+    }
+
+    /**
+     * Print a block of lines to this session's terminal. May be called from any thread.
+     * The prompt is only erased and re-displayed once for the whole block.
+     *
+     * @param lines Lines to print.
+     */
+    public void printlnAll(List<String> lines) {
+        final boolean needFlush;
+        synchronized (this) {
+            final StringBuilder sb = new StringBuilder();
+            if (promptVisible) {
+                sb.append(ERASE_LINE);
+            }
+            for (String line : lines) {
+                sb.append(line).append(NEW_LINE);
+            }
+            if (promptVisible) {
+                appendPrompt(sb);
+            }
+            needFlush = outputBuffer.append(charset.encode(sb.toString()));
+        }
+        afterAppend(needFlush);
+    }
+
+    /**
+     * Re-display the prompt &amp; command line, if they are currently displayed.
+     * Called when the prompt changes, for example when the working directory changes. May be called from any thread.
+     */
+    public void redrawPrompt() {
+        final boolean visible;
+        synchronized (this) {
+            visible = promptVisible;
+        }
+        if (visible) {
+            showPrompt();
+        }
+    }
+
+    private void showPrompt() {
+        final boolean needFlush;
+        synchronized (this) {
+            final StringBuilder sb = new StringBuilder(ERASE_LINE);
+            appendPrompt(sb);
+            promptVisible = true;
+            needFlush = outputBuffer.append(charset.encode(sb.toString()));
+        }
+        afterAppend(needFlush);
+    }
+
+    private void appendPrompt(StringBuilder sb) {
+        final String commandLine = commandLineManager.getCommandLine();
+        final int caret = commandLineManager.getCaret();
+        sb.append(gui.getPrompt()).append(commandLine);
+        if (caret < commandLine.length()) {
+            // Move the terminal's cursor back to the caret.
+            sb.append("\u001B[").append(commandLine.length() - caret).append('D');
+        }
+    }
+
+    private void afterAppend(boolean needFlush) {
+        if (server.isIoThread()) {
+            // The I/O thread flushes after processing each input.
+            return;
+        }
+        if (needFlush) {
+            server.requestFlush(this);
+        }
+        try {
+            outputBuffer.awaitBelowHighWatermark();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read & process all available input. Called by the I/O thread when the channel is readable.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void read() throws IOException {
+        while (!closed) {
+            readBuffer.clear();
+            final int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            if (read == 0) {
+                break;
+            }
+            readBuffer.flip();
+            decoder.decode(readBuffer);
+
+            if (outputBuffer.isAboveHighWatermark()) {
+                // Stop processing input until the client catches up with the output.
+                break;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Write as much pending output as possible and update the channel's interest ops according to what is left.
+     * Called only by the I/O thread.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        final boolean drained = outputBuffer.writeTo(channel);
+        int interestOps = key.interestOps();
+        interestOps = drained ? interestOps & ~SelectionKey.OP_WRITE : interestOps | SelectionKey.OP_WRITE;
+        if (outputBuffer.isAboveHighWatermark()) {
+            interestOps &= ~SelectionKey.OP_READ;
+        } else if (outputBuffer.isAtOrBelowLowWatermark()) {
+            interestOps |= SelectionKey.OP_READ;
+        }
+        key.interestOps(interestOps);
+    }
+
+    /**
+     * Close this session and it's connection. Any blocked writers are released and any pending output is discarded.
+     * Commands that are already executing are left to finish, but their output is discarded.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        shell.shutdown();
+        outputBuffer.close();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing to do.
+        }
+        server.onSessionClosed(this);
+    }
+
+    @Override
+    public void onCharacter(char c) {
+        commandLineManager.insert(c);
+        showPrompt();
+    }
+
+    @Override
+    public void onEnter() {
+        cli.execute();
+        showPrompt();
+    }
+
+    @Override
+    public void onTab() {
+        cli.assist();
+        showPrompt();
+    }
+
+    @Override
+    public void onBackspace() {
+        if (commandLineManager.deleteBeforeCaret()) {
+            showPrompt();
+        }
+    }
+
+    @Override
+    public void onHistoryPrev() {
+        if (cli.setPrevCommandLineFromHistory()) {
+            showPrompt();
+        }
+    }
+
+    @Override
+    public void onHistoryNext() {
+        if (cli.setNextCommandLineFromHistory()) {
+            showPrompt();
+        }
+    }
+
+    @Override
+    public void onPagePrev() {
+        cli.pagePrev();
+    }
+
+    @Override
+    public void onPageNext() {
+        cli.pageNext();
+    }
+
+    @Override
+    public void onCaretMove(int offset) {
+        commandLineManager.moveCaret(offset);
+        showPrompt();
+    }
+
+    @Override
+    public void onClearLine() {
+        cli.clearCommandLine();
+        showPrompt();
+    }
+
+    @Override
+    public void onEndOfInput() {
+        if (commandLineManager.getCommandLine().isEmpty()) {
+            close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CliSession{");
+        sb.append("remoteAddress=").append(getRemoteAddress());
+        sb.append(", outputBuffer=").append(outputBuffer);
+        sb.append(", closed=").append(closed);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,46 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server;
+
+/**
+ * Telnet option negotiation sequences.
+ *
+ * @author Yevgeny Krasik
+ */
+final class TelnetNegotiation {
+    private TelnetNegotiation() { }
+
+    private static final byte IAC = (byte) 255;
+    private static final byte WILL = (byte) 251;
+    private static final byte DO = (byte) 253;
+    private static final byte DONT = (byte) 254;
+
+    private static final byte ECHO = 1;
+    private static final byte SUPPRESS_GO_AHEAD = 3;
+    private static final byte LINEMODE = 34;
+
+    /**
+     * Puts a telnet client into 'character mode': The server will echo input and the client should send
+     * every key as it is typed, instead of buffering whole lines. This is what allows Tab &amp; the arrow keys to work.
+     */
+    static final byte[] CHARACTER_MODE = {
+        IAC, WILL, ECHO,
+        IAC, WILL, SUPPRESS_GO_AHEAD,
+        IAC, DO, SUPPRESS_GO_AHEAD,
+        IAC, DONT, LINEMODE
+    };
+}
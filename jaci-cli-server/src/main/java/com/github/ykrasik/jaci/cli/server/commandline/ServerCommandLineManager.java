@@ -0,0 +1,88 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.commandline;
+
+import com.github.ykrasik.jaci.cli.commandline.CommandLineManager;
+
+/**
+ * A {@link CommandLineManager} for a remote terminal.
+ * The command line is edited on the server side, one key at a time, and echoed back to the client.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ServerCommandLineManager implements CommandLineManager {
+    private final StringBuilder commandLine = new StringBuilder();
+    private int caret;
+
+    @Override
+    public synchronized String getCommandLine() {
+        return commandLine.toString();
+    }
+
+    @Override
+    public synchronized void setCommandLine(String commandLine) {
+        this.commandLine.setLength(0);
+        this.commandLine.append(commandLine);
+        caret = Math.min(caret, this.commandLine.length());
+    }
+
+    @Override
+    public synchronized int getCaret() {
+        return caret;
+    }
+
+    @Override
+    public synchronized void setCaret(int position) {
+        if (position < 0 || position > commandLine.length()) {
+            throw new IllegalArgumentException("Invalid caret position: " + position);
+        }
+        caret = position;
+    }
+
+    /**
+     * Insert a character at the caret position and advance the caret.
+     *
+     * @param c Character to insert.
+     */
+    public synchronized void insert(char c) {
+        commandLine.insert(caret, c);
+        caret++;
+    }
+
+    /**
+     * Delete the character before the caret, if there is one.
+     *
+     * @return {@code true} if a character was deleted.
+     */
+    public synchronized boolean deleteBeforeCaret() {
+        if (caret == 0) {
+            return false;
+        }
+        commandLine.deleteCharAt(caret - 1);
+        caret--;
+        return true;
+    }
+
+    /**
+     * Move the caret by the given offset, bounded by the command line.
+     *
+     * @param offset Amount of characters to move the caret by. May be negative.
+     */
+    public synchronized void moveCaret(int offset) {
+        caret = Math.max(0, Math.min(commandLine.length(), caret + offset));
+    }
+}
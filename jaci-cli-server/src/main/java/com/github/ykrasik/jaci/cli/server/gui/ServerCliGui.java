@@ -0,0 +1,54 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.gui;
+
+import com.github.ykrasik.jaci.cli.directory.CliDirectory;
+import com.github.ykrasik.jaci.cli.gui.CliGui;
+import com.github.ykrasik.jaci.cli.server.CliSession;
+
+import java.util.Objects;
+
+/**
+ * A {@link CliGui} for a remote terminal, the 'GUI' being the prompt that precedes the command line.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ServerCliGui implements CliGui {
+    private final CliSession session;
+
+    private volatile String prompt = "";
+
+    public ServerCliGui(CliSession session) {
+        this.session = Objects.requireNonNull(session, "session");
+    }
+
+    @Override
+    public void setWorkingDirectory(CliDirectory workingDirectory) {
+        // Same format as the one used by the CliPrinter to print command lines.
+        prompt = '[' + workingDirectory.toPath() + "] ";
+
+        // The working directory may change while the prompt is displayed, if commands are executed asynchronously.
+        session.redrawPrompt();
+    }
+
+    /**
+     * @return The prompt to display before the command line.
+     */
+    public String getPrompt() {
+        return prompt;
+    }
+}
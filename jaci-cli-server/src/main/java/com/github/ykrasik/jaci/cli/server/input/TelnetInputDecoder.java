@@ -0,0 +1,253 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.input;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+
+/**
+ * Decodes the raw byte stream sent by a remote terminal into key events.<br>
+ * Decoding happens in 2 stages:
+ * <ol>
+ *     <li>Telnet protocol commands (IAC sequences) are stripped from the byte stream.</li>
+ *     <li>The remaining bytes are decoded into characters, which are mapped to key events - control characters and
+ *         ANSI escape sequences are mapped to their respective keys, anything else is a typed character.</li>
+ * </ol>
+ * Both stages keep state across calls to {@link #decode(ByteBuffer)}, so sequences may be split across reads.
+ * Plain, non-telnet clients (a scripted socket, for example) are supported as well - they simply never send IAC sequences.<br>
+ * <br>
+ * Not thread-safe, expected to be called only from the server's I/O thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class TelnetInputDecoder {
+    private static final int IAC = 255;
+    private static final int SB = 250;
+    private static final int SE = 240;
+    private static final int WILL = 251;
+    private static final int DONT = 254;
+
+    private static final char CTRL_C = 0x03;
+    private static final char CTRL_D = 0x04;
+    private static final char BACKSPACE = 0x08;
+    private static final char TAB = '\t';
+    private static final char LF = '\n';
+    private static final char CR = '\r';
+    private static final char CTRL_U = 0x15;
+    private static final char ESC = 0x1B;
+    private static final char DEL = 0x7F;
+
+    private enum TelnetState { DATA, COMMAND, OPTION, SUBNEGOTIATION, SUBNEGOTIATION_IAC }
+    private enum KeyState { NORMAL, CR, ESCAPE, CSI }
+
+    private final TerminalInputListener listener;
+    private final CharsetDecoder charsetDecoder;
+    private final ByteBuffer data = ByteBuffer.allocate(1024);
+    private final CharBuffer chars = CharBuffer.allocate(1024);
+
+    private TelnetState telnetState = TelnetState.DATA;
+    private KeyState keyState = KeyState.NORMAL;
+    private int csiParam;
+
+    /**
+     * @param listener Listener to notify of decoded key events.
+     * @param charset Charset the remote terminal encodes characters with.
+     */
+    public TelnetInputDecoder(TerminalInputListener listener, Charset charset) {
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.charsetDecoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decode all remaining bytes in the given buffer, notifying the listener of any key events.
+     *
+     * @param input Bytes read from the remote terminal.
+     */
+    public void decode(ByteBuffer input) {
+        while (input.hasRemaining()) {
+            final int b = input.get() & 0xFF;
+            final boolean isData = decodeTelnet(b);
+            if (isData) {
+                data.put((byte) b);
+                if (!data.hasRemaining()) {
+                    decodeData();
+                }
+            }
+        }
+        decodeData();
+    }
+
+    private boolean decodeTelnet(int b) {
+        switch (telnetState) {
+            case DATA:
+                if (b == IAC) {
+                    telnetState = TelnetState.COMMAND;
+                    return false;
+                }
+                return true;
+
+            case COMMAND:
+                if (b == IAC) {
+                    // Escaped 0xFF data byte - not a valid character in any text encoding we care about.
+                    telnetState = TelnetState.DATA;
+                } else if (b == SB) {
+                    telnetState = TelnetState.SUBNEGOTIATION;
+                } else if (b >= WILL && b <= DONT) {
+                    telnetState = TelnetState.OPTION;
+                } else {
+                    // Any other command is a single byte.
+                    telnetState = TelnetState.DATA;
+                }
+                return false;
+
+            case OPTION:
+                telnetState = TelnetState.DATA;
+                return false;
+
+            case SUBNEGOTIATION:
+                if (b == IAC) {
+                    telnetState = TelnetState.SUBNEGOTIATION_IAC;
+                }
+                return false;
+
+            case SUBNEGOTIATION_IAC:
+                telnetState = b == SE ? TelnetState.DATA : TelnetState.SUBNEGOTIATION;
+                return false;
+
+            default:
+                throw new IllegalStateException("Invalid state: " + telnetState);
+        }
+    }
+
+    private void decodeData() {
+        data.flip();
+        CoderResult result;
+        do {
+            result = charsetDecoder.decode(data, chars, false);
+            chars.flip();
+            while (chars.hasRemaining()) {
+                decodeChar(chars.get());
+            }
+            chars.clear();
+        } while (result.isOverflow());
+
+        // An incomplete multi-byte sequence may be left in the buffer, it will be completed by the next read.
+        data.compact();
+    }
+
+    private void decodeChar(char c) {
+        switch (keyState) {
+            case CR:
+                keyState = KeyState.NORMAL;
+                if (c == LF || c == 0) {
+                    // CR LF and CR NUL are a single 'enter'.
+                    return;
+                }
+                decodeNormalChar(c);
+                return;
+
+            case ESCAPE:
+                if (c == '[' || c == 'O') {
+                    keyState = KeyState.CSI;
+                    csiParam = 0;
+                } else {
+                    // Not an escape sequence we support, drop it.
+                    keyState = KeyState.NORMAL;
+                }
+                return;
+
+            case CSI:
+                // Only a single numeric parameter is supported, other parameter & intermediate bytes are skipped until the final byte.
+                if (c >= '0' && c <= '9' && csiParam < 1000) {
+                    csiParam = csiParam * 10 + (c - '0');
+                } else if (c >= 0x40 && c <= 0x7E) {
+                    keyState = KeyState.NORMAL;
+                    decodeEscapeSequence(c);
+                }
+                return;
+
+            default:
+                decodeNormalChar(c);
+        }
+    }
+
+    private void decodeEscapeSequence(char finalChar) {
+        switch (finalChar) {
+            case 'A': listener.onHistoryPrev(); break;
+            case 'B': listener.onHistoryNext(); break;
+            case 'C': listener.onCaretMove(1); break;
+            case 'D': listener.onCaretMove(-1); break;
+            case '~':
+                if (csiParam == 5) {
+                    listener.onPagePrev();
+                } else if (csiParam == 6) {
+                    listener.onPageNext();
+                }
+                break;
+            default: break;
+        }
+    }
+
+    private void decodeNormalChar(char c) {
+        switch (c) {
+            case CR:
+                keyState = KeyState.CR;
+                listener.onEnter();
+                break;
+
+            case LF:
+                listener.onEnter();
+                break;
+
+            case TAB:
+                listener.onTab();
+                break;
+
+            case BACKSPACE:
+            case DEL:
+                listener.onBackspace();
+                break;
+
+            case CTRL_C:
+            case CTRL_U:
+                listener.onClearLine();
+                break;
+
+            case CTRL_D:
+                listener.onEndOfInput();
+                break;
+
+            case ESC:
+                keyState = KeyState.ESCAPE;
+                break;
+
+            default:
+                if (c >= ' ') {
+                    listener.onCharacter(c);
+                }
+                // Any other control characters are ignored.
+                break;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.input;
+
+/**
+ * Receives key events decoded from a remote terminal's input stream.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface TerminalInputListener {
+    /**
+     * A printable character was typed.
+     *
+     * @param c Typed character.
+     */
+    void onCharacter(char c);
+
+    /**
+     * Enter was pressed - the command line was submitted.
+     */
+    void onEnter();
+
+    /**
+     * Tab was pressed - assistance was requested.
+     */
+    void onTab();
+
+    /**
+     * Backspace was pressed.
+     */
+    void onBackspace();
+
+    /**
+     * The 'up' arrow key was pressed.
+     */
+    void onHistoryPrev();
+
+    /**
+     * The 'down' arrow key was pressed.
+     */
+    void onHistoryNext();
+
+    /**
+     * The 'page up' key was pressed.
+     */
+    void onPagePrev();
+
+    /**
+     * The 'page down' key was pressed.
+     */
+    void onPageNext();
+
+    /**
+     * The 'left' or 'right' arrow key was pressed.
+     *
+     * @param offset -1 for left, 1 for right.
+     */
+    void onCaretMove(int offset);
+
+    /**
+     * The command line should be cleared (ctrl+U or ctrl+C).
+     */
+    void onClearLine();
+
+    /**
+     * The remote terminal signaled end of input (ctrl+D).
+     */
+    void onEndOfInput();
+}
@@ -0,0 +1,46 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.output;
+
+import com.github.ykrasik.jaci.cli.output.BatchCliOutput;
+import com.github.ykrasik.jaci.cli.server.CliSession;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link com.github.ykrasik.jaci.cli.output.CliOutput} that writes to the output buffer of a {@link CliSession}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ServerCliOutput implements BatchCliOutput {
+    private final CliSession session;
+
+    public ServerCliOutput(CliSession session) {
+        this.session = Objects.requireNonNull(session, "session");
+    }
+
+    @Override
+    public void println(String text) {
+        session.println(text);
+    }
+
+    @Override
+    public void printlnAll(List<String> lines) {
+        session.printlnAll(lines);
+    }
+}
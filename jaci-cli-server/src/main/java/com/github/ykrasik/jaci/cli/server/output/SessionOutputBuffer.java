@@ -0,0 +1,183 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A per-connection queue of encoded output that is waiting to be written to the connection's channel.<br>
+ * Output may be appended from any thread, but is only ever written to the channel by the server's I/O thread.<br>
+ * <br>
+ * Applies backpressure through 2 watermarks:
+ * <ul>
+ *     <li>Once more than {@code highWatermark} bytes are pending, {@link #isAboveHighWatermark()} returns {@code true}
+ *         and threads calling {@link #awaitBelowHighWatermark()} will block.</li>
+ *     <li>Blocked threads are released once the pending bytes drop to {@code lowWatermark} or below,
+ *         or once the buffer is closed.</li>
+ * </ul>
+ *
+ * @author Yevgeny Krasik
+ */
+public class SessionOutputBuffer {
+    /** Max amount of buffers to hand to a single gathering write. */
+    private static final int MAX_GATHER = 64;
+
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final int lowWatermark;
+    private final int highWatermark;
+
+    private long pendingBytes;
+    private boolean closed;
+
+    /**
+     * @param lowWatermark Writers blocked on the high watermark are released once the pending bytes drop to this value.
+     * @param highWatermark Writers are blocked once the pending bytes exceed this value.
+     * @throws IllegalArgumentException If the watermarks are invalid.
+     */
+    public SessionOutputBuffer(int lowWatermark, int highWatermark) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks: low=" + lowWatermark + ", high=" + highWatermark);
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Append encoded output to this buffer. The buffer takes ownership of the given {@link ByteBuffer}.
+     * Output appended after the buffer was closed is discarded.
+     *
+     * @param buffer Encoded output to append.
+     * @return {@code true} if this buffer was empty before the output was appended, meaning that a flush should be scheduled.
+     */
+    public synchronized boolean append(ByteBuffer buffer) {
+        if (closed || !buffer.hasRemaining()) {
+            return false;
+        }
+        final boolean wasEmpty = buffers.isEmpty();
+        buffers.addLast(buffer);
+        pendingBytes += buffer.remaining();
+        return wasEmpty;
+    }
+
+    /**
+     * Write as much pending output as the channel will accept without blocking.
+     *
+     * @param channel Channel to write to.
+     * @return {@code true} if all pending output was written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized boolean writeTo(GatheringByteChannel channel) throws IOException {
+        while (!buffers.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buffer : buffers) {
+                gather[count++] = buffer;
+                if (count == MAX_GATHER) {
+                    break;
+                }
+            }
+
+            final long written = channel.write(gather, 0, count);
+            pendingBytes -= written;
+
+            while (!buffers.isEmpty() && !buffers.peekFirst().hasRemaining()) {
+                buffers.pollFirst();
+            }
+            for (int i = 0; i < count; i++) {
+                gather[i] = null;
+            }
+
+            if (written == 0) {
+                // Channel's socket buffer is full.
+                break;
+            }
+        }
+
+        if (pendingBytes <= lowWatermark) {
+            notifyAll();
+        }
+        return buffers.isEmpty();
+    }
+
+    /**
+     * @return Whether there is any output waiting to be written.
+     */
+    public synchronized boolean hasPending() {
+        return !buffers.isEmpty();
+    }
+
+    /**
+     * @return Amount of bytes waiting to be written.
+     */
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * @return Whether the amount of pending bytes exceeds the high watermark.
+     */
+    public synchronized boolean isAboveHighWatermark() {
+        return pendingBytes > highWatermark;
+    }
+
+    /**
+     * @return Whether the amount of pending bytes is at or below the low watermark.
+     */
+    public synchronized boolean isAtOrBelowLowWatermark() {
+        return pendingBytes <= lowWatermark;
+    }
+
+    /**
+     * Block the calling thread while the amount of pending bytes exceeds the high watermark.
+     * Must never be called from the thread that drains this buffer.
+     *
+     * @throws InterruptedException If the calling thread was interrupted while waiting.
+     */
+    public synchronized void awaitBelowHighWatermark() throws InterruptedException {
+        if (pendingBytes <= highWatermark) {
+            return;
+        }
+        while (!closed && pendingBytes > lowWatermark) {
+            wait();
+        }
+    }
+
+    /**
+     * Close this buffer. All pending output is discarded and any blocked writers are released.
+     */
+    public synchronized void close() {
+        closed = true;
+        buffers.clear();
+        pendingBytes = 0;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("SessionOutputBuffer{");
+        sb.append("pendingBytes=").append(pendingBytes);
+        sb.append(", lowWatermark=").append(lowWatermark);
+        sb.append(", highWatermark=").append(highWatermark);
+        sb.append(", closed=").append(closed);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.cli.server;
+
+import com.github.ykrasik.jaci.commands.BasicCommands;
+import com.github.ykrasik.jaci.commands.PathCommands1;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class CliServerTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private CliServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new CliServer.Builder()
+            .processClasses(BasicCommands.class, PathCommands1.class)
+            .setTelnetNegotiation(false)
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        try (Client client = new Client()) {
+            client.send("helloWorld\r\n");
+            client.awaitOutput("Hello, World!");
+        }
+    }
+
+    @Test
+    public void testAssist() throws Exception {
+        try (Client client = new Client()) {
+            client.send("helloW\t\r");
+            client.awaitOutput("Hello, World!");
+        }
+    }
+
+    @Test
+    public void testHistory() throws Exception {
+        try (Client client = new Client()) {
+            client.send("helloWorld\r");
+            client.awaitOutput("Hello, World!");
+
+            // Up arrow, 'helloWorld' should be executed again.
+            client.send("\u001B[A\r");
+            client.awaitOccurrences("Hello, World!", 2);
+        }
+    }
+
+    @Test
+    public void testPromptFollowsWorkingDirectory() throws Exception {
+        try (Client client = new Client()) {
+            client.send("cd new\r");
+            client.awaitOutput("[/new/] ");
+        }
+    }
+
+    @Test
+    public void testSessionsAreIndependent() throws Exception {
+        try (Client client1 = new Client(); Client client2 = new Client()) {
+            client1.send("cd new\r");
+            client1.awaitOutput("[/new/] ");
+
+            client2.send("helloWorld\r");
+            client2.awaitOutput("Hello, World!");
+            assertTrue(client2.getOutput().contains("[/] helloWorld"));
+            assertEquals(2, server.getSessionCount());
+        }
+    }
+
+    @Test
+    public void testEndOfInputClosesSession() throws Exception {
+        try (Client client = new Client()) {
+            client.awaitOutput("Welcome!");
+            client.send("\u0004");
+            client.awaitClosed();
+        }
+    }
+
+    /**
+     * A scripted blocking client that accumulates everything the server sends, with terminal escape sequences stripped.
+     */
+    private class Client implements AutoCloseable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final StringBuilder output = new StringBuilder();
+        private final byte[] buffer = new byte[4096];
+
+        Client() throws IOException {
+            socket = new Socket("localhost", server.getPort());
+            socket.setSoTimeout(100);
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+        }
+
+        void send(String text) throws IOException {
+            out.write(text.getBytes(UTF_8));
+            out.flush();
+        }
+
+        String getOutput() {
+            return output.toString();
+        }
+
+        void awaitOutput(String expected) throws IOException {
+            awaitOccurrences(expected, 1);
+        }
+
+        void awaitOccurrences(String expected, int count) throws IOException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (countOccurrences(expected) < count) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Timed out waiting for '" + expected + "', received: " + output);
+                }
+                if (read() < 0) {
+                    fail("Connection closed while waiting for '" + expected + "', received: " + output);
+                }
+            }
+        }
+
+        void awaitClosed() throws IOException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (read() >= 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Timed out waiting for the connection to close.");
+                }
+            }
+        }
+
+        private int countOccurrences(String expected) {
+            final String text = output.toString();
+            int count = 0;
+            int index = text.indexOf(expected);
+            while (index >= 0) {
+                count++;
+                index = text.indexOf(expected, index + expected.length());
+            }
+            return count;
+        }
+
+        private int read() throws IOException {
+            final int read;
+            try {
+                read = in.read(buffer);
+            } catch (java.net.SocketTimeoutException e) {
+                return 0;
+            }
+            if (read > 0) {
+                output.append(new String(buffer, 0, read, UTF_8).replaceAll("\u001B\\[[0-9]*[A-Za-z]", ""));
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.lang.annotation.Target;
  * <br>
  * Output may be written to the containing class's {@link CommandOutput}.<br>
  * If the command name is empty, the command will receive the name of the method.<br>
+ * Long running commands should periodically poll {@link CommandOutput#isCancelled()} and return once it is {@code true}.<br>
  *
  * @author Yevgeny Krasik
  */
@@ -48,4 +49,12 @@ public @interface Command {
      * @return Command description. If empty, a default description will be generated.
      */
     String description() default "";
+
+    /**
+     * Once the timeout elapses, the command is considered cancelled and {@link CommandOutput#isCancelled()}
+     * will return {@code true}. Cancellation is cooperative - the command is expected to poll it and return.
+     *
+     * @return Command timeout in milliseconds. If 0, the command has no timeout.
+     */
+    long timeout() default 0;
 }
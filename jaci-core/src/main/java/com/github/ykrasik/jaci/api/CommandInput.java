@@ -0,0 +1,63 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+package com.github.ykrasik.jaci.api;
+
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+/**
+ * Input of a command that is executed on the receiving end of a pipe ('cmdA | cmdB').
+ * Lines are read in the order the upstream command printed them, as the upstream command prints them.
+ * Commands that are not on the receiving end of a pipe receive {@link #EMPTY} input.
+ * Available to commands through {@link CommandOutput#getInput()}.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface CommandInput {
+    /**
+     * Read the next line, waiting for the upstream command to print it if necessary.
+     *
+     * @return The next line, or {@code absent} if there is no more input - the upstream command is done,
+     *         or this input was closed.
+     */
+    Opt<String> readLine();
+
+    /**
+     * Signal that no more input will be read. Any lines that weren't read yet are discarded, and the upstream
+     * command is signalled to stop - it's {@link CommandOutput#isCancelled()} will return {@code true}.
+     * Commands that only need a part of their input (like 'head') should close it once they have read enough.
+     */
+    void close();
+
+    /**
+     * Input that is always empty.
+     */
+    CommandInput EMPTY = new CommandInput() {
+        @Override
+        public Opt<String> readLine() {
+            return Opt.absent();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return "EMPTY";
+        }
+    };
+}
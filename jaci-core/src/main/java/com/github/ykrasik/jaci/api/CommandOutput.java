@@ -38,4 +38,19 @@ public interface CommandOutput {
      * @param text Error message to display.
      */
     void error(String text);
+
+    /**
+     * Long running commands should poll this periodically and return as soon as possible once it is {@code true}.
+     *
+     * @return Whether the currently executing command was cancelled, or it's timeout has elapsed.
+     */
+    boolean isCancelled();
+
+    /**
+     * Commands that are executed on the receiving end of a pipe ('cmdA | cmdB') read the lines printed by the
+     * upstream command from here. All other commands receive {@link CommandInput#EMPTY empty} input.
+     *
+     * @return Input of the currently executing command.
+     */
+    CommandInput getInput();
 }
@@ -0,0 +1,46 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.api;
+
+/**
+ * A unit of work that is performed in small steps, for commands that would otherwise block the thread they are
+ * executed on for too long - for example, a command that iterates over every entity of a game on the render thread.<br>
+ * A {@link Command} opts in by returning an {@code IncrementalTask} instead of doing all the work itself.
+ * The task is then run by the CLI, which may spread it's steps over time (for example, a few steps per frame).
+ * CLIs that don't spread steps over time run all the steps right after the command returns.<br>
+ * <br>
+ * Steps receive the {@link CommandOutput} they should write to. The task is considered cancelled once
+ * {@link CommandOutput#isCancelled()} returns {@code true}, in which case no further steps are performed.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface IncrementalTask {
+    /**
+     * Perform the next step of work. Each step should take as little time as possible (well under a millisecond).
+     *
+     * @param output Output to write to.
+     * @return {@code true} if there is more work to do, {@code false} if the task is done.
+     * @throws Exception If an error occurs, in which case the task is aborted.
+     */
+    boolean step(CommandOutput output) throws Exception;
+
+    /**
+     * @return The fraction of work done so far, between 0 and 1, or a negative value if it is unknown.
+     */
+    double getProgress();
+}
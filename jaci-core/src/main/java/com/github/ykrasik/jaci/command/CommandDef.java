@@ -27,8 +27,8 @@ import java.util.Objects;
 
 /**
  * A definition for a command.
- * Contains the command's name, description, parameters and
- * executor that can execute code given argument values for those parameters.<br>
+ * Contains the command's name, description, parameters,
+ * executor that can execute code given argument values for those parameters and an optional timeout.<br>
  * Built through the {@link CommandDef.Builder} builder.
  *
  * @author Yevgeny Krasik
@@ -37,11 +37,13 @@ public class CommandDef implements Identifiable {
     private final Identifier identifier;
     private final List<ParamDef<?>> paramDefs;
     private final CommandExecutor executor;
+    private final long timeout;
 
-    private CommandDef(Identifier identifier, List<ParamDef<?>> paramDefs, CommandExecutor executor) {
+    private CommandDef(Identifier identifier, List<ParamDef<?>> paramDefs, CommandExecutor executor, long timeout) {
         this.identifier = identifier;
         this.paramDefs = paramDefs;
         this.executor = executor;
+        this.timeout = timeout;
     }
 
     @Override
@@ -63,6 +65,13 @@ public class CommandDef implements Identifiable {
         return executor;
     }
 
+    /**
+     * @return The command's timeout in milliseconds, or 0 if the command has no timeout.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
     @Override
     public String toString() {
         return identifier.toString();
@@ -76,6 +85,7 @@ public class CommandDef implements Identifiable {
         private final CommandExecutor executor;
 
         private String description = "command";
+        private long timeout;
         private final List<ParamDef<?>> paramDefs = new ArrayList<>(4);
 
         /**
@@ -98,6 +108,21 @@ public class CommandDef implements Identifiable {
             return this;
         }
 
+        /**
+         * Set the command's timeout.
+         *
+         * @param timeout Timeout in milliseconds. 0 means no timeout.
+         * @return {@code this}, for chaining.
+         * @throws IllegalArgumentException If the timeout is negative.
+         */
+        public Builder setTimeout(long timeout) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("Invalid timeout: " + timeout);
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
         /**
          * Add a parameter definition to this command.
          *
@@ -113,7 +138,7 @@ public class CommandDef implements Identifiable {
          * @return A {@link CommandDef} built out of this builder's parameters.
          */
         public CommandDef build() {
-            return new CommandDef(new Identifier(name, description), Collections.unmodifiableList(new ArrayList<>(paramDefs)), executor);
+            return new CommandDef(new Identifier(name, description), Collections.unmodifiableList(new ArrayList<>(paramDefs)), executor, timeout);
         }
 
         @Override
@@ -122,6 +147,7 @@ public class CommandDef implements Identifiable {
             sb.append("name='").append(name).append('\'');
             sb.append(", executor=").append(executor);
             sb.append(", description='").append(description).append('\'');
+            sb.append(", timeout=").append(timeout);
             sb.append(", paramDefs=").append(paramDefs);
             sb.append('}');
             return sb.toString();
@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+
+/**
+ * Holds the {@link CommandOutput} a {@link CommandOutputPromise} currently delegates to.<br>
+ * An output is bound for the duration of a single command invocation, after which the previously bound output
+ * is restored - this allows invocations to nest.
+ * Implementations decide the scope of a binding, which determines whether the commands of a single object
+ * may safely be executed concurrently.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface CommandOutputBinding {
+    /**
+     * @return The currently bound output, or {@code null} if no output is bound.
+     */
+    CommandOutput get();
+
+    /**
+     * Bind an output. Must be followed by a call to {@link #restore(CommandOutput)} once the invocation is done.
+     *
+     * @param output Output to bind.
+     * @return The previously bound output, or {@code null} if no output was bound.
+     */
+    CommandOutput bind(CommandOutput output);
+
+    /**
+     * Restore the output that was bound before the last call to {@link #bind(CommandOutput)}.
+     *
+     * @param previous The value returned by the last call to {@link #bind(CommandOutput)}.
+     */
+    void restore(CommandOutput previous);
+
+    /**
+     * Creates {@link CommandOutputBinding}s.
+     */
+    interface Factory {
+        /**
+         * @return A new, unbound {@link CommandOutputBinding}.
+         */
+        CommandOutputBinding create();
+    }
+
+    /**
+     * A factory of bindings that are shared by all threads. Only safe as long as commands are not executed concurrently.
+     */
+    Factory SHARED = new Factory() {
+        @Override
+        public CommandOutputBinding create() {
+            return new SharedCommandOutputBinding();
+        }
+
+        @Override
+        public String toString() {
+            return "SHARED";
+        }
+    };
+}
@@ -1,5 +1,5 @@
 /******************************************************************************
- * Copyright (C) 2015 Yevgeny Krasik                                          *
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
  *                                                                            *
  * Licensed under the Apache License, Version 2.0 (the "License");            *
  * you may not use this file except in compliance with the License.           *
@@ -14,8 +14,10 @@
  * limitations under the License.                                             *
  ******************************************************************************/
 
+
 package com.github.ykrasik.jaci.command;
 
+import com.github.ykrasik.jaci.api.CommandInput;
 import com.github.ykrasik.jaci.api.CommandOutput;
 
 import java.util.Objects;
@@ -23,29 +25,110 @@ import java.util.Objects;
 /**
  * A {@link CommandOutput} that promises to eventually contain a concrete implementation.
  * Delegates all calls to that concrete implementation.
- * This will be injected into objects expecting a {@link CommandOutput}, for the Annotation API.
+ * This will be injected into objects expecting a {@link CommandOutput}, for the Annotation API.<br>
+ * <br>
+ * The concrete implementation is bound for the duration of each command invocation through a {@link CommandOutputBinding},
+ * created by the factory that was set by {@link #setBindingFactory(CommandOutputBinding.Factory)} when the promise was created.
+ * By default, the binding is shared by all threads.
  *
  * @author Yevgeny Krasik
  */
 public class CommandOutputPromise implements CommandOutput {
-    private CommandOutput output;
+    private static volatile CommandOutputBinding.Factory bindingFactory = CommandOutputBinding.SHARED;
+
+    private final CommandOutputBinding binding;
+
+    /**
+     * Create a promise with a binding created by the current binding factory.
+     */
+    public CommandOutputPromise() {
+        this(bindingFactory.create());
+    }
+
+    /**
+     * @param binding Binding to use.
+     */
+    public CommandOutputPromise(CommandOutputBinding binding) {
+        this.binding = Objects.requireNonNull(binding, "binding");
+    }
 
     /**
-     * Set the concrete {@link CommandOutput} implementation to delegate to.
+     * Set the factory of bindings for promises created from now on.
+     *
+     * @param factory Binding factory to use.
+     */
+    public static void setBindingFactory(CommandOutputBinding.Factory factory) {
+        bindingFactory = Objects.requireNonNull(factory, "factory");
+    }
+
+    /**
+     * Bind the concrete {@link CommandOutput} implementation to delegate to for the duration of a command invocation.
+     * Must be followed by a call to {@link #restore(CommandOutput)} once the invocation is done.
      *
      * @param output Concrete implementation to delegate to.
+     * @return The previously bound implementation, to be passed to {@link #restore(CommandOutput)}.
+     */
+    public CommandOutput bind(CommandOutput output) {
+        return binding.bind(Objects.requireNonNull(output, "output"));
+    }
+
+    /**
+     * Restore the implementation that was bound before the last call to {@link #bind(CommandOutput)}.
+     *
+     * @param previous The value returned by the last call to {@link #bind(CommandOutput)}.
      */
+    public void restore(CommandOutput previous) {
+        binding.restore(previous);
+    }
+
+    /**
+     * Set the concrete {@link CommandOutput} implementation to delegate to, without ever restoring the previous one.
+     *
+     * @param output Concrete implementation to delegate to.
+     * @deprecated Not safe for nested or concurrent invocations, use {@link #bind(CommandOutput)} and {@link #restore(CommandOutput)}.
+     */
+    @Deprecated
     public void setOutput(CommandOutput output) {
-        this.output = Objects.requireNonNull(output, "output");
+        bind(output);
+    }
+
+    /**
+     * Capture the concrete {@link CommandOutput} implementation currently bound for the calling command invocation.
+     * Commands that write from threads they start must capture their output and hand it to those threads,
+     * because the binding may not be visible from other threads.
+     *
+     * @return The currently bound implementation.
+     * @throws IllegalStateException If no implementation is currently bound.
+     */
+    public CommandOutput capture() {
+        return getOutput();
     }
 
     @Override
     public void message(String text) {
-        output.message(text);
+        getOutput().message(text);
     }
 
     @Override
     public void error(String text) {
-        output.error(text);
+        getOutput().error(text);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return getOutput().isCancelled();
+    }
+
+    @Override
+    public CommandInput getInput() {
+        return getOutput().getInput();
+    }
+
+    private CommandOutput getOutput() {
+        final CommandOutput output = binding.get();
+        if (output == null) {
+            throw new IllegalStateException("CommandOutput is only available while a command is executing!");
+        }
+        return output;
     }
 }
@@ -0,0 +1,56 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+
+/**
+ * Runs the {@link IncrementalTask}s returned by commands.<br>
+ * A {@link CommandOutput} that also implements this interface decides how the tasks returned by the commands
+ * it is passed to are run. Otherwise, tasks are run by {@link #DIRECT}.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface IncrementalTaskRunner {
+    /**
+     * Run a task that was returned by a command. May return before the task is done.
+     *
+     * @param task Task to run.
+     * @param output Output the task should write to.
+     * @throws Exception If an error occurs while running the task.
+     */
+    void run(IncrementalTask task, CommandOutput output) throws Exception;
+
+    /**
+     * Runs all the steps of a task before returning, until it is done or cancelled.
+     */
+    IncrementalTaskRunner DIRECT = new IncrementalTaskRunner() {
+        @Override
+        public void run(IncrementalTask task, CommandOutput output) throws Exception {
+            while (!output.isCancelled() && task.step(output)) {
+                // Keep stepping.
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "DIRECT";
+        }
+    };
+}
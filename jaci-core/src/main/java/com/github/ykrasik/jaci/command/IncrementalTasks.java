@@ -0,0 +1,85 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+
+import java.util.Objects;
+
+/**
+ * Runs the {@link IncrementalTask}s returned by the methods of the Annotation API.<br>
+ * The task's steps may be performed long after the method returned, so the {@link CommandOutputPromise}
+ * of the method's class is bound again for the duration of each step.
+ *
+ * @author Yevgeny Krasik
+ */
+public final class IncrementalTasks {
+    private IncrementalTasks() { }
+
+    /**
+     * Run the value returned by a command method, if it is an {@link IncrementalTask}.
+     * Tasks are run by the output if it is an {@link IncrementalTaskRunner}, or by {@link IncrementalTaskRunner#DIRECT} otherwise.
+     *
+     * @param result Value returned by the command method.
+     * @param outputPromise Promise injected into the method's class.
+     * @param output Output the command was executed with.
+     * @throws Exception If an error occurs while running the task.
+     */
+    public static void runIfTask(Object result, CommandOutputPromise outputPromise, CommandOutput output) throws Exception {
+        if (!(result instanceof IncrementalTask)) {
+            return;
+        }
+        final IncrementalTask task = new BoundIncrementalTask((IncrementalTask) result, outputPromise);
+        final IncrementalTaskRunner runner = output instanceof IncrementalTaskRunner ? (IncrementalTaskRunner) output : IncrementalTaskRunner.DIRECT;
+        runner.run(task, output);
+    }
+
+    /**
+     * Binds a {@link CommandOutputPromise} for the duration of each step of a task.
+     */
+    private static class BoundIncrementalTask implements IncrementalTask {
+        private final IncrementalTask task;
+        private final CommandOutputPromise outputPromise;
+
+        private BoundIncrementalTask(IncrementalTask task, CommandOutputPromise outputPromise) {
+            this.task = Objects.requireNonNull(task, "task");
+            this.outputPromise = Objects.requireNonNull(outputPromise, "outputPromise");
+        }
+
+        @Override
+        public boolean step(CommandOutput output) throws Exception {
+            final CommandOutput previous = outputPromise.bind(output);
+            try {
+                return task.step(output);
+            } finally {
+                outputPromise.restore(previous);
+            }
+        }
+
+        @Override
+        public double getProgress() {
+            return task.getProgress();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.command;
+
+import com.github.ykrasik.jaci.api.CommandOutput;
+
+/**
+ * A {@link CommandOutputBinding} that is shared by all threads.
+ * Only safe as long as commands are not executed concurrently.<br>
+ * The output bound by the outermost invocation stays bound after it is done, so that any threads started by
+ * a command may keep writing to it.
+ *
+ * @author Yevgeny Krasik
+ */
+public class SharedCommandOutputBinding implements CommandOutputBinding {
+    private CommandOutput output;
+
+    @Override
+    public CommandOutput get() {
+        return output;
+    }
+
+    @Override
+    public CommandOutput bind(CommandOutput output) {
+        final CommandOutput previous = this.output;
+        this.output = output;
+        return previous;
+    }
+
+    @Override
+    public void restore(CommandOutput previous) {
+        if (previous != null) {
+            this.output = previous;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SharedCommandOutputBinding{output=" + output + '}';
+    }
+}
@@ -0,0 +1,38 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.command.CommandDef;
+import com.github.ykrasik.jaci.path.ParsedPath;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides {@link CommandDef}s along with the paths they should be added to, without going through reflection.<br>
+ * Implementations are generated at compile time by the Jaci annotation processor (as {@code <ClassName>_JaciCommands})
+ * for every class that declares annotated commands, but may also be written by hand.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface CommandDefProvider {
+    /**
+     * @return The provided {@link CommandDef}s, mapped by the path of the directory they should be added to.
+     */
+    Map<ParsedPath, List<CommandDef>> getCommandDefs();
+}
@@ -21,7 +21,9 @@ import com.github.ykrasik.jaci.directory.CommandDirectoryDef;
 import com.github.ykrasik.jaci.path.ParsedPath;
 import com.github.ykrasik.jaci.reflection.ReflectionClassProcessor;
 import com.github.ykrasik.jaci.reflection.ReflectionUtils;
+import com.github.ykrasik.jaci.util.function.Spplr;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,6 +57,22 @@ public class CommandHierarchyDef {
         private final ReflectionClassProcessor processor = new ReflectionClassProcessor();
         private final CommandDirectoryDef.Builder root = new CommandDirectoryDef.Builder("root").setDescription("root");
 
+        private ProcessingExecutor processingExecutor = ProcessingExecutor.SEQUENTIAL;
+
+        /**
+         * Set the {@link ProcessingExecutor} that will process classes passed to {@link #processClasses(Class[])}
+         * and {@link #process(Object...)}. The classes passed to a single call may be processed in parallel,
+         * but their commands are always added to the hierarchy in the order the classes were passed in.
+         * Defaults to {@link ProcessingExecutor#SEQUENTIAL}.
+         *
+         * @param processingExecutor Processing executor to use.
+         * @return {@code this}, for chaining.
+         */
+        public Builder setProcessingExecutor(ProcessingExecutor processingExecutor) {
+            this.processingExecutor = Objects.requireNonNull(processingExecutor, "processingExecutor");
+            return this;
+        }
+
         /**
          * Process the classes and add any commands defined through annotations to this builder.
          * Each class must have a no-args constructor.
@@ -63,17 +81,20 @@ public class CommandHierarchyDef {
          * @return {@code this}, for chaining.
          */
         public Builder processClasses(Class<?>... classes) {
-            for (Class<?> clazz : classes) {
-                doProcessClass(clazz);
+            final List<Spplr<Map<ParsedPath, List<CommandDef>>>> tasks = new ArrayList<>(classes.length);
+            for (final Class<?> clazz : classes) {
+                tasks.add(new Spplr<Map<ParsedPath, List<CommandDef>>>() {
+                    @Override
+                    public Map<ParsedPath, List<CommandDef>> get() {
+                        final Object instance = ReflectionUtils.createInstanceNoArgs(clazz);
+                        return processor.processObject(instance);
+                    }
+                });
             }
+            mergeAll(processingExecutor.executeAll(tasks));
             return this;
         }
 
-        private void doProcessClass(Class<?> clazz) {
-            final Object instance = ReflectionUtils.createInstanceNoArgs(clazz);
-            doProcess(instance);
-        }
-
         /**
          * Process the objects' classes and add any commands defined through annotations to this builder.
          *
@@ -81,15 +102,42 @@ public class CommandHierarchyDef {
          * @return {@code this}, for chaining.
          */
         public Builder process(Object... instances) {
-            for (Object instance : instances) {
-                doProcess(instance);
+            final List<Spplr<Map<ParsedPath, List<CommandDef>>>> tasks = new ArrayList<>(instances.length);
+            for (final Object instance : instances) {
+                tasks.add(new Spplr<Map<ParsedPath, List<CommandDef>>>() {
+                    @Override
+                    public Map<ParsedPath, List<CommandDef>> get() {
+                        return processor.processObject(instance);
+                    }
+                });
             }
+            mergeAll(processingExecutor.executeAll(tasks));
             return this;
         }
 
-        private void doProcess(Object instance) {
-            final Map<ParsedPath, List<CommandDef>> pathToCommandDefsMap = processor.processObject(instance);
+        /**
+         * Add the commands provided by the {@link CommandDefProvider}s to this builder.
+         * Unlike {@link #processClasses(Class[])} and {@link #process(Object...)}, this does not use reflection,
+         * as long as the providers don't - which is the case for providers generated by the Jaci annotation processor.
+         *
+         * @param providers Providers whose commands to add.
+         * @return {@code this}, for chaining.
+         */
+        public Builder addProviders(CommandDefProvider... providers) {
+            for (CommandDefProvider provider : providers) {
+                addAll(provider.getCommandDefs());
+            }
+            return this;
+        }
+
+        private void mergeAll(List<Map<ParsedPath, List<CommandDef>>> pathToCommandDefsMaps) {
+            // Merge in order, so the result (and any conflicts) don't depend on how the maps were computed.
+            for (Map<ParsedPath, List<CommandDef>> pathToCommandDefsMap : pathToCommandDefsMaps) {
+                addAll(pathToCommandDefsMap);
+            }
+        }
 
+        private void addAll(Map<ParsedPath, List<CommandDef>> pathToCommandDefsMap) {
             // Add the returned commands to the hierarchy.
             for (Entry<ParsedPath, List<CommandDef>> entry : pathToCommandDefsMap.entrySet()) {
                 addCommandDefs(entry.getKey(), entry.getValue());
@@ -0,0 +1,57 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.hierarchy;
+
+import com.github.ykrasik.jaci.util.function.Spplr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes the tasks that process classes into commands, when building a {@link CommandHierarchyDef}.<br>
+ * Tasks are independent of each other and may be executed in parallel, but their results must be returned
+ * in the order of the tasks - the results are merged into the hierarchy in that order, which keeps the resulting
+ * hierarchy (and any reported conflicts) deterministic.
+ *
+ * @author Yevgeny Krasik
+ */
+public interface ProcessingExecutor {
+    /**
+     * Executes all tasks one after the other on the calling thread. Safe for GWT.
+     */
+    ProcessingExecutor SEQUENTIAL = new ProcessingExecutor() {
+        @Override
+        public <T> List<T> executeAll(List<Spplr<T>> tasks) {
+            final List<T> results = new ArrayList<>(tasks.size());
+            for (Spplr<T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+    };
+
+    /**
+     * Execute all tasks and return their results.
+     * If any of the tasks fails, its exception is re-thrown from this method.
+     *
+     * @param tasks Tasks to execute.
+     * @param <T> Task result type.
+     * @return The task results, in the same order as the tasks.
+     */
+    <T> List<T> executeAll(List<Spplr<T>> tasks);
+}
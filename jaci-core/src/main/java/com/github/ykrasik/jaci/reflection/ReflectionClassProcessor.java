@@ -16,8 +16,10 @@
 
 package com.github.ykrasik.jaci.reflection;
 
+import com.github.ykrasik.jaci.api.Command;
 import com.github.ykrasik.jaci.api.CommandOutput;
 import com.github.ykrasik.jaci.api.CommandPath;
+import com.github.ykrasik.jaci.api.ToggleCommand;
 import com.github.ykrasik.jaci.command.CommandDef;
 import com.github.ykrasik.jaci.command.CommandOutputPromise;
 import com.github.ykrasik.jaci.path.ParsedPath;
@@ -109,7 +111,8 @@ public class ReflectionClassProcessor {
         injectOutputPromise(instance, clazz);
 
         // Create commands from all qualifying methods.
-        final ReflectionMethod[] methods = ReflectionUtils.getMethods(clazz);
+        // Only annotated methods can qualify, which lets the (possibly cached) reflection layer skip all the rest.
+        final ReflectionMethod[] methods = ReflectionUtils.getMethodsAnnotatedWithAny(clazz, Command.class, ToggleCommand.class);
         for (ReflectionMethod method : methods) {
             processMethod(context, instance, method);
         }
@@ -20,6 +20,7 @@ import com.github.ykrasik.jaci.api.CommandOutput;
 import com.github.ykrasik.jaci.command.CommandArgs;
 import com.github.ykrasik.jaci.command.CommandExecutor;
 import com.github.ykrasik.jaci.command.CommandOutputPromise;
+import com.github.ykrasik.jaci.command.IncrementalTasks;
 import com.github.ykrasik.jaci.reflection.ReflectionMethod;
 
 import java.util.Objects;
@@ -27,6 +28,7 @@ import java.util.Objects;
 /**
  * A {@link CommandExecutor} that calls the underlying {@link ReflectionMethod} via reflection.
  * Keeps an instance of a  {@link CommandOutputPromise}, which the method may call in it's implementation.
+ * If the method returns an {@link com.github.ykrasik.jaci.api.IncrementalTask}, the task is run once the method returns.
  *
  * @author Yevgeny Krasik
  */
@@ -44,12 +46,16 @@ public class ReflectionCommandExecutor implements CommandExecutor {
     @Override
     public void execute(CommandOutput output, CommandArgs args) throws Exception {
         // The underlying method may access a CommandOutput field which is expected to be injected.
-        // This is implemented by injecting a CommandOutputPromise into the field, and setting it's value
-        // before calling the method.
-        outputPromise.setOutput(output);
-
-        // Invoke
-        method.invoke(instance, args.getArgs().toArray());
+        // This is implemented by injecting a CommandOutputPromise into the field, and binding it's value
+        // for the duration of the call.
+        final CommandOutput previous = outputPromise.bind(output);
+        final Object result;
+        try {
+            result = method.invoke(instance, args.getArgs().toArray());
+        } finally {
+            outputPromise.restore(previous);
+        }
+        IncrementalTasks.runIfTask(result, outputPromise, output);
     }
 
     @Override
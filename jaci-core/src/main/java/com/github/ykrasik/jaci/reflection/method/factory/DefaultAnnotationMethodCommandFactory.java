@@ -71,6 +71,10 @@ public class DefaultAnnotationMethodCommandFactory extends AbstractAnnotationMet
             builder.setDescription(description.get());
         }
 
+        if (annotation.timeout() != 0) {
+            builder.setTimeout(annotation.timeout());
+        }
+
         for (ReflectionParameter param : params) {
             final ParamDef<?> paramDef = paramProcessor.createParam(instance, param);
             builder.addParam(paramDef);
@@ -18,14 +18,26 @@ package com.github.ykrasik.jaci.cli.javafx;
 
 import com.github.ykrasik.jaci.cli.Cli;
 import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
 import com.github.ykrasik.jaci.cli.commandline.CommandLineManager;
+import com.github.ykrasik.jaci.cli.execution.DirectExecutionModel;
+import com.github.ykrasik.jaci.cli.execution.ExecutionModel;
 import com.github.ykrasik.jaci.cli.gui.CliGui;
 import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchy;
 import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.instrument.HistogramShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.ProfileCommandFactory;
+import com.github.ykrasik.jaci.cli.instrument.SamplingProfiler;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
 import com.github.ykrasik.jaci.cli.javafx.commandline.JavaFxCommandLineManager;
 import com.github.ykrasik.jaci.cli.javafx.gui.JavaFxCliGui;
 import com.github.ykrasik.jaci.cli.javafx.output.JavaFxCliOutput;
+import com.github.ykrasik.jaci.cli.javafx.output.JavaFxCliOutputBuffer;
 import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.FileOutputRedirector;
+import com.github.ykrasik.jaci.cli.output.OutputRedirector;
+import com.github.ykrasik.jaci.command.ThreadLocalCommandOutputBinding;
+import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;
 import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
 import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
 import com.github.ykrasik.jaci.util.exception.SneakyException;
@@ -37,6 +49,9 @@ import javafx.scene.control.TextField;
 import javafx.scene.input.KeyEvent;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -66,10 +81,18 @@ public class JavaFxCliBuilder {
     }
 
     private final CommandHierarchyDef.Builder hierarchyBuilder = new CommandHierarchyDef.Builder();
+    private final List<CliCommand> systemCommands = new ArrayList<>(Arrays.asList(
+        ProfileCommandFactory.create(new SamplingProfiler())
+    ));
 
-    // TODO: Add Max textArea size.
     private URL fxmlUrl;
+    private int maxOutputLines = JavaFxCliOutput.DEFAULT_MAX_LINES;
     private int maxCommandHistory = 30;
+    private int pagerThreshold;
+    private int pagerPageSize = 50;
+    private OutputRedirector outputRedirector = new FileOutputRedirector.Builder().build();
+    private ShellInstrumentation instrumentation = new HistogramShellInstrumentation();
+    private ExecutionModel executionModel = new DirectExecutionModel();
 
     /**
      * Process the classes and add any commands defined through annotations to this builder.
@@ -94,6 +117,41 @@ public class JavaFxCliBuilder {
         return this;
     }
 
+    /**
+     * Add the commands provided by the {@link CommandDefProvider}s to this builder, without reflection.
+     * Providers are usually generated at compile time by the Jaci annotation processor.
+     *
+     * @param providers Providers whose commands to add.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder addProviders(CommandDefProvider... providers) {
+        hierarchyBuilder.addProviders(providers);
+        return this;
+    }
+
+    /**
+     * Add commands to the CLI's system commands, typically platform-specific diagnostic commands.
+     * System commands take precedence over user commands with the same name.
+     *
+     * @param commands Commands to add.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder addSystemCommands(CliCommand... commands) {
+        systemCommands.addAll(Arrays.asList(commands));
+        return this;
+    }
+
+    /**
+     * Set the maximum amount of output lines to keep. Once exceeded, the oldest lines are removed.
+     *
+     * @param maxOutputLines Max output lines to keep.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setMaxOutputLines(int maxOutputLines) {
+        this.maxOutputLines = maxOutputLines;
+        return this;
+    }
+
     /**
      * Set the maximum amount of command history entries to keep.
      *
@@ -105,6 +163,30 @@ public class JavaFxCliBuilder {
         return this;
     }
 
+    /**
+     * Set the amount of lines a command line may print before the rest of it's output is paged.
+     * Paged output is shown a page at a time through PageDown/PageUp or the 'page' system command.
+     * Defaults to 0, which means output is never paged.
+     *
+     * @param pagerThreshold Amount of lines to print before paging, or 0 to never page.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setPagerThreshold(int pagerThreshold) {
+        this.pagerThreshold = pagerThreshold;
+        return this;
+    }
+
+    /**
+     * Set the amount of lines in each page of paged output. Defaults to 50.
+     *
+     * @param pagerPageSize Amount of lines in a page.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setPagerPageSize(int pagerPageSize) {
+        this.pagerPageSize = pagerPageSize;
+        return this;
+    }
+
     /**
      * Set a path to a .fxml file containing a custom layout.
      * A custom layout must have the following:
@@ -138,13 +220,57 @@ public class JavaFxCliBuilder {
         return this;
     }
 
+    /**
+     * Set the redirector that opens the targets of output redirections ('cmd &gt; target').
+     * Defaults to a {@link FileOutputRedirector} that resolves relative paths against the process's working directory.
+     *
+     * @param outputRedirector Redirector to use.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setOutputRedirector(OutputRedirector outputRedirector) {
+        this.outputRedirector = Objects.requireNonNull(outputRedirector, "outputRedirector");
+        return this;
+    }
+
+    /**
+     * Set the instrumentation that the phases of assisting with and executing command lines are reported to.
+     * Defaults to a {@link HistogramShellInstrumentation}.
+     *
+     * @param instrumentation Instrumentation to use.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setInstrumentation(ShellInstrumentation instrumentation) {
+        this.instrumentation = Objects.requireNonNull(instrumentation, "instrumentation");
+        return this;
+    }
+
+    /**
+     * Set the execution model that decides on which threads command lines are executed.
+     * Defaults to a {@link DirectExecutionModel}, which executes command lines on the FX thread.
+     * Any other model keeps the FX thread responsive while commands are executing - output and working directory
+     * changes are marshalled to the FX thread.
+     *
+     * @param executionModel Execution model to use.
+     * @return {@code this}, for chaining.
+     */
+    public JavaFxCliBuilder setExecutionModel(ExecutionModel executionModel) {
+        this.executionModel = Objects.requireNonNull(executionModel, "executionModel");
+        return this;
+    }
+
     /**
      * @return A {@link Parent} that functions as a CLI built out of this builder's parameters.
      * @throws RuntimeException If an error occurs.
      */
     public Parent build() {
+        if (!(executionModel instanceof DirectExecutionModel)) {
+            // Background jobs execute alongside the foreground command line, possibly on the same command object.
+            ThreadLocalCommandOutputBinding.install();
+        }
         try {
-            final CliCommandHierarchy hierarchy = CliCommandHierarchyImpl.from(hierarchyBuilder.build());
+            final CliCommandHierarchy hierarchy = CliCommandHierarchyImpl.from(
+                hierarchyBuilder.build(), systemCommands.toArray(new CliCommand[systemCommands.size()])
+            );
 
             final URL fxmlUrl = getFxmlUrl();
             final FXMLLoader loader = new FXMLLoader(fxmlUrl);
@@ -157,8 +283,9 @@ public class JavaFxCliBuilder {
             // Printers for cli output.
             final TextArea textArea = (TextArea) cliNode.lookup("#cliOutput");
             textArea.setFocusTraversable(false);
-            final CliPrinter out = new CliPrinter(new JavaFxCliOutput(textArea));
-            final CliPrinter err = new CliPrinter(new JavaFxCliOutput(textArea));
+            final JavaFxCliOutputBuffer buffer = new JavaFxCliOutputBuffer(textArea, maxOutputLines);
+            final CliPrinter out = new CliPrinter(new JavaFxCliOutput(buffer));
+            final CliPrinter err = new CliPrinter(new JavaFxCliOutput(buffer));
 
             // TextField as command line.
             final TextField commandLine = (TextField) cliNode.lookup("#commandLine");
@@ -167,6 +294,11 @@ public class JavaFxCliBuilder {
             // Create the shell and the actual CLI.
             final CliShell shell = new CliShell.Builder(hierarchy, gui, out, err)
                 .setMaxCommandHistory(maxCommandHistory)
+                .setPagerThreshold(pagerThreshold)
+                .setPagerPageSize(pagerPageSize)
+                .setOutputRedirector(outputRedirector)
+                .setInstrumentation(instrumentation)
+                .setExecutionModel(executionModel)
                 .build();
             final Cli cli = new Cli(shell, commandLineManager);
 
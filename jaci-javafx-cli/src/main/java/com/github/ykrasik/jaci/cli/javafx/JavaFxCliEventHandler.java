@@ -57,6 +57,16 @@ public class JavaFxCliEventHandler implements EventHandler<KeyEvent> {
                 keyEvent.consume();
                 break;
 
+            case PAGE_UP:
+                cli.pagePrev();
+                keyEvent.consume();
+                break;
+
+            case PAGE_DOWN:
+                cli.pageNext();
+                keyEvent.consume();
+                break;
+
             default:
                 break;
         }
@@ -18,6 +18,7 @@ package com.github.ykrasik.jaci.cli.javafx.gui;
 
 import com.github.ykrasik.jaci.cli.directory.CliDirectory;
 import com.github.ykrasik.jaci.cli.gui.CliGui;
+import javafx.application.Platform;
 import javafx.scene.control.Label;
 
 import java.util.Objects;
@@ -36,6 +37,18 @@ public class JavaFxCliGui implements CliGui {
 
     @Override
     public void setWorkingDirectory(CliDirectory workingDirectory) {
-        this.workingDirectory.setText(workingDirectory.toPath());
+        final String path = workingDirectory.toPath();
+        if (Platform.isFxApplicationThread()) {
+            this.workingDirectory.setText(path);
+            return;
+        }
+
+        // Commands may be executed off the FX thread, depending on the execution model.
+        Platform.runLater(new Runnable() {
+            @Override
+            public void run() {
+                JavaFxCliGui.this.workingDirectory.setText(path);
+            }
+        });
     }
 }
@@ -16,26 +16,44 @@
 
 package com.github.ykrasik.jaci.cli.javafx.output;
 
-import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.BatchCliOutput;
 import javafx.scene.control.TextArea;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
- * A {@link CliOutput} that writes to a JavaFx {@link TextArea}.
+ * A {@link com.github.ykrasik.jaci.cli.output.CliOutput} that writes to a {@link JavaFxCliOutputBuffer}.
  *
  * @author Yevgeny Krasik
  */
-public class JavaFxCliOutput implements CliOutput {
-    private final TextArea textArea;
+public class JavaFxCliOutput implements BatchCliOutput {
+    /** Maximum amount of lines kept by a buffer created through {@link #JavaFxCliOutput(TextArea)}. */
+    public static final int DEFAULT_MAX_LINES = 1000;
 
+    private final JavaFxCliOutputBuffer buffer;
+
+    public JavaFxCliOutput(JavaFxCliOutputBuffer buffer) {
+        this.buffer = Objects.requireNonNull(buffer, "buffer");
+    }
+
+    /**
+     * @param textArea Text area to write to, through a new buffer that keeps {@link #DEFAULT_MAX_LINES} lines.
+     * @deprecated Outputs that write to the same text area must share a {@link JavaFxCliOutputBuffer},
+     *             use {@link #JavaFxCliOutput(JavaFxCliOutputBuffer)}.
+     */
+    @Deprecated
     public JavaFxCliOutput(TextArea textArea) {
-        this.textArea = Objects.requireNonNull(textArea, "textArea");
+        this(new JavaFxCliOutputBuffer(textArea, DEFAULT_MAX_LINES));
     }
 
     @Override
     public void println(String text) {
-        textArea.appendText(text);
-        textArea.appendText("\n");
+        buffer.println(text);
+    }
+
+    @Override
+    public void printlnAll(List<String> lines) {
+        buffer.printlnAll(lines);
     }
 }
@@ -0,0 +1,198 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.javafx.output;
+
+import javafx.application.Platform;
+import javafx.scene.control.TextArea;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The lines shown by a JavaFx {@link TextArea} that functions as a 'terminal screen'.
+ * Keeps a maximum amount of lines.<br>
+ * Lines may be added from any thread. They are queued and flushed to the text area on the FX thread in
+ * a single batched update, through a single {@link Platform#runLater(Runnable)} for all lines added until the flush
+ * - every change to a text area's text re-lays-out all of it, so updating it once per line doesn't scale.
+ *
+ * @author Yevgeny Krasik
+ */
+public class JavaFxCliOutputBuffer {
+    private final OutputText text;
+    private final Executor fxExecutor;
+    private final int maxLines;
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /** Lengths of the lines currently in the text area, including their '\n'. Only accessed on the FX thread. */
+    private final Deque<Integer> lineLengths = new ArrayDeque<>();
+    private final StringBuilder batch = new StringBuilder();
+
+    /**
+     * @param textArea Text area to write to.
+     * @param maxLines Maximum amount of lines to keep. Once exceeded, the oldest lines are removed.
+     */
+    public JavaFxCliOutputBuffer(TextArea textArea, int maxLines) {
+        this(new TextAreaOutputText(textArea), new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                Platform.runLater(command);
+            }
+        }, maxLines);
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    JavaFxCliOutputBuffer(OutputText text, Executor fxExecutor, int maxLines) {
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("Invalid maxLines: " + maxLines);
+        }
+        this.text = Objects.requireNonNull(text, "text");
+        this.fxExecutor = Objects.requireNonNull(fxExecutor, "fxExecutor");
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Add a single line to this buffer. May be called from any thread.
+     * The line will be shown once the FX thread gets to flush it.
+     *
+     * @param text Line text.
+     */
+    public void println(String text) {
+        pending.add(text);
+        scheduleFlush();
+    }
+
+    /**
+     * Add a block of lines to this buffer. May be called from any thread.
+     *
+     * @param lines Lines to add.
+     */
+    public void printlnAll(List<String> lines) {
+        pending.addAll(lines);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            fxExecutor.execute(flushTask);
+        }
+    }
+
+    /**
+     * Flush all pending lines to the text area. Must be called on the FX thread.
+     */
+    private void flush() {
+        // Lines added from now on will schedule another flush.
+        flushScheduled.set(false);
+
+        int pendingLines = pending.size();
+        if (pendingLines == 0) {
+            return;
+        }
+
+        // Only the last maxLines lines will survive, don't bother adding older ones.
+        while (pendingLines > maxLines) {
+            pending.poll();
+            pendingLines--;
+        }
+
+        String line;
+        int addedLines = 0;
+        while (addedLines < pendingLines && (line = pending.poll()) != null) {
+            final int start = batch.length();
+            batch.append(line).append('\n');
+            lineLengths.addLast(batch.length() - start);
+            addedLines++;
+        }
+
+        // Remove the oldest lines before appending, appending is what scrolls the text area to the bottom.
+        int removedLength = 0;
+        while (lineLengths.size() > maxLines) {
+            removedLength += lineLengths.pollFirst();
+        }
+        if (removedLength > 0) {
+            text.deleteText(0, Math.min(removedLength, text.getLength()));
+        }
+        text.appendText(batch.toString());
+
+        // Don't hold on to the memory of a huge batch.
+        batch.setLength(0);
+        if (batch.capacity() > 64 * 1024) {
+            batch.trimToSize();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("JavaFxCliOutputBuffer{");
+        sb.append("maxLines=").append(maxLines);
+        sb.append(", pending=").append(pending.size());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * The operations this buffer performs on the text it writes to.
+     * Package-protected for testing - a {@link TextArea} can't be created without a running FX toolkit.
+     */
+    interface OutputText {
+        int getLength();
+
+        void deleteText(int start, int end);
+
+        void appendText(String text);
+    }
+
+    private static class TextAreaOutputText implements OutputText {
+        private final TextArea textArea;
+
+        private TextAreaOutputText(TextArea textArea) {
+            this.textArea = Objects.requireNonNull(textArea, "textArea");
+        }
+
+        @Override
+        public int getLength() {
+            return textArea.getLength();
+        }
+
+        @Override
+        public void deleteText(int start, int end) {
+            textArea.deleteText(start, end);
+        }
+
+        @Override
+        public void appendText(String text) {
+            textArea.appendText(text);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.javafx.output;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class JavaFxCliOutputBufferTest {
+    private StringOutputText text;
+    private ManualExecutor fxExecutor;
+    private JavaFxCliOutputBuffer buffer;
+
+    @Before
+    public void setUp() {
+        text = new StringOutputText();
+        fxExecutor = new ManualExecutor();
+        buffer = new JavaFxCliOutputBuffer(text, fxExecutor, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxLines() {
+        new JavaFxCliOutputBuffer(text, fxExecutor, 0);
+    }
+
+    @Test
+    public void testLinesFlushedInSingleBatch() {
+        buffer.println("a");
+        buffer.printlnAll(Arrays.asList("b", "c"));
+        assertEquals(1, fxExecutor.tasks.size());
+        assertEquals("", text.text.toString());
+
+        fxExecutor.runAll();
+        assertEquals("a\nb\nc\n", text.text.toString());
+        assertEquals(1, text.appends);
+
+        buffer.println("d");
+        assertEquals(1, fxExecutor.tasks.size());
+    }
+
+    @Test
+    public void testOldestLinesRemoved() {
+        buffer.printlnAll(Arrays.asList("a", "bb"));
+        fxExecutor.runAll();
+        buffer.printlnAll(Arrays.asList("ccc", "dddd"));
+        fxExecutor.runAll();
+        assertEquals("bb\nccc\ndddd\n", text.text.toString());
+
+        buffer.println("e");
+        fxExecutor.runAll();
+        assertEquals("ccc\ndddd\ne\n", text.text.toString());
+    }
+
+    @Test
+    public void testLinesBeyondMaxLinesSkipped() {
+        buffer.println("a");
+        fxExecutor.runAll();
+        buffer.printlnAll(Arrays.asList("b", "c", "d", "e", "f"));
+        fxExecutor.runAll();
+
+        assertEquals("d\ne\nf\n", text.text.toString());
+        assertEquals(2, text.appends);
+    }
+
+    @Test
+    public void testConcurrentPrintln() throws InterruptedException {
+        final int threads = 4;
+        final int linesPerThread = 1000;
+        buffer = new JavaFxCliOutputBuffer(text, fxExecutor, threads * linesPerThread);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final String prefix = i + ":";
+            final Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int j = 0; j < linesPerThread; j++) {
+                        buffer.println(prefix + j);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        fxExecutor.runAll();
+
+        final String[] lines = text.text.toString().split("\n");
+        assertEquals(threads * linesPerThread, lines.length);
+        final int[] nextLine = new int[threads];
+        for (String line : lines) {
+            final String[] parts = line.split(":");
+            final int thread = Integer.parseInt(parts[0]);
+            assertEquals("Lines of thread " + thread + " out of order", nextLine[thread], Integer.parseInt(parts[1]));
+            nextLine[thread]++;
+        }
+        assertTrue(fxExecutor.tasks.isEmpty());
+    }
+
+    private static class StringOutputText implements JavaFxCliOutputBuffer.OutputText {
+        private final StringBuilder text = new StringBuilder();
+        private int appends;
+
+        @Override
+        public int getLength() {
+            return text.length();
+        }
+
+        @Override
+        public void deleteText(int start, int end) {
+            text.delete(start, end);
+        }
+
+        @Override
+        public void appendText(String text) {
+            this.text.append(text);
+            appends++;
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            final List<Runnable> tasks;
+            synchronized (this) {
+                tasks = new ArrayList<>(this.tasks);
+                this.tasks.clear();
+            }
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+}
@@ -17,6 +17,10 @@
 package com.github.ykrasik.jaci.cli.libgdx;
 
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.github.ykrasik.jaci.cli.instrument.HistogramShellInstrumentation;
+import com.github.ykrasik.jaci.cli.instrument.ProfileCommandFactory;
+import com.github.ykrasik.jaci.cli.instrument.SamplingProfiler;
+import com.github.ykrasik.jaci.cli.output.FileOutputRedirector;
 import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
 
 /**
@@ -26,11 +30,23 @@ import com.github.ykrasik.jaci.reflection.JavaReflectionAccessor;
  * a class and add any annotated methods as commands to this builder.
  *
  * Uses Java reflection API, which supports full reflection capabilities (including parameter annotations),
- * but will not work with GWT.
+ * but will not work with GWT.<br>
+ * Supports redirecting output to files ('cmd &gt; file') through a {@link FileOutputRedirector}, unless a different
+ * redirector is specified via {@link #setOutputRedirector(com.github.ykrasik.jaci.cli.output.OutputRedirector)}.
+ * Records statistics through a {@link HistogramShellInstrumentation}, unless a different instrumentation is specified via
+ * {@link #setInstrumentation(com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation)}.
+ * The whole application can be profiled with the 'profile' system command, which samples on a background thread
+ * and never blocks the render thread.
  */
 public class LibGdxCliBuilder extends LibGdxCli.AbstractBuilder {
     static {
         // Set reflection to the Java API.
         JavaReflectionAccessor.install();
     }
+
+    public LibGdxCliBuilder() {
+        setOutputRedirector(new FileOutputRedirector.Builder().build());
+        setInstrumentation(new HistogramShellInstrumentation());
+        addSystemCommands(ProfileCommandFactory.create(new SamplingProfiler()));
+    }
 }
@@ -29,18 +29,28 @@ import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.Array;
 import com.github.ykrasik.jaci.cli.Cli;
 import com.github.ykrasik.jaci.cli.CliShell;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
 import com.github.ykrasik.jaci.cli.commandline.CommandLineManager;
 import com.github.ykrasik.jaci.cli.gui.CliGui;
 import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchy;
 import com.github.ykrasik.jaci.cli.hierarchy.CliCommandHierarchyImpl;
+import com.github.ykrasik.jaci.cli.instrument.ShellInstrumentation;
 import com.github.ykrasik.jaci.cli.libgdx.commandline.LibGdxCommandLineManager;
 import com.github.ykrasik.jaci.cli.libgdx.gui.LibGdxCliGui;
 import com.github.ykrasik.jaci.cli.libgdx.log.ApplicationLoggingDecorator;
 import com.github.ykrasik.jaci.cli.libgdx.output.LibGdxCliOutput;
 import com.github.ykrasik.jaci.cli.libgdx.output.LibGdxCliOutputBuffer;
+import com.github.ykrasik.jaci.cli.libgdx.task.LibGdxTaskScheduler;
+import com.github.ykrasik.jaci.cli.libgdx.task.TasksCommandFactory;
 import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.cli.output.OutputRedirector;
+import com.github.ykrasik.jaci.hierarchy.CommandDefProvider;
 import com.github.ykrasik.jaci.hierarchy.CommandHierarchyDef;
+import com.github.ykrasik.jaci.util.opt.Opt;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -78,6 +88,12 @@ import java.util.Objects;
  *     </li>
  * </ul>
  *
+ * Command lines are always executed on the render thread, through the shell's default
+ * {@link com.github.ykrasik.jaci.cli.execution.DirectExecutionModel} - scene2d widgets may only be touched from
+ * the render thread, and GWT has no other threads. This means {@link Cli#executeAsync()} also runs synchronously.
+ * Commands that take long should return an {@link com.github.ykrasik.jaci.api.IncrementalTask} instead,
+ * which is run over multiple frames within a per-frame budget.<br>
+ * <br>
  * Built through a concrete implementation of {@link AbstractBuilder}.
  *
  * @author Yevgeny Krasik
@@ -92,8 +108,21 @@ public class LibGdxCli extends Table {
      * @param hierarchy Command hierarchy.
      * @param maxBufferEntries Maximum amount of line entries in the buffer to keep.
      * @param maxCommandHistory Maximum amount of command history entries to keep.
+     * @param pagerThreshold Amount of lines a command line may print before the rest of it's output is paged, 0 to never page.
+     * @param pagerPageSize Amount of lines in a page of paged output.
+     * @param outputRedirector Redirector for output redirections, if supported.
+     * @param instrumentation Instrumentation the shell reports to.
+     * @param taskScheduler Runs the incremental tasks returned by commands over multiple frames.
      */
-    private LibGdxCli(Skin skin, CliCommandHierarchy hierarchy, int maxBufferEntries, int maxCommandHistory) {
+    private LibGdxCli(Skin skin,
+                      CliCommandHierarchy hierarchy,
+                      int maxBufferEntries,
+                      int maxCommandHistory,
+                      int pagerThreshold,
+                      int pagerPageSize,
+                      Opt<OutputRedirector> outputRedirector,
+                      ShellInstrumentation instrumentation,
+                      LibGdxTaskScheduler taskScheduler) {
         super(Objects.requireNonNull(skin, "skin"));
 
         // CLI GUI controller.
@@ -117,9 +146,16 @@ public class LibGdxCli extends Table {
         final CommandLineManager commandLineManager = new LibGdxCommandLineManager(commandLine);
 
         // Create the shell and the actual CLI.
-        final CliShell shell = new CliShell.Builder(hierarchy, gui, out, err)
+        final CliShell.Builder shellBuilder = new CliShell.Builder(hierarchy, gui, out, err)
             .setMaxCommandHistory(maxCommandHistory)
-            .build();
+            .setPagerThreshold(pagerThreshold)
+            .setPagerPageSize(pagerPageSize)
+            .setInstrumentation(instrumentation)
+            .setIncrementalTaskRunner(taskScheduler);
+        if (outputRedirector.isPresent()) {
+            shellBuilder.setOutputRedirector(outputRedirector.get());
+        }
+        final CliShell shell = shellBuilder.build();
         cli = new Cli(shell, commandLineManager);
 
         // Hook input events to CLI events.
@@ -247,15 +283,25 @@ public class LibGdxCli extends Table {
      * A builder for a {@link LibGdxCli}.
      * Builds a CLI with a default skin, unless a custom skin is specified via {@link #setSkin(Skin)}.<br>
      * The main methods to use are {@link #processClasses(Class[])} and {@link #process(Object[])} which process
-     * a class and add any annotated methods as commands to this builder.
+     * a class and add any annotated methods as commands to this builder.<br>
+     * The execution model can't be configured - command lines are always executed on the render thread.
      */
     public abstract static class AbstractBuilder {
         private final CommandHierarchyDef.Builder hierarchyBuilder = new CommandHierarchyDef.Builder();
+        private final List<CliCommand> systemCommands = new ArrayList<>();
 
         private Skin skin;
         private int maxBufferEntries = 1000;
         private int maxCommandHistory = 30;
+        private int pagerThreshold;
+        private int pagerPageSize = 50;
         private boolean decorateApplicationLog = false;
+        private int logBufferCapacity = ApplicationLoggingDecorator.DEFAULT_BUFFER_CAPACITY;
+        private int maxLogLinesPerFrame = ApplicationLoggingDecorator.DEFAULT_MAX_LINES_PER_FRAME;
+        private int taskFrameBudgetMillis = 4;
+        private long taskProgressIntervalMillis = 1000;
+        private Opt<OutputRedirector> outputRedirector = Opt.absent();
+        private ShellInstrumentation instrumentation = ShellInstrumentation.NONE;
 
         /**
          * Process the classes and add any commands defined through annotations to this builder.
@@ -280,6 +326,30 @@ public class LibGdxCli extends Table {
             return this;
         }
 
+        /**
+         * Add the commands provided by the {@link CommandDefProvider}s to this builder, without reflection.
+         * Providers are usually generated at compile time by the Jaci annotation processor.
+         *
+         * @param providers Providers whose commands to add.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder addProviders(CommandDefProvider... providers) {
+            hierarchyBuilder.addProviders(providers);
+            return this;
+        }
+
+        /**
+         * Add commands to the CLI's system commands, typically platform-specific diagnostic commands.
+         * System commands take precedence over user commands with the same name.
+         *
+         * @param commands Commands to add.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder addSystemCommands(CliCommand... commands) {
+            systemCommands.addAll(Arrays.asList(commands));
+            return this;
+        }
+
         /**
          * Set the maximum amount of output buffer entries to keep.
          *
@@ -302,6 +372,30 @@ public class LibGdxCli extends Table {
             return this;
         }
 
+        /**
+         * Set the amount of lines a command line may print before the rest of it's output is paged.
+         * Paged output is shown a page at a time through PageDown/PageUp or the 'page' system command.
+         * Defaults to 0, which means output is never paged.
+         *
+         * @param pagerThreshold Amount of lines to print before paging, or 0 to never page.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setPagerThreshold(int pagerThreshold) {
+            this.pagerThreshold = pagerThreshold;
+            return this;
+        }
+
+        /**
+         * Set the amount of lines in each page of paged output. Defaults to 50.
+         *
+         * @param pagerPageSize Amount of lines in a page.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setPagerPageSize(int pagerPageSize) {
+            this.pagerPageSize = pagerPageSize;
+            return this;
+        }
+
         /**
          * Set the skin to use.<br>
          * A custom skin must have the following:
@@ -340,19 +434,109 @@ public class LibGdxCli extends Table {
             return this;
         }
 
-        // FIXME: JavaDoc - whether to log Gdx.App.log
+        /**
+         * Set the redirector that opens the targets of output redirections ('cmd &gt; target').
+         * Redirecting large outputs to a file is much faster than printing them to the output buffer,
+         * which also only keeps the last {@code maxBufferEntries} lines.
+         * Without one, output redirection is not supported.
+         *
+         * @param outputRedirector Redirector to use.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setOutputRedirector(OutputRedirector outputRedirector) {
+            this.outputRedirector = Opt.of(outputRedirector);
+            return this;
+        }
+
+        /**
+         * Set the instrumentation that the phases of assisting with and executing command lines are reported to.
+         * Defaults to {@link ShellInstrumentation#NONE}, which doesn't record anything.
+         *
+         * @param instrumentation Instrumentation to use.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setInstrumentation(ShellInstrumentation instrumentation) {
+            this.instrumentation = Objects.requireNonNull(instrumentation, "instrumentation");
+            return this;
+        }
+
+        /**
+         * Set whether to mirror the application's logging calls ({@code Gdx.app.log}, {@code Gdx.app.debug},
+         * {@code Gdx.app.error}) to the built CLI. If set, {@code Gdx.app} is decorated with an
+         * {@link ApplicationLoggingDecorator} when the CLI is built. Defaults to {@code false}.
+         *
+         * @param decorateApplicationLog Whether to mirror the application's logging calls to the CLI.
+         * @return {@code this}, for chaining.
+         */
         public AbstractBuilder setDecorateApplicationLog(boolean decorateApplicationLog) {
             this.decorateApplicationLog = decorateApplicationLog;
             return this;
         }
 
+        /**
+         * Set the max amount of mirrored log messages that are buffered until the render thread prints them.
+         * Once exceeded, further messages are dropped (and reported as dropped).
+         * Only relevant if {@link #setDecorateApplicationLog(boolean)} is set.
+         *
+         * @param logBufferCapacity Max amount of mirrored log messages to buffer.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setLogBufferCapacity(int logBufferCapacity) {
+            this.logBufferCapacity = logBufferCapacity;
+            return this;
+        }
+
+        /**
+         * Set the max amount of mirrored log messages that are printed to the CLI per frame.
+         * Only relevant if {@link #setDecorateApplicationLog(boolean)} is set.
+         *
+         * @param maxLogLinesPerFrame Max amount of mirrored log messages to print per frame.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setMaxLogLinesPerFrame(int maxLogLinesPerFrame) {
+            this.maxLogLinesPerFrame = maxLogLinesPerFrame;
+            return this;
+        }
+
+        /**
+         * Set the amount of milliseconds per frame to spend on the {@link com.github.ykrasik.jaci.api.IncrementalTask}s
+         * returned by commands. Tasks are stepped on the render thread until the budget is used up, and continue
+         * on the next frame. Defaults to 4.
+         *
+         * @param taskFrameBudgetMillis Milliseconds per frame to spend on incremental tasks.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setTaskFrameBudgetMillis(int taskFrameBudgetMillis) {
+            this.taskFrameBudgetMillis = taskFrameBudgetMillis;
+            return this;
+        }
+
+        /**
+         * Set the interval between progress reports of running {@link com.github.ykrasik.jaci.api.IncrementalTask}s.
+         * Defaults to 1000, 0 to never report progress.
+         *
+         * @param taskProgressIntervalMillis Interval between progress reports, in milliseconds.
+         * @return {@code this}, for chaining.
+         */
+        public AbstractBuilder setTaskProgressIntervalMillis(long taskProgressIntervalMillis) {
+            this.taskProgressIntervalMillis = taskProgressIntervalMillis;
+            return this;
+        }
+
         /**
          * @return A {@link LibGdxCli} built out of this builder's parameters.
          */
         public LibGdxCli build() {
             final Skin skin = getSkin();
-            final CliCommandHierarchy hierarchy = CliCommandHierarchyImpl.from(hierarchyBuilder.build());
-            final LibGdxCli cli = new LibGdxCli(skin, hierarchy, maxBufferEntries, maxCommandHistory);
+            final LibGdxTaskScheduler taskScheduler = new LibGdxTaskScheduler(taskFrameBudgetMillis, taskProgressIntervalMillis);
+            final List<CliCommand> systemCommands = new ArrayList<>(this.systemCommands);
+            systemCommands.add(TasksCommandFactory.create(taskScheduler));
+            final CliCommandHierarchy hierarchy = CliCommandHierarchyImpl.from(
+                hierarchyBuilder.build(), systemCommands.toArray(new CliCommand[systemCommands.size()])
+            );
+            final LibGdxCli cli = new LibGdxCli(
+                skin, hierarchy, maxBufferEntries, maxCommandHistory, pagerThreshold, pagerPageSize, outputRedirector, instrumentation, taskScheduler
+            );
             if (decorateApplicationLog) {
                 decorateApplication(cli);
             }
@@ -373,7 +557,7 @@ public class LibGdxCli extends Table {
             if (currentApplication instanceof ApplicationLoggingDecorator) {
                 throw new IllegalStateException("Gdx.app is already decorated for logging!");
             }
-            Gdx.app = new ApplicationLoggingDecorator(currentApplication, cli);
+            Gdx.app = new ApplicationLoggingDecorator(currentApplication, cli, logBufferCapacity, maxLogLinesPerFrame);
         }
     }
 }
@@ -55,6 +55,14 @@ public class LibGdxCliInputListener extends InputListener {
                 cli.setNextCommandLineFromHistory();
                 return true;
 
+            case Keys.PAGE_UP:
+                cli.pagePrev();
+                return true;
+
+            case Keys.PAGE_DOWN:
+                cli.pageNext();
+                return true;
+
             case Keys.Z:
                 if (Gdx.input.isKeyPressed(Keys.CONTROL_LEFT)) {
                     cli.clearCommandLine();
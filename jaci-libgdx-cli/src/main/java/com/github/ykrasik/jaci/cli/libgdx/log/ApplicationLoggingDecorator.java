@@ -19,7 +19,11 @@ package com.github.ykrasik.jaci.cli.libgdx.log;
 import com.badlogic.gdx.*;
 import com.badlogic.gdx.utils.Clipboard;
 import com.github.ykrasik.jaci.cli.libgdx.LibGdxCli;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -27,19 +31,69 @@ import java.util.Objects;
  * ({@link #error(String, String)}, {@link #error(String, String, Throwable)},
  * {@link #log(String, String)}, {@link #log(String, String, Throwable)},
  * {@link #debug(String, String)}, {@link #debug(String, String, Throwable)})
- * to a provided {@link LibGdxCli}, as well as to the decorated {@link Application}.
+ * to a provided {@link LibGdxCli}, as well as to the decorated {@link Application}.<br>
+ * <br>
+ * Logging calls may come from any thread and must not stall the caller, so messages are not printed to the
+ * {@link LibGdxCli} directly. Instead, they are buffered in a bounded buffer which is drained on the render thread,
+ * at most {@code maxLinesPerFrame} messages per frame. Consecutive identical messages are coalesced and once
+ * the buffer is full, further messages are dropped and reported as "... N messages dropped".<br>
+ * Messages can be filtered per tag with {@link #setTagLogLevel(String, int)}.
  *
  * @author Yevgeny Krasik
  */
 public class ApplicationLoggingDecorator implements Application {
+    /** Default max amount of messages to buffer until the render thread drains them. */
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    /** Default max amount of messages to print to the {@link LibGdxCli} per frame. */
+    public static final int DEFAULT_MAX_LINES_PER_FRAME = 64;
+
     private final Application delegate;
-    private final LibGdxCli cli;
+    private final CliPrinter out;
+    private final CliPrinter err;
+    private final LogBuffer buffer;
+    private final int maxLinesPerFrame;
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /** Only ever touched on the render thread. */
+    private final LogBuffer.LogEntry entry = new LogBuffer.LogEntry();
+
+    /** Copied on write, so logging threads can read it without locking. */
+    private volatile Map<String, Integer> tagLogLevels = Collections.emptyMap();
 
     protected int logLevel;
 
     public ApplicationLoggingDecorator(Application delegate, LibGdxCli cli) {
-        this.delegate = Objects.requireNonNull(delegate);
-        this.cli = Objects.requireNonNull(cli);
+        this(delegate, cli, DEFAULT_BUFFER_CAPACITY, DEFAULT_MAX_LINES_PER_FRAME);
+    }
+
+    /**
+     * @param delegate Application to decorate.
+     * @param cli CLI to mirror logging calls to.
+     * @param bufferCapacity Max amount of messages to buffer until the render thread drains them.
+     * @param maxLinesPerFrame Max amount of messages to print to the CLI per frame.
+     */
+    public ApplicationLoggingDecorator(Application delegate, LibGdxCli cli, int bufferCapacity, int maxLinesPerFrame) {
+        this(delegate, Objects.requireNonNull(cli, "cli").getOut(), cli.getErr(), bufferCapacity, maxLinesPerFrame);
+    }
+
+    /**
+     * Package-protected for testing.
+     */
+    ApplicationLoggingDecorator(Application delegate, CliPrinter out, CliPrinter err, int bufferCapacity, int maxLinesPerFrame) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.out = Objects.requireNonNull(out, "out");
+        this.err = Objects.requireNonNull(err, "err");
+        this.buffer = new LogBuffer(bufferCapacity);
+        if (maxLinesPerFrame <= 0) {
+            throw new IllegalArgumentException("Invalid maxLinesPerFrame: " + maxLinesPerFrame);
+        }
+        this.maxLinesPerFrame = maxLinesPerFrame;
 
         logLevel = delegate.getLogLevel();
     }
@@ -76,69 +130,114 @@ public class ApplicationLoggingDecorator implements Application {
 
     @Override
     public void debug(String tag, String message) {
-        if (logLevel >= LOG_DEBUG) {
-            println(tag + ": " + message);
-        }
+        mirror(LOG_DEBUG, tag, message, null);
         delegate.debug(tag, message);
     }
 
     @Override
     public void debug(String tag, String message, Throwable exception) {
-        if (logLevel >= LOG_DEBUG) {
-            println(tag + ": " + message);
-            printException(exception);
-        }
+        mirror(LOG_DEBUG, tag, message, exception);
         delegate.debug(tag, message, exception);
     }
 
     @Override
     public void log(String tag, String message) {
-        if (logLevel >= LOG_INFO) {
-            println(tag + ": " + message);
-        }
+        mirror(LOG_INFO, tag, message, null);
         delegate.log(tag, message);
     }
 
     @Override
     public void log(String tag, String message, Throwable exception) {
-        if (logLevel >= LOG_INFO) {
-            println(tag + ": " + message);
-            printException(exception);
-        }
+        mirror(LOG_INFO, tag, message, exception);
         delegate.log(tag, message, exception);
     }
 
     @Override
     public void error(String tag, String message) {
-        if (logLevel >= LOG_ERROR) {
-            errorPrintln(tag + ": " + message);
-        }
+        mirror(LOG_ERROR, tag, message, null);
         delegate.error(tag, message);
     }
 
     @Override
     public void error(String tag, String message, Throwable exception) {
-        if (logLevel >= LOG_ERROR) {
-            errorPrintln(tag + ": " + message);
-            errorPrintException(exception);
-        }
+        mirror(LOG_ERROR, tag, message, exception);
         delegate.error(tag, message, exception);
     }
 
-    private void println(String text) {
-        cli.getOut().println(text);
+    private void mirror(int level, String tag, String message, Throwable exception) {
+        if (getLogLevel(tag) < level) {
+            return;
+        }
+        if (buffer.offer(level, String.valueOf(tag), String.valueOf(message), exception)) {
+            delegate.postRunnable(drainTask);
+        }
+    }
+
+    /**
+     * Print buffered messages to the CLI. Called on the render thread, once per frame while there are buffered messages.
+     */
+    private void drain() {
+        for (int i = 0; i < maxLinesPerFrame && buffer.poll(entry); i++) {
+            print(entry);
+        }
+        entry.tag = null;
+        entry.message = null;
+        entry.exception = null;
+
+        if (buffer.finishDrain()) {
+            // Continue on the next frame.
+            delegate.postRunnable(drainTask);
+        }
+    }
+
+    private void print(LogBuffer.LogEntry entry) {
+        if (entry.level == LogBuffer.DROPPED) {
+            err.println("... " + entry.repeats + (entry.repeats == 1 ? " message" : " messages") + " dropped");
+            return;
+        }
+
+        final CliPrinter printer = entry.level == LOG_ERROR ? err : out;
+        if (entry.repeats == 1) {
+            printer.println(entry.tag + ": " + entry.message);
+        } else {
+            printer.println(entry.tag + ": " + entry.message + " (repeated " + entry.repeats + " times)");
+        }
+        if (entry.exception != null) {
+            printer.printThrowable(entry.exception);
+        }
     }
 
-    private void errorPrintln(String text) {
-        cli.getErr().println(text);
+    /**
+     * Set the log level of messages with the given tag that will be sent to the CLI, overriding the application's
+     * log level for that tag. Does not affect the decorated {@link Application}.
+     *
+     * @param tag Tag to set the log level for.
+     * @param logLevel Log level, one of {@link #LOG_NONE}, {@link #LOG_ERROR}, {@link #LOG_INFO}, {@link #LOG_DEBUG}.
+     */
+    public synchronized void setTagLogLevel(String tag, int logLevel) {
+        final Map<String, Integer> tagLogLevels = new HashMap<>(this.tagLogLevels);
+        tagLogLevels.put(Objects.requireNonNull(tag, "tag"), logLevel);
+        this.tagLogLevels = tagLogLevels;
     }
 
-    private void printException(Throwable t) {
-        cli.getOut().printThrowable(t);
+    /**
+     * Remove the log level override of the given tag, so its messages are filtered by the application's log level again.
+     *
+     * @param tag Tag to remove the log level override for.
+     */
+    public synchronized void removeTagLogLevel(String tag) {
+        final Map<String, Integer> tagLogLevels = new HashMap<>(this.tagLogLevels);
+        tagLogLevels.remove(tag);
+        this.tagLogLevels = tagLogLevels;
     }
 
-    private void errorPrintException(Throwable t) {
-        cli.getErr().printThrowable(t);
+    /**
+     * @param tag Tag to check.
+     * @return The log level of messages with the given tag that will be sent to the CLI.
+     */
+    public int getLogLevel(String tag) {
+        final Integer tagLogLevel = tagLogLevels.get(tag);
+        return tagLogLevel != null ? tagLogLevel : logLevel;
     }
 
     @Override
@@ -0,0 +1,165 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.log;
+
+/**
+ * A bounded ring buffer of log messages, written by any thread and drained by a single thread (the render thread).<br>
+ * Consecutive identical messages are coalesced into a single entry with a repeat count. Once the buffer is full,
+ * new messages are dropped and counted by a single 'dropped' entry, so a log flood costs a bounded amount of memory
+ * and the drainer learns how much was lost.<br>
+ * Must compile under GWT, so there is no java.util.concurrent here - every operation is a short synchronized section
+ * that only copies references, and nothing is ever printed while holding the lock.
+ *
+ * @author Yevgeny Krasik
+ */
+class LogBuffer {
+    /** Level of the entry that counts dropped messages. */
+    static final int DROPPED = -1;
+
+    private final int capacity;
+    private final int[] levels;
+    private final String[] tags;
+    private final String[] messages;
+    private final Throwable[] exceptions;
+    private final int[] repeats;
+
+    private int head;
+    private int size;
+    private boolean drainScheduled;
+
+    /**
+     * @param capacity Max amount of entries to buffer, including the entry that counts dropped messages.
+     */
+    LogBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.levels = new int[capacity];
+        this.tags = new String[capacity];
+        this.messages = new String[capacity];
+        this.exceptions = new Throwable[capacity];
+        this.repeats = new int[capacity];
+    }
+
+    /**
+     * Buffer a message, coalescing it with the previous message if they are identical.
+     *
+     * @param level Log level of the message.
+     * @param tag Tag of the message.
+     * @param message Message to buffer.
+     * @param exception Exception that was logged with the message, may be {@code null}.
+     * @return {@code true} if a drain should be scheduled. Only returned once until the drainer calls {@link #finishDrain()}.
+     */
+    synchronized boolean offer(int level, String tag, String message, Throwable exception) {
+        if (size > 0) {
+            final int last = index(size - 1);
+            if (levels[last] == DROPPED) {
+                if (size == capacity) {
+                    repeats[last]++;
+                    return scheduleDrain();
+                }
+            } else if (exception == null && exceptions[last] == null && levels[last] == level &&
+                       tag.equals(tags[last]) && message.equals(messages[last])) {
+                repeats[last]++;
+                return scheduleDrain();
+            }
+        }
+
+        if (size == capacity - 1) {
+            // Last free slot is reserved for counting dropped messages.
+            append(DROPPED, null, null, null);
+        } else {
+            append(level, tag, message, exception);
+        }
+        return scheduleDrain();
+    }
+
+    private void append(int level, String tag, String message, Throwable exception) {
+        final int index = index(size++);
+        levels[index] = level;
+        tags[index] = tag;
+        messages[index] = message;
+        exceptions[index] = exception;
+        repeats[index] = 1;
+    }
+
+    private boolean scheduleDrain() {
+        if (drainScheduled) {
+            return false;
+        }
+        drainScheduled = true;
+        return true;
+    }
+
+    /**
+     * Remove the oldest entry from the buffer.
+     *
+     * @param entry Entry to copy the removed entry into.
+     * @return {@code false} if the buffer is empty.
+     */
+    synchronized boolean poll(LogEntry entry) {
+        if (size == 0) {
+            return false;
+        }
+        entry.level = levels[head];
+        entry.tag = tags[head];
+        entry.message = messages[head];
+        entry.exception = exceptions[head];
+        entry.repeats = repeats[head];
+
+        tags[head] = null;
+        messages[head] = null;
+        exceptions[head] = null;
+        head = index(1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Called by the drainer once it's done draining for now.
+     *
+     * @return {@code true} if there are still buffered entries, in which case another drain is considered scheduled.
+     */
+    synchronized boolean finishDrain() {
+        drainScheduled = size > 0;
+        return drainScheduled;
+    }
+
+    /**
+     * @return Amount of buffered entries.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % capacity;
+    }
+
+    /**
+     * A mutable holder of a single entry, so polling doesn't allocate.
+     */
+    static class LogEntry {
+        int level;
+        String tag;
+        String message;
+        Throwable exception;
+        int repeats;
+    }
+}
@@ -17,8 +17,10 @@
 package com.github.ykrasik.jaci.cli.libgdx.output;
 
 import com.badlogic.gdx.graphics.Color;
+import com.github.ykrasik.jaci.cli.output.BatchCliOutput;
 import com.github.ykrasik.jaci.cli.output.CliOutput;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -27,7 +29,7 @@ import java.util.Objects;
  *
  * @author Yevgeny Krasik
  */
-public class LibGdxCliOutput implements CliOutput {
+public class LibGdxCliOutput implements BatchCliOutput {
     private final LibGdxCliOutputBuffer buffer;
     private final Color color;
 
@@ -40,4 +42,9 @@ public class LibGdxCliOutput implements CliOutput {
     public void println(String text) {
         buffer.println(text, color);
     }
+
+    @Override
+    public void printlnAll(List<String> lines) {
+        buffer.printlnAll(lines, color);
+    }
 }
@@ -17,31 +17,26 @@
 package com.github.ykrasik.jaci.cli.libgdx.output;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 
-import java.util.LinkedList;
-import java.util.Objects;
-import java.util.Queue;
+import java.util.List;
 
 /**
  * A LibGdx implementation of a 'terminal screen'.
- * Implemented as a {@link Table} of {@link Label}, each Label representing a single line.
- * Keeps a maximum amount of lines.
+ * Keeps a maximum amount of lines, but only renders the lines that are currently scrolled into view,
+ * so the amount of kept lines doesn't affect rendering cost.
+ * Adding lines is cheap - they are measured and laid out at most once per frame.
  *
  * @author Yevgeny Krasik
  */
 public class LibGdxCliOutputBuffer extends Table {
-    private final Skin skin;
-    private final int maxBufferEntries;
-    private int numBufferEntries;       // To avoid calling size() on a LinkedList, which is O(n).
-
-    private final Table buffer;
+    private final OutputLineView buffer;
     private final ScrollPane scrollPane;
-    private final Queue<Label> bufferEntries;
+
+    private boolean scrollToBottom;
 
     /**
      * @param skin Skin to use for the lines.
@@ -49,13 +44,9 @@ public class LibGdxCliOutputBuffer extends Table {
      * @param maxBufferEntries Maximum amount of lines to store.
      */
     public LibGdxCliOutputBuffer(Skin skin, int maxBufferEntries) {
-        this.skin = Objects.requireNonNull(skin, "skin");
-        this.maxBufferEntries = maxBufferEntries;
-
-        // Create a buffer to hold out text labels.
-        this.buffer = new Table();
+        // Create a buffer to hold our lines.
+        this.buffer = new OutputLineView(skin, maxBufferEntries);
         buffer.setName("outputBuffer");
-        buffer.bottom().left();
 
         // Wrap the buffer in a scrollpane.
         scrollPane = new ScrollPane(buffer);
@@ -65,9 +56,6 @@ public class LibGdxCliOutputBuffer extends Table {
         scrollPane.setFillParent(true);
         updateScroll();
 
-        // Buffer history.
-        this.bufferEntries = new LinkedList<>();
-
         add(scrollPane);
     }
 
@@ -79,29 +67,41 @@ public class LibGdxCliOutputBuffer extends Table {
      * @param color Line color.
      */
     public void println(String text, Color color) {
-        final Label label = new Label(text, skin, "outputEntry");
-        label.setColor(color);
-        label.setWrap(true);
-        addLabel(label);
+        buffer.addLine(text, color);
+        scrollToBottom = true;
     }
 
-    private void addLabel(Label newEntry) {
-        if (numBufferEntries == maxBufferEntries) {
-            final Label lastEntry = bufferEntries.poll();
-            buffer.removeActor(lastEntry);
-            numBufferEntries--;
+    /**
+     * Add a block of lines to this buffer.
+     *
+     * @param lines Lines to add.
+     * @param color Color of the lines.
+     */
+    public void printlnAll(List<String> lines, Color color) {
+        for (String line : lines) {
+            buffer.addLine(line, color);
         }
+        scrollToBottom = true;
+    }
 
-        bufferEntries.add(newEntry);
-        numBufferEntries++;
-        buffer.add(newEntry).left().row();
+    @Override
+    public void act(float delta) {
+        super.act(delta);
 
-        updateScroll();
+        // Scroll once per frame, no matter how many lines were added.
+        if (scrollToBottom) {
+            scrollToBottom = false;
+            updateScroll();
+        }
     }
 
     private void updateScroll() {
         // Set the scroll to the bottom of the pane.
         scrollPane.layout();
+        if (buffer.needsLayout()) {
+            // Lines were re-wrapped by the previous layout, which changed the buffer's height.
+            scrollPane.layout();
+        }
         scrollPane.setScrollPercentY(1);
         scrollPane.updateVisualScroll();
     }
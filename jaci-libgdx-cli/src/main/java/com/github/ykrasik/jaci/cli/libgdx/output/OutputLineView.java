@@ -0,0 +1,220 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.output;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Objects;
+
+/**
+ * A virtualized view of output lines, meant to be the widget of a {@link com.badlogic.gdx.scenes.scene2d.ui.ScrollPane}.<br>
+ * Lines are kept as strings in a ring buffer together with their wrapped height, which is measured once per line
+ * (and again only when the view's width changes). Only the rows that intersect the culling area set by the
+ * scroll pane are rendered, by a small pool of {@link Label}s that is recycled as the view scrolls - so lines that
+ * are scrolled out of view cost nothing but their string.<br>
+ * Lines are laid out bottom-up, the newest line at the bottom.
+ *
+ * @author Yevgeny Krasik
+ */
+class OutputLineView extends WidgetGroup {
+    private final Skin skin;
+    private final int capacity;
+
+    private final String[] texts;
+    private final Color[] colors;
+    private final float[] heights;
+    private int head;
+    private int size;
+
+    /** Sequence number of the oldest line, increases whenever a line is evicted. */
+    private long firstSeq;
+
+    /** Amount of newest lines whose height wasn't measured yet. */
+    private int unmeasured;
+    private float measuredWidth = -1;
+    private float totalHeight;
+
+    /** Used to measure lines exactly the way the rendering labels will lay them out. */
+    private final Label measureLabel;
+
+    private final Array<Label> labels = new Array<>();
+    private long[] labelSeqs = new long[8];
+    private Rectangle cullingArea;
+
+    /**
+     * @param skin Skin to use for the lines. Must contain a {@link Label.LabelStyle} called 'outputEntry'.
+     * @param capacity Max amount of lines to keep.
+     */
+    OutputLineView(Skin skin, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.skin = Objects.requireNonNull(skin, "skin");
+        this.capacity = capacity;
+        this.texts = new String[capacity];
+        this.colors = new Color[capacity];
+        this.heights = new float[capacity];
+
+        this.measureLabel = newLabel();
+    }
+
+    /**
+     * Add a line, evicting the oldest line if the view is full.
+     * Nothing is measured or laid out until the next layout.
+     *
+     * @param text Line text.
+     * @param color Line color.
+     */
+    void addLine(String text, Color color) {
+        if (size == capacity) {
+            totalHeight -= heights[head];
+            texts[head] = null;
+            colors[head] = null;
+            head = index(1);
+            size--;
+            firstSeq++;
+        }
+
+        final int index = index(size++);
+        texts[index] = text;
+        colors[index] = color;
+        heights[index] = 0;
+        unmeasured = Math.min(unmeasured + 1, size);
+        invalidateHierarchy();
+    }
+
+    @Override
+    public float getPrefHeight() {
+        measure();
+        return totalHeight;
+    }
+
+    @Override
+    public void layout() {
+        final float oldTotalHeight = totalHeight;
+        measure();
+        if (totalHeight != oldTotalHeight) {
+            // Lines were re-wrapped to a new width, the scroll pane will pick up the new height on the next layout.
+            invalidateHierarchy();
+        }
+        updateRows();
+    }
+
+    @Override
+    public void setCullingArea(Rectangle cullingArea) {
+        super.setCullingArea(cullingArea);
+        this.cullingArea = cullingArea;
+        updateRows();
+    }
+
+    /**
+     * Measure the heights of all lines that weren't measured at the current width.
+     */
+    private void measure() {
+        final float width = getWidth();
+        if (width <= 0) {
+            return;
+        }
+        if (width != measuredWidth) {
+            measuredWidth = width;
+            unmeasured = size;
+        }
+        if (unmeasured == 0) {
+            return;
+        }
+
+        measureLabel.setWidth(width);
+        for (int i = size - unmeasured; i < size; i++) {
+            final int index = index(i);
+            measureLabel.setText(texts[index]);
+            final float height = measureLabel.getPrefHeight();
+            totalHeight += height - heights[index];
+            heights[index] = height;
+        }
+        unmeasured = 0;
+    }
+
+    /**
+     * Bind pooled labels to the lines that intersect the culling area and hide the rest.
+     * Lines are scanned from the bottom, so this is cheap while the view is scrolled to (or near) the bottom.
+     */
+    private void updateRows() {
+        final float width = getWidth();
+        final float bottom = cullingArea != null ? cullingArea.y : 0;
+        final float top = cullingArea != null ? cullingArea.y + cullingArea.height : getHeight();
+
+        int used = 0;
+        float y = 0;
+        for (int i = size - 1; i >= 0 && y < top; i--) {
+            final float height = heights[index(i)];
+            if (y + height > bottom) {
+                bind(used++, i).setBounds(0, y, width, height);
+            }
+            y += height;
+        }
+
+        for (int i = used; i < labels.size; i++) {
+            final Label label = labels.get(i);
+            if (label.isVisible()) {
+                label.setVisible(false);
+                label.setText("");
+                labelSeqs[i] = -1;
+            }
+        }
+    }
+
+    private Label bind(int labelIndex, int line) {
+        if (labelIndex == labels.size) {
+            final Label label = newLabel();
+            labels.add(label);
+            addActor(label);
+            if (labelIndex == labelSeqs.length) {
+                final long[] newLabelSeqs = new long[labelSeqs.length * 2];
+                System.arraycopy(labelSeqs, 0, newLabelSeqs, 0, labelSeqs.length);
+                labelSeqs = newLabelSeqs;
+            }
+            labelSeqs[labelIndex] = -1;
+        }
+
+        final Label label = labels.get(labelIndex);
+        final long seq = firstSeq + line;
+        if (labelSeqs[labelIndex] != seq) {
+            final int index = index(line);
+            label.setText(texts[index]);
+            label.setColor(colors[index]);
+            labelSeqs[labelIndex] = seq;
+        }
+        label.setVisible(true);
+        return label;
+    }
+
+    private Label newLabel() {
+        final Label label = new Label("", skin, "outputEntry");
+        label.setWrap(true);
+        return label;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % capacity;
+    }
+}
@@ -31,7 +31,7 @@ import java.lang.annotation.Annotation;
 public final class LibGdxReflectionAccessor implements ReflectionAccessor {
     private LibGdxReflectionAccessor() { }
 
-    private static final ReflectionAccessor INSTANCE = new LibGdxReflectionAccessor();
+    private static final ReflectionAccessor INSTANCE = new CachingReflectionAccessor(new LibGdxReflectionAccessor());
     private static final Class<?>[] EMPTY_CLASSES = { };
 
     /**
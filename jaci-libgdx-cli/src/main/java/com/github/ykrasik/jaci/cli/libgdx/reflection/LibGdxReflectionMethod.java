@@ -35,11 +35,12 @@ public class LibGdxReflectionMethod implements ReflectionMethod {
     private static final Annotation[] EMPTY_ANNOTATIONS = { };
 
     private final Method method;
-    private final List<ReflectionParameter> parameters;
+
+    /** Computed lazily - most methods of a processed class are never asked for their parameters. */
+    private volatile List<ReflectionParameter> parameters;
 
     public LibGdxReflectionMethod(Method method) {
         this.method = Objects.requireNonNull(method, "method");
-        this.parameters = computeParameters();
     }
 
     private List<ReflectionParameter> computeParameters() {
@@ -73,7 +74,14 @@ public class LibGdxReflectionMethod implements ReflectionMethod {
     }
 
     @Override
-    public List<ReflectionParameter> getParameters() { return parameters; }
+    public List<ReflectionParameter> getParameters() {
+        List<ReflectionParameter> parameters = this.parameters;
+        if (parameters == null) {
+            parameters = computeParameters();
+            this.parameters = parameters;
+        }
+        return parameters;
+    }
 
     @Override
     public Class<?> getReturnType() { return method.getReturnType(); }
@@ -82,7 +90,6 @@ public class LibGdxReflectionMethod implements ReflectionMethod {
     public String toString() {
         final StringBuilder sb = new StringBuilder("LibGdxReflectionMethod{");
         sb.append("method=").append(method);
-        sb.append(", parameters=").append(parameters);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,350 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.task;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.github.ykrasik.jaci.api.CommandInput;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.api.IncrementalTask;
+import com.github.ykrasik.jaci.cli.command.CliCommandOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import com.github.ykrasik.jaci.command.IncrementalTaskRunner;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An {@link IncrementalTaskRunner} that spreads the steps of {@link IncrementalTask}s over frames, so that commands
+ * which can't be moved off the render thread don't drop frames.<br>
+ * Every frame (through {@link com.badlogic.gdx.Application#postRunnable(Runnable)}), the running tasks are stepped
+ * in turns until the frame's budget of milliseconds is used up. A task's steps are never performed on the frame
+ * the task was started on - that frame's time was already spent on executing the command that returned it.<br>
+ * <br>
+ * Steps print to the output of the command that returned the task, which is {@link CliCommandOutput#holdOutput() held}
+ * open until the task is done - a redirection is only closed once the last task printing to it is done.
+ * Tasks whose output is piped are the exception, and are run to completion right away: the next command in the pipeline
+ * is executed on the render thread as soon as the command returns, so it can't wait for later frames.<br>
+ * Reports about the task itself (progress of long running tasks, which is printed periodically, and it's completion)
+ * are printed to the CLI's own output.
+ * A task is cancelled through {@link #cancel(int)} or once the timeout of the command that returned it elapses.<br>
+ * Must only be used from the render thread.
+ *
+ * @author Yevgeny Krasik
+ */
+public class LibGdxTaskScheduler implements IncrementalTaskRunner {
+    private final long frameBudgetNanos;
+    private final long progressIntervalMillis;
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final Runnable frameTask = new Runnable() {
+        @Override
+        public void run() {
+            runFrame();
+        }
+    };
+
+    private int nextId = 1;
+    private boolean posted;
+
+    /**
+     * @param frameBudgetMillis Amount of milliseconds per frame to spend on stepping tasks.
+     * @param progressIntervalMillis Interval between progress reports of a running task, in milliseconds. 0 to never report progress.
+     */
+    public LibGdxTaskScheduler(int frameBudgetMillis, long progressIntervalMillis) {
+        if (frameBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Invalid frameBudgetMillis: " + frameBudgetMillis);
+        }
+        this.frameBudgetNanos = frameBudgetMillis * 1000000L;
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    @Override
+    public void run(IncrementalTask task, CommandOutput output) throws Exception {
+        if (output instanceof CliCommandOutput && ((CliCommandOutput) output).isOutputPiped()) {
+            IncrementalTaskRunner.DIRECT.run(task, output);
+            return;
+        }
+
+        final ScheduledTask scheduledTask = new ScheduledTask(nextId++, task, output);
+        tasks.add(scheduledTask);
+        output.message("Running as task #" + scheduledTask.getId() + ", 'tasks -cancel " + scheduledTask.getId() + "' to cancel.");
+        post();
+    }
+
+    /**
+     * @return The running tasks, in the order they were started.
+     */
+    public List<ScheduledTask> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * @param id Id of the task.
+     * @return The running task with the given id, if there is one.
+     */
+    public Opt<ScheduledTask> getTask(int id) {
+        for (ScheduledTask task : tasks) {
+            if (task.getId() == id) {
+                return Opt.of(task);
+            }
+        }
+        return Opt.absent();
+    }
+
+    /**
+     * Cancel a running task. The task is stopped before it's next step.
+     *
+     * @param id Id of the task to cancel.
+     * @return {@code true} if a running task with the given id was found.
+     */
+    public boolean cancel(int id) {
+        final Opt<ScheduledTask> task = getTask(id);
+        if (task.isPresent()) {
+            task.get().cancelled = true;
+        }
+        return task.isPresent();
+    }
+
+    /**
+     * Cancel all running tasks.
+     *
+     * @return Amount of tasks that were cancelled.
+     */
+    public int cancelAll() {
+        for (ScheduledTask task : tasks) {
+            task.cancelled = true;
+        }
+        return tasks.size();
+    }
+
+    private void post() {
+        if (!posted) {
+            posted = true;
+            Gdx.app.postRunnable(frameTask);
+        }
+    }
+
+    private void runFrame() {
+        posted = false;
+        final long deadline = TimeUtils.nanoTime() + frameBudgetNanos;
+
+        // Step the tasks in turns, so a single task can't starve the others.
+        boolean budgetLeft = true;
+        while (budgetLeft && !tasks.isEmpty()) {
+            for (int i = 0; i < tasks.size() && budgetLeft; i++) {
+                final ScheduledTask task = tasks.get(i);
+                if (!task.step()) {
+                    tasks.remove(i--);
+                    task.release();
+                }
+                budgetLeft = TimeUtils.nanoTime() < deadline;
+            }
+        }
+
+        if (!tasks.isEmpty()) {
+            final long now = TimeUtils.millis();
+            for (ScheduledTask task : tasks) {
+                task.frames++;
+                if (progressIntervalMillis > 0 && now - task.lastProgressMillis >= progressIntervalMillis) {
+                    task.lastProgressMillis = now;
+                    task.report(task.getStatus());
+                }
+            }
+            post();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LibGdxTaskScheduler{");
+        sb.append("frameBudgetNanos=").append(frameBudgetNanos);
+        sb.append(", progressIntervalMillis=").append(progressIntervalMillis);
+        sb.append(", tasks=").append(tasks);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A task that is being run by a {@link LibGdxTaskScheduler}.
+     * Also the output that is passed to the task's steps.
+     */
+    public static class ScheduledTask implements CommandOutput {
+        private final int id;
+        private final IncrementalTask task;
+        private final String commandLine;
+        private final CommandOutput commandOutput;
+        private final Opt<CliCommandOutput> cliOutput;
+        private final long startMillis;
+
+        private volatile boolean cancelled;
+        private long steps;
+        private int frames = 1;
+        private long lastProgressMillis;
+
+        private ScheduledTask(int id, IncrementalTask task, CommandOutput commandOutput) {
+            this.id = id;
+            this.task = Objects.requireNonNull(task, "task");
+            this.commandOutput = Objects.requireNonNull(commandOutput, "commandOutput");
+            if (commandOutput instanceof CliCommandOutput) {
+                final CliCommandOutput cliOutput = (CliCommandOutput) commandOutput;
+                this.cliOutput = Opt.of(cliOutput);
+                this.commandLine = cliOutput.getJob().getCommandLine();
+                cliOutput.holdOutput();
+            } else {
+                this.cliOutput = Opt.absent();
+                this.commandLine = task.toString();
+            }
+            this.startMillis = TimeUtils.millis();
+            this.lastProgressMillis = startMillis;
+        }
+
+        /**
+         * @return Id of this task.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return The command line that started this task.
+         */
+        public String getCommandLine() {
+            return commandLine;
+        }
+
+        /**
+         * @return Amount of steps performed so far.
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return Amount of frames this task has been running for.
+         */
+        public int getFrames() {
+            return frames;
+        }
+
+        /**
+         * @return Amount of milliseconds this task has been running for.
+         */
+        public long getElapsedMillis() {
+            return TimeUtils.millis() - startMillis;
+        }
+
+        /**
+         * @return A single line describing the progress of this task.
+         */
+        public String getStatus() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Task #").append(id).append(" '").append(commandLine).append("': ");
+            final double progress = task.getProgress();
+            if (progress >= 0) {
+                sb.append((int) (Math.min(progress, 1) * 100)).append("%, ");
+            }
+            sb.append(getElapsedMillis()).append("ms, ").append(steps).append(" steps over ").append(frames).append(" frames");
+            return sb.toString();
+        }
+
+        /**
+         * @return {@code true} if this task should be stepped again.
+         */
+        private boolean step() {
+            if (isCancelled()) {
+                reportError("Task #" + id + " '" + commandLine + "' cancelled after " + getElapsedMillis() + "ms.");
+                return false;
+            }
+
+            final boolean hasMore;
+            try {
+                steps++;
+                hasMore = task.step(this);
+            } catch (Exception e) {
+                if (cliOutput.isPresent()) {
+                    final CliPrinter err = cliOutput.get().getErr();
+                    err.println("Task #" + id + " '" + commandLine + "' failed:");
+                    err.printThrowable(e);
+                } else {
+                    commandOutput.error("Task #" + id + " '" + commandLine + "' failed: " + e);
+                }
+                return false;
+            }
+
+            if (!hasMore) {
+                report("Task #" + id + " '" + commandLine + "' done in " + getElapsedMillis() + "ms (" + steps + " steps over " + frames + " frames).");
+            }
+            return hasMore;
+        }
+
+        /**
+         * Release the hold on the output of the command that returned this task, once this task is done.
+         */
+        private void release() {
+            if (cliOutput.isPresent()) {
+                cliOutput.get().releaseOutput();
+            }
+        }
+
+        private void report(String text) {
+            if (cliOutput.isPresent()) {
+                cliOutput.get().getShell().getOut().println(text);
+            } else {
+                commandOutput.message(text);
+            }
+        }
+
+        private void reportError(String text) {
+            if (cliOutput.isPresent()) {
+                cliOutput.get().getShell().getErr().println(text);
+            } else {
+                commandOutput.error(text);
+            }
+        }
+
+        @Override
+        public void message(String text) {
+            commandOutput.message(text);
+        }
+
+        @Override
+        public void error(String text) {
+            commandOutput.error(text);
+        }
+
+        /**
+         * A task is also cancelled once the timeout of the command that returned it elapses.
+         */
+        @Override
+        public boolean isCancelled() {
+            return cancelled || commandOutput.isCancelled();
+        }
+
+        @Override
+        public CommandInput getInput() {
+            return commandOutput.getInput();
+        }
+
+        @Override
+        public String toString() {
+            return getStatus();
+        }
+    }
+}
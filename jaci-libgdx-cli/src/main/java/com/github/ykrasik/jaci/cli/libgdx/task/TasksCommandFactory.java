@@ -0,0 +1,85 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.task;
+
+import com.github.ykrasik.jaci.Identifier;
+import com.github.ykrasik.jaci.api.CommandOutput;
+import com.github.ykrasik.jaci.cli.command.CliCommand;
+import com.github.ykrasik.jaci.cli.param.BooleanCliParam;
+import com.github.ykrasik.jaci.cli.param.CliParam;
+import com.github.ykrasik.jaci.cli.param.IntCliParam;
+import com.github.ykrasik.jaci.command.CommandArgs;
+import com.github.ykrasik.jaci.command.CommandExecutor;
+import com.github.ykrasik.jaci.util.function.MoreSuppliers;
+import com.github.ykrasik.jaci.util.opt.Opt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Creates the 'tasks' command, which controls a {@link LibGdxTaskScheduler}:
+ * <ul>
+ *     <li>'tasks' prints the progress of all running tasks.</li>
+ *     <li>'tasks -cancel &lt;id&gt;' cancels a running task.</li>
+ *     <li>'tasks -all' cancels all running tasks.</li>
+ * </ul>
+ *
+ * @author Yevgeny Krasik
+ */
+public final class TasksCommandFactory {
+    private TasksCommandFactory() { }
+
+    /**
+     * @param scheduler Scheduler to control.
+     * @return Create the tasks command.
+     */
+    public static CliCommand create(final LibGdxTaskScheduler scheduler) {
+        Objects.requireNonNull(scheduler, "scheduler");
+        final Identifier identifier = new Identifier("tasks", "Print or cancel the tasks that are running over multiple frames");
+        final List<CliParam> params = Arrays.<CliParam>asList(
+            new IntCliParam(new Identifier("cancel", "Id of the task to cancel, 0 to only print the running tasks"), Opt.of(MoreSuppliers.of(0)), false),
+            BooleanCliParam.optional(new Identifier("all", "Whether to cancel all running tasks"), false, false)
+        );
+        return CliCommand.from(identifier, params, new CommandExecutor() {
+            @Override
+            public void execute(CommandOutput output, CommandArgs args) throws Exception {
+                final int cancel = args.popArg();
+                final boolean all = args.popArg();
+
+                if (all) {
+                    output.message("Cancelled " + scheduler.cancelAll() + " tasks.");
+                } else if (cancel > 0) {
+                    if (scheduler.cancel(cancel)) {
+                        output.message("Cancelled task #" + cancel + '.');
+                    } else {
+                        output.error("No running task with id: " + cancel);
+                    }
+                } else {
+                    final List<LibGdxTaskScheduler.ScheduledTask> tasks = scheduler.getTasks();
+                    if (tasks.isEmpty()) {
+                        output.message("No running tasks.");
+                    }
+                    for (LibGdxTaskScheduler.ScheduledTask task : tasks) {
+                        output.message(task.getStatus());
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,258 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.log;
+
+import com.badlogic.gdx.*;
+import com.badlogic.gdx.utils.Clipboard;
+import com.github.ykrasik.jaci.cli.output.CliOutput;
+import com.github.ykrasik.jaci.cli.output.CliPrinter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class ApplicationLoggingDecoratorTest {
+    private final List<String> out = new ArrayList<>();
+    private final List<String> err = new ArrayList<>();
+
+    private FakeApplication application;
+    private ApplicationLoggingDecorator decorator;
+
+    @Before
+    public void setUp() {
+        application = new FakeApplication();
+        decorator = new ApplicationLoggingDecorator(application, new CliPrinter(new ListOutput(out)), new CliPrinter(new ListOutput(err)), 4, 2);
+    }
+
+    @Test
+    public void testMessagesPrintedOnRenderThread() {
+        decorator.log("tag", "a");
+        decorator.error("tag", "b");
+        assertTrue(out.isEmpty());
+        assertTrue(err.isEmpty());
+        assertEquals(Arrays.asList("tag: a", "tag: b"), application.logged);
+
+        application.runFrame();
+        assertEquals(Arrays.asList("tag: a"), out);
+        assertEquals(Arrays.asList("tag: b"), err);
+        assertTrue(application.runnables.isEmpty());
+    }
+
+    @Test
+    public void testMaxLinesPerFrame() {
+        decorator.log("tag", "a");
+        decorator.log("tag", "b");
+        decorator.log("tag", "c");
+        assertEquals(1, application.runnables.size());
+
+        application.runFrame();
+        assertEquals(Arrays.asList("tag: a", "tag: b"), out);
+        assertEquals(1, application.runnables.size());
+
+        application.runFrame();
+        assertEquals(Arrays.asList("tag: a", "tag: b", "tag: c"), out);
+        assertTrue(application.runnables.isEmpty());
+    }
+
+    @Test
+    public void testRepeatedAndDroppedMessages() {
+        decorator.log("tag", "a");
+        decorator.log("tag", "a");
+        decorator.log("tag", "b");
+        decorator.log("tag", "c");
+        decorator.log("tag", "d");
+        decorator.log("tag", "e");
+        assertEquals(6, application.logged.size());
+
+        application.runFrame();
+        application.runFrame();
+        assertEquals(Arrays.asList("tag: a (repeated 2 times)", "tag: b", "tag: c"), out);
+        assertEquals(Arrays.asList("... 2 messages dropped"), err);
+    }
+
+    @Test
+    public void testTagLogLevel() {
+        decorator.setTagLogLevel("quiet", Application.LOG_ERROR);
+        decorator.log("quiet", "a");
+        decorator.error("quiet", "b");
+        decorator.log("loud", "c");
+
+        application.runFrame();
+        assertEquals(Arrays.asList("loud: c"), out);
+        assertEquals(Arrays.asList("quiet: b"), err);
+        assertEquals(Arrays.asList("quiet: a", "quiet: b", "loud: c"), application.logged);
+
+        decorator.removeTagLogLevel("quiet");
+        decorator.log("quiet", "d");
+        application.runFrame();
+        assertEquals(Arrays.asList("loud: c", "quiet: d"), out);
+    }
+
+    private static class ListOutput implements CliOutput {
+        private final List<String> lines;
+
+        private ListOutput(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void println(String text) {
+            lines.add(text);
+        }
+    }
+
+    private static class FakeApplication implements Application {
+        private final List<String> logged = new ArrayList<>();
+        private final List<Runnable> runnables = new ArrayList<>();
+
+        private int logLevel = LOG_DEBUG;
+
+        private void runFrame() {
+            final List<Runnable> runnables = new ArrayList<>(this.runnables);
+            this.runnables.clear();
+            for (Runnable runnable : runnables) {
+                runnable.run();
+            }
+        }
+
+        @Override
+        public ApplicationListener getApplicationListener() {
+            return null;
+        }
+
+        @Override
+        public Graphics getGraphics() {
+            return null;
+        }
+
+        @Override
+        public Audio getAudio() {
+            return null;
+        }
+
+        @Override
+        public Input getInput() {
+            return null;
+        }
+
+        @Override
+        public Files getFiles() {
+            return null;
+        }
+
+        @Override
+        public Net getNet() {
+            return null;
+        }
+
+        @Override
+        public void log(String tag, String message) {
+            logged.add(tag + ": " + message);
+        }
+
+        @Override
+        public void log(String tag, String message, Throwable exception) {
+            log(tag, message);
+        }
+
+        @Override
+        public void error(String tag, String message) {
+            logged.add(tag + ": " + message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable exception) {
+            error(tag, message);
+        }
+
+        @Override
+        public void debug(String tag, String message) {
+            logged.add(tag + ": " + message);
+        }
+
+        @Override
+        public void debug(String tag, String message, Throwable exception) {
+            debug(tag, message);
+        }
+
+        @Override
+        public void setLogLevel(int logLevel) {
+            this.logLevel = logLevel;
+        }
+
+        @Override
+        public int getLogLevel() {
+            return logLevel;
+        }
+
+        @Override
+        public ApplicationType getType() {
+            return ApplicationType.HeadlessDesktop;
+        }
+
+        @Override
+        public int getVersion() {
+            return 0;
+        }
+
+        @Override
+        public long getJavaHeap() {
+            return 0;
+        }
+
+        @Override
+        public long getNativeHeap() {
+            return 0;
+        }
+
+        @Override
+        public Preferences getPreferences(String name) {
+            return null;
+        }
+
+        @Override
+        public Clipboard getClipboard() {
+            return null;
+        }
+
+        @Override
+        public void postRunnable(Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        @Override
+        public void exit() {
+        }
+
+        @Override
+        public void addLifecycleListener(LifecycleListener listener) {
+        }
+
+        @Override
+        public void removeLifecycleListener(LifecycleListener listener) {
+        }
+    }
+}
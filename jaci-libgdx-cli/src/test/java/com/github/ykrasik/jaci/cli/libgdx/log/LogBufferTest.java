@@ -0,0 +1,180 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.log;
+
+import com.badlogic.gdx.Application;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class LogBufferTest {
+    private LogBuffer buffer;
+    private LogBuffer.LogEntry entry;
+
+    @Before
+    public void setUp() {
+        buffer = new LogBuffer(3);
+        entry = new LogBuffer.LogEntry();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new LogBuffer(1);
+    }
+
+    @Test
+    public void testIdenticalMessagesCoalesced() {
+        offer("a");
+        offer("a");
+        offer("a");
+        buffer.offer(Application.LOG_ERROR, "tag", "a", null);
+        assertEquals(2, buffer.size());
+
+        assertPolled(Application.LOG_INFO, "a", 3);
+        assertPolled(Application.LOG_ERROR, "a", 1);
+        assertFalse(buffer.poll(entry));
+    }
+
+    @Test
+    public void testMessagesWithExceptionsNotCoalesced() {
+        final Exception exception = new RuntimeException();
+        buffer.offer(Application.LOG_INFO, "tag", "a", exception);
+        buffer.offer(Application.LOG_INFO, "tag", "a", exception);
+        assertEquals(2, buffer.size());
+
+        assertPolled(Application.LOG_INFO, "a", 1);
+        assertSame(exception, entry.exception);
+    }
+
+    @Test
+    public void testMessagesDroppedOnceFull() {
+        offer("a");
+        offer("b");
+        offer("c");
+        offer("d");
+        offer("e");
+        assertEquals(3, buffer.size());
+
+        assertPolled(Application.LOG_INFO, "a", 1);
+        assertPolled(Application.LOG_INFO, "b", 1);
+        assertPolled(LogBuffer.DROPPED, null, 3);
+        assertFalse(buffer.poll(entry));
+    }
+
+    @Test
+    public void testFreedSlotsReused() {
+        offer("a");
+        offer("b");
+        assertPolled(Application.LOG_INFO, "a", 1);
+
+        // Wraps around the end of the ring.
+        offer("c");
+        offer("d");
+        assertPolled(Application.LOG_INFO, "b", 1);
+        assertPolled(Application.LOG_INFO, "c", 1);
+        assertPolled(LogBuffer.DROPPED, null, 1);
+
+        offer("e");
+        assertPolled(Application.LOG_INFO, "e", 1);
+        assertFalse(buffer.poll(entry));
+    }
+
+    @Test
+    public void testDrainScheduledOnceUntilFinished() {
+        assertTrue(offer("a"));
+        assertFalse(offer("b"));
+        assertFalse(offer("b"));
+
+        assertPolled(Application.LOG_INFO, "a", 1);
+        assertTrue("Entries left, drain should stay scheduled", buffer.finishDrain());
+        assertFalse(offer("c"));
+
+        assertPolled(Application.LOG_INFO, "b", 2);
+        assertPolled(Application.LOG_INFO, "c", 1);
+        assertFalse(buffer.finishDrain());
+        assertTrue(offer("d"));
+    }
+
+    @Test
+    public void testConcurrentOffers() throws InterruptedException {
+        final int threads = 4;
+        final int messagesPerThread = 10000;
+        buffer = new LogBuffer(threads * messagesPerThread / 2);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final String tag = String.valueOf(i);
+            final Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int j = 0; j < messagesPerThread; j++) {
+                        buffer.offer(Application.LOG_INFO, tag, String.valueOf(j), null);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        final int[] nextMessage = new int[threads];
+        int received = 0;
+        int dropped = 0;
+        while (buffer.poll(entry)) {
+            if (entry.level == LogBuffer.DROPPED) {
+                dropped += entry.repeats;
+                continue;
+            }
+            final int thread = Integer.parseInt(entry.tag);
+            final int message = Integer.parseInt(entry.message);
+            assertTrue("Messages of thread " + thread + " out of order", message >= nextMessage[thread]);
+            nextMessage[thread] = message + 1;
+            received += entry.repeats;
+        }
+        assertEquals(threads * messagesPerThread, received + dropped);
+        assertEquals(threads * messagesPerThread / 2 - 1, received);
+    }
+
+    private boolean offer(String message) {
+        return buffer.offer(Application.LOG_INFO, "tag", message, null);
+    }
+
+    private void assertPolled(int level, String message, int repeats) {
+        assertTrue(buffer.poll(entry));
+        assertEquals(level, entry.level);
+        assertEquals(message, entry.message);
+        assertEquals(repeats, entry.repeats);
+    }
+}
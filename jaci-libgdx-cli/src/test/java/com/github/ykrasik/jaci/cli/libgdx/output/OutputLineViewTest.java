@@ -0,0 +1,151 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.cli.libgdx.output;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Uses a texture-less font, which is enough for measuring and laying out labels without a graphics context.
+ *
+ * @author Yevgeny Krasik
+ */
+public class OutputLineViewTest {
+    private static final float LINE_HEIGHT = 10;
+
+    private Skin skin;
+
+    @Before
+    public void setUp() {
+        final BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData();
+        data.lineHeight = LINE_HEIGHT;
+        data.down = -LINE_HEIGHT;
+        data.capHeight = LINE_HEIGHT;
+        final BitmapFont font = new BitmapFont(data, new TextureRegion(), false);
+
+        skin = new Skin();
+        skin.add("outputEntry", new Label.LabelStyle(font, Color.WHITE));
+    }
+
+    @Test
+    public void testPrefHeightIsSumOfLineHeights() {
+        final OutputLineView view = newView(10);
+        view.addLine("a", Color.WHITE);
+        view.addLine("b\nc", Color.WHITE);
+        assertEquals(3 * LINE_HEIGHT, view.getPrefHeight(), 0);
+    }
+
+    @Test
+    public void testOnlyBottomLinesRendered() {
+        final OutputLineView view = newView(10);
+        addLines(view, 0, 10);
+        view.layout();
+
+        assertEquals(Arrays.asList("7", "8", "9"), getVisibleLines(view));
+    }
+
+    @Test
+    public void testOnlyLinesInCullingAreaRendered() {
+        final OutputLineView view = newView(20);
+        addLines(view, 0, 20);
+        view.layout();
+
+        // Lines are laid out bottom-up, line 19 is at y=0.
+        view.setCullingArea(new Rectangle(0, 50, 100, 30));
+        assertEquals(Arrays.asList("12", "13", "14"), getVisibleLines(view));
+
+        view.setCullingArea(new Rectangle(0, 55, 100, 30));
+        assertEquals(Arrays.asList("11", "12", "13", "14"), getVisibleLines(view));
+    }
+
+    @Test
+    public void testOldestLinesEvicted() {
+        final OutputLineView view = newView(5);
+        addLines(view, 0, 8);
+        assertEquals(5 * LINE_HEIGHT, view.getPrefHeight(), 0);
+
+        view.setCullingArea(new Rectangle(0, 0, 100, 100));
+        assertEquals(Arrays.asList("3", "4", "5", "6", "7"), getVisibleLines(view));
+    }
+
+    @Test
+    public void testLabelsRecycled() {
+        final OutputLineView view = newView(1000);
+        for (int i = 0; i < 1000; i += 10) {
+            addLines(view, i, i + 10);
+            view.layout();
+        }
+        view.setCullingArea(new Rectangle(0, 5000, 100, 30));
+        view.setCullingArea(new Rectangle(0, 0, 100, 30));
+
+        assertEquals(Arrays.asList("997", "998", "999"), getVisibleLines(view));
+        assertTrue("Too many labels: " + view.getChildren().size, view.getChildren().size <= 4);
+    }
+
+    private OutputLineView newView(int capacity) {
+        final OutputLineView view = new OutputLineView(skin, capacity);
+        view.setSize(100, 3 * LINE_HEIGHT);
+        return view;
+    }
+
+    private void addLines(OutputLineView view, int from, int to) {
+        for (int i = from; i < to; i++) {
+            view.addLine(String.valueOf(i), Color.WHITE);
+        }
+    }
+
+    /**
+     * @return Texts of the visible labels, top to bottom.
+     */
+    private List<String> getVisibleLines(OutputLineView view) {
+        final List<Label> labels = new ArrayList<>();
+        for (Actor actor : view.getChildren()) {
+            if (actor.isVisible()) {
+                labels.add((Label) actor);
+            }
+        }
+        Collections.sort(labels, new Comparator<Label>() {
+            @Override
+            public int compare(Label o1, Label o2) {
+                return Float.compare(o2.getY(), o1.getY());
+            }
+        });
+
+        final List<String> lines = new ArrayList<>(labels.size());
+        for (Label label : labels) {
+            lines.add(label.getText().toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,116 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.reflection;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link ReflectionAccessor} that memoizes the reflection metadata of every class it is asked about
+ * in a {@link ClassMetadata}, and delegates the actual reflection to another {@link ReflectionAccessor}.<br>
+ * This makes processing the same classes repeatedly (multiple shells, tests) nearly free.
+ * Constructors and instantiation are not cached.<br>
+ * <br>
+ * By default, metadata is kept in a map with strong keys, which is GWT compatible but prevents classes from being
+ * unloaded. Environments that support class unloading should override {@link #getMetadata(Class)}.
+ *
+ * @author Yevgeny Krasik
+ */
+public class CachingReflectionAccessor implements ReflectionAccessor {
+    private final ReflectionAccessor delegate;
+    private final Map<Class<?>, ClassMetadata> metadata = new HashMap<>();
+
+    /**
+     * @param delegate Accessor to delegate reflection to.
+     */
+    public CachingReflectionAccessor(ReflectionAccessor delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+
+    /**
+     * Get the (possibly memoized) metadata of the given class.
+     *
+     * @param clazz Class to get metadata for.
+     * @return Metadata of the given class.
+     */
+    public ClassMetadata getMetadata(Class<?> clazz) {
+        synchronized (metadata) {
+            ClassMetadata classMetadata = metadata.get(clazz);
+            if (classMetadata == null) {
+                classMetadata = createMetadata(clazz);
+                metadata.put(clazz, classMetadata);
+            }
+            return classMetadata;
+        }
+    }
+
+    /**
+     * @param clazz Class to create metadata for.
+     * @return New, not yet computed, metadata for the given class.
+     */
+    protected ClassMetadata createMetadata(Class<?> clazz) {
+        return new ClassMetadata(delegate, clazz);
+    }
+
+    @Override
+    public ReflectionMethod getDeclaredMethod(Class<?> clazz, String name, Class<?>... parameterTypes) throws Exception {
+        return getMetadata(clazz).getDeclaredMethod(name, parameterTypes);
+    }
+
+    @Override
+    public ReflectionMethod[] getMethods(Class<?> clazz) throws SecurityException {
+        return getMetadata(clazz).getMethods();
+    }
+
+    @Override
+    public ReflectionField[] getDeclaredFields(Class<?> clazz) throws SecurityException {
+        return getMetadata(clazz).getDeclaredFields();
+    }
+
+    @Override
+    public <T extends Annotation> T getAnnotation(Class<?> clazz, Class<T> annotationClass) {
+        return getMetadata(clazz).getAnnotation(annotationClass);
+    }
+
+    @Override
+    public <T> T newInstance(Class<T> clazz) throws Exception {
+        return delegate.newInstance(clazz);
+    }
+
+    @Override
+    public Class<?>[] getDeclaredClasses(Class<?> clazz) throws Exception {
+        return getMetadata(clazz).getDeclaredClasses();
+    }
+
+    @Override
+    public <T> ReflectionConstructor<T> getDeclaredConstructor(Class<T> clazz, Class<?>... parameterTypes) throws Exception {
+        return delegate.getDeclaredConstructor(clazz, parameterTypes);
+    }
+
+    @Override
+    public boolean isAssignableFrom(Class<?> c1, Class<?> c2) {
+        return delegate.isAssignableFrom(c1, c2);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingReflectionAccessor{delegate=" + delegate + '}';
+    }
+}
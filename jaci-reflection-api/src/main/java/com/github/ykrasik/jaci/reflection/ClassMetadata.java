@@ -0,0 +1,164 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.reflection;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reflection metadata of a single class, computed lazily through a {@link ReflectionAccessor} and then memoized.<br>
+ * The returned arrays are shared by all callers and must not be modified.
+ *
+ * @author Yevgeny Krasik
+ */
+public class ClassMetadata {
+    private final ReflectionAccessor accessor;
+    private final Class<?> clazz;
+
+    private ReflectionMethod[] methods;
+    private ReflectionField[] declaredFields;
+    private Class<?>[] declaredClasses;
+    private final Map<Class<?>, Annotation> annotations = new HashMap<>();
+    private final Map<List<Object>, ReflectionMethod> declaredMethods = new HashMap<>();
+    private final Map<List<Class<? extends Annotation>>, ReflectionMethod[]> annotatedMethods = new HashMap<>();
+
+    /**
+     * @param accessor Accessor to compute metadata through.
+     * @param clazz Class to compute metadata for.
+     */
+    public ClassMetadata(ReflectionAccessor accessor, Class<?> clazz) {
+        this.accessor = Objects.requireNonNull(accessor, "accessor");
+        this.clazz = Objects.requireNonNull(clazz, "clazz");
+    }
+
+    /**
+     * @return The class this metadata belongs to.
+     */
+    public Class<?> getType() {
+        return clazz;
+    }
+
+    /**
+     * @return All public methods of the class, including inherited ones.
+     * @see ReflectionAccessor#getMethods(Class)
+     */
+    public synchronized ReflectionMethod[] getMethods() {
+        if (methods == null) {
+            methods = accessor.getMethods(clazz);
+        }
+        return methods;
+    }
+
+    /**
+     * @param annotationClasses Annotation types to filter by.
+     * @return All public methods of the class (including inherited ones) that are annotated with any of the given annotations.
+     */
+    public synchronized ReflectionMethod[] getMethodsAnnotatedWithAny(List<Class<? extends Annotation>> annotationClasses) {
+        ReflectionMethod[] methods = annotatedMethods.get(annotationClasses);
+        if (methods == null) {
+            final List<ReflectionMethod> annotated = new ArrayList<>();
+            for (ReflectionMethod method : getMethods()) {
+                if (isAnnotatedWithAny(method, annotationClasses)) {
+                    annotated.add(method);
+                }
+            }
+            methods = annotated.toArray(new ReflectionMethod[annotated.size()]);
+            // Copied, as the key must not change while it's in the map.
+            annotatedMethods.put(new ArrayList<>(annotationClasses), methods);
+        }
+        return methods;
+    }
+
+    private boolean isAnnotatedWithAny(ReflectionMethod method, List<Class<? extends Annotation>> annotationClasses) {
+        for (Class<? extends Annotation> annotationClass : annotationClasses) {
+            if (method.getAnnotation(annotationClass) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param name Method name.
+     * @param parameterTypes Method parameter types.
+     * @return The declared method with the given name and parameter types.
+     * @throws Exception If no such method is declared by the class. Failed lookups aren't memoized.
+     * @see ReflectionAccessor#getDeclaredMethod(Class, String, Class[])
+     */
+    public synchronized ReflectionMethod getDeclaredMethod(String name, Class<?>... parameterTypes) throws Exception {
+        final List<Object> key = new ArrayList<>(parameterTypes.length + 1);
+        key.add(name);
+        key.addAll(Arrays.asList(parameterTypes));
+
+        ReflectionMethod method = declaredMethods.get(key);
+        if (method == null) {
+            method = accessor.getDeclaredMethod(clazz, name, parameterTypes);
+            declaredMethods.put(key, method);
+        }
+        return method;
+    }
+
+    /**
+     * @return All fields declared by the class.
+     * @see ReflectionAccessor#getDeclaredFields(Class)
+     */
+    public synchronized ReflectionField[] getDeclaredFields() {
+        if (declaredFields == null) {
+            declaredFields = accessor.getDeclaredFields(clazz);
+        }
+        return declaredFields;
+    }
+
+    /**
+     * @return All classes and interfaces declared by the class.
+     * @throws Exception If any error occurs.
+     * @see ReflectionAccessor#getDeclaredClasses(Class)
+     */
+    public synchronized Class<?>[] getDeclaredClasses() throws Exception {
+        if (declaredClasses == null) {
+            declaredClasses = accessor.getDeclaredClasses(clazz);
+        }
+        return declaredClasses;
+    }
+
+    /**
+     * @param annotationClass Annotation type.
+     * @param <T> Annotation type.
+     * @return The class's annotation of the given type, or {@code null} if the class isn't annotated with it.
+     * @see ReflectionAccessor#getAnnotation(Class, Class)
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+        if (annotations.containsKey(annotationClass)) {
+            return (T) annotations.get(annotationClass);
+        }
+        final T annotation = accessor.getAnnotation(clazz, annotationClass);
+        annotations.put(annotationClass, annotation);
+        return annotation;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassMetadata{clazz=" + clazz + '}';
+    }
+}
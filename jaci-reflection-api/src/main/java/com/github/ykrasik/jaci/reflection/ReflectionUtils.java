@@ -19,6 +19,7 @@ package com.github.ykrasik.jaci.reflection;
 import com.github.ykrasik.jaci.util.exception.SneakyException;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -115,6 +116,24 @@ public final class ReflectionUtils {
         }
     }
 
+    /**
+     * Returns a method declared by the class with the provided name and parameter types.
+     *
+     * @param clazz Class to search.
+     * @param methodName Method name.
+     * @param parameterTypes Method parameter types.
+     * @return A method declared by the class with the provided name and parameter types.
+     * @throws RuntimeException If the class doesn't declare such a method.
+     */
+    public static ReflectionMethod getDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
+        assertReflectionAccessor();
+        try {
+            return accessor.getDeclaredMethod(clazz, methodName, parameterTypes);
+        } catch (Exception e) {
+            throw SneakyException.sneakyThrow(e);
+        }
+    }
+
     /**
      * Returns an array containing {@code ReflectionMethod} objects reflecting all the
      * public methods of the class or interface represented by this {@code
@@ -130,6 +149,27 @@ public final class ReflectionUtils {
         return accessor.getMethods(clazz);
     }
 
+    /**
+     * Returns all public methods of the class, including inherited ones, that are annotated with any of the given annotations.
+     * The result is memoized if the current {@link ReflectionAccessor} is a {@link CachingReflectionAccessor}.
+     *
+     * @param clazz Class to get methods from.
+     * @param annotationClasses Annotation types to filter by.
+     * @return All public methods of the class that are annotated with any of the given annotations.
+     */
+    @SafeVarargs
+    public static ReflectionMethod[] getMethodsAnnotatedWithAny(Class<?> clazz, Class<? extends Annotation>... annotationClasses) {
+        assertReflectionAccessor();
+        final ClassMetadata metadata = accessor instanceof CachingReflectionAccessor
+            ? ((CachingReflectionAccessor) accessor).getMetadata(clazz)
+            : new ClassMetadata(accessor, clazz);
+        final List<Class<? extends Annotation>> annotationClassList = new ArrayList<>(annotationClasses.length);
+        for (Class<? extends Annotation> annotationClass : annotationClasses) {
+            annotationClassList.add(annotationClass);
+        }
+        return metadata.getMethodsAnnotatedWithAny(annotationClassList);
+    }
+
     /**
      * Returns an array of {@code Field} objects reflecting all the fields
      * declared by the class or interface represented by this
@@ -21,14 +21,24 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
 /**
- * Accesses reflection through the Java API.
+ * Accesses reflection through the Java API.<br>
+ * By default, methods are invoked through {@link java.lang.invoke.MethodHandle}s (see {@link MethodHandleReflectionMethod}),
+ * which are bound once per method. {@link #installPlainReflection()} installs an accessor that invokes methods
+ * only through {@link Method#invoke}.<br>
+ * The installed accessors memoize class metadata (see {@link CachingReflectionAccessor}) in a {@link ClassValue},
+ * which doesn't prevent classes from being unloaded.
  *
  * @author Yevgeny Krasik
  */
 public final class JavaReflectionAccessor implements ReflectionAccessor {
-    private JavaReflectionAccessor() { }
+    private static final ReflectionAccessor INSTANCE = new ClassValueCachingReflectionAccessor(new JavaReflectionAccessor(true));
+    private static final ReflectionAccessor PLAIN_REFLECTION_INSTANCE = new ClassValueCachingReflectionAccessor(new JavaReflectionAccessor(false));
 
-    private static final ReflectionAccessor INSTANCE = new JavaReflectionAccessor();
+    private final boolean useMethodHandles;
+
+    private JavaReflectionAccessor(boolean useMethodHandles) {
+        this.useMethodHandles = useMethodHandles;
+    }
 
     /**
      * Install this {@code ReflectionAccessor} to be used by the reflection API.
@@ -37,9 +47,17 @@ public final class JavaReflectionAccessor implements ReflectionAccessor {
         ReflectionUtils.setReflectionAccessor(INSTANCE);
     }
 
+    /**
+     * Install this {@code ReflectionAccessor} to be used by the reflection API, invoking methods only through
+     * {@link Method#invoke} and never through method handles.
+     */
+    public static void installPlainReflection() {
+        ReflectionUtils.setReflectionAccessor(PLAIN_REFLECTION_INSTANCE);
+    }
+
     @Override
     public ReflectionMethod getDeclaredMethod(Class<?> clazz, String name, Class<?>... parameterTypes) throws Exception {
-        return new JavaReflectionMethod(clazz.getDeclaredMethod(name, parameterTypes));
+        return wrap(clazz.getDeclaredMethod(name, parameterTypes));
     }
 
     @Override
@@ -47,11 +65,15 @@ public final class JavaReflectionAccessor implements ReflectionAccessor {
         final Method[] methods = clazz.getMethods();
         final ReflectionMethod[] reflectionMethods = new ReflectionMethod[methods.length];
         for (int i = 0; i < methods.length; i++) {
-            reflectionMethods[i] = new JavaReflectionMethod(methods[i]);
+            reflectionMethods[i] = wrap(methods[i]);
         }
         return reflectionMethods;
     }
 
+    private ReflectionMethod wrap(Method method) {
+        return useMethodHandles ? new MethodHandleReflectionMethod(method) : new JavaReflectionMethod(method);
+    }
+
     @Override
     public ReflectionField[] getDeclaredFields(Class<?> clazz) throws SecurityException {
         final Field[] fields = clazz.getDeclaredFields();
@@ -86,4 +108,26 @@ public final class JavaReflectionAccessor implements ReflectionAccessor {
     public boolean isAssignableFrom(Class<?> c1, Class<?> c2) {
         return c1.isAssignableFrom(c2);
     }
+
+    /**
+     * A {@link CachingReflectionAccessor} that keeps class metadata in a {@link ClassValue}.
+     * Unlike a weak-keyed map, this works even though the metadata strongly references its class.
+     */
+    private static class ClassValueCachingReflectionAccessor extends CachingReflectionAccessor {
+        private final ClassValue<ClassMetadata> metadata = new ClassValue<ClassMetadata>() {
+            @Override
+            protected ClassMetadata computeValue(Class<?> type) {
+                return createMetadata(type);
+            }
+        };
+
+        private ClassValueCachingReflectionAccessor(ReflectionAccessor delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public ClassMetadata getMetadata(Class<?> clazz) {
+            return metadata.get(clazz);
+        }
+    }
 }
@@ -30,11 +30,12 @@ import java.util.Objects;
  */
 public class JavaReflectionMethod implements ReflectionMethod {
     private final Method method;
-    private final List<ReflectionParameter> parameters;
+
+    /** Computed lazily - most methods of a processed class are never asked for their parameters. */
+    private volatile List<ReflectionParameter> parameters;
 
     public JavaReflectionMethod(Method method) {
         this.method = Objects.requireNonNull(method, "method");
-        this.parameters = computeParameters();
     }
 
     private List<ReflectionParameter> computeParameters() {
@@ -66,7 +67,14 @@ public class JavaReflectionMethod implements ReflectionMethod {
     public <A extends Annotation> A getAnnotation(Class<A> annotationClass) { return method.getAnnotation(annotationClass); }
 
     @Override
-    public List<ReflectionParameter> getParameters() { return parameters; }
+    public List<ReflectionParameter> getParameters() {
+        List<ReflectionParameter> parameters = this.parameters;
+        if (parameters == null) {
+            parameters = computeParameters();
+            this.parameters = parameters;
+        }
+        return parameters;
+    }
 
     @Override
     public Class<?> getReturnType() { return method.getReturnType(); }
@@ -75,7 +83,6 @@ public class JavaReflectionMethod implements ReflectionMethod {
     public String toString() {
         final StringBuilder sb = new StringBuilder("JavaReflectionMethod{");
         sb.append("method=").append(method);
-        sb.append(", parameters=").append(parameters);
         sb.append('}');
         return sb.toString();
     }
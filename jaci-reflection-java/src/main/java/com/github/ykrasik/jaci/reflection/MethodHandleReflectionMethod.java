@@ -0,0 +1,158 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reflection information about a method, through the Java reflection API, which is invoked through a {@link MethodHandle}.<br>
+ * The handle is bound once, on first invocation, and adapted to an exact-arity spreader of type
+ * {@code (Object, Object[])Object}, so every invocation after that skips the access checks of {@link Method#invoke}.<br>
+ * Falls back to {@link Method#invoke} if the handle can't be bound, or if the arguments of a specific invocation
+ * can't be passed to the handle as-is (wrong arity, receiver or argument types) - this keeps the exact semantics
+ * (and error messages) of {@link Method#invoke} for those cases.
+ *
+ * @author Yevgeny Krasik
+ */
+public class MethodHandleReflectionMethod extends JavaReflectionMethod {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Method method;
+    private final boolean isStatic;
+    private final Class<?>[] parameterTypes;
+    private final Class<?>[] boxedParameterTypes;
+
+    /** Set after {@link #invoker} was bound, a {@code null} invoker then means that the handle couldn't be bound. */
+    private volatile boolean bound;
+    private volatile MethodHandle invoker;
+
+    public MethodHandleReflectionMethod(Method method) {
+        super(method);
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+        this.parameterTypes = method.getParameterTypes();
+        this.boxedParameterTypes = boxAll(parameterTypes);
+    }
+
+    @Override
+    public Object invoke(Object obj, Object... args) throws Exception {
+        final Object[] actualArgs = args != null ? args : NO_ARGS;
+        final MethodHandle invoker = getInvoker();
+        if (invoker == null || !canInvokeExact(obj, actualArgs)) {
+            return method.invoke(obj, actualArgs);
+        }
+
+        try {
+            return (Object) invoker.invokeExact(obj, actualArgs);
+        } catch (Throwable t) {
+            // The arguments were already validated, so anything thrown here was thrown by the method itself.
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    @Override
+    public void setAccessible(boolean flag) throws SecurityException {
+        super.setAccessible(flag);
+
+        // Access is checked when the handle is bound, so re-bind it on next invocation.
+        bound = false;
+    }
+
+    private MethodHandle getInvoker() {
+        if (!bound) {
+            invoker = bindInvoker();
+            bound = true;
+        }
+        return invoker;
+    }
+
+    private MethodHandle bindInvoker() {
+        final int arity = parameterTypes.length;
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (isStatic) {
+                // Accept (and ignore) a receiver, so static & instance methods share the same invoker type.
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(MethodType.genericMethodType(arity + 1)).asSpreader(Object[].class, arity);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean canInvokeExact(Object obj, Object[] args) {
+        if (args.length != parameterTypes.length) {
+            return false;
+        }
+        if (!isStatic && !method.getDeclaringClass().isInstance(obj)) {
+            return false;
+        }
+        for (int i = 0; i < args.length; i++) {
+            final Object arg = args[i];
+            if (arg == null ? parameterTypes[i].isPrimitive() : !boxedParameterTypes[i].isInstance(arg)) {
+                // Let Method.invoke handle (or reject) nulls for primitives & widening conversions.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?>[] boxAll(Class<?>[] types) {
+        final Class<?>[] boxed = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            boxed[i] = box(types[i]);
+        }
+        return boxed;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        }
+        if (type == long.class) {
+            return Long.class;
+        }
+        if (type == double.class) {
+            return Double.class;
+        }
+        if (type == boolean.class) {
+            return Boolean.class;
+        }
+        if (type == float.class) {
+            return Float.class;
+        }
+        if (type == short.class) {
+            return Short.class;
+        }
+        if (type == byte.class) {
+            return Byte.class;
+        }
+        if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+}
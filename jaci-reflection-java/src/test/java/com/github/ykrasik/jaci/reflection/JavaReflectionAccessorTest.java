@@ -0,0 +1,77 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.reflection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class JavaReflectionAccessorTest {
+    @Before
+    public void setUp() {
+        JavaReflectionAccessor.install();
+    }
+
+    @Test
+    public void metadataIsCached() throws Exception {
+        assertSame(ReflectionUtils.getMethods(Target.class), ReflectionUtils.getMethods(Target.class));
+        assertSame(ReflectionUtils.getDeclaredFields(Target.class), ReflectionUtils.getDeclaredFields(Target.class));
+        assertSame(ReflectionUtils.getNoArgsMethod(Target.class, "supplier"), ReflectionUtils.getNoArgsMethod(Target.class, "supplier"));
+
+        // Re-installing keeps the cache.
+        final ReflectionMethod[] methods = ReflectionUtils.getMethods(Target.class);
+        JavaReflectionAccessor.install();
+        assertSame(methods, ReflectionUtils.getMethods(Target.class));
+    }
+
+    @Test
+    public void annotatedMethods() {
+        final ReflectionMethod[] methods = ReflectionUtils.getMethodsAnnotatedWithAny(Target.class, Marker.class);
+        assertEquals(1, methods.length);
+        assertEquals("marked", methods[0].getName());
+        assertSame(methods, ReflectionUtils.getMethodsAnnotatedWithAny(Target.class, Marker.class));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void missingMethod() {
+        ReflectionUtils.getNoArgsMethod(Target.class, "missing");
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker { }
+
+    public static class Target {
+        private int field;
+
+        @Marker
+        public void marked() { }
+
+        public void unmarked() { }
+
+        private int supplier() {
+            return field;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/******************************************************************************
+ * Copyright (C) 2016 Yevgeny Krasik                                          *
+ *                                                                            *
+ * Licensed under the Apache License, Version 2.0 (the "License");            *
+ * you may not use this file except in compliance with the License.           *
+ * You may obtain a copy of the License at                                    *
+ *                                                                            *
+ * http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                            *
+ * Unless required by applicable law or agreed to in writing, software        *
+ * distributed under the License is distributed on an "AS IS" BASIS,          *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ * See the License for the specific language governing permissions and        *
+ * limitations under the License.                                             *
+ ******************************************************************************/
+
+
+package com.github.ykrasik.jaci.reflection;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yevgeny Krasik
+ */
+public class MethodHandleReflectionMethodTest {
+    @Test
+    public void instanceMethod() throws Exception {
+        final ReflectionMethod method = method("concat", String.class, int.class);
+        assertEquals("a1", method.invoke(new Target(), "a", 1));
+        assertEquals("null2", method.invoke(new Target(), null, 2));
+    }
+
+    @Test
+    public void staticMethod() throws Exception {
+        final ReflectionMethod method = method("sum", long.class, long.class);
+        assertEquals(3L, method.invoke(null, 1L, 2L));
+
+        // Widening conversion, falls back to Method.invoke.
+        assertEquals(3L, method.invoke(null, 1, 2));
+    }
+
+    @Test
+    public void voidMethod() throws Exception {
+        final Target target = new Target();
+        assertNull(method("touch").invoke(target));
+        assertTrue(target.touched);
+    }
+
+    @Test(expected = InvocationTargetException.class)
+    public void methodThrows() throws Exception {
+        method("fail").invoke(new Target());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongArity() throws Exception {
+        method("concat", String.class, int.class).invoke(new Target(), "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPrimitive() throws Exception {
+        method("concat", String.class, int.class).invoke(new Target(), "a", null);
+    }
+
+    @Test
+    public void privateMethod() throws Exception {
+        final ReflectionMethod method = method("secret");
+        method.setAccessible(true);
+        assertEquals("secret", method.invoke(new Target()));
+    }
+
+    private ReflectionMethod method(String name, Class<?>... parameterTypes) throws Exception {
+        return new MethodHandleReflectionMethod(Target.class.getDeclaredMethod(name, parameterTypes));
+    }
+
+    public static class Target {
+        private boolean touched;
+
+        public String concat(String str, int i) {
+            return str + i;
+        }
+
+        public static long sum(long a, long b) {
+            return a + b;
+        }
+
+        public void touch() {
+            touched = true;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+
+        private String secret() {
+            return "secret";
+        }
+    }
+}